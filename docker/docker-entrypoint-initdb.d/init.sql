@@ -63,7 +63,214 @@ SELECT pg_catalog.setval('public.d_cat_catalog_id_seq', 302, true);
 ALTER TABLE ONLY public.d_cat_catalog
     ADD CONSTRAINT d_cat_catalog_pkey PRIMARY KEY (id);
 
-CREATE UNIQUE INDEX d_cat_catalog_id_uindex ON public.d_cat_catalog USING btree (id);
+-- Отдельный уникальный индекс по id не создаётся: его дублирует первичный ключ
 
 ALTER TABLE ONLY public.f_cat_plants
     ADD CONSTRAINT f_cat_plants_d_cat_catalog_id_fk FOREIGN KEY (catalog_id) REFERENCES public.d_cat_catalog(id);
+
+-- Уникальность каталога по UUID: используется режимом --mode=upsert для поиска каталога
+
+CREATE UNIQUE INDEX d_cat_catalog_uuid_uindex ON public.d_cat_catalog USING btree (uuid);
+
+-- Индекс по каталогу для выборки и синхронизации растений одного каталога
+
+CREATE INDEX f_cat_plants_catalog_id_index ON public.f_cat_plants USING btree (catalog_id);
+
+-- Staging-таблицы режима --mode=staging: сырые строки загрузки до set-based валидации
+
+CREATE SEQUENCE public.stg_load_id_seq;
+
+CREATE UNLOGGED TABLE public.stg_cat_catalog (
+    load_id bigint NOT NULL,
+    catalog_seq integer NOT NULL,
+    uuid character varying(2000),
+    company character varying(2000),
+    delivery_date date,
+    error_codes character varying(100)[] NOT NULL DEFAULT '{}',
+    PRIMARY KEY (load_id, catalog_seq)
+);
+
+CREATE UNLOGGED TABLE public.stg_cat_plants (
+    load_id bigint NOT NULL,
+    catalog_seq integer NOT NULL,
+    plant_seq integer NOT NULL,
+    common character varying(2000),
+    botanical character varying(2000),
+    zone_text character varying(2000),
+    light character varying(2000),
+    price numeric,
+    availability integer,
+    error_codes character varying(100)[] NOT NULL DEFAULT '{}',
+    PRIMARY KEY (load_id, catalog_seq, plant_seq)
+);
+
+-- Отклонённые каталоги и растения с кодами ошибок валидации: load_id заполняется загрузкой через staging,
+-- run_id (ingest_run.id), file_path и error_message — загрузкой через приёмник
+
+CREATE TABLE public.r_cat_reject (
+    id bigserial PRIMARY KEY,
+    load_id bigint,
+    run_id bigint,
+    rejected_at timestamp without time zone NOT NULL DEFAULT now(),
+    file_path character varying(4000),
+    catalog_uuid character varying(2000),
+    plant_ordinal integer,
+    error_code character varying(100) NOT NULL,
+    error_message character varying(2000),
+    common character varying(2000),
+    botanical character varying(2000),
+    zone character varying(2000),
+    light character varying(2000),
+    price character varying(2000),
+    availability character varying(2000)
+);
+
+CREATE INDEX r_cat_reject_run_id_index ON public.r_cat_reject USING btree (run_id);
+
+-- Сводки растений, обновляемые при загрузке в одной транзакции с f_cat_plants
+
+CREATE TABLE public.a_cat_catalog_summary (
+    catalog_id integer NOT NULL,
+    zone integer NOT NULL,
+    light character varying(2000) NOT NULL,
+    company character varying(2000),
+    plant_count bigint NOT NULL,
+    price_sum numeric NOT NULL,
+    price_min numeric,
+    price_max numeric,
+    availability_total bigint NOT NULL,
+    PRIMARY KEY (catalog_id, zone, light)
+);
+
+CREATE TABLE public.a_cat_dimension_summary (
+    dimension character varying(20) NOT NULL,
+    dim_key character varying(2000) NOT NULL,
+    plant_count bigint NOT NULL,
+    price_sum numeric NOT NULL,
+    price_min numeric,
+    price_max numeric,
+    availability_total bigint NOT NULL,
+    PRIMARY KEY (dimension, dim_key)
+);
+
+CREATE VIEW public.v_cat_catalog_summary AS
+SELECT catalog_id,
+       sum(plant_count) AS plant_count,
+       min(price_min) AS price_min,
+       max(price_max) AS price_max,
+       sum(price_sum) / nullif(sum(plant_count), 0) AS price_avg,
+       sum(availability_total) AS availability_total
+FROM public.a_cat_catalog_summary
+GROUP BY catalog_id;
+
+CREATE VIEW public.v_cat_dimension_summary AS
+SELECT dimension,
+       dim_key,
+       plant_count,
+       price_min,
+       price_max,
+       price_sum / nullif(plant_count, 0) AS price_avg,
+       availability_total
+FROM public.a_cat_dimension_summary;
+
+-- Контрольные точки загрузки больших файлов (--checkpoint-rows): пишутся в одной транзакции с растениями
+
+CREATE TABLE public.ingest_checkpoint (
+    file_path character varying(4000) PRIMARY KEY,
+    file_size bigint NOT NULL,
+    file_mtime bigint NOT NULL,
+    catalog_id integer NOT NULL,
+    plant_ordinal integer NOT NULL,
+    completed boolean NOT NULL DEFAULT false,
+    updated_at timestamp without time zone NOT NULL DEFAULT now()
+);
+
+-- Индексы и внешние ключи, удалённые на время загрузки с --bulk-load, и DDL для их восстановления
+
+CREATE TABLE public.ingest_deferred_ddl (
+    object_name character varying(200) PRIMARY KEY,
+    object_kind character varying(20) NOT NULL,
+    restore_sql text NOT NULL,
+    validate_sql text,
+    deferred_at timestamp without time zone NOT NULL DEFAULT now()
+);
+
+-- История запусков загрузки: строка запуска создаётся при старте, строка файла — по окончании его обработки
+
+CREATE TABLE public.ingest_run (
+    id bigserial PRIMARY KEY,
+    started_at timestamp without time zone NOT NULL DEFAULT now(),
+    finished_at timestamp without time zone,
+    status character varying(20) NOT NULL DEFAULT 'RUNNING',
+    command character varying(50) NOT NULL,
+    write_mode character varying(20),
+    input_path character varying(4000),
+    options character varying(4000),
+    host character varying(255),
+    cpu_count integer,
+    max_heap_mb bigint,
+    java_version character varying(100),
+    catalogs_saved integer,
+    catalogs_rejected integer,
+    plants_saved bigint,
+    plants_rejected bigint,
+    batch_size integer,
+    writer_count integer,
+    tuning_adjustments integer,
+    error character varying(4000)
+);
+
+CREATE TABLE public.ingest_file (
+    id bigserial PRIMARY KEY,
+    run_id bigint NOT NULL REFERENCES public.ingest_run(id) ON DELETE CASCADE,
+    file_path character varying(4000) NOT NULL,
+    file_bytes bigint,
+    catalog_uuid character varying(2000),
+    status character varying(20) NOT NULL,
+    plants_parsed integer,
+    plants_saved integer,
+    plants_rejected integer,
+    parse_ms numeric(14,3),
+    validate_ms numeric(14,3),
+    write_ms numeric(14,3),
+    finished_at timestamp without time zone NOT NULL DEFAULT now()
+);
+
+CREATE INDEX ingest_file_run_id_index ON public.ingest_file USING btree (run_id);
+
+-- Пропускная способность запусков: итоги из ingest_run, объём — по файлам запуска
+
+CREATE VIEW public.v_ingest_run AS
+SELECT r.id,
+       r.started_at,
+       r.finished_at,
+       r.status,
+       r.command,
+       r.write_mode,
+       r.options,
+       r.host,
+       r.cpu_count,
+       r.max_heap_mb,
+       r.batch_size,
+       r.writer_count,
+       r.tuning_adjustments,
+       f.files,
+       f.bytes,
+       r.plants_saved,
+       r.plants_rejected,
+       extract(epoch FROM r.finished_at - r.started_at) AS seconds,
+       r.plants_saved / nullif(extract(epoch FROM r.finished_at - r.started_at), 0) AS plants_per_second,
+       f.bytes / 1048576.0 / nullif(extract(epoch FROM r.finished_at - r.started_at), 0) AS mb_per_second,
+       f.parse_ms,
+       f.validate_ms,
+       f.write_ms
+FROM public.ingest_run r
+LEFT JOIN LATERAL (
+    SELECT count(*) AS files,
+           sum(file_bytes) AS bytes,
+           sum(parse_ms) AS parse_ms,
+           sum(validate_ms) AS validate_ms,
+           sum(write_ms) AS write_ms
+    FROM public.ingest_file
+    WHERE run_id = r.id
+) f ON true;
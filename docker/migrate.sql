@@ -0,0 +1,258 @@
+-- Миграция существующей базы xmlparser до схемы init.sql
+--
+-- init.sql применяется только к пустому тому; этот скрипт доводит до той же схемы базу, созданную раньше,
+-- не трогая данные. Скрипт идемпотентен: его можно запускать повторно и на уже актуальной базе.
+--
+-- docker exec -i xmlparser-postgres psql -v ON_ERROR_STOP=1 -U <DB_USERNAME> -d <DB_NAME> < docker/migrate.sql
+
+BEGIN;
+
+SET client_min_messages = warning;
+
+-- Уникальность каталога по UUID: на ней основаны ON CONFLICT (uuid) при вставке и режим --mode=upsert
+
+DO $$
+DECLARE
+    duplicates bigint;
+BEGIN
+    IF to_regclass('public.d_cat_catalog_uuid_uindex') IS NULL THEN
+        SELECT count(*) INTO duplicates
+        FROM (SELECT uuid FROM public.d_cat_catalog GROUP BY uuid HAVING count(*) > 1) d;
+        IF duplicates > 0 THEN
+            RAISE EXCEPTION 'В d_cat_catalog % повторяющихся UUID: удалите лишние каталоги и их растения, затем повторите миграцию',
+                duplicates;
+        END IF;
+    END IF;
+END
+$$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS d_cat_catalog_uuid_uindex ON public.d_cat_catalog USING btree (uuid);
+
+-- Индекс по id дублирует первичный ключ
+
+DROP INDEX IF EXISTS public.d_cat_catalog_id_uindex;
+
+CREATE INDEX IF NOT EXISTS f_cat_plants_catalog_id_index ON public.f_cat_plants USING btree (catalog_id);
+
+-- Staging-таблицы режима --mode=staging
+
+CREATE SEQUENCE IF NOT EXISTS public.stg_load_id_seq;
+
+CREATE UNLOGGED TABLE IF NOT EXISTS public.stg_cat_catalog (
+    load_id bigint NOT NULL,
+    catalog_seq integer NOT NULL,
+    uuid character varying(2000),
+    company character varying(2000),
+    delivery_date date,
+    error_codes character varying(100)[] NOT NULL DEFAULT '{}',
+    PRIMARY KEY (load_id, catalog_seq)
+);
+
+CREATE UNLOGGED TABLE IF NOT EXISTS public.stg_cat_plants (
+    load_id bigint NOT NULL,
+    catalog_seq integer NOT NULL,
+    plant_seq integer NOT NULL,
+    common character varying(2000),
+    botanical character varying(2000),
+    zone_text character varying(2000),
+    light character varying(2000),
+    price numeric,
+    availability integer,
+    error_codes character varying(100)[] NOT NULL DEFAULT '{}',
+    PRIMARY KEY (load_id, catalog_seq, plant_seq)
+);
+
+-- Отклонённые каталоги и растения
+
+CREATE TABLE IF NOT EXISTS public.r_cat_reject (
+    id bigserial PRIMARY KEY,
+    load_id bigint,
+    rejected_at timestamp without time zone NOT NULL DEFAULT now(),
+    catalog_uuid character varying(2000),
+    plant_ordinal integer,
+    error_code character varying(100) NOT NULL,
+    common character varying(2000),
+    botanical character varying(2000),
+    zone character varying(2000),
+    light character varying(2000),
+    price character varying(2000),
+    availability character varying(2000)
+);
+
+ALTER TABLE public.r_cat_reject ADD COLUMN IF NOT EXISTS run_id bigint;
+ALTER TABLE public.r_cat_reject ADD COLUMN IF NOT EXISTS file_path character varying(4000);
+ALTER TABLE public.r_cat_reject ADD COLUMN IF NOT EXISTS error_message character varying(2000);
+
+CREATE INDEX IF NOT EXISTS r_cat_reject_run_id_index ON public.r_cat_reject USING btree (run_id);
+
+-- Сводки растений; каталогам, загруженным до их появления, сводки строятся по f_cat_plants
+
+CREATE TABLE IF NOT EXISTS public.a_cat_catalog_summary (
+    catalog_id integer NOT NULL,
+    zone integer NOT NULL,
+    light character varying(2000) NOT NULL,
+    company character varying(2000),
+    plant_count bigint NOT NULL,
+    price_sum numeric NOT NULL,
+    price_min numeric,
+    price_max numeric,
+    availability_total bigint NOT NULL,
+    PRIMARY KEY (catalog_id, zone, light)
+);
+
+CREATE TABLE IF NOT EXISTS public.a_cat_dimension_summary (
+    dimension character varying(20) NOT NULL,
+    dim_key character varying(2000) NOT NULL,
+    plant_count bigint NOT NULL,
+    price_sum numeric NOT NULL,
+    price_min numeric,
+    price_max numeric,
+    availability_total bigint NOT NULL,
+    PRIMARY KEY (dimension, dim_key)
+);
+
+CREATE OR REPLACE VIEW public.v_cat_catalog_summary AS
+SELECT catalog_id,
+       sum(plant_count) AS plant_count,
+       min(price_min) AS price_min,
+       max(price_max) AS price_max,
+       sum(price_sum) / nullif(sum(plant_count), 0) AS price_avg,
+       sum(availability_total) AS availability_total
+FROM public.a_cat_catalog_summary
+GROUP BY catalog_id;
+
+CREATE OR REPLACE VIEW public.v_cat_dimension_summary AS
+SELECT dimension,
+       dim_key,
+       plant_count,
+       price_min,
+       price_max,
+       price_sum / nullif(plant_count, 0) AS price_avg,
+       availability_total
+FROM public.a_cat_dimension_summary;
+
+INSERT INTO public.a_cat_catalog_summary
+       (catalog_id, zone, light, company, plant_count, price_sum, price_min, price_max, availability_total)
+SELECT p.catalog_id, coalesce(p.zone, 0), coalesce(p.light, ''), c.company, count(*), coalesce(sum(p.price), 0),
+       min(p.price), max(p.price), coalesce(sum(p.availability), 0)
+FROM public.f_cat_plants p
+JOIN public.d_cat_catalog c ON c.id = p.catalog_id
+WHERE NOT EXISTS (SELECT 1 FROM public.a_cat_catalog_summary s WHERE s.catalog_id = p.catalog_id)
+GROUP BY p.catalog_id, coalesce(p.zone, 0), coalesce(p.light, ''), c.company;
+
+-- Сводка по измерениям целиком выводится из сводок каталогов, поэтому пересчитывается полностью
+
+DELETE FROM public.a_cat_dimension_summary;
+
+INSERT INTO public.a_cat_dimension_summary
+       (dimension, dim_key, plant_count, price_sum, price_min, price_max, availability_total)
+SELECT d.dimension, d.dim_key, sum(s.plant_count), sum(s.price_sum), min(s.price_min), max(s.price_max),
+       sum(s.availability_total)
+FROM public.a_cat_catalog_summary s
+CROSS JOIN LATERAL (VALUES ('COMPANY', coalesce(s.company::text, '')),
+                           ('ZONE', s.zone::text),
+                           ('LIGHT', s.light::text)) AS d(dimension, dim_key)
+GROUP BY d.dimension, d.dim_key;
+
+-- Контрольные точки, отложенный DDL массовой загрузки и история запусков
+
+CREATE TABLE IF NOT EXISTS public.ingest_checkpoint (
+    file_path character varying(4000) PRIMARY KEY,
+    file_size bigint NOT NULL,
+    file_mtime bigint NOT NULL,
+    catalog_id integer NOT NULL,
+    plant_ordinal integer NOT NULL,
+    completed boolean NOT NULL DEFAULT false,
+    updated_at timestamp without time zone NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS public.ingest_deferred_ddl (
+    object_name character varying(200) PRIMARY KEY,
+    object_kind character varying(20) NOT NULL,
+    restore_sql text NOT NULL,
+    validate_sql text,
+    deferred_at timestamp without time zone NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS public.ingest_run (
+    id bigserial PRIMARY KEY,
+    started_at timestamp without time zone NOT NULL DEFAULT now(),
+    finished_at timestamp without time zone,
+    status character varying(20) NOT NULL DEFAULT 'RUNNING',
+    command character varying(50) NOT NULL,
+    write_mode character varying(20),
+    input_path character varying(4000),
+    options character varying(4000),
+    host character varying(255),
+    cpu_count integer,
+    max_heap_mb bigint,
+    java_version character varying(100),
+    catalogs_saved integer,
+    catalogs_rejected integer,
+    plants_saved bigint,
+    plants_rejected bigint,
+    error character varying(4000)
+);
+
+ALTER TABLE public.ingest_run ADD COLUMN IF NOT EXISTS batch_size integer;
+ALTER TABLE public.ingest_run ADD COLUMN IF NOT EXISTS writer_count integer;
+ALTER TABLE public.ingest_run ADD COLUMN IF NOT EXISTS tuning_adjustments integer;
+
+CREATE TABLE IF NOT EXISTS public.ingest_file (
+    id bigserial PRIMARY KEY,
+    run_id bigint NOT NULL REFERENCES public.ingest_run(id) ON DELETE CASCADE,
+    file_path character varying(4000) NOT NULL,
+    file_bytes bigint,
+    catalog_uuid character varying(2000),
+    status character varying(20) NOT NULL,
+    plants_parsed integer,
+    plants_saved integer,
+    plants_rejected integer,
+    parse_ms numeric(14,3),
+    validate_ms numeric(14,3),
+    write_ms numeric(14,3),
+    finished_at timestamp without time zone NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS ingest_file_run_id_index ON public.ingest_file USING btree (run_id);
+
+-- Состав колонок представления менялся, поэтому оно пересоздаётся, а не заменяется
+
+DROP VIEW IF EXISTS public.v_ingest_run;
+
+CREATE VIEW public.v_ingest_run AS
+SELECT r.id,
+       r.started_at,
+       r.finished_at,
+       r.status,
+       r.command,
+       r.write_mode,
+       r.options,
+       r.host,
+       r.cpu_count,
+       r.max_heap_mb,
+       r.batch_size,
+       r.writer_count,
+       r.tuning_adjustments,
+       f.files,
+       f.bytes,
+       r.plants_saved,
+       r.plants_rejected,
+       extract(epoch FROM r.finished_at - r.started_at) AS seconds,
+       r.plants_saved / nullif(extract(epoch FROM r.finished_at - r.started_at), 0) AS plants_per_second,
+       f.bytes / 1048576.0 / nullif(extract(epoch FROM r.finished_at - r.started_at), 0) AS mb_per_second,
+       f.parse_ms,
+       f.validate_ms,
+       f.write_ms
+FROM public.ingest_run r
+LEFT JOIN LATERAL (
+    SELECT count(*) AS files,
+           sum(file_bytes) AS bytes,
+           sum(parse_ms) AS parse_ms,
+           sum(validate_ms) AS validate_ms,
+           sum(write_ms) AS write_ms
+    FROM public.ingest_file
+    WHERE run_id = r.id
+) f ON true;
+
+COMMIT;
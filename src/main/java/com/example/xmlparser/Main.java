@@ -1,13 +1,20 @@
 package com.example.xmlparser;
 
-import com.example.xmlparser.service.CatalogRepository;
-import com.example.xmlparser.service.PlantRepository;
-import com.example.xmlparser.model.Catalog;
-import com.example.xmlparser.model.Plant;
-import com.example.xmlparser.parser.XmlPlantParser;
-import com.example.xmlparser.validator.CatalogValidator;
-import com.example.xmlparser.validator.PlantValidator;
+import com.example.xmlparser.cli.BulkLoadRunner;
+import com.example.xmlparser.cli.CheckpointRunner;
+import com.example.xmlparser.cli.DryRunRunner;
+import com.example.xmlparser.cli.ExportRunner;
+import com.example.xmlparser.cli.HeapBudgetRunner;
+import com.example.xmlparser.cli.HistoryRunner;
+import com.example.xmlparser.cli.LoadRunner;
+import com.example.xmlparser.cli.ServeRunner;
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.ingest.CatalogStreamLoader;
+import com.example.xmlparser.jfr.FlightRecording;
+import com.example.xmlparser.parser.XmlFileFinder;
+import com.example.xmlparser.validator.ValidationLog;
 
+import java.nio.file.Path;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -17,7 +24,61 @@ import org.slf4j.LoggerFactory;
  * Точка входа в приложение XML Parser.
  * <p>
  * Загружает и парсит XML-файлы из папки ресурсов "data", валидирует каталоги и растения,
- * сохраняет валидные данные в базу данных.
+ * сохраняет валидные данные в базу данных. Команды и режимы загрузки выполняются классами пакета
+ * {@code com.example.xmlparser.cli}; каталоги валидируются и записываются {@link CatalogStreamLoader}.
+ * <p>
+ * Опции командной строки:
+ * <ul>
+ *     <li>{@code --mode=insert} — каждый каталог вставляется как новый (по умолчанию);</li>
+ *     <li>{@code --mode=upsert} — каталог ищется по UUID, в базу пишется только разница по растениям;</li>
+ *     <li>{@code --mode=staging} — данные заливаются в staging-таблицы, валидация и перенос выполняются в SQL;</li>
+ *     <li>{@code --sink=postgres|columnar} — куда записывать каталоги: PostgreSQL (по умолчанию) или локальный
+ *     колоночный файл {@code --output=plants.xpc} (размер блока {@code --block-rows=N});</li>
+ *     <li>{@code --include=glob,...}, {@code --exclude=glob,...} — маски файлов относительно папки;
+ *     папка обходится рекурсивно, вместо папки можно передать маску, например {@code "data/**&#47;*.xml"};</li>
+ *     <li>{@code --parse-threads=N} — разбор файлов в N потоков, самые большие файлы — первыми;</li>
+ *     <li>{@code --parse-cache=папка} — кэш разобранных каталогов размером до {@code --parse-cache-size=МБ}
+ *     (1024 по умолчанию): неизменённые файлы при повторном запуске не разбираются;</li>
+ *     <li>{@code --coalesce-rows=N} — в режиме insert мелкие каталоги записываются общими пакетами
+ *     и транзакциями не менее чем по N растений;</li>
+ *     <li>{@code --adaptive} — в режиме insert каталоги записываются параллельными писателями; размер пакета JDBC
+ *     ({@code --batch-min=100}..{@code --batch-max=10000}) и число писателей ({@code --writers-min=1}..{@code --writers-max=N})
+ *     подбираются по времени обращений к базе ({@code --target-latency-ms=200}) и пропускной способности,
+ *     текущие значения сохраняются в ingest_run;</li>
+ *     <li>{@code --dedup} — отсев повторяющихся растений: внутри каталога точно, между каталогами (в режиме insert)
+ *     по фильтру Блума {@code --dedup-filter=dedup.bloom}, рассчитанному на {@code --dedup-capacity=N} ключей
+ *     с долей ложных срабатываний {@code --dedup-fpp=0.001};</li>
+ *     <li>{@code --checkpoint-rows=N} — в режиме insert файлы читаются потоково и фиксируются порциями по N растений
+ *     с контрольной точкой; прерванная загрузка при повторном запуске продолжается с последней порции;</li>
+ *     <li>{@code --heap-budget=МБ} — в режиме insert разобранные, но не записанные каталоги занимают не больше
+ *     заданного объёма: разбор приостанавливается до записи уже разобранных, а файлы больше четверти бюджета
+ *     читаются потоково и записываются порциями по {@code --chunk-rows=1000} растений;</li>
+ *     <li>{@code --bulk-load} — на время загрузки удаляются неуникальные индексы и внешние ключи f_cat_plants;
+ *     после загрузки (в том числе неудачной) они восстанавливаются в {@code --bulk-threads=N} потоков,
+ *     ссылочная целостность проверяется одним запросом, выполняется ANALYZE;</li>
+ *     <li>{@code --dry-run} — только разбор и валидация в {@code --parse-threads=N} потоков (по умолчанию по числу
+ *     процессоров) без обращения к базе данных: число отклонений по файлам и правилам и
+ *     {@code --dry-run-samples=5} примеров записей на правило;</li>
+ *     <li>{@code --reject-file=rejects.csv} — отклонённые каталоги и растения с кодами ошибок записываются в CSV-файл,
+ *     в том числе при пробном запуске; без опции при записи в PostgreSQL они сохраняются в r_cat_reject
+ *     пакетами по {@code --reject-batch=500}. В лог выводятся только первые нарушения каждого правила
+ *     и периодическая сводка;</li>
+ *     <li>{@code --no-history} — не записывать запуск в историю ingest_run/ingest_file
+ *     (при записи в PostgreSQL запуски записываются по умолчанию);</li>
+ *     <li>{@code --jfr=file.jfr} — запись Java Flight Recorder с событиями разбора, валидации и записи в БД.</li>
+ * </ul>
+ * Команда {@code export <папка>} выгружает сохранённые каталоги в файлы, опции:
+ * {@code --format=xml|csv}, {@code --uuid=...}, {@code --threads=N}, {@code --fetch-size=N}.
+ * <p>
+ * Команда {@code history} выводит последние запуски и пропускную способность по дням, опции:
+ * {@code --days=30}, {@code --limit=20}.
+ * <p>
+ * Команда {@code bulk-restore} восстанавливает индексы и внешние ключи, оставшиеся удалёнными после
+ * аварийно завершённой загрузки с {@code --bulk-load}.
+ * <p>
+ * Команда {@code serve} принимает каталоги по HTTP ({@code POST /catalogs}), опции:
+ * {@code --host=localhost}, {@code --port=8080}, {@code --workers=N}, {@code --queue=N}, {@code --chunk-rows=N},
+ * {@code --mode=insert|upsert}.
  */
 public final class Main {
 
@@ -26,63 +87,75 @@ public final class Main {
     /**
      * Основной метод запуска приложения.
      *
-     * @param args аргументы командной строки (не используются)
+     * @param args путь к папке с XML-файлами и опции вида {@code --name=value}
      */
     public static void main(String[] args) {
         try {
-            // 1. Поиск папки с данными
-            String folderPath;
+            CommandLineOptions options = CommandLineOptions.parse(args);
 
-            if (args.length > 0) {
-                folderPath = args[0];
-            } else {
-                var resource = Main.class.getClassLoader().getResource("data");
-                if (resource == null) {
-                    throw new RuntimeException("Папка data не найдена в ресурсах и не передана явно!");
+            if (options.has("jfr")) {
+                FlightRecording recording = FlightRecording.start(Path.of(options.getString("jfr", "xmlparser.jfr")));
+                try {
+                    run(options);
+                } finally {
+                    recording.close();
                 }
-                folderPath = resource.getPath();
+            } else {
+                run(options);
             }
-            logger.info("Запуск обработки XML-файлов в папке: " + folderPath);
 
-            // 2. Парсинг всех XML-файлов
-            List<Catalog> catalogs = XmlPlantParser.parseAll(folderPath);
-            logger.info("Спарсено каталогов: " + catalogs.size());
-
-            int catalogsSaved = 0;
-            int plantsSaved = 0;
-
-            // 3. Обработка каждого каталога
-            for (Catalog catalog : catalogs) {
-                List<String> catalogErrors = CatalogValidator.validate(catalog);
-                if (catalogErrors.isEmpty()) {
-                    int catalogId = CatalogRepository.save(catalog);
-                    catalogsSaved++;
+        } catch (Exception e) {
+            logger.error("Ошибка при выполнении приложения: " + e.getMessage(), e);
+        } finally {
+            ValidationLog.DEFAULT.flush();
+        }
+    }
 
-                    // 4. Проставляем catalogId растениям
-                    for (Plant plant : catalog.getPlants()) {
-                        plant.setCatalogId(catalogId);
-                    }
+    /**
+     * Выполняет команду или разбор, валидацию и сохранение каталогов выбранным режимом загрузки.
+     *
+     * @param options разобранные опции командной строки
+     * @throws Exception при ошибках чтения файлов или работы с базой данных
+     */
+    static void run(CommandLineOptions options) throws Exception {
+        List<String> positional = options.getPositional();
+        switch (positional.isEmpty() ? "" : positional.get(0)) {
+            case "export" -> ExportRunner.run(options);
+            case "serve" -> ServeRunner.run(options);
+            case "history" -> HistoryRunner.run(options);
+            case "bulk-restore" -> BulkLoadRunner.restore(options);
+            default -> load(options);
+        }
+    }
 
-                    // 5. Валидация и сохранение растений
-                    for (Plant plant : catalog.getPlants()) {
-                        List<String> plantErrors = PlantValidator.validate(plant);
-                        if (plantErrors.isEmpty()) {
-                            PlantRepository.save(plant);
-                            plantsSaved++;
-                        }
-                    }
+    private static void load(CommandLineOptions options) throws Exception {
+        // 1. Поиск папки с данными
+        String folderPath;
 
-                } else {
-                    logger.warn("Пропущен каталог UUID: " + catalog.getUuid() + " из-за ошибок валидации");
-                }
+        if (!options.getPositional().isEmpty()) {
+            folderPath = options.getPositional().get(0);
+        } else {
+            var resource = Main.class.getClassLoader().getResource("data");
+            if (resource == null) {
+                throw new RuntimeException("Папка data не найдена в ресурсах и не передана явно!");
             }
+            folderPath = resource.getPath();
+        }
+        logger.info("Запуск обработки XML-файлов в папке: " + folderPath);
 
-            logger.info("Обработка завершена");
-            logger.info("Каталогов сохранено: " + catalogsSaved);
-            logger.info("Растений сохранено: " + plantsSaved);
+        // 2. Поиск XML-файлов, самые большие файлы — первыми
+        List<XmlFileFinder.XmlFile> files = XmlFileFinder.find(folderPath,
+                options.getList("include"), options.getList("exclude"));
 
-        } catch (Exception e) {
-            logger.error("Ошибка при выполнении приложения: " + e.getMessage(), e);
+        // 3. Разбор, валидация и запись выбранным режимом
+        if (options.has("dry-run")) {
+            DryRunRunner.run(options, files);
+        } else if (options.has("checkpoint-rows")) {
+            CheckpointRunner.run(options, folderPath, files);
+        } else if (options.has("heap-budget")) {
+            HeapBudgetRunner.run(options, folderPath, files);
+        } else {
+            LoadRunner.run(options, folderPath, files);
         }
     }
 }
@@ -0,0 +1,18 @@
+package com.example.xmlparser.aggregate;
+
+import java.math.BigDecimal;
+
+/**
+ * Агрегаты растений одного каталога по паре (зона, освещение).
+ *
+ * @param zone              зона выращивания
+ * @param light             условия освещения
+ * @param plantCount        количество растений
+ * @param priceSum          сумма цен
+ * @param priceMin          минимальная цена
+ * @param priceMax          максимальная цена
+ * @param availabilityTotal суммарное количество в наличии
+ */
+public record PlantAggregate(int zone, String light, long plantCount, BigDecimal priceSum,
+                             BigDecimal priceMin, BigDecimal priceMax, long availabilityTotal) {
+}
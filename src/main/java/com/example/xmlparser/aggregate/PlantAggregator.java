@@ -0,0 +1,119 @@
+package com.example.xmlparser.aggregate;
+
+import com.example.xmlparser.model.Plant;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Инкрементальный подсчёт агрегатов растений каталога по мере их прохождения через конвейер.
+ * Растения группируются по паре (зона, освещение); память пропорциональна числу групп, а не растений.
+ */
+public final class PlantAggregator {
+
+    private final Map<Key, Accumulator> groups = new LinkedHashMap<>();
+
+    /**
+     * Учитывает валидные растения.
+     *
+     * @param plants растения каталога
+     */
+    public void addAll(List<Plant> plants) {
+        for (Plant plant : plants) {
+            add(plant);
+        }
+    }
+
+    /**
+     * Учитывает одно валидное растение.
+     *
+     * @param plant растение
+     */
+    public void add(Plant plant) {
+        Key key = new Key(plant.getZoneAsInt(), plant.getLight() == null ? "" : plant.getLight());
+        groups.computeIfAbsent(key, k -> new Accumulator()).add(plant);
+    }
+
+    /**
+     * @return true, если не учтено ни одного растения
+     */
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /**
+     * @return агрегаты по всем группам в порядке первого появления
+     */
+    public List<PlantAggregate> result() {
+        List<PlantAggregate> result = new ArrayList<>(groups.size());
+        for (Map.Entry<Key, Accumulator> entry : groups.entrySet()) {
+            Key key = entry.getKey();
+            Accumulator acc = entry.getValue();
+            result.add(new PlantAggregate(key.zone, key.light, acc.count, acc.priceSum,
+                    acc.priceMin, acc.priceMax, acc.availabilityTotal));
+        }
+        return result;
+    }
+
+    /**
+     * Сбрасывает накопленные агрегаты перед следующим каталогом.
+     */
+    public void clear() {
+        groups.clear();
+    }
+
+    private static final class Key {
+
+        private final int zone;
+        private final String light;
+
+        Key(int zone, String light) {
+            this.zone = zone;
+            this.light = light;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return zone == other.zone && light.equals(other.light);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zone, light);
+        }
+    }
+
+    private static final class Accumulator {
+
+        private long count;
+        private BigDecimal priceSum = BigDecimal.ZERO;
+        private BigDecimal priceMin;
+        private BigDecimal priceMax;
+        private long availabilityTotal;
+
+        void add(Plant plant) {
+            count++;
+            availabilityTotal += plant.getAvailability();
+            BigDecimal price = plant.getPrice();
+            if (price != null) {
+                priceSum = priceSum.add(price);
+                if (priceMin == null || price.compareTo(priceMin) < 0) {
+                    priceMin = price;
+                }
+                if (priceMax == null || price.compareTo(priceMax) > 0) {
+                    priceMax = price;
+                }
+            }
+        }
+    }
+}
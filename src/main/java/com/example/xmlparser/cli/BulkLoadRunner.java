@@ -0,0 +1,70 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.service.BulkLoadRepository;
+
+import java.sql.Connection;
+
+/**
+ * Массовая загрузка ({@code --bulk-load}) и команда {@code bulk-restore}.
+ */
+public final class BulkLoadRunner {
+
+    /**
+     * Загрузка, выполняемая при отключённых индексах и внешних ключах.
+     */
+    @FunctionalInterface
+    public interface BulkLoad {
+        void run() throws Exception;
+    }
+
+    private BulkLoadRunner() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Восстанавливает индексы и внешние ключи, оставшиеся удалёнными после аварийно завершённой загрузки.
+     *
+     * @param options опции командной строки ({@code --bulk-threads})
+     */
+    public static void restore(CommandLineOptions options) {
+        BulkLoadRepository.restore(threads(options));
+    }
+
+    /**
+     * Отключает неуникальные индексы и внешние ключи f_cat_plants, выполняет загрузку и восстанавливает их,
+     * в том числе если загрузка завершилась ошибкой. Поддерживаются режимы insert и staging: синхронизации
+     * в режиме upsert нужен индекс по каталогу.
+     *
+     * @param options   опции командной строки
+     * @param writeMode режим записи
+     * @param load      загрузка
+     */
+    public static void run(CommandLineOptions options, CommandLineOptions.WriteMode writeMode,
+                           BulkLoad load) throws Exception {
+        if (writeMode == CommandLineOptions.WriteMode.UPSERT || !LoadSupport.isPostgres(options)) {
+            throw new IllegalArgumentException("Режим --bulk-load поддерживает режимы insert и staging с приёмником postgres");
+        }
+        try (Connection conn = DatabaseManager.getConnection()) {
+            BulkLoadRepository.defer(conn);
+        }
+
+        int threads = threads(options);
+        try {
+            load.run();
+        } catch (Exception e) {
+            try {
+                BulkLoadRepository.restore(threads);
+            } catch (RuntimeException restoreError) {
+                e.addSuppressed(restoreError);
+            }
+            throw e;
+        }
+        BulkLoadRepository.restore(threads);
+    }
+
+    private static int threads(CommandLineOptions options) {
+        return options.getInt("bulk-threads", Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.history.RunRecorder;
+import com.example.xmlparser.ingest.CheckpointedFileLoader;
+import com.example.xmlparser.ingest.IngestionConfig;
+import com.example.xmlparser.ingest.IngestionEngine;
+import com.example.xmlparser.parser.XmlFileFinder;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.service.RunHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Загрузка больших файлов порциями с контрольными точками ({@code --checkpoint-rows}).
+ */
+public final class CheckpointRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointRunner.class);
+
+    private CheckpointRunner() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Загружает файлы порциями с контрольными точками, не разбирая их целиком в память.
+     * Поддерживается только режим insert с приёмником postgres и без отсева повторов.
+     *
+     * @param options   опции командной строки
+     * @param inputPath путь или маска входных файлов
+     * @param files     найденные XML-файлы
+     * @throws Exception при ошибках чтения файлов или работы с базой данных
+     */
+    public static void run(CommandLineOptions options, String inputPath, List<XmlFileFinder.XmlFile> files)
+            throws Exception {
+        if (options.has("adaptive")) {
+            throw new IllegalArgumentException("Опция --adaptive не совместима с --checkpoint-rows");
+        }
+        if (files.isEmpty()) {
+            logger.info("Нет данных для загрузки, обращение к базе данных не требуется");
+            return;
+        }
+        LoadSupport.recordRun(options, inputPath, history -> load(options, files, history));
+    }
+
+    private static void load(CommandLineOptions options, List<XmlFileFinder.XmlFile> files, RunRecorder history)
+            throws SQLException, IOException {
+        CommandLineOptions.WriteMode writeMode = options.getWriteMode();
+        if (writeMode != CommandLineOptions.WriteMode.INSERT || !LoadSupport.isPostgres(options)) {
+            throw new IllegalArgumentException("Контрольные точки поддерживаются только в режиме insert с приёмником postgres");
+        }
+        if (options.has("dedup")) {
+            throw new IllegalArgumentException("Контрольные точки несовместимы с --dedup");
+        }
+        int filesSkipped = 0;
+        int filesResumed = 0;
+        int catalogsSaved = 0;
+        int catalogsRejected = 0;
+        long plantsSaved = 0;
+        long plantsRejected = 0;
+
+        Connection conn = DatabaseManager.getConnection();
+        try (RejectStore rejects = LoadSupport.openRejectStore(options, history)) {
+            conn.setAutoCommit(false);
+            IngestionEngine engine = IngestionEngine.postgres(DatabaseManager.getDataSource(),
+                    new IngestionConfig(writeMode, options.getInt("chunk-rows", IngestionConfig.DEFAULT_CHUNK_ROWS)),
+                    rejects);
+            CheckpointedFileLoader loader = engine.checkpointedLoader(conn, options.getInt("checkpoint-rows", 10_000));
+            for (XmlFileFinder.XmlFile file : files) {
+                CheckpointedFileLoader.Result result;
+                // Разбор, валидация и запись чередуются порциями, поэтому в истории — общее время обработки файла
+                long started = System.nanoTime();
+                try {
+                    result = loader.load(file.path());
+                } catch (XMLStreamException | DateTimeParseException | IllegalArgumentException e) {
+                    // Зафиксированные порции остаются в базе, повторный запуск продолжит с контрольной точки
+                    logger.error("Ошибка разбора файла " + file.path() + ": " + e.getMessage());
+                    history.recordFile(new RunHistoryRepository.FileRecord(file.path().toString(), file.size(), null,
+                            RunHistoryRepository.FileStatus.PARSE_FAILED, null, null, null, null, null,
+                            System.nanoTime() - started));
+                    continue;
+                }
+                RunHistoryRepository.FileStatus status;
+                if (result.skipped()) {
+                    filesSkipped++;
+                    status = RunHistoryRepository.FileStatus.SKIPPED;
+                } else if (result.catalogRejected()) {
+                    catalogsRejected++;
+                    status = RunHistoryRepository.FileStatus.INVALID;
+                } else {
+                    catalogsSaved++;
+                    status = RunHistoryRepository.FileStatus.SAVED;
+                    if (result.resumed()) {
+                        filesResumed++;
+                    }
+                }
+                plantsSaved += result.plantsSaved();
+                plantsRejected += result.plantsRejected();
+                history.recordFile(new RunHistoryRepository.FileRecord(file.path().toString(), file.size(), null,
+                        status, result.plantsSaved() + result.plantsRejected(), result.plantsSaved(),
+                        result.plantsRejected(), null, null, System.nanoTime() - started));
+            }
+        } finally {
+            DatabaseManager.close(conn);
+        }
+
+        history.succeed(new RunHistoryRepository.Totals(catalogsSaved, catalogsRejected, plantsSaved, plantsRejected));
+        logger.info("Обработка завершена");
+        logger.info("Файлов пропущено как загруженные: " + filesSkipped + ", продолжено с контрольной точки: " + filesResumed);
+        logger.info("Каталогов сохранено: " + catalogsSaved + ", отклонено: " + catalogsRejected);
+        logger.info("Растений сохранено: " + plantsSaved + ", отклонено: " + plantsRejected);
+    }
+}
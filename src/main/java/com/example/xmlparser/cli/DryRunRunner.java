@@ -0,0 +1,42 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.history.RunRecorder;
+import com.example.xmlparser.ingest.DryRunValidator;
+import com.example.xmlparser.parser.XmlFileFinder;
+import com.example.xmlparser.reject.RejectStore;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Пробный запуск ({@code --dry-run}): разбор и валидация без обращения к базе данных.
+ */
+public final class DryRunRunner {
+
+    private DryRunRunner() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Разбирает и валидирует файлы, выводя число отклонений по файлам и правилам.
+     *
+     * @param options опции командной строки
+     * @param files   найденные XML-файлы
+     * @throws IOException          если не удалось записать отклонённые записи
+     * @throws InterruptedException если ожидание проверки было прервано
+     */
+    public static void run(CommandLineOptions options, List<XmlFileFinder.XmlFile> files)
+            throws IOException, InterruptedException {
+        // Пробный запуск не инициализирует DatabaseManager: отклонённые записи сохраняются только в файл
+        try (RejectStore rejects = openRejectStore(options)) {
+            new DryRunValidator(options.getInt("parse-threads", Runtime.getRuntime().availableProcessors()),
+                    options.getInt("dry-run-samples", DryRunValidator.DEFAULT_SAMPLES), rejects).run(files);
+        }
+    }
+
+    private static RejectStore openRejectStore(CommandLineOptions options) throws IOException {
+        return options.has("reject-file") ? LoadSupport.openRejectStore(options, RunRecorder.disabled())
+                : RejectStore.discard();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.export.CatalogExporter;
+import com.example.xmlparser.export.ExportFormat;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Команда {@code export}: выгрузка сохранённых каталогов в файлы.
+ */
+public final class ExportRunner {
+
+    private ExportRunner() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Выгружает сохранённые каталоги в файлы.
+     *
+     * @param options опции командной строки; второй позиционный аргумент — папка выгрузки
+     * @throws Exception при ошибках чтения из базы данных или записи файлов
+     */
+    public static void run(CommandLineOptions options) throws Exception {
+        List<String> positional = options.getPositional();
+        Path outputDir = Path.of(positional.size() > 1 ? positional.get(1) : "export");
+
+        CatalogExporter exporter = new CatalogExporter(
+                outputDir,
+                ExportFormat.parse(options.getString("format", "xml")),
+                options.getInt("threads", 1),
+                options.getInt("fetch-size", 1000),
+                options.getString("uuid", null));
+        exporter.export();
+    }
+}
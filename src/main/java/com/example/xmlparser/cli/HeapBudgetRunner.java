@@ -0,0 +1,69 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.history.RunRecorder;
+import com.example.xmlparser.ingest.BudgetedParser;
+import com.example.xmlparser.ingest.HeapBudget;
+import com.example.xmlparser.parser.ParseCache;
+import com.example.xmlparser.parser.XmlFileFinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Загрузка в ограниченной куче ({@code --heap-budget}).
+ */
+public final class HeapBudgetRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeapBudgetRunner.class);
+
+    private HeapBudgetRunner() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Загружает файлы, удерживая в памяти разобранные, но не записанные каталоги в пределах
+     * {@code --heap-budget} МБ: разбор приостанавливается, пока записанные каталоги не освободят бюджет.
+     * Файлы, которые не помещаются в бюджет целиком, читаются потоково и записываются порциями
+     * по {@code --chunk-rows} растений.
+     *
+     * @param options   опции командной строки
+     * @param inputPath путь или маска входных файлов
+     * @param files     найденные XML-файлы
+     * @throws Exception при ошибках чтения файлов или работы с базой данных
+     */
+    public static void run(CommandLineOptions options, String inputPath, List<XmlFileFinder.XmlFile> files)
+            throws Exception {
+        if (options.getWriteMode() != CommandLineOptions.WriteMode.INSERT || options.has("dedup")) {
+            throw new IllegalArgumentException("Опция --heap-budget поддерживается только в режиме insert без --dedup");
+        }
+        if (options.has("adaptive")) {
+            // Параллельный приёмник фиксирует каталог после endCatalog, а резерв освобождается сразу после него
+            throw new IllegalArgumentException("Опция --adaptive не совместима с --heap-budget");
+        }
+        if (files.isEmpty()) {
+            logger.info("Нет данных для загрузки, обращение к базе данных не требуется");
+            return;
+        }
+        LoadSupport.recordRun(options, inputPath, history -> load(options, files, history));
+    }
+
+    private static void load(CommandLineOptions options, List<XmlFileFinder.XmlFile> files, RunRecorder history)
+            throws Exception {
+        HeapBudget budget = new HeapBudget(options.getInt("heap-budget", 256) * 1024L * 1024L);
+        List<XmlFileFinder.XmlFile> streamed = files.stream().filter(file -> budget.isOversized(file.size())).toList();
+        List<XmlFileFinder.XmlFile> regular = files.stream().filter(file -> !budget.isOversized(file.size())).toList();
+        logger.info("Бюджет памяти {} МБ (куча {} МБ): файлов разбирается целиком {}, читается потоково {}",
+                budget.getBudgetBytes() >> 20, Runtime.getRuntime().maxMemory() >> 20, regular.size(), streamed.size());
+
+        ParseCache cache = options.has("parse-cache")
+                ? new ParseCache(Path.of(options.getString("parse-cache", ".parse-cache")),
+                        options.getInt("parse-cache-size", 1024) * 1024L * 1024L)
+                : null;
+        try (cache; BudgetedParser parser = new BudgetedParser(regular, options.getInt("parse-threads", 1), cache, budget)) {
+            LoadRunner.load(options, parser, streamed, history);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.history.RunHistoryReport;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Команда {@code history}: отчёт по последним запускам и пропускной способности по дням.
+ */
+public final class HistoryRunner {
+
+    private HistoryRunner() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Выводит отчёт по истории запусков.
+     *
+     * @param options опции командной строки ({@code --days}, {@code --limit})
+     * @throws SQLException если не удалось прочитать историю
+     */
+    public static void run(CommandLineOptions options) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            RunHistoryReport.print(conn, options.getInt("days", 30), options.getInt("limit", 20));
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.dedup.BloomFilter;
+import com.example.xmlparser.dedup.PlantDeduplicator;
+import com.example.xmlparser.history.RunRecorder;
+import com.example.xmlparser.ingest.CatalogStreamLoader;
+import com.example.xmlparser.ingest.IngestionConfig;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.parser.ParseCache;
+import com.example.xmlparser.parser.XmlFileFinder;
+import com.example.xmlparser.parser.XmlPlantParser;
+import com.example.xmlparser.parser.XmlPlantReader;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.service.RunHistoryRepository;
+import com.example.xmlparser.service.StagingRepository;
+import com.example.xmlparser.service.StagingResult;
+import com.example.xmlparser.sink.CatalogSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Загрузка разобранных файлов (по умолчанию): через приёмник {@code --sink} или staging-таблицы.
+ * <p>
+ * Каталоги валидируются и записываются {@link CatalogStreamLoader}, как при потоковой загрузке и приёме по HTTP.
+ */
+public final class LoadRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadRunner.class);
+
+    private LoadRunner() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Разбирает файлы и загружает каталоги, регистрируя запуск в истории.
+     *
+     * @param options   опции командной строки
+     * @param inputPath путь или маска входных файлов
+     * @param files     найденные XML-файлы
+     * @throws Exception при ошибках чтения файлов или работы с базой данных
+     */
+    public static void run(CommandLineOptions options, String inputPath, List<XmlFileFinder.XmlFile> files)
+            throws Exception {
+        List<XmlPlantParser.ParsedFile> parsed;
+        if (options.has("parse-cache")) {
+            long cacheBytes = options.getInt("parse-cache-size", 1024) * 1024L * 1024L;
+            try (ParseCache cache = new ParseCache(Path.of(options.getString("parse-cache", ".parse-cache")), cacheBytes)) {
+                parsed = XmlPlantParser.parseFiles(files, options.getInt("parse-threads", 1), cache);
+            }
+        } else {
+            parsed = XmlPlantParser.parseFiles(files, options.getInt("parse-threads", 1), null);
+        }
+        long catalogCount = parsed.stream().filter(file -> file.catalog() != null).count();
+        logger.info("Спарсено каталогов: " + catalogCount);
+
+        // Нечего загружать — завершаемся, не инициализируя подключение к БД
+        if (catalogCount == 0) {
+            logger.info("Нет данных для загрузки, обращение к базе данных не требуется");
+            return;
+        }
+
+        LoadSupport.recordRun(options, inputPath, history -> load(options, parsed, List.of(), history));
+    }
+
+    /**
+     * Валидирует каталоги и записывает их выбранным способом: через staging-таблицы или приёмник.
+     *
+     * @param options  опции командной строки
+     * @param parsed   результаты разбора файлов; перебираются один раз
+     * @param streamed файлы, которые читаются потоково и записываются порциями (только через приёмник)
+     * @param history  запись истории запуска
+     */
+    static void load(CommandLineOptions options, Iterable<XmlPlantParser.ParsedFile> parsed,
+                     List<XmlFileFinder.XmlFile> streamed, RunRecorder history) throws Exception {
+        CommandLineOptions.WriteMode writeMode = options.getWriteMode();
+        if (writeMode == CommandLineOptions.WriteMode.STAGING) {
+            loadThroughStaging(options, parsed, history);
+            return;
+        }
+
+        int catalogsSaved = 0;
+        int catalogsRejected = 0;
+        int catalogsLost = 0;
+        int catalogsDuplicate = 0;
+        long plantsSaved = 0;
+        long plantsRejected = 0;
+
+        BloomFilter seenPlants = options.has("dedup") && writeMode == CommandLineOptions.WriteMode.INSERT
+                ? LoadSupport.openDedupFilter(options) : null;
+        PlantDeduplicator dedup = options.has("dedup") ? new PlantDeduplicator(seenPlants) : null;
+        IngestionConfig config = new IngestionConfig(writeMode,
+                options.getInt("chunk-rows", IngestionConfig.DEFAULT_CHUNK_ROWS));
+
+        try (RejectStore rejects = LoadSupport.openRejectStore(options, history);
+             CatalogSink sink = LoadSupport.openSink(options, writeMode, history)) {
+            List<CatalogStreamLoader.Result> results = new ArrayList<>();
+            for (XmlFileFinder.XmlFile file : streamed) {
+                CatalogStreamLoader.Result result = loadStreamed(sink, rejects, file, config.chunkRows(), history);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            for (XmlPlantParser.ParsedFile file : parsed) {
+                if (file.catalog() == null) {
+                    LoadSupport.recordParseFailure(history, file);
+                } else {
+                    results.add(loadParsed(sink, rejects, file, config, dedup, history));
+                }
+            }
+
+            for (CatalogStreamLoader.Result result : results) {
+                if (result.status() == CatalogStreamLoader.Status.SAVED) {
+                    catalogsSaved++;
+                } else {
+                    catalogsRejected++;
+                    if (result.status() == CatalogStreamLoader.Status.DUPLICATE) {
+                        catalogsDuplicate++;
+                    }
+                }
+                plantsSaved += result.plantsSaved();
+                plantsRejected += result.plantsRejected();
+            }
+
+            // Приёмник с фоновой фиксацией мог откатить каталоги, которые уже учтены как сохранённые
+            for (CatalogSink.LostCatalog lost : sink.awaitCommits()) {
+                catalogsSaved--;
+                catalogsLost++;
+                plantsSaved -= lost.plants();
+                history.recordLostCatalog(lost.uuid());
+            }
+        }
+
+        if (seenPlants != null) {
+            // Сохраняется только после успешной записи: при объединении каталогов ошибка откатывает всю группу
+            seenPlants.save(LoadSupport.dedupFilterPath(options));
+        }
+
+        history.succeed(new RunHistoryRepository.Totals(catalogsSaved, catalogsRejected, plantsSaved, plantsRejected));
+        logger.info("Обработка завершена");
+        logger.info("Каталогов сохранено: " + catalogsSaved + ", отклонено: " + catalogsRejected);
+        if (catalogsLost > 0) {
+            logger.error("Каталогов не зафиксировано из-за ошибок записи: {}", catalogsLost);
+        }
+        if (catalogsDuplicate > 0) {
+            logger.info("Каталогов с уже загруженным UUID пропущено: {}, для обновления используйте --mode=upsert",
+                    catalogsDuplicate);
+        }
+        logger.info("Растений сохранено: " + plantsSaved + ", отклонено: " + plantsRejected);
+        if (dedup != null) {
+            logger.info("Повторов растений отброшено: внутри каталогов " + dedup.getWithinCatalog()
+                    + ", между каталогами " + dedup.getAcrossCatalogs());
+        }
+    }
+
+    /**
+     * Записывает разобранный каталог в приёмник и сохраняет статистику файла в истории,
+     * в том числе если запись завершилась ошибкой.
+     */
+    private static CatalogStreamLoader.Result loadParsed(CatalogSink sink, RejectStore rejects,
+                                                         XmlPlantParser.ParsedFile file, IngestionConfig config,
+                                                         PlantDeduplicator dedup, RunRecorder history)
+            throws IOException {
+        Catalog catalog = file.catalog();
+        String path = file.file().path().toString();
+        CatalogStreamLoader.Result result;
+        try {
+            result = CatalogStreamLoader.load(catalog, sink, config, rejects, path, dedup);
+        } catch (IOException | RuntimeException e) {
+            history.recordFile(new RunHistoryRepository.FileRecord(path, file.file().size(), catalog.getUuid(),
+                    RunHistoryRepository.FileStatus.FAILED, LoadSupport.plantCount(catalog), null, null,
+                    file.parseNanos(), null, null));
+            throw e;
+        }
+        history.recordFile(new RunHistoryRepository.FileRecord(path, file.file().size(), catalog.getUuid(),
+                LoadSupport.fileStatus(result.status()), LoadSupport.plantCount(catalog), result.plantsSaved(),
+                result.plantsRejected(), file.parseNanos(), result.validateNanos(), result.writeNanos()));
+        return result;
+    }
+
+    /**
+     * Читает файл потоково и записывает каталог в приёмник порциями, не разбирая документ целиком.
+     *
+     * @return результат загрузки или null, если файл не удалось прочитать
+     */
+    private static CatalogStreamLoader.Result loadStreamed(CatalogSink sink, RejectStore rejects,
+                                                           XmlFileFinder.XmlFile file, int chunkRows,
+                                                           RunRecorder history) throws IOException {
+        logger.info("Потоковая загрузка файла: {} ({} МБ)", file.path(), String.format("%.1f", file.size() / 1048576.0));
+        long started = System.nanoTime();
+        CatalogStreamLoader.Result result;
+        try (XmlPlantReader reader = new XmlPlantReader(file.path())) {
+            result = CatalogStreamLoader.load(reader, sink, chunkRows, rejects, file.path().toString());
+        } catch (XMLStreamException | IllegalArgumentException | DateTimeParseException e) {
+            logger.error("Ошибка при разборе файла " + file.path().getFileName(), e);
+            history.recordFile(new RunHistoryRepository.FileRecord(file.path().toString(), file.size(), null,
+                    RunHistoryRepository.FileStatus.PARSE_FAILED, null, null, null, null, null,
+                    System.nanoTime() - started));
+            return null;
+        }
+
+        // Разбор, валидация и запись чередуются по порциям: сохраняется общее время обработки файла
+        history.recordFile(new RunHistoryRepository.FileRecord(file.path().toString(), file.size(), result.uuid(),
+                LoadSupport.fileStatus(result.status()), result.plantsSaved() + result.plantsRejected(),
+                result.plantsSaved(), result.plantsRejected(), null, null, System.nanoTime() - started));
+        return result;
+    }
+
+    /**
+     * Загружает все каталоги через staging-таблицы в одной транзакции: валидация и перенос выполняются в SQL.
+     */
+    private static void loadThroughStaging(CommandLineOptions options, Iterable<XmlPlantParser.ParsedFile> parsed,
+                                           RunRecorder history) throws SQLException {
+        List<XmlPlantParser.ParsedFile> loaded = new ArrayList<>();
+        for (XmlPlantParser.ParsedFile file : parsed) {
+            if (file.catalog() == null) {
+                LoadSupport.recordParseFailure(history, file);
+            } else {
+                loaded.add(file);
+            }
+        }
+        List<Catalog> catalogs = loaded.stream().map(XmlPlantParser.ParsedFile::catalog).toList();
+        if (!LoadSupport.isPostgres(options)) {
+            throw new IllegalArgumentException("Режим staging поддерживает только приёмник postgres");
+        }
+        if (options.has("dedup")) {
+            // Растения отклонённых в SQL каталогов не должны попадать в фильтр, поэтому только точный отсев
+            PlantDeduplicator dedup = new PlantDeduplicator(null);
+            for (Catalog catalog : catalogs) {
+                if (catalog.getPlants() != null) {
+                    catalog.setPlants(dedup.filter(catalog.getCompany(), catalog.getPlants()));
+                    dedup.commit();
+                }
+            }
+            logger.info("Повторов растений отброшено внутри каталогов: " + dedup.getWithinCatalog());
+        }
+
+        StagingResult result;
+        Connection conn = DatabaseManager.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            result = StagingRepository.load(conn, catalogs);
+            conn.commit();
+        } catch (RuntimeException | SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            DatabaseManager.close(conn);
+        }
+
+        // Staging проверяет и переносит все каталоги одним набором запросов: итоги известны только для запуска
+        for (XmlPlantParser.ParsedFile file : loaded) {
+            history.recordFile(new RunHistoryRepository.FileRecord(file.file().path().toString(),
+                    file.file().size(), file.catalog().getUuid(), RunHistoryRepository.FileStatus.STAGED,
+                    LoadSupport.plantCount(file.catalog()), null, null, file.parseNanos(), null, null));
+        }
+        history.succeed(new RunHistoryRepository.Totals(result.catalogsSaved(), result.catalogsRejected(),
+                result.plantsSaved(), result.plantsRejected()));
+        logger.info("Обработка завершена");
+        logger.info("Каталогов сохранено: " + result.catalogsSaved() + ", отклонено: " + result.catalogsRejected());
+        logger.info("Растений сохранено: " + result.plantsSaved() + ", отклонено: " + result.plantsRejected());
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.dedup.BloomFilter;
+import com.example.xmlparser.history.RunRecorder;
+import com.example.xmlparser.ingest.CatalogStreamLoader;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.parser.XmlPlantParser;
+import com.example.xmlparser.reject.CsvRejectStore;
+import com.example.xmlparser.reject.JdbcRejectStore;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.service.RunHistoryRepository;
+import com.example.xmlparser.sink.AdaptiveWriteController;
+import com.example.xmlparser.sink.CatalogSink;
+import com.example.xmlparser.sink.ColumnarFileSink;
+import com.example.xmlparser.sink.ParallelPostgresSink;
+import com.example.xmlparser.sink.PostgresSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Общие для режимов загрузки шаги: история запуска, приёмник, хранилище отклонённых записей и фильтр повторов.
+ */
+final class LoadSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadSupport.class);
+
+    /**
+     * Загрузка с записью истории запуска.
+     */
+    @FunctionalInterface
+    interface RecordedLoad {
+        void run(RunRecorder history) throws Exception;
+    }
+
+    private LoadSupport() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Выполняет загрузку, регистрируя запуск в ingest_run (кроме приёмника columnar и опции {@code --no-history}).
+     * С опцией {@code --bulk-load} загрузка выполняется при отключённых индексах и внешних ключах.
+     *
+     * @param options   опции командной строки
+     * @param inputPath путь или маска входных файлов
+     * @param load      загрузка
+     */
+    static void recordRun(CommandLineOptions options, String inputPath, RecordedLoad load) throws Exception {
+        RunRecorder history = options.has("no-history") || !isPostgres(options)
+                ? RunRecorder.disabled()
+                : RunRecorder.start(DatabaseManager.getDataSource(), options, inputPath);
+        try {
+            if (options.has("bulk-load")) {
+                BulkLoadRunner.run(options, options.getWriteMode(), () -> load.run(history));
+            } else {
+                load.run(history);
+            }
+        } catch (Exception e) {
+            history.fail(e);
+            throw e;
+        } finally {
+            history.close();
+        }
+    }
+
+    /**
+     * @return true, если каталоги записываются в PostgreSQL (опция {@code --sink}, по умолчанию postgres)
+     */
+    static boolean isPostgres(CommandLineOptions options) {
+        return "postgres".equals(options.getString("sink", "postgres"));
+    }
+
+    /**
+     * Сохраняет в истории файл, который не удалось разобрать.
+     */
+    static void recordParseFailure(RunRecorder history, XmlPlantParser.ParsedFile file) {
+        history.recordFile(new RunHistoryRepository.FileRecord(file.file().path().toString(),
+                file.file().size(), null, RunHistoryRepository.FileStatus.PARSE_FAILED,
+                null, null, null, file.parseNanos(), null, null));
+    }
+
+    /**
+     * @return статус файла в истории для итога загрузки каталога
+     */
+    static RunHistoryRepository.FileStatus fileStatus(CatalogStreamLoader.Status status) {
+        return switch (status) {
+            case SAVED -> RunHistoryRepository.FileStatus.SAVED;
+            case INVALID -> RunHistoryRepository.FileStatus.INVALID;
+            case DUPLICATE -> RunHistoryRepository.FileStatus.DUPLICATE;
+        };
+    }
+
+    static Integer plantCount(Catalog catalog) {
+        return catalog.getPlants() == null ? 0 : catalog.getPlants().size();
+    }
+
+    /**
+     * Создаёт приёмник по опции {@code --sink}: PostgreSQL (по умолчанию) или локальный колоночный файл.
+     *
+     * @param options   опции командной строки
+     * @param writeMode режим записи в базу данных
+     * @param history   запись истории запуска (для настроек адаптивной записи)
+     * @return открытый приёмник
+     * @throws IOException если не удалось создать файл колоночного приёмника
+     */
+    static CatalogSink openSink(CommandLineOptions options, CommandLineOptions.WriteMode writeMode,
+                                RunRecorder history) throws IOException {
+        String sink = options.getString("sink", "postgres");
+        switch (sink) {
+            case "postgres":
+                if (options.has("adaptive")) {
+                    return openAdaptiveSink(options, writeMode, history);
+                }
+                return new PostgresSink(writeMode, options.getInt("coalesce-rows", 0));
+            case "columnar":
+                if (writeMode != CommandLineOptions.WriteMode.INSERT) {
+                    throw new IllegalArgumentException("Колоночный приёмник поддерживает только режим insert");
+                }
+                return new ColumnarFileSink(Path.of(options.getString("output", "plants.xpc")),
+                        options.getInt("block-rows", ColumnarFileSink.DEFAULT_BLOCK_ROWS));
+            default:
+                throw new IllegalArgumentException("Неизвестный приёмник: " + sink);
+        }
+    }
+
+    /**
+     * Создаёт хранилище отклонённых записей: CSV-файл {@code --reject-file}, таблицу r_cat_reject
+     * при записи в PostgreSQL или хранилище, которое ничего не сохраняет.
+     *
+     * @param options опции командной строки
+     * @param history запись истории запуска (для связи отклонённых записей с запуском)
+     * @return открытое хранилище
+     * @throws IOException если не удалось создать файл отклонённых записей
+     */
+    static RejectStore openRejectStore(CommandLineOptions options, RunRecorder history) throws IOException {
+        int batchSize = options.getInt("reject-batch", RejectStore.DEFAULT_BATCH_SIZE);
+        if (options.has("reject-file")) {
+            return new CsvRejectStore(Path.of(options.getString("reject-file", "rejects.csv")), batchSize);
+        }
+        if (isPostgres(options)) {
+            return new JdbcRejectStore(DatabaseManager.getDataSource(), history.getRunId(), batchSize);
+        }
+        return RejectStore.discard();
+    }
+
+    /**
+     * Создаёт приёмник с параллельными писателями, размер пакета и число которых подбирает
+     * {@link AdaptiveWriteController}; текущие настройки сохраняются в истории запуска.
+     */
+    private static CatalogSink openAdaptiveSink(CommandLineOptions options, CommandLineOptions.WriteMode writeMode,
+                                                RunRecorder history) {
+        if (writeMode != CommandLineOptions.WriteMode.INSERT || options.has("coalesce-rows")) {
+            throw new IllegalArgumentException("Опция --adaptive поддерживается только в режиме insert без --coalesce-rows");
+        }
+        if (options.has("dedup")) {
+            // Каталог фиксируется после endCatalog: его растения попали бы в фильтр, даже если фиксация не удалась
+            throw new IllegalArgumentException("Опция --adaptive не совместима с --dedup");
+        }
+        AdaptiveWriteController controller = new AdaptiveWriteController(
+                options.getInt("batch-min", 100),
+                options.getInt("batch-max", 10_000),
+                options.getInt("writers-min", 1),
+                options.getInt("writers-max", Runtime.getRuntime().availableProcessors()),
+                options.getInt("target-latency-ms", AdaptiveWriteController.DEFAULT_TARGET_LATENCY_MS));
+        controller.setListener(settings ->
+                history.recordWriteSettings(settings.batchSize(), settings.writers(), settings.adjustments()));
+        AdaptiveWriteController.Settings initial = controller.getSettings();
+        history.recordWriteSettings(initial.batchSize(), initial.writers(), initial.adjustments());
+        return new ParallelPostgresSink(DatabaseManager.getDataSource(), controller);
+    }
+
+    /**
+     * Загружает фильтр ранее загруженных растений из файла {@code --dedup-filter} или создаёт новый.
+     * Параметры существующего фильтра сохраняются: изменить ёмкость или долю ложных срабатываний
+     * можно только удалив файл.
+     */
+    static BloomFilter openDedupFilter(CommandLineOptions options) throws IOException {
+        Path file = dedupFilterPath(options);
+        long capacity = options.getInt("dedup-capacity", 10_000_000);
+        double fpp = options.getDouble("dedup-fpp", 0.001);
+
+        BloomFilter filter;
+        if (Files.exists(file)) {
+            filter = BloomFilter.load(file);
+            if (filter.capacity() != capacity || filter.fpp() != fpp) {
+                logger.warn("Фильтр дубликатов " + file + " рассчитан на " + filter.capacity() + " ключей и fpp "
+                        + filter.fpp() + ", заданные параметры не применяются");
+            }
+        } else {
+            filter = BloomFilter.create(capacity, fpp);
+        }
+        if (filter.size() > filter.capacity()) {
+            logger.warn("Фильтр дубликатов переполнен (" + filter.size() + " из " + filter.capacity()
+                    + " ключей): доля ложных срабатываний выше расчётной");
+        }
+        logger.info("Фильтр дубликатов: ключей " + filter.size() + ", размер " + filter.sizeInBytes() / 1024 + " КБ");
+        return filter;
+    }
+
+    static Path dedupFilterPath(CommandLineOptions options) {
+        return Path.of(options.getString("dedup-filter", "dedup.bloom"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.xmlparser.cli;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.history.RunRecorder;
+import com.example.xmlparser.server.IngestionServer;
+import com.example.xmlparser.sink.PostgresSink;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Команда {@code serve}: приём каталогов по HTTP.
+ */
+public final class ServeRunner {
+
+    private ServeRunner() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Запускает HTTP-сервер приёма каталогов и ждёт остановки процесса.
+     *
+     * @param options опции командной строки
+     */
+    public static void run(CommandLineOptions options) throws IOException, InterruptedException {
+        CommandLineOptions.WriteMode writeMode = options.getWriteMode();
+        if (writeMode == CommandLineOptions.WriteMode.STAGING || !LoadSupport.isPostgres(options)) {
+            throw new IllegalArgumentException("Сервер поддерживает режимы insert и upsert с приёмником postgres");
+        }
+        int workers = options.getInt("workers", Runtime.getRuntime().availableProcessors());
+
+        IngestionServer server = new IngestionServer(
+                new InetSocketAddress(options.getString("host", "localhost"), options.getInt("port", 8080)),
+                workers,
+                options.getInt("queue", workers * 2),
+                options.getInt("chunk-rows", 1000),
+                () -> new PostgresSink(writeMode),
+                LoadSupport.openRejectStore(options, RunRecorder.disabled()));
+        server.start();
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            stopped.countDown();
+        }, "ingest-shutdown"));
+        stopped.await();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.xmlparser.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Разобранные аргументы командной строки.
+ * <p>
+ * Поддерживаются позиционные аргументы (путь к данным) и именованные опции
+ * вида {@code --name=value} или флаги {@code --name}.
+ */
+public final class CommandLineOptions {
+
+    /**
+     * Режим записи каталогов в базу данных.
+     */
+    public enum WriteMode {
+        /**
+         * Каждый каталог вставляется как новая запись (поведение по умолчанию).
+         */
+        INSERT,
+        /**
+         * Каталог ищется по UUID, в базу пишется только разница по растениям.
+         */
+        UPSERT,
+        /**
+         * Сырые строки заливаются в staging-таблицы, валидация и перенос выполняются в SQL.
+         */
+        STAGING
+    }
+
+    private final List<String> positional;
+    private final Map<String, String> options;
+
+    private CommandLineOptions(List<String> positional, Map<String, String> options) {
+        this.positional = positional;
+        this.options = options;
+    }
+
+    /**
+     * Разбирает массив аргументов командной строки.
+     *
+     * @param args аргументы, переданные в {@code main}
+     * @return разобранные опции
+     * @throws IllegalArgumentException если опция записана некорректно
+     */
+    public static CommandLineOptions parse(String[] args) {
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                String body = arg.substring(2);
+                if (body.isEmpty()) {
+                    throw new IllegalArgumentException("Пустое имя опции: " + arg);
+                }
+                int eq = body.indexOf('=');
+                if (eq < 0) {
+                    options.put(body, "true");
+                } else {
+                    options.put(body.substring(0, eq), body.substring(eq + 1));
+                }
+            } else {
+                positional.add(arg);
+            }
+        }
+
+        return new CommandLineOptions(Collections.unmodifiableList(positional), Collections.unmodifiableMap(options));
+    }
+
+    /**
+     * @return позиционные аргументы в порядке их следования
+     */
+    public List<String> getPositional() {
+        return positional;
+    }
+
+    /**
+     * @return все именованные опции: имя без префикса {@code --} и значение
+     */
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+    /**
+     * Проверяет, передана ли опция.
+     *
+     * @param name имя опции без префикса {@code --}
+     * @return true, если опция присутствует
+     */
+    public boolean has(String name) {
+        return options.containsKey(name);
+    }
+
+    /**
+     * Возвращает строковое значение опции.
+     *
+     * @param name         имя опции без префикса {@code --}
+     * @param defaultValue значение по умолчанию
+     * @return значение опции или значение по умолчанию
+     */
+    public String getString(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Возвращает значения опции, перечисленные через запятую.
+     *
+     * @param name имя опции без префикса {@code --}
+     * @return непустые значения опции или пустой список, если опция не задана
+     */
+    public List<String> getList(String name) {
+        String value = options.get(name);
+        if (value == null) {
+            return List.of();
+        }
+        List<String> values = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                values.add(part.trim());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Возвращает целочисленное значение опции.
+     *
+     * @param name         имя опции без префикса {@code --}
+     * @param defaultValue значение по умолчанию
+     * @return значение опции или значение по умолчанию
+     * @throws IllegalArgumentException если значение не является числом
+     */
+    public int getInt(String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Опция --" + name + " должна быть целым числом: " + value, e);
+        }
+    }
+
+    /**
+     * Возвращает дробное значение опции.
+     *
+     * @param name         имя опции без префикса {@code --}
+     * @param defaultValue значение по умолчанию
+     * @return значение опции или значение по умолчанию
+     * @throws IllegalArgumentException если значение не является числом
+     */
+    public double getDouble(String name, double defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Опция --" + name + " должна быть числом: " + value, e);
+        }
+    }
+
+    /**
+     * Возвращает режим записи из опции {@code --mode}.
+     *
+     * @return режим записи, по умолчанию {@link WriteMode#INSERT}
+     * @throws IllegalArgumentException если режим неизвестен
+     */
+    public WriteMode getWriteMode() {
+        String value = options.get("mode");
+        if (value == null) {
+            return WriteMode.INSERT;
+        }
+        try {
+            return WriteMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный режим записи: " + value, e);
+        }
+    }
+}
@@ -1,52 +1,63 @@
 package com.example.xmlparser.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.github.cdimascio.dotenv.Dotenv;
+import org.postgresql.ds.PGSimpleDataSource;
 
 /**
  * Утилитный класс для управления подключением к базе данных.
- * Загружает настройки из файла .env и предоставляет методы
+ * Лениво загружает настройки из файла .env и предоставляет методы
  * для получения и закрытия соединений.
  */
 public class DatabaseManager {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
 
-    private static final String url;
-    private static final String username;
-    private static final String password;
+    /**
+     * Ленивый держатель настроек подключения (idiom "initialization-on-demand holder").
+     * Файл .env читается и источник соединений создаётся только при первом обращении
+     * к {@link #getConnection()}, поэтому запуск без данных для загрузки не платит за инициализацию БД.
+     */
+    private static final class Settings {
 
-    // Статический блок инициализации — загружается один раз при старте приложения
-    static {
-        logger.info("Загрузка конфигурации подключения к базе данных из .env...");
+        private static final PGSimpleDataSource dataSource;
 
-        try {
-            Dotenv dotenv = Dotenv.load();
+        static {
+            logger.info("Загрузка конфигурации подключения к базе данных из .env...");
 
-            String host = dotenv.get("DB_HOST");
-            String port = dotenv.get("DB_PORT");
-            String dbName = dotenv.get("DB_NAME");
-            username = dotenv.get("DB_USERNAME");
-            password = dotenv.get("DB_PASSWORD");
+            try {
+                Dotenv dotenv = Dotenv.load();
 
-            if (host == null || port == null || dbName == null || username == null || password == null) {
-                throw new RuntimeException("Отсутствуют обязательные параметры подключения в .env");
-            }
+                String host = dotenv.get("DB_HOST");
+                String port = dotenv.get("DB_PORT");
+                String dbName = dotenv.get("DB_NAME");
+                String username = dotenv.get("DB_USERNAME");
+                String password = dotenv.get("DB_PASSWORD");
 
-            url = String.format("jdbc:postgresql://%s:%s/%s", host, port, dbName);
+                if (host == null || port == null || dbName == null || username == null || password == null) {
+                    throw new RuntimeException("Отсутствуют обязательные параметры подключения в .env");
+                }
 
-            // Регистрация драйвера PostgreSQL
-            Class.forName("org.postgresql.Driver");
-            logger.info("Драйвер PostgreSQL зарегистрирован");
-            logger.info("URL подключения к базе данных: {}", url);
+                // reWriteBatchedInserts: драйвер склеивает пакет INSERT в многострочные запросы
+                String url = String.format("jdbc:postgresql://%s:%s/%s?reWriteBatchedInserts=true", host, port, dbName);
 
-        } catch (Exception e) {
-            logger.error("Ошибка при инициализации DatabaseManager: {}", e.getMessage(), e);
-            throw new RuntimeException("Ошибка при инициализации DatabaseManager", e);
+                dataSource = new PGSimpleDataSource();
+                dataSource.setURL(url);
+                dataSource.setUser(username);
+                dataSource.setPassword(password);
+                logger.info("URL подключения к базе данных: {}", url);
+
+            } catch (Exception e) {
+                logger.error("Ошибка при инициализации DatabaseManager: {}", e.getMessage(), e);
+                throw new RuntimeException("Ошибка при инициализации DatabaseManager", e);
+            }
+        }
+
+        private Settings() {
         }
     }
 
@@ -57,7 +68,17 @@ public class DatabaseManager {
      * @throws SQLException если не удалось установить соединение
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, username, password);
+        return Settings.dataSource.getConnection();
+    }
+
+    /**
+     * Возвращает источник соединений с настройками из .env, например для {@code IngestionEngine}.
+     * Источник не пулирует соединения: каждое {@code getConnection()} открывает новое.
+     *
+     * @return источник соединений
+     */
+    public static DataSource getDataSource() {
+        return Settings.dataSource;
     }
 
     /**
@@ -0,0 +1,195 @@
+package com.example.xmlparser.dedup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Фильтр Блума фиксированного размера над 64-битными хэшами ключей.
+ * <p>
+ * Размер битового массива и число хэш-функций рассчитываются по ожидаемому количеству ключей
+ * и допустимой доле ложных срабатываний, поэтому расход памяти не зависит от фактического числа ключей.
+ * Позиции битов получаются двойным хэшированием (Kirsch–Mitzenmacher) из одного хэша.
+ * Фильтр сохраняется в файл и загружается из него между запусками.
+ */
+public final class BloomFilter {
+
+    private static final int MAGIC = 0x58504246; // "XPBF"
+    private static final int VERSION = 1;
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final double fpp;
+    private long size;
+
+    private BloomFilter(long[] words, int hashCount, long capacity, double fpp, long size) {
+        this.words = words;
+        this.bitCount = (long) words.length * Long.SIZE;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+        this.fpp = fpp;
+        this.size = size;
+    }
+
+    /**
+     * Создаёт пустой фильтр.
+     *
+     * @param capacity ожидаемое количество ключей
+     * @param fpp      допустимая доля ложных срабатываний при заполнении до {@code capacity}, от 0 до 1
+     * @return пустой фильтр
+     */
+    public static BloomFilter create(long capacity, double fpp) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость фильтра должна быть положительной: " + capacity);
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("Доля ложных срабатываний должна быть между 0 и 1: " + fpp);
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-capacity * Math.log(fpp) / (ln2 * ln2));
+        int words = Math.toIntExact(Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE));
+        int hashes = Math.max(1, (int) Math.round((double) words * Long.SIZE / capacity * ln2));
+        return new BloomFilter(new long[words], hashes, capacity, fpp, 0);
+    }
+
+    /**
+     * Загружает фильтр из файла.
+     *
+     * @param file файл, записанный {@link #save(Path)}
+     * @return загруженный фильтр
+     * @throws IOException если файл не читается или имеет неизвестный формат
+     */
+    public static BloomFilter load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Файл не является фильтром дубликатов: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия фильтра дубликатов " + version + ": " + file);
+            }
+            long capacity = in.readLong();
+            double fpp = in.readDouble();
+            int hashes = in.readInt();
+            long size = in.readLong();
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            return new BloomFilter(words, hashes, capacity, fpp, size);
+        }
+    }
+
+    /**
+     * Сохраняет фильтр во временный файл и атомарно заменяет им {@code file}.
+     *
+     * @param file путь к файлу фильтра
+     * @throws IOException если файл не удалось записать
+     */
+    public void save(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(capacity);
+            out.writeDouble(fpp);
+            out.writeInt(hashCount);
+            out.writeLong(size);
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param hash 64-битный хэш ключа
+     * @return false, если ключ точно не добавлялся; true, если ключ, вероятно, добавлялся
+     */
+    public boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = secondHash(hash);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Добавляет ключ в фильтр.
+     *
+     * @param hash 64-битный хэш ключа
+     */
+    public void put(long hash) {
+        long h1 = hash;
+        long h2 = secondHash(hash);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        size++;
+    }
+
+    /**
+     * @return количество добавленных ключей (с учётом повторов)
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return ожидаемое количество ключей, под которое рассчитан фильтр
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return доля ложных срабатываний, под которую рассчитан фильтр
+     */
+    public double fpp() {
+        return fpp;
+    }
+
+    /**
+     * @return размер битового массива в байтах
+     */
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * Второй хэш для двойного хэширования; нечётный, чтобы шаг не вырождался.
+     */
+    private static long secondHash(long hash) {
+        return mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+    }
+
+    /**
+     * Финальное перемешивание 64-битного значения (fmix64 из MurmurHash3).
+     *
+     * @param value исходное значение
+     * @return перемешанное значение
+     */
+    static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
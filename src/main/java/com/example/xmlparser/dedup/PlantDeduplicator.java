@@ -0,0 +1,182 @@
+package com.example.xmlparser.dedup;
+
+import com.example.xmlparser.model.Plant;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Отсев повторяющихся растений по ключу (каталог, botanical, common, зона, цена, количество).
+ * <p>
+ * Внутри каталога повторы определяются точно, множеством ключей. Повторы из ранее загруженных
+ * каталогов (в том числе прошлых запусков) определяются фильтром Блума с ограниченным объёмом памяти:
+ * такое растение может быть отброшено ошибочно с вероятностью, заданной при создании фильтра.
+ * Каталог в ключе фильтра определяется компанией, а не UUID: повторно присланный файл получает новый UUID
+ * (файл с прежним UUID отклоняется ещё при записи каталога), а поставщик остаётся тем же.
+ * Ключи каталога попадают в фильтр только после {@link #commit()}, чтобы откат каталога
+ * не отсеивал его растения при повторной загрузке.
+ */
+public final class PlantDeduplicator {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final BloomFilter seen;
+    private final Set<PlantKey> catalogKeys = new HashSet<>();
+    private long[] pendingHashes = new long[1024];
+    private int pendingCount;
+
+    private long withinCatalog;
+    private long acrossCatalogs;
+
+    /**
+     * @param seen фильтр ранее загруженных растений или null, если искать повторы только внутри каталога
+     */
+    public PlantDeduplicator(BloomFilter seen) {
+        this.seen = seen;
+    }
+
+    /**
+     * Отбирает растения каталога, не встречавшиеся ранее.
+     * Ключи каталога накапливаются между вызовами до {@link #commit()} или {@link #rollback()}.
+     *
+     * @param company компания каталога
+     * @param plants  растения каталога
+     * @return растения без повторов в исходном порядке
+     */
+    public List<Plant> filter(String company, List<Plant> plants) {
+        List<Plant> unique = new ArrayList<>(plants.size());
+        for (Plant plant : plants) {
+            PlantKey key = PlantKey.of(plant);
+            if (!catalogKeys.add(key)) {
+                withinCatalog++;
+                continue;
+            }
+            if (seen != null) {
+                long hash = hash(company, key);
+                if (seen.mightContain(hash)) {
+                    acrossCatalogs++;
+                    continue;
+                }
+                if (pendingCount == pendingHashes.length) {
+                    pendingHashes = Arrays.copyOf(pendingHashes, pendingCount * 2);
+                }
+                pendingHashes[pendingCount++] = hash;
+            }
+            unique.add(plant);
+        }
+        return unique;
+    }
+
+    /**
+     * Фиксирует ключи текущего каталога в фильтре после успешной записи.
+     */
+    public void commit() {
+        if (seen != null) {
+            for (int i = 0; i < pendingCount; i++) {
+                seen.put(pendingHashes[i]);
+            }
+        }
+        pendingCount = 0;
+        catalogKeys.clear();
+    }
+
+    /**
+     * Отбрасывает ключи текущего каталога, запись которого не состоялась.
+     */
+    public void rollback() {
+        pendingCount = 0;
+        catalogKeys.clear();
+    }
+
+    /**
+     * @return количество повторов, отброшенных внутри каталогов
+     */
+    public long getWithinCatalog() {
+        return withinCatalog;
+    }
+
+    /**
+     * @return количество растений, отброшенных как уже загруженные ранее (включая ложные срабатывания фильтра)
+     */
+    public long getAcrossCatalogs() {
+        return acrossCatalogs;
+    }
+
+    /**
+     * 64-битный хэш ключа: FNV-1a по полям с разделителями и перемешиванием результата.
+     */
+    static long hash(String company, PlantKey key) {
+        long h = FNV_OFFSET;
+        h = hash(h, company);
+        h = hash(h, key.botanical);
+        h = hash(h, key.common);
+        h = hash(h, key.zone);
+        h = hash(h, key.price);
+        h = hash(h, Integer.toString(key.availability));
+        return BloomFilter.mix(h);
+    }
+
+    private static long hash(long h, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // Разделитель полей отличает null от пустой строки и исключает склейку соседних значений
+        return (h ^ (value == null ? 0x10000 : 0x10001)) * FNV_PRIME;
+    }
+
+    /**
+     * Ключ растения внутри каталога. Цена приводится к виду без хвостовых нулей, чтобы 5.5 и 5.50 совпадали.
+     */
+    static final class PlantKey {
+
+        private final String botanical;
+        private final String common;
+        private final String zone;
+        private final String price;
+        private final int availability;
+
+        private PlantKey(String botanical, String common, String zone, String price, int availability) {
+            this.botanical = botanical;
+            this.common = common;
+            this.zone = zone;
+            this.price = price;
+            this.availability = availability;
+        }
+
+        static PlantKey of(Plant plant) {
+            BigDecimal price = plant.getPrice();
+            return new PlantKey(plant.getBotanical(), plant.getCommon(),
+                    plant.getZoneText() == null ? null : plant.getZoneText().trim(),
+                    price == null ? null : price.stripTrailingZeros().toPlainString(),
+                    plant.getAvailability());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlantKey other)) {
+                return false;
+            }
+            return availability == other.availability
+                    && Objects.equals(botanical, other.botanical)
+                    && Objects.equals(common, other.common)
+                    && Objects.equals(zone, other.zone)
+                    && Objects.equals(price, other.price);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(botanical, common, zone, price, availability);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.xmlparser.export;
+
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.service.CatalogRepository;
+import com.example.xmlparser.service.PlantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выгрузка сохранённых каталогов из d_cat_catalog/f_cat_plants в файлы, по файлу на каталог.
+ * <p>
+ * Строки читаются серверным курсором с ограниченным fetch size и сразу пишутся в файл,
+ * поэтому расход памяти не зависит от размера каталога. Каталоги могут выгружаться параллельно:
+ * каждый поток использует собственное соединение, а очередь задач ограничена.
+ */
+public final class CatalogExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogExporter.class);
+
+    private final Path outputDir;
+    private final ExportFormat format;
+    private final int threads;
+    private final int fetchSize;
+    private final String uuid;
+
+    /**
+     * @param outputDir папка для файлов выгрузки (создаётся при необходимости)
+     * @param format    формат выгрузки
+     * @param threads   количество параллельно выгружаемых каталогов
+     * @param fetchSize количество строк, получаемых из базы за одно обращение
+     * @param uuid      UUID единственного выгружаемого каталога или null для всех
+     */
+    public CatalogExporter(Path outputDir, ExportFormat format, int threads, int fetchSize, String uuid) {
+        if (threads < 1 || fetchSize < 1) {
+            throw new IllegalArgumentException("Количество потоков и fetch size должны быть положительными");
+        }
+        this.outputDir = outputDir;
+        this.format = format;
+        this.threads = threads;
+        this.fetchSize = fetchSize;
+        this.uuid = uuid;
+    }
+
+    /**
+     * Выполняет выгрузку.
+     *
+     * @return количество выгруженных каталогов и растений
+     * @throws IOException  если не удалось создать папку или записать файл
+     * @throws SQLException если не удалось открыть соединение с базой данных
+     */
+    public ExportResult export() throws IOException, SQLException {
+        Files.createDirectories(outputDir);
+        logger.info("Выгрузка каталогов в {} (формат {}, потоков {})", outputDir.toAbsolutePath(), format, threads);
+
+        AtomicLong catalogs = new AtomicLong();
+        AtomicLong plants = new AtomicLong();
+
+        // Ограниченная очередь и CallerRunsPolicy: при заполнении очереди каталог выгружает читающий поток,
+        // так что в памяти никогда не накапливается весь список каталогов
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<?>> pending = new ArrayList<>();
+
+        Connection conn = DatabaseManager.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            CatalogRepository.forEach(conn, uuid, fetchSize, catalog -> {
+                pending.add(executor.submit(() -> {
+                    plants.addAndGet(exportCatalog(catalog));
+                    catalogs.incrementAndGet();
+                    return null;
+                }));
+                awaitCompleted(pending, false);
+            });
+            conn.commit();
+            awaitCompleted(pending, true);
+        } finally {
+            executor.shutdownNow();
+            DatabaseManager.close(conn);
+        }
+
+        ExportResult result = new ExportResult(catalogs.get(), plants.get());
+        logger.info("Выгрузка завершена: каталогов {}, растений {}", result.catalogs(), result.plants());
+        return result;
+    }
+
+    /**
+     * Выгружает один каталог в собственном соединении.
+     *
+     * @return количество выгруженных растений
+     */
+    private long exportCatalog(Catalog catalog) throws IOException, SQLException {
+        Path file = outputDir.resolve("catalog-" + catalog.getId() + "." + format.getExtension());
+
+        Connection conn = DatabaseManager.getConnection();
+        try (CatalogWriter writer = format.open(file)) {
+            conn.setAutoCommit(false);
+            writer.writeHeader(catalog);
+            int count = PlantRepository.forEachByCatalog(conn, catalog.getId(), fetchSize, writer::writePlant);
+            conn.commit();
+            logger.info("Каталог {} (ID = {}) выгружен в {}, растений: {}",
+                    catalog.getUuid(), catalog.getId(), file.getFileName(), count);
+            return count;
+        } finally {
+            DatabaseManager.close(conn);
+        }
+    }
+
+    /**
+     * Забирает результаты завершённых задач и пробрасывает первую ошибку.
+     *
+     * @param pending список незавершённых задач; завершённые из него удаляются
+     * @param all     true — дождаться всех задач, false — обработать только уже завершённые
+     */
+    private static void awaitCompleted(List<Future<?>> pending, boolean all) throws IOException {
+        Iterator<Future<?>> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            Future<?> future = iterator.next();
+            if (!all && !future.isDone()) {
+                continue;
+            }
+            iterator.remove();
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Выгрузка прервана", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) {
+                    throw io;
+                }
+                if (cause instanceof SQLException sql) {
+                    throw new IOException("Ошибка базы данных при выгрузке каталога: " + sql.getMessage(), sql);
+                }
+                throw new RuntimeException("Ошибка при выгрузке каталога", cause);
+            }
+        }
+    }
+}
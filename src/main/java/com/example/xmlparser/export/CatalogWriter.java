@@ -0,0 +1,38 @@
+package com.example.xmlparser.export;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Потоковая запись одного каталога в файл: сначала заголовок каталога, затем растения по одному.
+ * Реализации не накапливают растения в памяти.
+ */
+public interface CatalogWriter extends Closeable {
+
+    /**
+     * Записывает атрибуты каталога. Вызывается один раз до записи растений.
+     *
+     * @param catalog каталог (список растений не используется)
+     * @throws IOException при ошибке записи
+     */
+    void writeHeader(Catalog catalog) throws IOException;
+
+    /**
+     * Записывает очередное растение каталога.
+     *
+     * @param plant растение
+     * @throws IOException при ошибке записи
+     */
+    void writePlant(Plant plant) throws IOException;
+
+    /**
+     * Завершает документ и закрывает файл.
+     *
+     * @throws IOException при ошибке записи
+     */
+    @Override
+    void close() throws IOException;
+}
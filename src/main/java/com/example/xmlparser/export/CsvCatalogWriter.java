@@ -0,0 +1,77 @@
+package com.example.xmlparser.export;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Запись каталога в CSV (RFC 4180): заголовок и по строке на растение,
+ * атрибуты каталога повторяются в каждой строке.
+ */
+public final class CsvCatalogWriter implements CatalogWriter {
+
+    private static final String HEADER =
+            "uuid,company,delivery_date,common,botanical,zone,light,price,availability";
+
+    private final Writer out;
+    private String catalogPrefix = "";
+
+    /**
+     * Открывает файл для записи каталога.
+     *
+     * @param file файл выгрузки
+     * @throws IOException если файл не удалось открыть
+     */
+    public CsvCatalogWriter(Path file) throws IOException {
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeHeader(Catalog catalog) throws IOException {
+        out.write(HEADER);
+        out.write("\r\n");
+
+        StringBuilder prefix = new StringBuilder();
+        appendField(prefix, catalog.getUuid()).append(',');
+        appendField(prefix, catalog.getCompany()).append(',');
+        appendField(prefix, catalog.getDeliveryDate() == null ? null : catalog.getDeliveryDate().toString()).append(',');
+        catalogPrefix = prefix.toString();
+    }
+
+    @Override
+    public void writePlant(Plant plant) throws IOException {
+        StringBuilder line = new StringBuilder(catalogPrefix);
+        appendField(line, plant.getCommon()).append(',');
+        appendField(line, plant.getBotanical()).append(',');
+        appendField(line, plant.getZoneText()).append(',');
+        appendField(line, plant.getLight()).append(',');
+        appendField(line, plant.getPrice() == null ? null : plant.getPrice().toPlainString()).append(',');
+        line.append(plant.getAvailability()).append("\r\n");
+        out.write(line.toString());
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Добавляет поле, заключая его в кавычки, если оно содержит запятую, кавычку или перевод строки.
+     */
+    private static StringBuilder appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
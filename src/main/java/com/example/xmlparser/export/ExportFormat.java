@@ -0,0 +1,63 @@
+package com.example.xmlparser.export;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Формат выгрузки каталогов.
+ */
+public enum ExportFormat {
+
+    /**
+     * Исходный формат CATALOG/PLANT.
+     */
+    XML("xml"),
+
+    /**
+     * CSV с заголовком, по строке на растение.
+     */
+    CSV("csv");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return расширение файлов выгрузки без точки
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Открывает писатель каталога в этом формате.
+     *
+     * @param file файл выгрузки
+     * @return писатель каталога
+     * @throws IOException если файл не удалось открыть
+     */
+    public CatalogWriter open(Path file) throws IOException {
+        return switch (this) {
+            case XML -> new XmlCatalogWriter(file);
+            case CSV -> new CsvCatalogWriter(file);
+        };
+    }
+
+    /**
+     * Разбирает название формата без учёта регистра.
+     *
+     * @param value название формата (xml или csv)
+     * @return формат выгрузки
+     * @throws IllegalArgumentException если формат неизвестен
+     */
+    public static ExportFormat parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный формат выгрузки: " + value, e);
+        }
+    }
+}
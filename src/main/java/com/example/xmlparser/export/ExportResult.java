@@ -0,0 +1,10 @@
+package com.example.xmlparser.export;
+
+/**
+ * Итог выгрузки каталогов.
+ *
+ * @param catalogs количество выгруженных каталогов
+ * @param plants   количество выгруженных растений
+ */
+public record ExportResult(long catalogs, long plants) {
+}
@@ -0,0 +1,104 @@
+package com.example.xmlparser.export;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.parser.XmlPlantParser;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Запись каталога в исходном XML-формате CATALOG/PLANT через StAX,
+ * так что результат снова читается {@link XmlPlantParser}.
+ */
+public final class XmlCatalogWriter implements CatalogWriter {
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final Writer out;
+    private final XMLStreamWriter xml;
+
+    /**
+     * Открывает файл для записи каталога.
+     *
+     * @param file файл выгрузки
+     * @throws IOException если файл не удалось открыть
+     */
+    public XmlCatalogWriter(Path file) throws IOException {
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        try {
+            this.xml = OUTPUT_FACTORY.createXMLStreamWriter(out);
+        } catch (XMLStreamException e) {
+            out.close();
+            throw new IOException("Не удалось создать XML-писатель для " + file, e);
+        }
+    }
+
+    @Override
+    public void writeHeader(Catalog catalog) throws IOException {
+        try {
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters("\n");
+            xml.writeStartElement("CATALOG");
+            xml.writeAttribute("uuid", nullToEmpty(catalog.getUuid()));
+            xml.writeAttribute("date", catalog.getDeliveryDate() == null
+                    ? "" : catalog.getDeliveryDate().format(XmlPlantParser.DATE_FORMAT));
+            xml.writeAttribute("company", nullToEmpty(catalog.getCompany()));
+        } catch (XMLStreamException e) {
+            throw new IOException("Ошибка записи заголовка каталога " + catalog.getUuid(), e);
+        }
+    }
+
+    @Override
+    public void writePlant(Plant plant) throws IOException {
+        try {
+            xml.writeCharacters("\n    ");
+            xml.writeStartElement("PLANT");
+            writeField("COMMON", plant.getCommon());
+            writeField("BOTANICAL", plant.getBotanical());
+            writeField("ZONE", plant.getZoneText());
+            writeField("LIGHT", plant.getLight());
+            writeField("PRICE", plant.getPrice() == null ? null : "$" + plant.getPrice().toPlainString());
+            writeField("AVAILABILITY", String.valueOf(plant.getAvailability()));
+            xml.writeCharacters("\n    ");
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Ошибка записи растения " + plant.getBotanical(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.writeCharacters("\n");
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+            xml.writeEndDocument();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Ошибка завершения XML-документа", e);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeField(String tag, String value) throws XMLStreamException {
+        if (value == null) {
+            return;
+        }
+        xml.writeCharacters("\n        ");
+        xml.writeStartElement(tag);
+        xml.writeCharacters(value);
+        xml.writeEndElement();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
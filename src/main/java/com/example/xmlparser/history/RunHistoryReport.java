@@ -0,0 +1,56 @@
+package com.example.xmlparser.history;
+
+import com.example.xmlparser.service.RunHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Отчёт по истории запусков: последние запуски и пропускная способность по дням с изменением к предыдущему дню.
+ */
+public final class RunHistoryReport {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunHistoryReport.class);
+
+    private RunHistoryReport() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Выводит отчёт в лог.
+     *
+     * @param conn  соединение с базой данных
+     * @param days  за сколько последних дней строить динамику
+     * @param limit сколько последних запусков показать
+     */
+    public static void print(Connection conn, int days, int limit) {
+        List<RunHistoryRepository.RunSummary> runs = RunHistoryRepository.recentRuns(conn, limit);
+        logger.info("Последние запуски ({}):", runs.size());
+        logger.info(String.format(Locale.ROOT, "%8s  %-19s  %-9s  %-7s  %6s  %10s  %12s  %9s  %11s  %8s",
+                "id", "начало", "статус", "режим", "файлов", "МБ", "растений", "сек", "растений/с", "МБ/с"));
+        for (RunHistoryRepository.RunSummary run : runs) {
+            logger.info(String.format(Locale.ROOT, "%8d  %-19s  %-9s  %-7s  %6d  %10.1f  %12d  %9.1f  %11.0f  %8.2f",
+                    run.id(), run.startedAt().withNano(0).toString().replace('T', ' '), run.status(),
+                    run.writeMode(), run.files(), run.bytes() / 1048576.0, run.plantsSaved(), run.seconds(),
+                    run.plantsPerSecond(), run.mbPerSecond()));
+        }
+
+        List<RunHistoryRepository.DailyThroughput> trend = RunHistoryRepository.dailyThroughput(conn, days);
+        logger.info("Пропускная способность успешных запусков за {} дн. (медиана растений/с и мс на 1000 растений):", days);
+        logger.info(String.format(Locale.ROOT, "%-10s  %7s  %12s  %11s  %8s  %11s  %8s  %10s  %7s",
+                "день", "запусков", "растений", "медиана/с", "к пред.", "лучший/с", "разбор", "валидация", "запись"));
+        double previous = 0;
+        for (RunHistoryRepository.DailyThroughput day : trend) {
+            String change = previous > 0
+                    ? String.format(Locale.ROOT, "%+.1f%%", (day.medianPlantsPerSecond() - previous) * 100 / previous)
+                    : "";
+            logger.info(String.format(Locale.ROOT, "%-10s  %7d  %12d  %11.0f  %8s  %11.0f  %8.2f  %10.2f  %7.2f",
+                    day.day(), day.runs(), day.plantsSaved(), day.medianPlantsPerSecond(), change,
+                    day.bestPlantsPerSecond(), day.parseMsPer1k(), day.validateMsPer1k(), day.writeMsPer1k()));
+            previous = day.medianPlantsPerSecond();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.xmlparser.history;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.service.RunHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Запись истории запуска в ingest_run и ingest_file.
+ * <p>
+ * Запуск регистрируется при создании, статистика файла сохраняется одной строкой по окончании его обработки,
+ * итоги — при завершении. Настройки адаптивной записи запоминаются без обращения к базе и сохраняются
+ * вместе со статистикой следующего файла и при завершении. История пишется через отдельное соединение в режиме автокоммита, поэтому
+ * не зависит от транзакций загрузки и сохраняется, даже если загрузка завершилась ошибкой.
+ * Ошибки записи истории не прерывают загрузку: после первой ошибки запись отключается.
+ */
+public final class RunRecorder implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunRecorder.class);
+
+    private static final RunRecorder DISABLED = new RunRecorder(null, 0);
+
+    private Connection conn;
+    private final long runId;
+    private final AtomicReference<WriteSettings> pendingSettings = new AtomicReference<>();
+    private int savedAdjustments = -1;
+
+    /**
+     * Настройки адаптивной записи, ожидающие сохранения.
+     */
+    private record WriteSettings(int batchSize, int writers, int adjustments) {
+    }
+
+    private RunRecorder(Connection conn, long runId) {
+        this.conn = conn;
+        this.runId = runId;
+    }
+
+    /**
+     * @return регистратор, который ничего не записывает
+     */
+    public static RunRecorder disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Регистрирует начало запуска загрузки.
+     * Если таблиц истории нет (база создана до их появления), возвращает {@link #disabled()}.
+     *
+     * @param dataSource источник соединений
+     * @param options    опции запуска
+     * @param inputPath  путь или маска входных файлов
+     * @return регистратор запуска
+     */
+    public static RunRecorder start(DataSource dataSource, CommandLineOptions options, String inputPath) {
+        Connection conn = null;
+        try {
+            conn = dataSource.getConnection();
+            Runtime runtime = Runtime.getRuntime();
+            long runId = RunHistoryRepository.startRun(conn, "load", options.getWriteMode().name(), inputPath,
+                    formatOptions(options.getOptions()), hostName(), runtime.availableProcessors(),
+                    runtime.maxMemory() / (1024 * 1024), System.getProperty("java.version"));
+            logger.info("История запуска: ingest_run.id = {}", runId);
+            return new RunRecorder(conn, runId);
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("История запусков не записывается: {}", e.getMessage());
+            DatabaseManager.close(conn);
+            return DISABLED;
+        }
+    }
+
+    /**
+     * @return идентификатор запуска или 0, если история не записывается
+     */
+    public long getRunId() {
+        return runId;
+    }
+
+    /**
+     * Сохраняет статистику обработанного файла.
+     *
+     * @param record статистика файла
+     */
+    public synchronized void recordFile(RunHistoryRepository.FileRecord record) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            RunHistoryRepository.saveFile(conn, runId, record);
+            saveWriteSettings();
+        } catch (RuntimeException e) {
+            disable(e);
+        }
+    }
+
+    /**
+     * Отмечает незафиксированным каталог, который уже был сохранён в истории как записанный.
+     *
+     * @param catalogUuid UUID каталога
+     */
+    public synchronized void recordLostCatalog(String catalogUuid) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            RunHistoryRepository.markFileFailed(conn, runId, catalogUuid);
+        } catch (RuntimeException e) {
+            disable(e);
+        }
+    }
+
+    /**
+     * Запоминает текущие настройки адаптивной записи без обращения к базе: в ingest_run они попадают после
+     * обработки следующего файла и при завершении запуска. Из настроек, пришедших не по порядку, остаются
+     * более поздние — с большим количеством изменений.
+     *
+     * @param batchSize   размер пакета JDBC
+     * @param writers     число параллельных писателей
+     * @param adjustments количество изменений настроек с начала запуска
+     */
+    public void recordWriteSettings(int batchSize, int writers, int adjustments) {
+        WriteSettings settings = new WriteSettings(batchSize, writers, adjustments);
+        pendingSettings.accumulateAndGet(settings,
+                (pending, next) -> pending == null || next.adjustments() > pending.adjustments() ? next : pending);
+    }
+
+    /**
+     * Отмечает успешное завершение запуска.
+     *
+     * @param totals итоги запуска или null — тогда итоги считаются по сохранённым файлам
+     */
+    public synchronized void succeed(RunHistoryRepository.Totals totals) {
+        finish("SUCCEEDED", null, totals);
+    }
+
+    /**
+     * Отмечает завершение запуска с ошибкой; итоги считаются по сохранённым файлам.
+     *
+     * @param error ошибка, прервавшая запуск
+     */
+    public synchronized void fail(Throwable error) {
+        finish("FAILED", error.getClass().getSimpleName() + ": " + error.getMessage(), null);
+    }
+
+    @Override
+    public synchronized void close() {
+        DatabaseManager.close(conn);
+        conn = null;
+    }
+
+    private void finish(String status, String error, RunHistoryRepository.Totals totals) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            saveWriteSettings();
+            RunHistoryRepository.finishRun(conn, runId, status, error, totals);
+        } catch (RuntimeException e) {
+            disable(e);
+        }
+    }
+
+    private void saveWriteSettings() {
+        WriteSettings settings = pendingSettings.get();
+        if (settings == null || settings.adjustments() <= savedAdjustments) {
+            return;
+        }
+        RunHistoryRepository.saveWriteSettings(conn, runId, settings.batchSize(), settings.writers(),
+                settings.adjustments());
+        savedAdjustments = settings.adjustments();
+    }
+
+    private void disable(RuntimeException e) {
+        logger.warn("Запись истории запуска {} отключена: {}", runId, e.getMessage());
+        DatabaseManager.close(conn);
+        conn = null;
+    }
+
+    private static String formatOptions(Map<String, String> options) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> option : new TreeMap<>(options).entrySet()) {
+            if (!sb.isEmpty()) {
+                sb.append(' ');
+            }
+            sb.append("--").append(option.getKey());
+            if (!"true".equals(option.getValue())) {
+                sb.append('=').append(option.getValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String hostName() {
+        String host = System.getenv("HOSTNAME");
+        if (host != null && !host.isBlank()) {
+            return host;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
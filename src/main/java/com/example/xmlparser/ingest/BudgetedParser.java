@@ -0,0 +1,136 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.parser.ParseCache;
+import com.example.xmlparser.parser.XmlFileFinder;
+import com.example.xmlparser.parser.XmlPlantParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Параллельный разбор файлов в пределах {@link HeapBudget}.
+ * <p>
+ * Разбор начинается сразу при создании, в {@code threads} потоков в порядке списка файлов. Каждый поток
+ * резервирует память перед разбором файла и ждёт, если бюджет исчерпан, поэтому разобранные каталоги
+ * не накапливаются быстрее, чем записываются. Каталоги выдаются перебором в порядке готовности; резерв
+ * каталога освобождается, когда перебор переходит к следующему, то есть после его записи.
+ * Перебрать файлы можно один раз.
+ */
+public final class BudgetedParser implements Iterable<XmlPlantParser.ParsedFile>, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetedParser.class);
+
+    private final List<XmlFileFinder.XmlFile> files;
+    private final HeapBudget budget;
+    private final ExecutorService executor;
+    private final BlockingQueue<Parsed> completed = new LinkedBlockingQueue<>();
+    private boolean iterated;
+
+    /**
+     * @param files   входные файлы
+     * @param threads количество потоков разбора
+     * @param cache   кэш разобранных каталогов или null
+     * @param budget  бюджет памяти
+     */
+    public BudgetedParser(List<XmlFileFinder.XmlFile> files, int threads, ParseCache cache, HeapBudget budget) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Количество потоков разбора должно быть положительным: " + threads);
+        }
+        this.files = files;
+        this.budget = budget;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())));
+        for (XmlFileFinder.XmlFile file : files) {
+            executor.execute(() -> completed.add(parse(file, cache)));
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public Iterator<XmlPlantParser.ParsedFile> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("Разобранные файлы можно перебрать только один раз");
+        }
+        iterated = true;
+
+        return new Iterator<>() {
+            private int returned;
+            private long held;
+
+            @Override
+            public boolean hasNext() {
+                if (returned < files.size()) {
+                    return true;
+                }
+                budget.release(held);
+                held = 0;
+                return false;
+            }
+
+            @Override
+            public XmlPlantParser.ParsedFile next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                // Предыдущий каталог уже записан: его память можно отдать разбору следующих файлов
+                budget.release(held);
+                held = 0;
+                Parsed parsed;
+                try {
+                    parsed = completed.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Ожидание разбора прервано", e);
+                }
+                held = parsed.reserved();
+                returned++;
+                return parsed.file();
+            }
+        };
+    }
+
+    /**
+     * Останавливает разбор и записывает в лог использование бюджета.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        logger.info("Бюджет памяти {} МБ: пик {} МБ, разбор приостанавливался {} раз",
+                budget.getBudgetBytes() >> 20, budget.getPeakBytes() >> 20, budget.getPauses());
+    }
+
+    private Parsed parse(XmlFileFinder.XmlFile file, ParseCache cache) {
+        long reserved = HeapBudget.estimateParse(file.size());
+        try {
+            budget.acquire(reserved);
+        } catch (InterruptedIOException e) {
+            return new Parsed(new XmlPlantParser.ParsedFile(file, null, 0), 0);
+        }
+
+        try {
+            XmlPlantParser.ParsedFile parsed = XmlPlantParser.parseFile(file, cache);
+            long retained = parsed.catalog() == null ? 0 : HeapBudget.estimate(parsed.catalog());
+            budget.resize(reserved, retained);
+            return new Parsed(parsed, retained);
+        } catch (RuntimeException | Error e) {
+            // Результат должен попасть в очередь в любом случае, иначе перебор будет ждать его вечно
+            logger.error("Ошибка при разборе файла " + file.path().getFileName(), e);
+            budget.release(reserved);
+            return new Parsed(new XmlPlantParser.ParsedFile(file, null, 0), 0);
+        }
+    }
+
+    /**
+     * Разобранный файл и зарезервированная под него память.
+     */
+    private record Parsed(XmlPlantParser.ParsedFile file, long reserved) {
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.dedup.PlantDeduplicator;
+import com.example.xmlparser.jfr.CatalogIngestEvent;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.parser.XmlPlantReader;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.service.DuplicateCatalogException;
+import com.example.xmlparser.sink.CatalogSink;
+import com.example.xmlparser.validator.CatalogValidator;
+import com.example.xmlparser.validator.PlantValidator;
+import com.example.xmlparser.validator.ValidationError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Загрузка одного каталога в {@link CatalogSink}: из {@link XmlPlantReader} или уже разобранного {@link Catalog}.
+ * <p>
+ * Растения передаются приёмнику порциями; при чтении из {@link XmlPlantReader} документ целиком в памяти
+ * не держится, и каталог валидируется по атрибутам и первой порции растений. Растения валидируются по одному
+ * и при необходимости отсеиваются {@link PlantDeduplicator}. Нарушения правил передаются в {@link RejectStore}.
+ * При любой ошибке каталог отменяется через {@link CatalogSink#abortCatalog()}. Оба источника проходят
+ * одни и те же шаги, поэтому правила и обработка отклонённых записей у CLI, сервера и движка общие.
+ */
+public final class CatalogStreamLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogStreamLoader.class);
+
+    /**
+     * Итог загрузки каталога.
+     */
+    public enum Status {
+        /**
+         * Каталог сохранён.
+         */
+        SAVED,
+        /**
+         * Каталог не прошёл валидацию.
+         */
+        INVALID,
+        /**
+         * Каталог с таким UUID уже загружен.
+         */
+        DUPLICATE
+    }
+
+    /**
+     * Результат загрузки каталога.
+     *
+     * @param uuid           UUID каталога
+     * @param status         итог загрузки
+     * @param catalogId      идентификатор сохранённого каталога или 0
+     * @param plantsSaved    количество записанных растений
+     * @param plantsRejected количество отклонённых растений
+     * @param validateNanos  время валидации и отсева повторов, нс
+     * @param writeNanos     время записи в приёмник, нс
+     */
+    public record Result(String uuid, Status status, int catalogId, int plantsSaved, int plantsRejected,
+                         long validateNanos, long writeNanos) {
+    }
+
+    /**
+     * Источник каталога и его растений.
+     */
+    private interface CatalogInput {
+
+        /**
+         * @return каталог с растениями, достаточными для его валидации
+         */
+        Catalog readCatalog() throws XMLStreamException;
+
+        /**
+         * @return следующая порция растений или пустой список
+         */
+        List<Plant> nextChunk() throws XMLStreamException;
+    }
+
+    private CatalogStreamLoader() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Читает каталог и записывает его в приёмник.
+     *
+     * @param reader    читатель, ещё не прочитавший заголовок
+     * @param sink      приёмник каталога
+     * @param chunkRows количество растений в одной порции
+     * @return результат загрузки
+     * @throws XMLStreamException если XML некорректен; каталог отменяется
+     * @throws IOException        при ошибке записи в приёмник; каталог отменяется
+     */
+    public static Result load(XmlPlantReader reader, CatalogSink sink, int chunkRows)
+            throws XMLStreamException, IOException {
+        return load(reader, sink, chunkRows, RejectStore.discard(), null);
+    }
+
+    /**
+     * Читает каталог и записывает его в приёмник, сохраняя отклонённые записи.
+     *
+     * @param reader    читатель, ещё не прочитавший заголовок
+     * @param sink      приёмник каталога
+     * @param chunkRows количество растений в одной порции
+     * @param rejects   хранилище отклонённых записей
+     * @param source    путь к файлу для отклонённых записей или null
+     * @return результат загрузки
+     * @throws XMLStreamException если XML некорректен; каталог отменяется
+     * @throws IOException        при ошибке записи в приёмник; каталог отменяется
+     */
+    public static Result load(XmlPlantReader reader, CatalogSink sink, int chunkRows, RejectStore rejects,
+                              String source) throws XMLStreamException, IOException {
+        CatalogInput input = new CatalogInput() {
+            private List<Plant> first;
+
+            @Override
+            public Catalog readCatalog() throws XMLStreamException {
+                Catalog catalog = reader.readHeader();
+                first = readChunk(reader, chunkRows);
+                catalog.setPlants(first);
+                return catalog;
+            }
+
+            @Override
+            public List<Plant> nextChunk() throws XMLStreamException {
+                if (first != null) {
+                    List<Plant> chunk = first;
+                    first = null;
+                    return chunk;
+                }
+                return readChunk(reader, chunkRows);
+            }
+        };
+        return load(input, sink, rejects, source, null, null);
+    }
+
+    /**
+     * Записывает разобранный каталог в приёмник, сохраняя отклонённые записи.
+     * Растения каталога передаются приёмнику порциями по {@link IngestionConfig#chunkRows()}.
+     *
+     * @param catalog каталог с растениями; список растений не изменяется
+     * @param sink    приёмник каталога
+     * @param config  настройки загрузки
+     * @param rejects хранилище отклонённых записей
+     * @param source  путь к файлу для отклонённых записей или null
+     * @param dedup   отсев повторяющихся растений или null; ключи каталога фиксируются после
+     *                {@link CatalogSink#endCatalog()} и откатываются при ошибке
+     * @return результат загрузки
+     * @throws IOException при ошибке записи в приёмник; каталог отменяется
+     */
+    public static Result load(Catalog catalog, CatalogSink sink, IngestionConfig config, RejectStore rejects,
+                              String source, PlantDeduplicator dedup) throws IOException {
+        List<Plant> plants = catalog.getPlants() == null ? List.of() : catalog.getPlants();
+        CatalogInput input = new CatalogInput() {
+            private int position;
+
+            @Override
+            public Catalog readCatalog() {
+                return catalog;
+            }
+
+            @Override
+            public List<Plant> nextChunk() {
+                int from = position;
+                position = Math.min(plants.size(), from + config.chunkRows());
+                return plants.subList(from, position);
+            }
+        };
+        try {
+            return load(input, sink, rejects, source, dedup, config.writeMode().name());
+        } catch (XMLStreamException e) {
+            // Разобранный каталог не читает XML
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Result load(CatalogInput input, CatalogSink sink, RejectStore rejects, String source,
+                               PlantDeduplicator dedup, String writeMode) throws XMLStreamException, IOException {
+        CatalogIngestEvent event = new CatalogIngestEvent();
+        event.begin();
+        Catalog catalog = null;
+        Result result = null;
+        int rejected = 0;
+        long validateNanos = 0;
+        long writeNanos = 0;
+
+        try {
+            catalog = input.readCatalog();
+            long started = System.nanoTime();
+            List<ValidationError> catalogErrors = CatalogValidator.check(catalog);
+            validateNanos += System.nanoTime() - started;
+            if (!catalogErrors.isEmpty()) {
+                rejects.rejectCatalog(source, catalog, catalogErrors);
+                result = new Result(catalog.getUuid(), Status.INVALID, 0, 0, 0, validateNanos, writeNanos);
+                return result;
+            }
+
+            int catalogId;
+            started = System.nanoTime();
+            try {
+                catalogId = sink.beginCatalog(catalog);
+            } catch (DuplicateCatalogException e) {
+                sink.abortCatalog();
+                rejects.rejectDuplicate(source, catalog, e.getMessage());
+                result = new Result(catalog.getUuid(), Status.DUPLICATE, 0, 0, 0, validateNanos,
+                        writeNanos + System.nanoTime() - started);
+                return result;
+            }
+            writeNanos += System.nanoTime() - started;
+
+            try {
+                int ordinal = 0;
+                List<Plant> chunk = input.nextChunk();
+                while (!chunk.isEmpty()) {
+                    started = System.nanoTime();
+                    List<Plant> valid = new ArrayList<>(chunk.size());
+                    for (Plant plant : chunk) {
+                        plant.setCatalogId(catalogId);
+                        ordinal++;
+                        List<ValidationError> errors = PlantValidator.check(plant);
+                        if (errors.isEmpty()) {
+                            valid.add(plant);
+                        } else {
+                            rejected++;
+                            rejects.rejectPlant(source, catalog.getUuid(), ordinal, plant, errors);
+                        }
+                    }
+                    if (dedup != null) {
+                        valid = dedup.filter(catalog.getCompany(), valid);
+                    }
+                    validateNanos += System.nanoTime() - started;
+
+                    started = System.nanoTime();
+                    sink.writePlants(valid);
+                    writeNanos += System.nanoTime() - started;
+                    chunk = input.nextChunk();
+                }
+                started = System.nanoTime();
+                int saved = sink.endCatalog();
+                writeNanos += System.nanoTime() - started;
+                if (dedup != null) {
+                    dedup.commit();
+                }
+                result = new Result(catalog.getUuid(), Status.SAVED, catalogId, saved, rejected, validateNanos,
+                        writeNanos);
+                logger.info("Каталог UUID: {} сохранён, растений {}, отклонено {}", catalog.getUuid(), saved, rejected);
+                return result;
+            } catch (XMLStreamException | IOException | RuntimeException e) {
+                sink.abortCatalog();
+                if (dedup != null) {
+                    dedup.rollback();
+                }
+                throw e;
+            }
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.catalogUuid = catalog == null ? null : catalog.getUuid();
+                event.writeMode = writeMode;
+                event.plantsSaved = result == null ? 0 : result.plantsSaved();
+                event.plantsRejected = rejected;
+                event.plantCount = event.plantsSaved + rejected;
+                event.catalogRejected = result == null || result.status() != Status.SAVED;
+                event.commit();
+            }
+        }
+    }
+
+    private static List<Plant> readChunk(XmlPlantReader reader, int chunkRows) throws XMLStreamException {
+        List<Plant> chunk = new ArrayList<>(Math.min(chunkRows, 1024));
+        Plant plant;
+        while (chunk.size() < chunkRows && (plant = reader.next()) != null) {
+            chunk.add(plant);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.aggregate.PlantAggregator;
+import com.example.xmlparser.jfr.CatalogIngestEvent;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.parser.XmlPlantReader;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.service.AggregateRepository;
+import com.example.xmlparser.service.CatalogIdCache;
+import com.example.xmlparser.service.CatalogRepository;
+import com.example.xmlparser.service.Checkpoint;
+import com.example.xmlparser.service.CheckpointRepository;
+import com.example.xmlparser.service.DuplicateCatalogException;
+import com.example.xmlparser.service.PlantRepository;
+import com.example.xmlparser.validator.CatalogValidator;
+import com.example.xmlparser.validator.PlantValidator;
+import com.example.xmlparser.validator.ValidationError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Загрузка больших файлов порциями с контрольными точками (режим insert).
+ * <p>
+ * Файл читается потоково ({@link XmlPlantReader}). Каждая порция из {@code chunkRows} элементов PLANT
+ * записывается отдельной транзакцией вместе с приростом сводок и контрольной точкой — номером последнего
+ * зафиксированного растения. Если процесс прервётся, следующий запуск найдёт контрольную точку, пропустит
+ * зафиксированные растения без разбора полей и продолжит с первой незафиксированной порции.
+ * Контрольная точка действительна, пока у файла не изменились размер и время изменения. Если файл изменился,
+ * каталог, записанный по прежней версии, удаляется вместе с растениями, сводками и контрольной точкой
+ * одной транзакцией, после чего файл загружается сначала. Отклонённые каталоги и растения сохраняются
+ * в {@link RejectStore} запуска; растения порции — только после фиксации её контрольной точки, чтобы при
+ * продолжении повторно прочитанные порции не давали повторных отклонённых записей.
+ */
+public final class CheckpointedFileLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointedFileLoader.class);
+
+    private final Connection conn;
+    private final int chunkRows;
+    private final RejectStore rejects;
+    private final CatalogIdCache idCache;
+
+    /**
+     * Отклонённое растение порции, ожидающее фиксации контрольной точки.
+     */
+    private record PlantReject(int ordinal, Plant plant, List<ValidationError> errors) {
+    }
+
+    /**
+     * Итог загрузки одного файла.
+     *
+     * @param skipped         файл уже был загружен полностью
+     * @param resumed         загрузка продолжена с контрольной точки
+     * @param catalogRejected каталог отклонён (ошибки валидации или повторный UUID)
+     * @param plantsSaved     сохранено растений в этом запуске
+     * @param plantsRejected  отклонено растений в этом запуске
+     */
+    public record Result(boolean skipped, boolean resumed, boolean catalogRejected, int plantsSaved,
+                         int plantsRejected) {
+    }
+
+    /**
+     * @param conn      соединение с отключённым автокоммитом; транзакциями управляет загрузчик
+     * @param chunkRows количество элементов PLANT в одной транзакции
+     * @param rejects   хранилище отклонённых записей
+     */
+    public CheckpointedFileLoader(Connection conn, int chunkRows, RejectStore rejects) {
+        this(conn, chunkRows, rejects, CatalogIdCache.SHARED);
+    }
+
+    /**
+     * @param conn      соединение с отключённым автокоммитом; транзакциями управляет загрузчик
+     * @param chunkRows количество элементов PLANT в одной транзакции
+     * @param rejects   хранилище отклонённых записей
+     * @param idCache   кэш идентификаторов каталогов, из которого удаляется каталог изменившегося файла
+     */
+    public CheckpointedFileLoader(Connection conn, int chunkRows, RejectStore rejects, CatalogIdCache idCache) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("Размер порции должен быть положительным: " + chunkRows);
+        }
+        this.conn = conn;
+        this.chunkRows = chunkRows;
+        this.rejects = rejects;
+        this.idCache = idCache;
+    }
+
+    /**
+     * Загружает файл, продолжая с контрольной точки, если она есть.
+     *
+     * @param file XML-файл каталога
+     * @return итог загрузки
+     * @throws IOException        если файл не удалось прочитать
+     * @throws XMLStreamException если XML некорректен; зафиксированные порции остаются в базе
+     * @throws SQLException       если не удалось зафиксировать или откатить транзакцию
+     */
+    public Result load(Path file) throws IOException, XMLStreamException, SQLException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attrs.size();
+        long mtime = attrs.lastModifiedTime().toMillis();
+        String path = file.toAbsolutePath().normalize().toString();
+
+        CatalogIngestEvent event = new CatalogIngestEvent();
+        event.begin();
+        Catalog catalog = null;
+        int saved = 0;
+        int rejected = 0;
+        boolean catalogRejected = false;
+
+        try (XmlPlantReader reader = new XmlPlantReader(file)) {
+            Checkpoint checkpoint = CheckpointRepository.find(conn, path);
+            if (checkpoint != null && !checkpoint.matches(size, mtime)) {
+                discard(checkpoint);
+                logger.warn("Файл {} изменился после контрольной точки: каталог ID = {}, загруженный по прежней версии,"
+                        + " удалён, загрузка начинается сначала", file, checkpoint.catalogId());
+                checkpoint = null;
+            }
+            if (checkpoint != null && checkpoint.completed()) {
+                conn.rollback();
+                logger.info("Файл {} уже загружен полностью, пропущен", file);
+                return new Result(true, false, false, 0, 0);
+            }
+
+            catalog = reader.readHeader();
+            int catalogId;
+            List<Plant> chunk;
+            if (checkpoint != null) {
+                catalogId = checkpoint.catalogId();
+                int skipped = reader.skip(checkpoint.plantOrdinal());
+                logger.info("Файл {}: продолжение с растения {} (каталог ID = {})", file, skipped + 1, catalogId);
+                chunk = readChunk(reader);
+            } else {
+                chunk = readChunk(reader);
+                catalog.setPlants(chunk);
+                List<ValidationError> catalogErrors = CatalogValidator.check(catalog);
+                if (!catalogErrors.isEmpty()) {
+                    rejects.rejectCatalog(path, catalog, catalogErrors);
+                    catalogRejected = true;
+                    conn.rollback();
+                    return new Result(false, false, true, 0, 0);
+                }
+                try {
+                    catalogId = CatalogRepository.save(conn, catalog);
+                } catch (DuplicateCatalogException e) {
+                    conn.rollback();
+                    rejects.rejectDuplicate(path, catalog, e.getMessage());
+                    catalogRejected = true;
+                    return new Result(false, false, true, 0, 0);
+                }
+            }
+
+            PlantAggregator aggregator = new PlantAggregator();
+            int chunkEnd = reader.getOrdinal();
+            while (true) {
+                List<Plant> valid = new ArrayList<>(chunk.size());
+                List<PlantReject> chunkRejects = new ArrayList<>();
+                int ordinal = chunkEnd - chunk.size();
+                for (Plant plant : chunk) {
+                    plant.setCatalogId(catalogId);
+                    ordinal++;
+                    List<ValidationError> errors = PlantValidator.check(plant);
+                    if (errors.isEmpty()) {
+                        valid.add(plant);
+                    } else {
+                        rejected++;
+                        chunkRejects.add(new PlantReject(ordinal, plant, errors));
+                    }
+                }
+                PlantRepository.saveAll(conn, valid);
+                aggregator.clear();
+                aggregator.addAll(valid);
+                if (!aggregator.isEmpty()) {
+                    AggregateRepository.appendCatalog(conn, catalogId, catalog.getCompany(), aggregator.result());
+                }
+
+                // Следующая порция читается до фиксации, чтобы последняя порция сразу отметила файл загруженным
+                List<Plant> next = chunk.isEmpty() ? List.of() : readChunk(reader);
+                boolean completed = next.isEmpty();
+                CheckpointRepository.save(conn, new Checkpoint(path, size, mtime, catalogId, chunkEnd, completed));
+                conn.commit();
+                saved += valid.size();
+                for (PlantReject reject : chunkRejects) {
+                    rejects.rejectPlant(path, catalog.getUuid(), reject.ordinal(), reject.plant(), reject.errors());
+                }
+                logger.debug("Файл {}: зафиксировано растений до {}", file.getFileName(), chunkEnd);
+
+                if (completed) {
+                    break;
+                }
+                chunk = next;
+                chunkEnd = reader.getOrdinal();
+            }
+
+            logger.info("Файл {} загружен: сохранено растений {}, отклонено {}", file, saved, rejected);
+            return new Result(false, checkpoint != null, false, saved, rejected);
+
+        } catch (IOException | XMLStreamException | SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.catalogUuid = catalog == null ? null : catalog.getUuid();
+                event.writeMode = "INSERT";
+                event.plantCount = saved + rejected;
+                event.plantsSaved = saved;
+                event.plantsRejected = rejected;
+                event.catalogRejected = catalogRejected;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Удаляет каталог, сводки и контрольную точку, записанные по прежней версии файла, и фиксирует удаление.
+     */
+    private void discard(Checkpoint checkpoint) throws SQLException {
+        AggregateRepository.replaceCatalog(conn, checkpoint.catalogId(), null, List.of());
+        CatalogRepository.delete(conn, checkpoint.catalogId(), idCache);
+        CheckpointRepository.delete(conn, checkpoint.filePath());
+        conn.commit();
+    }
+
+    private List<Plant> readChunk(XmlPlantReader reader) throws XMLStreamException {
+        List<Plant> chunk = new ArrayList<>(Math.min(chunkRows, 1024));
+        Plant plant;
+        while (chunk.size() < chunkRows && (plant = reader.next()) != null) {
+            chunk.add(plant);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,349 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.parser.XmlFileFinder;
+import com.example.xmlparser.parser.XmlPlantReader;
+import com.example.xmlparser.reject.Reject;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.validator.CatalogValidator;
+import com.example.xmlparser.validator.PlantValidator;
+import com.example.xmlparser.validator.ValidationError;
+import com.example.xmlparser.validator.ValidationRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Пробный запуск: разбор и валидация файлов без обращения к базе данных.
+ * <p>
+ * Файлы читаются потоково ({@link XmlPlantReader}) в несколько потоков, по файлу на поток, поэтому память
+ * не зависит от размера файлов. Каталог проверяется по атрибутам и первому растению, растения — теми же
+ * правилами, что и при загрузке, но без записи каждой ошибки в лог: нарушения считаются по файлам и правилам,
+ * для каждого правила сохраняются первые несколько записей-примеров, а все нарушения передаются
+ * в {@link RejectStore} (например, в локальный CSV-файл). Повтор UUID каталога в разных файлах
+ * отмечается правилом {@link ValidationRule#CATALOG_DUPLICATE}; дубликаты относительно базы данных
+ * пробный запуск не видит.
+ */
+public final class DryRunValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DryRunValidator.class);
+
+    /**
+     * Количество примеров на правило по умолчанию.
+     */
+    public static final int DEFAULT_SAMPLES = 5;
+
+    /**
+     * Пример записи, нарушившей правило.
+     *
+     * @param file    файл
+     * @param ordinal порядковый номер растения в файле (с 1) или 0 для атрибутов каталога
+     * @param message описание ошибки
+     * @param record  значения полей записи
+     */
+    public record Sample(Path file, int ordinal, String message, String record) {
+    }
+
+    /**
+     * Результат проверки одного файла.
+     *
+     * @param file            файл
+     * @param bytes           размер файла в байтах
+     * @param catalogUuid     UUID каталога или null, если заголовок не прочитан
+     * @param catalogRejected каталог не прошёл бы валидацию и не был бы загружен
+     * @param plants          количество прочитанных растений
+     * @param plantsRejected  количество растений, нарушивших хотя бы одно правило
+     * @param rejectsByRule   количество нарушений по правилам
+     * @param samples         первые примеры нарушений по правилам
+     * @param parseError      описание ошибки разбора или null
+     * @param nanos           время проверки файла
+     */
+    public record FileReport(Path file, long bytes, String catalogUuid, boolean catalogRejected,
+                             int plants, int plantsRejected, Map<ValidationRule, Integer> rejectsByRule,
+                             Map<ValidationRule, List<Sample>> samples, String parseError, long nanos) {
+
+        /**
+         * @return true, если файл не был бы загружен целиком: ошибка разбора или каталог отклонён
+         */
+        public boolean rejected() {
+            return catalogRejected || parseError != null;
+        }
+    }
+
+    /**
+     * Итог пробного запуска.
+     *
+     * @param files         результаты по файлам в порядке списка файлов
+     * @param rejectsByRule количество нарушений по правилам по всем файлам
+     * @param samples       первые примеры нарушений по правилам по всем файлам
+     * @param nanos         общее время проверки
+     */
+    public record Report(List<FileReport> files, Map<ValidationRule, Long> rejectsByRule,
+                         Map<ValidationRule, List<Sample>> samples, long nanos) {
+
+        /**
+         * @return количество прочитанных растений
+         */
+        public long plants() {
+            return files.stream().mapToLong(FileReport::plants).sum();
+        }
+
+        /**
+         * @return количество растений, нарушивших хотя бы одно правило
+         */
+        public long plantsRejected() {
+            return files.stream().mapToLong(FileReport::plantsRejected).sum();
+        }
+
+        /**
+         * @return количество растений, которые были бы загружены: корректные растения загружаемых каталогов
+         */
+        public long plantsAccepted() {
+            return files.stream().filter(file -> !file.rejected())
+                    .mapToLong(file -> file.plants() - file.plantsRejected()).sum();
+        }
+
+        /**
+         * @return количество файлов, которые не были бы загружены
+         */
+        public long filesRejected() {
+            return files.stream().filter(FileReport::rejected).count();
+        }
+
+        /**
+         * @return общий размер проверенных файлов в байтах
+         */
+        public long bytes() {
+            return files.stream().mapToLong(FileReport::bytes).sum();
+        }
+    }
+
+    private final int threads;
+    private final int samplesPerRule;
+    private final RejectStore rejectStore;
+
+    /**
+     * @param threads        количество файлов, проверяемых параллельно
+     * @param samplesPerRule количество сохраняемых примеров на правило (0 — без примеров)
+     */
+    public DryRunValidator(int threads, int samplesPerRule) {
+        this(threads, samplesPerRule, RejectStore.discard());
+    }
+
+    /**
+     * @param threads        количество файлов, проверяемых параллельно
+     * @param samplesPerRule количество сохраняемых примеров на правило (0 — без примеров)
+     * @param rejects        хранилище всех нарушений; закрывает вызывающий код
+     */
+    public DryRunValidator(int threads, int samplesPerRule, RejectStore rejects) {
+        if (threads < 1 || samplesPerRule < 0) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным, а примеров — неотрицательным");
+        }
+        this.threads = threads;
+        this.samplesPerRule = samplesPerRule;
+        this.rejectStore = rejects;
+    }
+
+    /**
+     * Проверяет файлы и записывает итог в лог.
+     *
+     * @param files входные файлы
+     * @return итог пробного запуска
+     * @throws InterruptedException если ожидание проверки было прервано
+     */
+    public Report run(List<XmlFileFinder.XmlFile> files) throws InterruptedException {
+        long started = System.nanoTime();
+        logger.info("Пробный запуск: проверка файлов {} в {} потоков, без обращения к базе данных",
+                files.size(), threads);
+
+        List<FileReport> reports = new ArrayList<>(files.size());
+        if (threads == 1 || files.size() <= 1) {
+            for (XmlFileFinder.XmlFile file : files) {
+                reports.add(validate(file));
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+            try {
+                List<Future<FileReport>> results = new ArrayList<>(files.size());
+                for (XmlFileFinder.XmlFile file : files) {
+                    results.add(executor.submit(() -> validate(file)));
+                }
+                for (int i = 0; i < results.size(); i++) {
+                    try {
+                        reports.add(results.get(i).get());
+                    } catch (ExecutionException e) {
+                        XmlFileFinder.XmlFile file = files.get(i);
+                        reports.add(new FileReport(file.path(), file.size(), null, false, 0, 0, Map.of(), Map.of(),
+                                String.valueOf(e.getCause()), 0));
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        Report report = merge(markDuplicates(reports), System.nanoTime() - started);
+        print(report);
+        return report;
+    }
+
+    /**
+     * Проверяет один файл.
+     *
+     * @param file входной файл
+     * @return результат проверки; ошибка разбора не прерывает пробный запуск
+     */
+    FileReport validate(XmlFileFinder.XmlFile file) {
+        long started = System.nanoTime();
+        Map<ValidationRule, Integer> rejects = new EnumMap<>(ValidationRule.class);
+        Map<ValidationRule, List<Sample>> samples = new EnumMap<>(ValidationRule.class);
+        Catalog catalog = null;
+        boolean catalogRejected = false;
+        int plants = 0;
+        int plantsRejected = 0;
+        String parseError = null;
+
+        try (XmlPlantReader reader = new XmlPlantReader(file.path())) {
+            catalog = reader.readHeader();
+            Plant plant = reader.next();
+            catalog.setPlants(plant == null ? List.of() : List.of(plant));
+
+            List<ValidationError> catalogErrors = CatalogValidator.check(catalog);
+            catalogRejected = !catalogErrors.isEmpty();
+            for (ValidationError error : catalogErrors) {
+                rejectStore.add(Reject.of(file.path().toString(), catalog, error));
+                count(rejects, samples, error, new Sample(file.path(), 0, error.message(), describe(catalog)));
+            }
+
+            while (plant != null) {
+                plants++;
+                // Идентификатора каталога при пробном запуске нет: проверяются только поля растения
+                plant.setCatalogId(1);
+                List<ValidationError> errors = PlantValidator.check(plant);
+                if (!errors.isEmpty()) {
+                    plantsRejected++;
+                    for (ValidationError error : errors) {
+                        rejectStore.add(Reject.of(file.path().toString(), catalog.getUuid(), reader.getOrdinal(),
+                                plant, error));
+                        count(rejects, samples, error,
+                                new Sample(file.path(), reader.getOrdinal(), error.message(), describe(plant)));
+                    }
+                }
+                plant = reader.next();
+            }
+        } catch (Exception e) {
+            parseError = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            logger.warn("Ошибка разбора файла {}: {}", file.path().getFileName(), parseError);
+        }
+
+        return new FileReport(file.path(), file.size(), catalog == null ? null : catalog.getUuid(), catalogRejected,
+                plants, plantsRejected, rejects, samples, parseError, System.nanoTime() - started);
+    }
+
+    private void count(Map<ValidationRule, Integer> rejects, Map<ValidationRule, List<Sample>> samples,
+                       ValidationError error, Sample sample) {
+        rejects.merge(error.rule(), 1, Integer::sum);
+        List<Sample> ruleSamples = samples.computeIfAbsent(error.rule(), rule -> new ArrayList<>());
+        if (ruleSamples.size() < samplesPerRule) {
+            ruleSamples.add(sample);
+        }
+    }
+
+    /**
+     * Отклоняет каталоги, UUID которых уже встречался в предыдущем по списку файле,
+     * как это сделала бы загрузка тех же файлов в базу данных.
+     */
+    private List<FileReport> markDuplicates(List<FileReport> reports) {
+        Set<String> seen = new HashSet<>();
+        List<FileReport> marked = new ArrayList<>(reports.size());
+        for (FileReport report : reports) {
+            String uuid = report.catalogUuid();
+            if (report.parseError() != null || uuid == null || uuid.isBlank() || seen.add(uuid)) {
+                marked.add(report);
+                continue;
+            }
+            Map<ValidationRule, Integer> rejects = new EnumMap<>(ValidationRule.class);
+            rejects.putAll(report.rejectsByRule());
+            Map<ValidationRule, List<Sample>> samples = new EnumMap<>(ValidationRule.class);
+            samples.putAll(report.samples());
+            String message = "Каталог с UUID " + uuid + " уже встречался в другом файле";
+            rejectStore.add(new Reject(report.file().toString(), uuid, null, ValidationRule.CATALOG_DUPLICATE, message,
+                    null, null, null, null, null, null));
+            count(rejects, samples, new ValidationError(ValidationRule.CATALOG_DUPLICATE, ""),
+                    new Sample(report.file(), 0, message, "uuid=" + uuid));
+            marked.add(new FileReport(report.file(), report.bytes(), uuid, true, report.plants(),
+                    report.plantsRejected(), rejects, samples, null, report.nanos()));
+        }
+        return marked;
+    }
+
+    private Report merge(List<FileReport> reports, long nanos) {
+        Map<ValidationRule, Long> rejects = new EnumMap<>(ValidationRule.class);
+        Map<ValidationRule, List<Sample>> samples = new EnumMap<>(ValidationRule.class);
+        for (FileReport report : reports) {
+            report.rejectsByRule().forEach((rule, count) -> rejects.merge(rule, (long) count, Long::sum));
+            report.samples().forEach((rule, fileSamples) -> {
+                List<Sample> ruleSamples = samples.computeIfAbsent(rule, key -> new ArrayList<>());
+                for (Sample sample : fileSamples) {
+                    if (ruleSamples.size() < samplesPerRule) {
+                        ruleSamples.add(sample);
+                    }
+                }
+            });
+        }
+        return new Report(reports, rejects, samples, nanos);
+    }
+
+    private static void print(Report report) {
+        for (FileReport file : report.files()) {
+            if (file.parseError() != null) {
+                logger.info("  {}: ОШИБКА РАЗБОРА ({}), прочитано растений {}",
+                        file.file(), file.parseError(), file.plants());
+            } else {
+                logger.info("  {}: каталог {} {}, растений {}, отклонено {}{}", file.file(), file.catalogUuid(),
+                        file.catalogRejected() ? "ОТКЛОНЁН" : "принят", file.plants(), file.plantsRejected(),
+                        file.rejectsByRule().isEmpty() ? "" : " " + file.rejectsByRule());
+            }
+        }
+
+        report.rejectsByRule().entrySet().stream()
+                .sorted(Map.Entry.<ValidationRule, Long>comparingByValue(Comparator.reverseOrder()))
+                .forEach(entry -> {
+                    logger.info("Правило {}: нарушений {}", entry.getKey(), entry.getValue());
+                    for (Sample sample : report.samples().getOrDefault(entry.getKey(), List.of())) {
+                        logger.info("    {}#{}: {} [{}]", sample.file().getFileName(), sample.ordinal(),
+                                sample.message(), sample.record());
+                    }
+                });
+
+        double seconds = report.nanos() / 1e9;
+        logger.info("Пробный запуск завершён за {} с ({} МБ/с): файлов {}, не было бы загружено {}; "
+                        + "растений {}, отклонено {}, было бы загружено {}",
+                String.format("%.1f", seconds),
+                String.format("%.1f", seconds > 0 ? report.bytes() / 1048576.0 / seconds : 0),
+                report.files().size(), report.filesRejected(),
+                report.plants(), report.plantsRejected(), report.plantsAccepted());
+    }
+
+    private static String describe(Catalog catalog) {
+        return "uuid=" + catalog.getUuid() + ", company=" + catalog.getCompany() + ", date=" + catalog.getDeliveryDate();
+    }
+
+    private static String describe(Plant plant) {
+        return "COMMON=" + plant.getCommon() + ", BOTANICAL=" + plant.getBotanical() + ", ZONE=" + plant.getZoneText()
+                + ", LIGHT=" + plant.getLight() + ", PRICE=" + plant.getPrice() + ", AVAILABILITY=" + plant.getAvailability();
+    }
+}
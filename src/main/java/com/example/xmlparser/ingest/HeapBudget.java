@@ -0,0 +1,175 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Бюджет памяти для разобранных, но ещё не записанных каталогов.
+ * <p>
+ * Перед разбором файла резервируется оценка пиковой памяти разбора ({@value #PARSE_BYTES_PER_FILE_BYTE} байт
+ * кучи на байт файла: документ DOM вместе с объектами растений), после разбора резерв заменяется оценкой
+ * самих растений, а после записи каталога освобождается. Резервирование ждёт, пока занятый объём вместе
+ * с новым не уложится в бюджет; если ничего не занято, резерв выдаётся сразу, чтобы загрузка не остановилась.
+ * Файлы, оценка разбора которых больше 1/{@value #OVERSIZED_SHARE} бюджета, считаются слишком большими:
+ * их нужно читать потоково, а не разбирать целиком.
+ * <p>
+ * Оценки приблизительны и рассчитаны на 64-битную JVM со сжатыми указателями; бюджет стоит задавать
+ * с запасом относительно {@code -Xmx}.
+ */
+public final class HeapBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeapBudget.class);
+
+    /**
+     * Оценка пиковой памяти разбора DOM на байт файла.
+     */
+    public static final int PARSE_BYTES_PER_FILE_BYTE = 8;
+
+    /**
+     * Доля бюджета, начиная с которой файл читается потоково: 1/{@value}.
+     */
+    public static final int OVERSIZED_SHARE = 4;
+
+    /**
+     * Заголовок и поля объекта Plant со ссылками на строки и BigDecimal цены.
+     */
+    private static final long PLANT_BYTES = 48 + 40;
+
+    /**
+     * Заголовки объекта String и его массива.
+     */
+    private static final long STRING_BYTES = 40;
+
+    private final long budgetBytes;
+    private long usedBytes;
+    private long peakBytes;
+    private int pauses;
+
+    /**
+     * @param budgetBytes бюджет в байтах
+     */
+    public HeapBudget(long budgetBytes) {
+        if (budgetBytes < 1) {
+            throw new IllegalArgumentException("Бюджет памяти должен быть положительным: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Оценивает память, нужную для разбора файла целиком.
+     *
+     * @param fileBytes размер файла в байтах
+     * @return оценка в байтах
+     */
+    public static long estimateParse(long fileBytes) {
+        return fileBytes * PARSE_BYTES_PER_FILE_BYTE;
+    }
+
+    /**
+     * Оценивает память, занятую растениями разобранного каталога.
+     *
+     * @param catalog каталог
+     * @return оценка в байтах
+     */
+    public static long estimate(Catalog catalog) {
+        if (catalog.getPlants() == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (Plant plant : catalog.getPlants()) {
+            bytes += PLANT_BYTES + sizeOf(plant.getCommon()) + sizeOf(plant.getBotanical())
+                    + sizeOf(plant.getZoneText()) + sizeOf(plant.getLight());
+        }
+        return bytes;
+    }
+
+    /**
+     * @param fileBytes размер файла в байтах
+     * @return true, если файл нужно читать потоково, а не разбирать целиком
+     */
+    public boolean isOversized(long fileBytes) {
+        return estimateParse(fileBytes) > budgetBytes / OVERSIZED_SHARE;
+    }
+
+    /**
+     * Резервирует память, ожидая, пока она уложится в бюджет.
+     *
+     * @param bytes объём в байтах
+     * @throws InterruptedIOException если ожидание было прервано
+     */
+    public synchronized void acquire(long bytes) throws InterruptedIOException {
+        if (usedBytes > 0 && usedBytes + bytes > budgetBytes) {
+            pauses++;
+            logger.debug("Разбор приостановлен: занято {} МБ из {} МБ", usedBytes >> 20, budgetBytes >> 20);
+            try {
+                while (usedBytes > 0 && usedBytes + bytes > budgetBytes) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Ожидание бюджета памяти прервано");
+            }
+        }
+        usedBytes += bytes;
+        peakBytes = Math.max(peakBytes, usedBytes);
+    }
+
+    /**
+     * Заменяет ранее выданный резерв новым без ожидания, например оценку разбора — оценкой растений.
+     *
+     * @param reserved ранее зарезервированный объём
+     * @param bytes    новый объём
+     */
+    public synchronized void resize(long reserved, long bytes) {
+        usedBytes += bytes - reserved;
+        peakBytes = Math.max(peakBytes, usedBytes);
+        notifyAll();
+    }
+
+    /**
+     * Освобождает резерв.
+     *
+     * @param bytes объём в байтах
+     */
+    public synchronized void release(long bytes) {
+        usedBytes -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * @return бюджет в байтах
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return занятый объём в байтах
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return наибольший занятый объём в байтах
+     */
+    public synchronized long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * @return сколько раз резервирование ждало освобождения памяти
+     */
+    public synchronized int getPauses() {
+        return pauses;
+    }
+
+    private static long sizeOf(String value) {
+        // Строка хранится в Latin-1, если возможно, иначе в UTF-16; считаем по худшему случаю
+        return value == null ? 0 : STRING_BYTES + 2L * value.length();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.config.CommandLineOptions;
+
+/**
+ * Настройки {@link IngestionEngine}.
+ *
+ * @param writeMode режим записи: INSERT или UPSERT
+ * @param chunkRows количество растений, передаваемых приёмнику за раз
+ */
+public record IngestionConfig(CommandLineOptions.WriteMode writeMode, int chunkRows) {
+
+    /**
+     * Размер порции по умолчанию.
+     */
+    public static final int DEFAULT_CHUNK_ROWS = 1000;
+
+    public IngestionConfig {
+        if (writeMode == null || writeMode == CommandLineOptions.WriteMode.STAGING) {
+            throw new IllegalArgumentException("Поддерживаются режимы записи INSERT и UPSERT: " + writeMode);
+        }
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("Размер порции должен быть положительным: " + chunkRows);
+        }
+    }
+
+    /**
+     * @return режим INSERT с порциями по {@link #DEFAULT_CHUNK_ROWS} растений
+     */
+    public static IngestionConfig defaults() {
+        return new IngestionConfig(CommandLineOptions.WriteMode.INSERT, DEFAULT_CHUNK_ROWS);
+    }
+}
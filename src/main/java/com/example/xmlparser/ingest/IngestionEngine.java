@@ -0,0 +1,175 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.parser.XmlPlantReader;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.service.CatalogIdCache;
+import com.example.xmlparser.sink.CatalogSink;
+import com.example.xmlparser.sink.PostgresSink;
+import com.example.xmlparser.validator.ValidationLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.function.Supplier;
+
+/**
+ * Встраиваемый API загрузки каталогов для использования внутри долгоживущего процесса.
+ * <p>
+ * Движок не зависит от {@code DatabaseManager} и .env: источник соединений, настройки, приёмник и хранилище
+ * отклонённых записей передаются при создании, поэтому в одном процессе могут работать несколько по-разному
+ * настроенных движков. Изменяемое состояние, общее для загрузок движка, — кэш идентификаторов каталогов,
+ * выборочный лог нарушений и хранилище отклонённых записей — принадлежит движку и не делится с другими движками.
+ * Экземпляр потокобезопасен и рассчитан на повторное использование: состояние загрузки (читатель,
+ * приёмник и его соединение) создаётся на каждый вызов.
+ * <p>
+ * Пример:
+ * <pre>{@code
+ * PGSimpleDataSource dataSource = new PGSimpleDataSource();
+ * dataSource.setURL("jdbc:postgresql://localhost:5432/plants?reWriteBatchedInserts=true");
+ * try (RejectStore rejects = new JdbcRejectStore(dataSource, 0, RejectStore.DEFAULT_BATCH_SIZE,
+ *         new ValidationLog(ValidationLog.DEFAULT_SAMPLES, ValidationLog.DEFAULT_INTERVAL_MS))) {
+ *     IngestionEngine engine = IngestionEngine.postgres(dataSource, IngestionConfig.defaults(), rejects);
+ *     CatalogStreamLoader.Result result = engine.ingest(Path.of("plants.xml"));
+ * }
+ * }</pre>
+ */
+public final class IngestionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionEngine.class);
+
+    private final IngestionConfig config;
+    private final Supplier<CatalogSink> sinkFactory;
+    private final RejectStore rejects;
+    private final CatalogIdCache idCache;
+
+    /**
+     * Создаёт движок, который не сохраняет отклонённые записи и пишет нарушения в собственный выборочный лог.
+     *
+     * @param config      настройки загрузки
+     * @param sinkFactory создаёт приёмник на каждый загружаемый каталог; приёмник закрывается после загрузки
+     */
+    public IngestionEngine(IngestionConfig config, Supplier<CatalogSink> sinkFactory) {
+        this(config, sinkFactory, RejectStore.discard(
+                new ValidationLog(ValidationLog.DEFAULT_SAMPLES, ValidationLog.DEFAULT_INTERVAL_MS)));
+    }
+
+    /**
+     * @param config      настройки загрузки
+     * @param sinkFactory создаёт приёмник на каждый загружаемый каталог; приёмник закрывается после загрузки
+     * @param rejects     хранилище отклонённых записей со своим выборочным логом; закрывает вызывающий код
+     */
+    public IngestionEngine(IngestionConfig config, Supplier<CatalogSink> sinkFactory, RejectStore rejects) {
+        this(config, sinkFactory, rejects, new CatalogIdCache());
+    }
+
+    private IngestionEngine(IngestionConfig config, Supplier<CatalogSink> sinkFactory, RejectStore rejects,
+                            CatalogIdCache idCache) {
+        if (config == null || sinkFactory == null || rejects == null) {
+            throw new IllegalArgumentException("Настройки, фабрика приёмников и хранилище отклонённых записей обязательны");
+        }
+        this.config = config;
+        this.sinkFactory = sinkFactory;
+        this.rejects = rejects;
+        this.idCache = idCache;
+    }
+
+    /**
+     * Создаёт движок, записывающий каталоги в PostgreSQL, без сохранения отклонённых записей.
+     *
+     * @param dataSource источник соединений с базой данных
+     * @param config     настройки загрузки
+     * @return движок
+     * @see #postgres(DataSource, IngestionConfig, RejectStore)
+     */
+    public static IngestionEngine postgres(DataSource dataSource, IngestionConfig config) {
+        return postgres(dataSource, config, RejectStore.discard(
+                new ValidationLog(ValidationLog.DEFAULT_SAMPLES, ValidationLog.DEFAULT_INTERVAL_MS)));
+    }
+
+    /**
+     * Создаёт движок, записывающий каталоги в PostgreSQL, с собственным кэшем идентификаторов каталогов.
+     * Соединение открывается на каждый каталог, поэтому для частых мелких загрузок стоит передавать пул соединений.
+     *
+     * @param dataSource источник соединений с базой данных
+     * @param config     настройки загрузки
+     * @param rejects    хранилище отклонённых записей; закрывает вызывающий код
+     * @return движок
+     */
+    public static IngestionEngine postgres(DataSource dataSource, IngestionConfig config, RejectStore rejects) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Источник соединений обязателен");
+        }
+        CatalogIdCache idCache = new CatalogIdCache();
+        return new IngestionEngine(config, () -> new PostgresSink(dataSource, config.writeMode(), 0, idCache),
+                rejects, idCache);
+    }
+
+    /**
+     * @return настройки движка
+     */
+    public IngestionConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return хранилище отклонённых записей движка
+     */
+    public RejectStore getRejects() {
+        return rejects;
+    }
+
+    /**
+     * Создаёт загрузчик больших файлов с контрольными точками, который сохраняет отклонённые записи в хранилище
+     * движка и удаляет каталоги изменившихся файлов из кэша идентификаторов движка.
+     *
+     * @param conn      соединение с отключённым автокоммитом; транзакциями управляет загрузчик
+     * @param chunkRows количество элементов PLANT в одной транзакции
+     * @return загрузчик
+     */
+    public CheckpointedFileLoader checkpointedLoader(Connection conn, int chunkRows) {
+        return new CheckpointedFileLoader(conn, chunkRows, rejects, idCache);
+    }
+
+    /**
+     * Загружает каталог из XML-файла.
+     *
+     * @param file XML-файл каталога
+     * @return результат загрузки
+     * @throws IOException        если файл не удалось прочитать или запись в приёмник не удалась
+     * @throws XMLStreamException если XML некорректен
+     */
+    public CatalogStreamLoader.Result ingest(Path file) throws IOException, XMLStreamException {
+        try (XmlPlantReader reader = new XmlPlantReader(file)) {
+            return ingest(reader, file.toString());
+        }
+    }
+
+    /**
+     * Загружает каталог из потока; поток читается по мере разбора и закрывается после загрузки.
+     *
+     * @param stream поток XML-документа каталога
+     * @return результат загрузки
+     * @throws IOException        если поток не удалось прочитать или запись в приёмник не удалась
+     * @throws XMLStreamException если XML некорректен
+     */
+    public CatalogStreamLoader.Result ingest(InputStream stream) throws IOException, XMLStreamException {
+        try (XmlPlantReader reader = new XmlPlantReader(stream)) {
+            return ingest(reader, null);
+        }
+    }
+
+    private CatalogStreamLoader.Result ingest(XmlPlantReader reader, String source)
+            throws IOException, XMLStreamException {
+        try (CatalogSink sink = sinkFactory.get()) {
+            CatalogStreamLoader.Result result = CatalogStreamLoader.load(reader, sink, config.chunkRows(), rejects,
+                    source);
+            logger.debug("Каталог UUID: {} загружен движком: {}", result.uuid(), result.status());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.xmlparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: полная обработка одного каталога (валидация и сохранение).
+ */
+@Name("com.example.xmlparser.CatalogIngest")
+@Label("Catalog Ingest")
+@Category({"XML Parser", "Ingest"})
+@Description("Валидация и сохранение одного каталога с растениями")
+public class CatalogIngestEvent extends Event {
+
+    @Label("Catalog UUID")
+    public String catalogUuid;
+
+    @Label("Write Mode")
+    public String writeMode;
+
+    @Label("Plant Count")
+    public int plantCount;
+
+    @Label("Plants Saved")
+    public int plantsSaved;
+
+    @Label("Plants Rejected")
+    public int plantsRejected;
+
+    @Label("Catalog Rejected")
+    public boolean catalogRejected;
+}
@@ -0,0 +1,48 @@
+package com.example.xmlparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: выполнение записывающего запроса репозитория.
+ * Длительность события — время работы с базой данных, включая получение соединения.
+ */
+@Name("com.example.xmlparser.DatabaseWrite")
+@Label("Database Write")
+@Category({"XML Parser", "Database"})
+@Description("Запись в базу данных одним вызовом репозитория")
+public class DatabaseWriteEvent extends Event {
+
+    @Label("Operation")
+    @Description("Репозиторий и метод, например PlantRepository.save")
+    public String operation;
+
+    @Label("Catalog")
+    @Description("UUID или идентификатор каталога")
+    public String catalog;
+
+    @Label("Rows")
+    @Description("Количество переданных в запрос строк")
+    public int rows;
+
+    /**
+     * Завершает событие и фиксирует его, если запись JFR включена и порог длительности пройден.
+     * Поля заполняются только при фиксации, поэтому без активной записи накладные расходы минимальны.
+     *
+     * @param operation репозиторий и метод
+     * @param catalog   UUID или идентификатор каталога
+     * @param rows      количество строк в запросе
+     */
+    public void finish(String operation, String catalog, int rows) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.catalog = catalog;
+            this.rows = rows;
+            commit();
+        }
+    }
+}
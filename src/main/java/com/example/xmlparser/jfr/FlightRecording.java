@@ -0,0 +1,62 @@
+package com.example.xmlparser.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Запуск записи Java Flight Recorder из командной строки приложения.
+ * <p>
+ * Запись использует стандартные настройки JFR ("profile") и дополнительно включает
+ * собственные события приложения. При остановке запись сохраняется в указанный .jfr-файл.
+ */
+public final class FlightRecording implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecording.class);
+
+    private final Recording recording;
+    private final Path destination;
+
+    private FlightRecording(Recording recording, Path destination) {
+        this.recording = recording;
+        this.destination = destination;
+    }
+
+    /**
+     * Начинает запись в указанный файл.
+     *
+     * @param destination путь к итоговому .jfr-файлу
+     * @return активная запись; закрытие сохраняет файл
+     * @throws IOException    если не удалось задать файл назначения
+     * @throws ParseException если встроенная конфигурация JFR повреждена
+     */
+    public static FlightRecording start(Path destination) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration("profile"));
+        recording.setName("xmlparser");
+        recording.enable(ParseFileEvent.class);
+        recording.enable(ValidationEvent.class);
+        recording.enable(DatabaseWriteEvent.class);
+        recording.enable(CatalogIngestEvent.class);
+        recording.enable(WriteTuningEvent.class);
+        recording.setDestination(destination);
+        recording.start();
+
+        logger.info("Запись JFR начата, файл: {}", destination.toAbsolutePath());
+        return new FlightRecording(recording, destination);
+    }
+
+    /**
+     * Останавливает запись и сохраняет её в файл.
+     */
+    @Override
+    public void close() {
+        recording.stop();
+        recording.close();
+        logger.info("Запись JFR сохранена: {}", destination.toAbsolutePath());
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.xmlparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: разбор одного XML-файла каталога.
+ * Длительность события — время чтения и разбора файла.
+ */
+@Name("com.example.xmlparser.ParseFile")
+@Label("Parse XML File")
+@Category({"XML Parser", "Parsing"})
+@Description("Разбор одного XML-файла в объект Catalog")
+public class ParseFileEvent extends Event {
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("File Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Catalog UUID")
+    public String catalogUuid;
+
+    @Label("Plant Count")
+    public int plantCount;
+}
@@ -0,0 +1,28 @@
+package com.example.xmlparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: валидация каталога или растения.
+ */
+@Name("com.example.xmlparser.Validation")
+@Label("Validation")
+@Category({"XML Parser", "Validation"})
+@Description("Проверка каталога или растения валидатором")
+public class ValidationEvent extends Event {
+
+    @Label("Target")
+    @Description("CATALOG или PLANT")
+    public String target;
+
+    @Label("Subject")
+    @Description("UUID каталога или научное название растения")
+    public String subject;
+
+    @Label("Error Count")
+    public int errorCount;
+}
@@ -0,0 +1,35 @@
+package com.example.xmlparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: изменение размера пакета и числа писателей адаптивной записью.
+ */
+@Name("com.example.xmlparser.WriteTuning")
+@Label("Write Tuning")
+@Category({"XML Parser", "Database"})
+@Description("Решение регулятора адаптивной записи по итогам окна фиксаций")
+public class WriteTuningEvent extends Event {
+
+    @Label("Reason")
+    @Description("INCREASE, LATENCY, FAILURE или THROUGHPUT")
+    public String reason;
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Writers")
+    public int writers;
+
+    @Label("Latency (ms)")
+    @Description("Среднее время одного обращения к базе в окне")
+    public double latencyMs;
+
+    @Label("Plants per Second")
+    @Description("Пропускная способность всех писателей в окне")
+    public double plantsPerSecond;
+}
@@ -9,6 +9,11 @@ import java.util.List;
  */
 public final class Catalog {
 
+    /**
+     * Идентификатор каталога в таблице d_cat_catalog (0, если каталог ещё не сохранён).
+     */
+    private int id;
+
     /**
      * Уникальный идентификатор каталога (атрибут UUID из XML).
      */
@@ -38,6 +43,24 @@ public final class Catalog {
         this.uuid = uuid;
     }
 
+    /**
+     * Возвращает идентификатор каталога в базе данных.
+     *
+     * @return идентификатор или 0, если каталог ещё не сохранён
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Устанавливает идентификатор каталога в базе данных.
+     *
+     * @param id идентификатор записи в d_cat_catalog
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * Возвращает UUID каталога.
      *
@@ -0,0 +1,319 @@
+package com.example.xmlparser.parser;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Кэш разобранных каталогов в компактном двоичном формате.
+ * <p>
+ * Для каждого исходного файла хранится одна запись, имя которой — хэш абсолютного пути.
+ * Запись действительна, пока совпадают размер, время изменения и SHA-256 содержимого исходного файла;
+ * хэш считается при каждом обращении, это чтение файла без разбора XML. Записи сжаты Deflate.
+ * Время изменения записи обновляется при каждом попадании и служит порядком LRU:
+ * при закрытии кэша самые давние записи удаляются, пока общий размер не уложится в лимит.
+ */
+public final class ParseCache implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParseCache.class);
+
+    private static final int MAGIC = 0x58505043; // "XPPC"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".cat";
+
+    /**
+     * Разбор файла при промахе кэша.
+     */
+    @FunctionalInterface
+    public interface Parser {
+        Catalog parse(File file) throws Exception;
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Long> entrySizes = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Открывает (создаёт) папку кэша.
+     *
+     * @param directory папка кэша
+     * @param maxBytes  предельный общий размер записей в байтах
+     * @throws IOException если папку не удалось создать или прочитать
+     */
+    public ParseCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxBytes);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry : entries) {
+                entrySizes.put(entry.getFileName().toString(), Files.size(entry));
+            }
+        }
+        logger.info("Кэш разбора {}: записей {}, лимит {} МБ", directory.toAbsolutePath(), entrySizes.size(),
+                maxBytes / (1024 * 1024));
+    }
+
+    /**
+     * Возвращает каталог из кэша или разбирает файл и сохраняет результат.
+     * Ошибка чтения или записи кэша не прерывает разбор.
+     *
+     * @param file   исходный XML-файл
+     * @param parser разбор файла при промахе
+     * @return каталог
+     * @throws Exception если файл не удалось разобрать
+     */
+    public Catalog getOrParse(Path file, Parser parser) throws Exception {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attrs.size();
+        long mtime = attrs.lastModifiedTime().toMillis();
+        byte[] hash = contentHash(file);
+
+        String name = entryName(file);
+        Path entry = directory.resolve(name);
+        if (Files.exists(entry)) {
+            try {
+                Catalog cached = read(entry, size, mtime, hash);
+                if (cached != null) {
+                    Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+                    hits.incrementAndGet();
+                    logger.debug("Файл {} загружен из кэша разбора", file.getFileName());
+                    return cached;
+                }
+            } catch (IOException e) {
+                logger.warn("Запись кэша {} повреждена и будет перезаписана: {}", entry.getFileName(), e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        Catalog catalog = parser.parse(file.toFile());
+        try {
+            write(entry, size, mtime, hash, catalog);
+            synchronized (entrySizes) {
+                entrySizes.put(name, Files.size(entry));
+            }
+        } catch (IOException e) {
+            logger.warn("Не удалось сохранить разбор {} в кэш: {}", file.getFileName(), e.getMessage());
+        }
+        return catalog;
+    }
+
+    /**
+     * @return количество каталогов, загруженных из кэша
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return количество разобранных файлов
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Удаляет самые давно использованные записи, пока общий размер превышает лимит.
+     */
+    @Override
+    public void close() throws IOException {
+        long total;
+        List<Path> entries = new ArrayList<>();
+        synchronized (entrySizes) {
+            total = entrySizes.values().stream().mapToLong(Long::longValue).sum();
+            for (String name : entrySizes.keySet()) {
+                entries.add(directory.resolve(name));
+            }
+        }
+
+        int evicted = 0;
+        if (total > maxBytes) {
+            Map<Path, Long> accessed = new HashMap<>();
+            for (Path entry : entries) {
+                accessed.put(entry, Files.exists(entry) ? Files.getLastModifiedTime(entry).toMillis() : 0L);
+            }
+            entries.sort((a, b) -> Long.compare(accessed.get(a), accessed.get(b)));
+            for (Path entry : entries) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                total -= entrySizes.get(entry.getFileName().toString());
+                Files.deleteIfExists(entry);
+                evicted++;
+            }
+        }
+        logger.info("Кэш разбора: попаданий {}, промахов {}, вытеснено записей {}", hits.get(), misses.get(), evicted);
+    }
+
+    private static String entryName(Path file) {
+        byte[] digest = sha256().digest(file.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest, 0, 16) + SUFFIX;
+    }
+
+    private static byte[] contentHash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Читает запись кэша.
+     *
+     * @return каталог или null, если запись относится к другой версии исходного файла
+     */
+    private static Catalog read(Path entry, long size, long mtime, byte[] hash) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(entry)), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            if (in.readLong() != size || in.readLong() != mtime || !Arrays.equals(in.readNBytes(hash.length), hash)) {
+                return null;
+            }
+
+            Catalog catalog = new Catalog(readString(in));
+            catalog.setCompany(readString(in));
+            long epochDay = in.readLong();
+            catalog.setDeliveryDate(epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay));
+
+            int count = in.readInt();
+            List<Plant> plants = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Plant plant = new Plant();
+                plant.setCommon(readString(in));
+                plant.setBotanical(readString(in));
+                plant.setZoneText(readString(in));
+                plant.setLight(readString(in));
+                int scale = in.readInt();
+                if (scale != Integer.MIN_VALUE) {
+                    plant.setPrice(new BigDecimal(new BigInteger(in.readNBytes(in.readUnsignedByte())), scale));
+                }
+                plant.setAvailability(in.readInt());
+                plants.add(plant);
+            }
+            catalog.setPlants(plants);
+            return catalog;
+        }
+    }
+
+    /**
+     * Записывает запись во временный файл и атомарно заменяет ею прежнюю.
+     */
+    private static void write(Path entry, long size, long mtime, byte[] hash, Catalog catalog) throws IOException {
+        Path temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+        try {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(Files.newOutputStream(temp), deflater), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(size);
+                out.writeLong(mtime);
+                out.write(hash);
+
+                writeString(out, catalog.getUuid());
+                writeString(out, catalog.getCompany());
+                out.writeLong(catalog.getDeliveryDate() == null ? Long.MIN_VALUE : catalog.getDeliveryDate().toEpochDay());
+
+                List<Plant> plants = catalog.getPlants() == null ? List.of() : catalog.getPlants();
+                out.writeInt(plants.size());
+                for (Plant plant : plants) {
+                    writeString(out, plant.getCommon());
+                    writeString(out, plant.getBotanical());
+                    writeString(out, plant.getZoneText());
+                    writeString(out, plant.getLight());
+                    BigDecimal price = plant.getPrice();
+                    if (price == null) {
+                        out.writeInt(Integer.MIN_VALUE);
+                    } else {
+                        byte[] unscaled = price.unscaledValue().toByteArray();
+                        if (unscaled.length > 255) {
+                            throw new IOException("Цена слишком велика для кэша: " + price);
+                        }
+                        out.writeInt(price.scale());
+                        out.writeByte(unscaled.length);
+                        out.write(unscaled);
+                    }
+                    out.writeInt(plant.getAvailability());
+                }
+            } finally {
+                deflater.end();
+            }
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Запись кэша обрывается");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
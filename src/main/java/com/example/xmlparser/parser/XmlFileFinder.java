@@ -0,0 +1,200 @@
+package com.example.xmlparser.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Поиск входных XML-файлов по пути или маске.
+ * <p>
+ * Вход может быть файлом, папкой (обходится рекурсивно) или маской в синтаксисе glob,
+ * например {@code data/**&#47;plants_*.xml}: папкой обхода становится часть пути до первого
+ * элемента с символами маски. Маски включения и исключения применяются к пути относительно этой папки.
+ * Маска из пути сужает выбор: файл должен подходить и под неё, и под одну из масок включения
+ * (без явных масок включения — только под маску из пути).
+ * Файлы возвращаются по убыванию размера, чтобы при параллельном разборе самые большие
+ * начинались первыми (планирование LPT).
+ */
+public final class XmlFileFinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(XmlFileFinder.class);
+
+    /**
+     * Маска включения по умолчанию.
+     */
+    public static final String DEFAULT_INCLUDE = "**/*.{xml,XML}";
+
+    private XmlFileFinder() {
+        // Закрытый конструктор для утилитного класса
+    }
+
+    /**
+     * Найденный файл и его размер на момент обхода.
+     *
+     * @param path путь к файлу
+     * @param size размер в байтах
+     */
+    public record XmlFile(Path path, long size) {
+    }
+
+    /**
+     * Ищет XML-файлы с маской включения по умолчанию и без исключений.
+     *
+     * @param pathOrMask путь к файлу, папке или маска
+     * @return найденные файлы по убыванию размера
+     * @throws IOException если папку не удалось обойти
+     */
+    public static List<XmlFile> find(String pathOrMask) throws IOException {
+        return find(pathOrMask, List.of(), List.of());
+    }
+
+    /**
+     * Ищет входные файлы.
+     *
+     * @param pathOrMask путь к файлу, папке или маска
+     * @param includes   маски включения относительно папки обхода; пустой список — {@link #DEFAULT_INCLUDE},
+     *                   а при маске во входном пути — только она
+     * @param excludes   маски исключения относительно папки обхода
+     * @return найденные файлы по убыванию размера, при равном размере — по пути
+     * @throws IOException              если папку не удалось обойти
+     * @throws IllegalArgumentException если путь не существует
+     */
+    public static List<XmlFile> find(String pathOrMask, List<String> includes, List<String> excludes)
+            throws IOException {
+        // Маска отделяется от пути до создания Path: в Windows символы маски недопустимы в пути
+        MaskedPath masked = splitMask(pathOrMask, File.separatorChar);
+        Path root = Path.of(masked != null ? masked.base() : pathOrMask);
+        // Маска во входном пути заменяет маски включения по умолчанию, а явные маски включения дополняет условием
+        List<String> includeMasks = !includes.isEmpty() ? includes
+                : masked != null ? List.of() : List.of(DEFAULT_INCLUDE);
+        List<String> pathMasks = masked != null ? List.of(masked.mask()) : List.of();
+
+        if (Files.isRegularFile(root)) {
+            return List.of(new XmlFile(root, Files.size(root)));
+        }
+        if (!Files.isDirectory(root)) {
+            String msg = "Указанный путь не является файлом или директорией: " + pathOrMask;
+            logger.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        List<PathMatcher> includeMatchers = matchers(includeMasks);
+        List<PathMatcher> pathMatchers = matchers(pathMasks);
+        List<PathMatcher> excludeMatchers = matchers(excludes);
+        Path base = root;
+        List<XmlFile> files = new ArrayList<>();
+
+        Files.walkFileTree(base, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                Path relative = base.relativize(dir);
+                if (!relative.toString().isEmpty() && matchesAny(excludeMatchers, relative)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                Path relative = base.relativize(file);
+                if (attrs.isRegularFile()
+                        && (includeMatchers.isEmpty() || matchesAny(includeMatchers, relative))
+                        && (pathMatchers.isEmpty() || matchesAny(pathMatchers, relative))
+                        && !matchesAny(excludeMatchers, relative)) {
+                    files.add(new XmlFile(file, attrs.size()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                logger.warn("Не удалось прочитать {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        files.sort(Comparator.comparingLong(XmlFile::size).reversed().thenComparing(XmlFile::path));
+        logger.info("Найдено XML-файлов: {} в {}", files.size(), base.toAbsolutePath());
+        return files;
+    }
+
+    /**
+     * Путь, разделённый на папку обхода и маску.
+     *
+     * @param base папка обхода (пустая строка — текущая папка)
+     * @param mask маска относительно папки обхода с разделителем {@code /}
+     */
+    record MaskedPath(String base, String mask) {
+    }
+
+    /**
+     * Отделяет маску от пути по последнему разделителю перед первым символом маски.
+     *
+     * @param pathOrMask путь или маска
+     * @param separator  разделитель элементов пути в файловой системе; {@code /} допускается всегда
+     * @return папка обхода и маска или null, если символов маски нет
+     */
+    static MaskedPath splitMask(String pathOrMask, char separator) {
+        int maskChar = -1;
+        for (int i = 0; i < pathOrMask.length() && maskChar < 0; i++) {
+            char c = pathOrMask.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                maskChar = i;
+            }
+        }
+        if (maskChar < 0) {
+            return null;
+        }
+        int split = -1;
+        for (int i = maskChar - 1; i >= 0 && split < 0; i--) {
+            char c = pathOrMask.charAt(i);
+            if (c == '/' || c == separator) {
+                split = i;
+            }
+        }
+        // Разделитель остаётся в папке обхода, чтобы корень ("/" или "C:\") не превратился в пустую строку
+        String base = split < 0 ? "" : pathOrMask.substring(0, split + 1);
+        String mask = pathOrMask.substring(split + 1);
+        if (separator != '/') {
+            // В glob обратная косая черта экранирует символ, а "/" соответствует разделителю любой системы
+            mask = mask.replace(separator, '/');
+        }
+        return new MaskedPath(base, mask);
+    }
+
+    /**
+     * Создаёт матчеры масок. Маска вида {@code **&#47;x} дополнительно сопоставляется с {@code x},
+     * чтобы покрывать и файлы непосредственно в папке обхода.
+     */
+    private static List<PathMatcher> matchers(List<String> masks) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String mask : masks) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + mask));
+            if (mask.startsWith("**/")) {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + mask.substring(3)));
+            }
+        }
+        return matchers;
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path relative) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.xmlparser.parser;
 
+import com.example.xmlparser.jfr.ParseFileEvent;
 import com.example.xmlparser.model.Catalog;
 import com.example.xmlparser.model.Plant;
 import org.w3c.dom.*;
@@ -7,9 +8,14 @@ import org.w3c.dom.*;
 import javax.xml.parsers.*;
 import java.io.File;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,50 +25,138 @@ import org.slf4j.LoggerFactory;
 public final class XmlPlantParser {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(XmlPlantParser.class);
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    /**
+     * Формат атрибута date элемента CATALOG.
+     */
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    /**
+     * Дочерние элементы PLANT, которые переносятся в {@link Plant}.
+     */
+    static final List<String> PLANT_FIELDS = List.of("COMMON", "BOTANICAL", "ZONE", "LIGHT", "PRICE", "AVAILABILITY");
 
     private XmlPlantParser() {
         // Запрещаем создание экземпляров утилитного класса
     }
 
     /**
-     * Парсит все XML-файлы в указанной директории и возвращает список каталогов.
+     * Парсит все XML-файлы в указанной директории (рекурсивно) и возвращает список каталогов.
      *
-     * @param folderPath путь к директории с XML-файлами
+     * @param folderPath путь к директории с XML-файлами, к файлу или маска
      * @return список обработанных каталогов
-     * @throws Exception при ошибках чтения или разбора XML
+     * @throws Exception при ошибках чтения директории
      */
     public static List<Catalog> parseAll(String folderPath) throws Exception {
         LOGGER.info("Начало парсинга каталога: " + folderPath);
+        return parseAll(XmlFileFinder.find(folderPath), 1, null);
+    }
+
+    /**
+     * Результат разбора одного файла.
+     *
+     * @param file       входной файл
+     * @param catalog    разобранный каталог или null, если файл не удалось разобрать
+     * @param parseNanos время разбора (или чтения из кэша) в наносекундах
+     */
+    public record ParsedFile(XmlFileFinder.XmlFile file, Catalog catalog, long parseNanos) {
+    }
 
+    /**
+     * Парсит переданные файлы в {@code threads} потоков.
+     * Файлы запускаются в порядке списка, поэтому при списке по убыванию размера
+     * ({@link XmlFileFinder}) самые большие файлы начинают разбираться первыми.
+     * Файлы с ошибками разбора пропускаются.
+     *
+     * @param files   входные файлы
+     * @param threads количество потоков разбора
+     * @param cache   кэш разобранных каталогов или null
+     * @return каталоги в порядке списка файлов
+     * @throws InterruptedException если ожидание разбора было прервано
+     */
+    public static List<Catalog> parseAll(List<XmlFileFinder.XmlFile> files, int threads, ParseCache cache)
+            throws InterruptedException {
         List<Catalog> catalogs = new ArrayList<>();
+        for (ParsedFile parsed : parseFiles(files, threads, cache)) {
+            if (parsed.catalog() != null) {
+                catalogs.add(parsed.catalog());
+            }
+        }
+        return catalogs;
+    }
 
-        File folder = new File(folderPath);
-        if (!folder.exists() || !folder.isDirectory()) {
-            String msg = "Указанный путь не является директорией: " + folderPath;
-            LOGGER.error("msg");
-            throw new IllegalArgumentException(msg);
+    /**
+     * Парсит переданные файлы в {@code threads} потоков, как {@link #parseAll(List, int, ParseCache)},
+     * но возвращает результат по каждому файлу, включая файлы с ошибками разбора.
+     *
+     * @param files   входные файлы
+     * @param threads количество потоков разбора
+     * @param cache   кэш разобранных каталогов или null
+     * @return результаты в порядке списка файлов
+     * @throws InterruptedException если ожидание разбора было прервано
+     */
+    public static List<ParsedFile> parseFiles(List<XmlFileFinder.XmlFile> files, int threads, ParseCache cache)
+            throws InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Количество потоков разбора должно быть положительным: " + threads);
         }
 
-        File[] files = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".xml"));
-        if (files == null || files.length == 0) {
-            LOGGER.warn("В папке нет XML-файлов: " + folderPath);
-            return catalogs;
+        List<ParsedFile> parsed = new ArrayList<>();
+        if (files.isEmpty()) {
+            LOGGER.warn("Нет XML-файлов для разбора");
+            return parsed;
         }
 
-        for (File xmlFile : files) {
-            LOGGER.info("Обработка файла: " + xmlFile.getName());
+        if (threads == 1 || files.size() == 1) {
+            for (XmlFileFinder.XmlFile file : files) {
+                parsed.add(parseFile(file, cache));
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
             try {
-                Catalog catalog = parseSingle(xmlFile);
-                catalogs.add(catalog);
-                LOGGER.info("Файл успешно обработан: " + xmlFile.getName());
-            } catch (Exception e) {
-                LOGGER.error("Ошибка при разборе файла " + xmlFile.getName(), e);
+                List<Future<ParsedFile>> results = new ArrayList<>(files.size());
+                for (XmlFileFinder.XmlFile file : files) {
+                    results.add(executor.submit(() -> parseFile(file, cache)));
+                }
+                for (int i = 0; i < results.size(); i++) {
+                    try {
+                        parsed.add(results.get(i).get());
+                    } catch (ExecutionException e) {
+                        LOGGER.error("Ошибка при разборе файла", e.getCause());
+                        parsed.add(new ParsedFile(files.get(i), null, 0));
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
             }
         }
 
-        LOGGER.info("Парсинг завершён. Обработано файлов: " + catalogs.size());
-        return catalogs;
+        LOGGER.info("Парсинг завершён. Обработано файлов: "
+                + parsed.stream().filter(file -> file.catalog() != null).count());
+        return parsed;
+    }
+
+    /**
+     * Разбирает файл (или загружает из кэша), записывая ошибку в лог вместо исключения.
+     *
+     * @param file  входной файл
+     * @param cache кэш разобранных каталогов или null
+     * @return результат разбора; каталог null, если файл не удалось разобрать
+     */
+    public static ParsedFile parseFile(XmlFileFinder.XmlFile file, ParseCache cache) {
+        Path xmlFile = file.path();
+        LOGGER.info("Обработка файла: " + xmlFile);
+        long started = System.nanoTime();
+        try {
+            Catalog catalog = cache == null
+                    ? parseSingle(xmlFile.toFile())
+                    : cache.getOrParse(xmlFile, XmlPlantParser::parseSingle);
+            LOGGER.info("Файл успешно обработан: " + xmlFile.getFileName());
+            return new ParsedFile(file, catalog, System.nanoTime() - started);
+        } catch (Exception e) {
+            LOGGER.error("Ошибка при разборе файла " + xmlFile.getFileName(), e);
+            return new ParsedFile(file, null, System.nanoTime() - started);
+        }
     }
 
     /**
@@ -75,6 +169,9 @@ public final class XmlPlantParser {
     private static Catalog parseSingle(File xmlFile) throws Exception {
         LOGGER.debug("Начало разбора XML-файла: " + xmlFile.getName());
 
+        ParseFileEvent event = new ParseFileEvent();
+        event.begin();
+
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         DocumentBuilder builder = factory.newDocumentBuilder();
 
@@ -89,14 +186,7 @@ public final class XmlPlantParser {
         }
 
         String uuid = catalogElement.getAttribute("uuid");
-        String company = catalogElement.getAttribute("company");
-        String dateStr = catalogElement.getAttribute("date");
-
-        LocalDate deliveryDate = LocalDate.parse(dateStr, DATE_FORMAT);
-
-        Catalog catalog = new Catalog(uuid);
-        catalog.setCompany(company);
-        catalog.setDeliveryDate(deliveryDate);
+        Catalog catalog = toCatalog(uuid, catalogElement.getAttribute("company"), catalogElement.getAttribute("date"));
 
         NodeList plantNodes = catalogElement.getElementsByTagName("PLANT");
         List<Plant> plants = new ArrayList<>();
@@ -108,40 +198,78 @@ public final class XmlPlantParser {
             if (node.getNodeType() == Node.ELEMENT_NODE) {
                 Element plantElement = (Element) node;
                 Plant plant = new Plant();
-
-                plant.setCommon(getText(plantElement, "COMMON"));
-                plant.setBotanical(getText(plantElement, "BOTANICAL"));
-                plant.setZoneText(getText(plantElement, "ZONE"));
-                plant.setLight(getText(plantElement, "LIGHT"));
-
-                String priceStr = getText(plantElement, "PRICE");
-                if (priceStr != null) {
-                    try {
-                        priceStr = priceStr.replace("$", "").trim();
-                        plant.setPrice(new BigDecimal(priceStr));
-                    } catch (NumberFormatException e) {
-                        LOGGER.warn("Невозможно разобрать цену у растения: " + priceStr);
+                for (String tagName : PLANT_FIELDS) {
+                    String text = getText(plantElement, tagName);
+                    if (text != null) {
+                        applyText(plant, tagName, text);
                     }
                 }
-
-                String availabilityStr = getText(plantElement, "AVAILABILITY");
-                if (availabilityStr != null) {
-                    try {
-                        plant.setAvailability(Integer.parseInt(availabilityStr));
-                    } catch (NumberFormatException e) {
-                        LOGGER.warn("Невозможно разобрать количество у растения: " + availabilityStr);
-                    }
-                }
-
                 plants.add(plant);
             }
         }
 
         catalog.setPlants(plants);
         LOGGER.info("Каталог успешно создан: " + uuid + ", растений: " + plants.size());
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.fileName = xmlFile.getName();
+            event.bytes = xmlFile.length();
+            event.catalogUuid = uuid;
+            event.plantCount = plants.size();
+            event.commit();
+        }
+        return catalog;
+    }
+
+    /**
+     * Создаёт каталог по атрибутам элемента CATALOG.
+     *
+     * @param uuid    атрибут uuid
+     * @param company атрибут company
+     * @param date    атрибут date в формате {@link #DATE_FORMAT}
+     * @return каталог без растений
+     */
+    static Catalog toCatalog(String uuid, String company, String date) {
+        Catalog catalog = new Catalog(uuid);
+        catalog.setCompany(company);
+        catalog.setDeliveryDate(LocalDate.parse(date, DATE_FORMAT));
         return catalog;
     }
 
+    /**
+     * Записывает текст дочернего элемента PLANT в соответствующее поле растения.
+     * Нераспознанные цена и количество пропускаются с предупреждением, неизвестные теги игнорируются.
+     *
+     * @param plant   растение
+     * @param tagName имя дочернего элемента
+     * @param text    текст элемента без пробелов по краям
+     */
+    static void applyText(Plant plant, String tagName, String text) {
+        switch (tagName) {
+            case "COMMON" -> plant.setCommon(text);
+            case "BOTANICAL" -> plant.setBotanical(text);
+            case "ZONE" -> plant.setZoneText(text);
+            case "LIGHT" -> plant.setLight(text);
+            case "PRICE" -> {
+                String priceStr = text.replace("$", "").trim();
+                try {
+                    plant.setPrice(new BigDecimal(priceStr));
+                } catch (NumberFormatException e) {
+                    LOGGER.warn("Невозможно разобрать цену у растения: " + priceStr);
+                }
+            }
+            case "AVAILABILITY" -> {
+                try {
+                    plant.setAvailability(Integer.parseInt(text));
+                } catch (NumberFormatException e) {
+                    LOGGER.warn("Невозможно разобрать количество у растения: " + text);
+                }
+            }
+            default -> LOGGER.trace("Тег <" + tagName + "> не используется");
+        }
+    }
+
     /**
      * Вспомогательный метод: извлекает текстовое содержимое указанного тега.
      *
@@ -0,0 +1,185 @@
+package com.example.xmlparser.parser;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Потоковое чтение XML-документа каталога (StAX) по одному растению.
+ * <p>
+ * В отличие от {@link XmlPlantParser} не строит документ целиком: память не зависит от размера файла,
+ * а уже обработанные растения можно пропустить через {@link #skip(int)}, не создавая объектов.
+ * Значения полей преобразуются так же, как в {@link XmlPlantParser}.
+ */
+public final class XmlPlantReader implements Closeable {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final InputStream in;
+    private final XMLStreamReader reader;
+    private int ordinal;
+    private boolean finished;
+
+    /**
+     * Открывает файл для чтения.
+     *
+     * @param file XML-файл каталога
+     * @throws IOException        если файл не удалось открыть
+     * @throws XMLStreamException если начало файла не является корректным XML
+     */
+    public XmlPlantReader(Path file) throws IOException, XMLStreamException {
+        this(Files.newInputStream(file));
+    }
+
+    /**
+     * Начинает чтение из потока, например из тела HTTP-запроса. Поток читается по мере разбора
+     * и закрывается вместе с читателем.
+     *
+     * @param stream поток XML-документа каталога
+     * @throws IOException        если не удалось закрыть поток после ошибки
+     * @throws XMLStreamException если начало потока не является корректным XML
+     */
+    public XmlPlantReader(InputStream stream) throws IOException, XMLStreamException {
+        this.in = new BufferedInputStream(stream, 1 << 16);
+        try {
+            this.reader = FACTORY.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Читает атрибуты корневого элемента CATALOG.
+     *
+     * @return каталог без растений
+     * @throws XMLStreamException       если XML некорректен
+     * @throws IllegalArgumentException если корневой элемент не CATALOG
+     */
+    public Catalog readHeader() throws XMLStreamException {
+        while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+            // Пропускаем пролог и комментарии до корневого элемента
+        }
+        if (!reader.isStartElement() || !"CATALOG".equals(reader.getLocalName())) {
+            throw new IllegalArgumentException("Ожидался корневой элемент <CATALOG>, найдено: "
+                    + (reader.isStartElement() ? reader.getLocalName() : "конец файла"));
+        }
+        return XmlPlantParser.toCatalog(attribute("uuid"), attribute("company"), attribute("date"));
+    }
+
+    /**
+     * Читает следующее растение.
+     *
+     * @return растение или null, если растений больше нет
+     * @throws XMLStreamException если XML некорректен
+     */
+    public Plant next() throws XMLStreamException {
+        if (!advanceToPlant()) {
+            return null;
+        }
+        Plant plant = new Plant();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (depth == 1 && XmlPlantParser.PLANT_FIELDS.contains(reader.getLocalName())) {
+                    String tagName = reader.getLocalName();
+                    // getElementText оставляет курсор на закрывающем теге поля
+                    XmlPlantParser.applyText(plant, tagName, reader.getElementText().trim());
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        ordinal++;
+        return plant;
+    }
+
+    /**
+     * Пропускает растения, не разбирая их поля.
+     *
+     * @param count количество растений для пропуска
+     * @return количество фактически пропущенных растений (меньше {@code count}, если файл закончился)
+     * @throws XMLStreamException если XML некорректен
+     */
+    public int skip(int count) throws XMLStreamException {
+        int skipped = 0;
+        while (skipped < count && advanceToPlant()) {
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            ordinal++;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return количество прочитанных или пропущенных растений, то есть порядковый номер последнего из них
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Ошибка при закрытии XML-файла", e);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Перемещает курсор на начало следующего элемента PLANT.
+     *
+     * @return false, если растений больше нет
+     */
+    private boolean advanceToPlant() throws XMLStreamException {
+        if (finished) {
+            return false;
+        }
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "PLANT".equals(reader.getLocalName())) {
+                return true;
+            }
+        }
+        finished = true;
+        return false;
+    }
+
+    private String attribute(String name) {
+        String value = reader.getAttributeValue(null, name);
+        // Как и DOM getAttribute: отсутствующий атрибут — пустая строка
+        return value == null ? "" : value;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
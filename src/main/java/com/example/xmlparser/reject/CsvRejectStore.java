@@ -0,0 +1,88 @@
+package com.example.xmlparser.reject;
+
+import com.example.xmlparser.validator.ValidationLog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Хранилище отклонённых записей в локальном CSV-файле (RFC 4180) с теми же колонками, что и r_cat_reject.
+ * Используется при пробном запуске и там, где базы данных нет; файл перезаписывается.
+ */
+public final class CsvRejectStore extends RejectStore {
+
+    private static final String HEADER =
+            "file_path,catalog_uuid,plant_ordinal,error_code,error_message,common,botanical,zone,light,price,availability";
+
+    private final Writer out;
+
+    /**
+     * Открывает файл и записывает заголовок.
+     *
+     * @param file      файл отклонённых записей
+     * @param batchSize количество записей, после накопления которых они записываются в файл
+     * @throws IOException если файл не удалось открыть
+     */
+    public CsvRejectStore(Path file, int batchSize) throws IOException {
+        this(file, batchSize, ValidationLog.DEFAULT);
+    }
+
+    /**
+     * Открывает файл и записывает заголовок.
+     *
+     * @param file          файл отклонённых записей
+     * @param batchSize     количество записей, после накопления которых они записываются в файл
+     * @param validationLog выборочный лог нарушений
+     * @throws IOException если файл не удалось открыть
+     */
+    public CsvRejectStore(Path file, int batchSize, ValidationLog validationLog) throws IOException {
+        super(batchSize, validationLog);
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        out.write(HEADER);
+        out.write("\r\n");
+    }
+
+    @Override
+    protected void write(List<Reject> rejects) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Reject reject : rejects) {
+            appendField(lines, reject.file()).append(',');
+            appendField(lines, reject.catalogUuid()).append(',');
+            appendField(lines, reject.plantOrdinal() == null ? null : reject.plantOrdinal().toString()).append(',');
+            appendField(lines, reject.rule().name()).append(',');
+            appendField(lines, reject.message()).append(',');
+            appendField(lines, reject.common()).append(',');
+            appendField(lines, reject.botanical()).append(',');
+            appendField(lines, reject.zone()).append(',');
+            appendField(lines, reject.light()).append(',');
+            appendField(lines, reject.price()).append(',');
+            appendField(lines, reject.availability()).append("\r\n");
+        }
+        out.write(lines.toString());
+        out.flush();
+    }
+
+    @Override
+    protected void release() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Добавляет поле, заключая его в кавычки, если оно содержит запятую, кавычку или перевод строки.
+     */
+    private static StringBuilder appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
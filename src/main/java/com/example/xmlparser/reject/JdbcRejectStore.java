@@ -0,0 +1,58 @@
+package com.example.xmlparser.reject;
+
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.service.RejectRepository;
+import com.example.xmlparser.validator.ValidationLog;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Хранилище отклонённых записей в таблице r_cat_reject.
+ * <p>
+ * Пакеты записываются в автокоммите через отдельное соединение, открываемое при первом пакете, поэтому
+ * не зависят от транзакций приёмника: отклонённые записи сохраняются, даже если запись каталога откатилась.
+ */
+public final class JdbcRejectStore extends RejectStore {
+
+    private final DataSource dataSource;
+    private final long runId;
+    private Connection conn;
+
+    /**
+     * @param dataSource источник соединений
+     * @param runId      идентификатор запуска в ingest_run или 0, если история не записывается
+     * @param batchSize  количество записей в одном пакете JDBC
+     */
+    public JdbcRejectStore(DataSource dataSource, long runId, int batchSize) {
+        this(dataSource, runId, batchSize, ValidationLog.DEFAULT);
+    }
+
+    /**
+     * @param dataSource    источник соединений
+     * @param runId         идентификатор запуска в ingest_run или 0, если история не записывается
+     * @param batchSize     количество записей в одном пакете JDBC
+     * @param validationLog выборочный лог нарушений
+     */
+    public JdbcRejectStore(DataSource dataSource, long runId, int batchSize, ValidationLog validationLog) {
+        super(batchSize, validationLog);
+        this.dataSource = dataSource;
+        this.runId = runId;
+    }
+
+    @Override
+    protected void write(List<Reject> rejects) throws SQLException {
+        if (conn == null) {
+            conn = dataSource.getConnection();
+        }
+        RejectRepository.saveAll(conn, runId, rejects);
+    }
+
+    @Override
+    protected void release() {
+        DatabaseManager.close(conn);
+        conn = null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.xmlparser.reject;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.validator.ValidationError;
+import com.example.xmlparser.validator.ValidationRule;
+
+/**
+ * Отклонённая запись: нарушенное правило и исходные значения полей.
+ * Для каталога поля растения пустые, а порядковый номер равен null.
+ *
+ * @param file         путь к файлу
+ * @param catalogUuid  UUID каталога
+ * @param plantOrdinal порядковый номер растения в файле (с 1) или null для каталога
+ * @param rule         нарушенное правило
+ * @param message      описание ошибки
+ * @param common       народное название
+ * @param botanical    научное название
+ * @param zone         зона в исходном виде
+ * @param light        освещение
+ * @param price        цена
+ * @param availability количество
+ */
+public record Reject(String file, String catalogUuid, Integer plantOrdinal, ValidationRule rule, String message,
+                     String common, String botanical, String zone, String light, String price,
+                     String availability) {
+
+    /**
+     * @param file    путь к файлу
+     * @param catalog отклонённый каталог
+     * @param error   нарушение
+     * @return отклонённый каталог
+     */
+    public static Reject of(String file, Catalog catalog, ValidationError error) {
+        return new Reject(file, catalog.getUuid(), null, error.rule(), error.message(),
+                null, null, null, null, null, null);
+    }
+
+    /**
+     * @param file        путь к файлу
+     * @param catalogUuid UUID каталога
+     * @param ordinal     порядковый номер растения в файле (с 1)
+     * @param plant       отклонённое растение
+     * @param error       нарушение
+     * @return отклонённое растение
+     */
+    public static Reject of(String file, String catalogUuid, int ordinal, Plant plant, ValidationError error) {
+        return new Reject(file, catalogUuid, ordinal, error.rule(), error.message(),
+                plant.getCommon(), plant.getBotanical(), plant.getZoneText(), plant.getLight(),
+                plant.getPrice() == null ? null : plant.getPrice().toPlainString(),
+                String.valueOf(plant.getAvailability()));
+    }
+}
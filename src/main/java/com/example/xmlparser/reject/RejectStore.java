@@ -0,0 +1,200 @@
+package com.example.xmlparser.reject;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.validator.ValidationError;
+import com.example.xmlparser.validator.ValidationLog;
+import com.example.xmlparser.validator.ValidationRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Хранилище отклонённых записей.
+ * <p>
+ * Записи накапливаются в буфере и передаются {@link #write(List)} пакетами по {@code batchSize}
+ * и при {@link #close()}. Отклонённые записи вторичны по отношению к загрузке: если записать пакет
+ * не удалось, ошибка записывается в лог, хранилище отключается и загрузка продолжается, как и при
+ * недоступной истории запусков. Нарушения выборочно записываются в {@link ValidationLog} хранилища.
+ * Методы потокобезопасны.
+ */
+public abstract class RejectStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejectStore.class);
+
+    /**
+     * Размер пакета по умолчанию.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final int batchSize;
+    private final ValidationLog validationLog;
+    private final List<Reject> buffer;
+    private long written;
+    private long dropped;
+    private boolean disabled;
+
+    /**
+     * @param batchSize количество записей в одном пакете
+     */
+    protected RejectStore(int batchSize) {
+        this(batchSize, ValidationLog.DEFAULT);
+    }
+
+    /**
+     * @param batchSize     количество записей в одном пакете
+     * @param validationLog выборочный лог нарушений
+     */
+    protected RejectStore(int batchSize, ValidationLog validationLog) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.validationLog = validationLog;
+        this.buffer = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * @return хранилище, которое ничего не сохраняет и пишет нарушения в {@link ValidationLog#DEFAULT}
+     */
+    public static RejectStore discard() {
+        return discard(ValidationLog.DEFAULT);
+    }
+
+    /**
+     * @param validationLog выборочный лог нарушений
+     * @return хранилище, которое ничего не сохраняет
+     */
+    public static RejectStore discard(ValidationLog validationLog) {
+        return new RejectStore(DEFAULT_BATCH_SIZE, validationLog) {
+            @Override
+            protected void write(List<Reject> rejects) {
+            }
+        };
+    }
+
+    /**
+     * Записывает ошибки каталога в лог выборочно и сохраняет их.
+     *
+     * @param file    путь к файлу
+     * @param catalog отклонённый каталог
+     * @param errors  нарушения
+     */
+    public void rejectCatalog(String file, Catalog catalog, List<ValidationError> errors) {
+        for (ValidationError error : errors) {
+            validationLog.record(error.rule(), catalog.getUuid(), error.message());
+            add(Reject.of(file, catalog, error));
+        }
+    }
+
+    /**
+     * Записывает в лог выборочно и сохраняет каталог, пропущенный из-за уже загруженного UUID
+     * (правило {@link ValidationRule#CATALOG_DUPLICATE}).
+     *
+     * @param file    путь к файлу
+     * @param catalog пропущенный каталог
+     * @param message описание причины
+     */
+    public void rejectDuplicate(String file, Catalog catalog, String message) {
+        rejectCatalog(file, catalog, List.of(new ValidationError(ValidationRule.CATALOG_DUPLICATE, message)));
+    }
+
+    /**
+     * Записывает ошибки растения в лог выборочно и сохраняет их.
+     *
+     * @param file        путь к файлу
+     * @param catalogUuid UUID каталога
+     * @param ordinal     порядковый номер растения в файле (с 1)
+     * @param plant       отклонённое растение
+     * @param errors      нарушения
+     */
+    public void rejectPlant(String file, String catalogUuid, int ordinal, Plant plant, List<ValidationError> errors) {
+        for (ValidationError error : errors) {
+            validationLog.record(error.rule(), plant.getBotanical(), error.message());
+            add(Reject.of(file, catalogUuid, ordinal, plant, error));
+        }
+    }
+
+    /**
+     * Сохраняет отклонённую запись без записи в лог.
+     *
+     * @param reject отклонённая запись
+     */
+    public synchronized void add(Reject reject) {
+        if (disabled) {
+            dropped++;
+            return;
+        }
+        buffer.add(reject);
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Передаёт накопленные записи в {@link #write(List)}.
+     */
+    public synchronized void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        try {
+            write(buffer);
+            written += buffer.size();
+        } catch (Exception e) {
+            logger.warn("Отклонённые записи больше не сохраняются: {}", e.getMessage(), e);
+            disabled = true;
+            dropped += buffer.size();
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return выборочный лог нарушений хранилища
+     */
+    public ValidationLog getValidationLog() {
+        return validationLog;
+    }
+
+    /**
+     * @return количество сохранённых записей
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * Сохраняет оставшиеся записи и освобождает ресурсы хранилища.
+     */
+    @Override
+    public synchronized void close() {
+        flush();
+        try {
+            release();
+        } catch (Exception e) {
+            logger.warn("Ошибка при закрытии хранилища отклонённых записей: {}", e.getMessage(), e);
+        }
+        if (written > 0 || dropped > 0) {
+            logger.info("Отклонённых записей сохранено: {}, не сохранено: {}", written, dropped);
+        }
+    }
+
+    /**
+     * Сохраняет пакет записей.
+     *
+     * @param rejects записи; список переиспользуется после возврата
+     * @throws Exception если пакет не удалось сохранить
+     */
+    protected abstract void write(List<Reject> rejects) throws Exception;
+
+    /**
+     * Освобождает ресурсы хранилища; вызывается один раз из {@link #close()}.
+     *
+     * @throws Exception при ошибке закрытия
+     */
+    protected void release() throws Exception {
+    }
+}
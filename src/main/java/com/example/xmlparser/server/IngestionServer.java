@@ -0,0 +1,282 @@
+package com.example.xmlparser.server;
+
+import com.example.xmlparser.ingest.CatalogStreamLoader;
+import com.example.xmlparser.parser.XmlPlantReader;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.sink.CatalogSink;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * HTTP-сервер приёма каталогов на базе JDK {@link HttpServer}.
+ * <p>
+ * {@code POST /catalogs} принимает XML-документ каталога в теле запроса. Тело разбирается потоково
+ * ({@link XmlPlantReader}) по мере поступления и проходит ту же валидацию и запись, что и файлы
+ * ({@link CatalogStreamLoader}), поэтому размер запроса не ограничен памятью. В ответ возвращается JSON
+ * с итогом и количеством сохранённых и отклонённых растений. Отклонённые каталоги и растения сохраняются
+ * в {@link RejectStore} сервера с адресом клиента вместо пути к файлу.
+ * <p>
+ * Запросы обрабатываются ограниченным пулом потоков, у каждого потока свой приёмник (и соединение с базой).
+ * Одновременно принимается не больше {@code workers + queue} запросов, остальные сразу получают
+ * 429 Too Many Requests, не читая тело.
+ */
+public final class IngestionServer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionServer.class);
+
+    /**
+     * Путь приёма каталогов.
+     */
+    public static final String PATH = "/catalogs";
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore permits;
+    private final int chunkRows;
+    private final RejectStore rejects;
+    private final Queue<CatalogSink> openSinks = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<CatalogSink> sinks;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong overloaded = new AtomicLong();
+
+    /**
+     * Создаёт сервер; приём запросов начинается после {@link #start()}.
+     *
+     * @param address     адрес и порт (порт 0 — любой свободный)
+     * @param workers     количество потоков обработки запросов
+     * @param queue       количество запросов, ожидающих свободного потока
+     * @param chunkRows   количество растений, передаваемых приёмнику за раз
+     * @param sinkFactory создаёт приёмник для очередного потока обработки
+     * @throws IOException если порт занят
+     */
+    public IngestionServer(InetSocketAddress address, int workers, int queue, int chunkRows,
+                           Supplier<CatalogSink> sinkFactory) throws IOException {
+        this(address, workers, queue, chunkRows, sinkFactory, RejectStore.discard());
+    }
+
+    /**
+     * Создаёт сервер, сохраняющий отклонённые записи; приём запросов начинается после {@link #start()}.
+     *
+     * @param address     адрес и порт (порт 0 — любой свободный)
+     * @param workers     количество потоков обработки запросов
+     * @param queue       количество запросов, ожидающих свободного потока
+     * @param chunkRows   количество растений, передаваемых приёмнику за раз
+     * @param sinkFactory создаёт приёмник для очередного потока обработки
+     * @param rejects     хранилище отклонённых записей; закрывается при остановке сервера
+     * @throws IOException если порт занят
+     */
+    public IngestionServer(InetSocketAddress address, int workers, int queue, int chunkRows,
+                           Supplier<CatalogSink> sinkFactory, RejectStore rejects) throws IOException {
+        if (workers < 1 || queue < 0 || chunkRows < 1) {
+            throw new IllegalArgumentException("Количество потоков и размер порции должны быть положительными, "
+                    + "размер очереди — неотрицательным");
+        }
+        this.chunkRows = chunkRows;
+        this.rejects = rejects;
+        this.permits = new Semaphore(workers + queue);
+        this.sinks = ThreadLocal.withInitial(() -> {
+            CatalogSink sink = sinkFactory.get();
+            openSinks.add(sink);
+            return sink;
+        });
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Очередь ограничена семафором: больше workers + queue задач в пул не попадает
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "ingest-worker-" + threadNumber.incrementAndGet()));
+
+        this.server = HttpServer.create(address, 0);
+        // Обработчик выполняется в потоке HttpServer и только распределяет запросы по пулу
+        server.createContext(PATH, this::dispatch);
+    }
+
+    /**
+     * Начинает приём запросов.
+     */
+    public void start() {
+        server.start();
+        logger.info("Приём каталогов: http://{}:{}{} (потоков {}, мест в очереди {})",
+                server.getAddress().getHostString(), server.getAddress().getPort(), PATH,
+                workers.getCorePoolSize(), permits.availablePermits() - workers.getCorePoolSize());
+    }
+
+    /**
+     * @return адрес, на котором сервер принимает запросы
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * @return количество принятых в обработку запросов
+     */
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    /**
+     * @return количество запросов, отклонённых с кодом 429
+     */
+    public long getOverloaded() {
+        return overloaded.get();
+    }
+
+    /**
+     * Прекращает приём запросов, дожидается обработки принятых и закрывает приёмники и хранилище отклонённых записей.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+                logger.warn("Не все запросы обработаны до остановки сервера");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        CatalogSink sink;
+        while ((sink = openSinks.poll()) != null) {
+            closeQuietly(sink);
+        }
+        rejects.close();
+        logger.info("Сервер остановлен: принято запросов {}, отклонено из-за перегрузки {}",
+                accepted.get(), overloaded.get());
+    }
+
+    private void dispatch(HttpExchange exchange) {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, error("Каталог передаётся методом POST"));
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            overloaded.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 429, error("Сервер перегружен, повторите запрос позже"));
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(exchange);
+                } finally {
+                    permits.release();
+                }
+            });
+            accepted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            respond(exchange, 503, error("Сервер останавливается"));
+        }
+    }
+
+    private void process(HttpExchange exchange) {
+        try (XmlPlantReader reader = new XmlPlantReader(exchange.getRequestBody())) {
+            CatalogStreamLoader.Result result = CatalogStreamLoader.load(reader, sinks.get(), chunkRows, rejects,
+                    String.valueOf(exchange.getRemoteAddress()));
+            int status = switch (result.status()) {
+                case SAVED -> 200;
+                case INVALID -> 422;
+                case DUPLICATE -> 409;
+            };
+            respond(exchange, status, toJson(result));
+        } catch (XMLStreamException | DateTimeParseException | IllegalArgumentException e) {
+            logger.warn("Некорректный XML в запросе от {}: {}", exchange.getRemoteAddress(), e.getMessage());
+            respond(exchange, 400, error("Некорректный XML: " + e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Ошибка при сохранении каталога из запроса: {}", e.getMessage(), e);
+            // Соединение приёмника могло оборваться: следующий запрос этого потока откроет новое
+            discardSink();
+            respond(exchange, 500, error("Ошибка при сохранении каталога"));
+        }
+    }
+
+    private void discardSink() {
+        CatalogSink sink = sinks.get();
+        sinks.remove();
+        openSinks.remove(sink);
+        closeQuietly(sink);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, body.length);
+            out.write(body);
+        } catch (IOException e) {
+            logger.debug("Не удалось отправить ответ {}: {}", status, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void closeQuietly(CatalogSink sink) {
+        try {
+            sink.close();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ошибка при закрытии приёмника: {}", e.getMessage(), e);
+        }
+    }
+
+    private static String toJson(CatalogStreamLoader.Result result) {
+        return "{\"uuid\":" + quote(result.uuid())
+                + ",\"status\":\"" + result.status() + "\""
+                + ",\"catalogId\":" + result.catalogId()
+                + ",\"plantsSaved\":" + result.plantsSaved()
+                + ",\"plantsRejected\":" + result.plantsRejected() + "}";
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
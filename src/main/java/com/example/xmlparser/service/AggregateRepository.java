@@ -0,0 +1,371 @@
+package com.example.xmlparser.service;
+
+import com.example.xmlparser.aggregate.PlantAggregate;
+import com.example.xmlparser.jfr.DatabaseWriteEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Репозиторий сводных таблиц a_cat_catalog_summary и a_cat_dimension_summary.
+ * <p>
+ * a_cat_catalog_summary хранит агрегаты каждого каталога по паре (зона, освещение) и целиком
+ * заменяется при записи каталога. a_cat_dimension_summary хранит агрегаты по компании, зоне
+ * и освещению и изменяется на разницу между новой и прежней сводкой каталога. Запись выполняется
+ * в транзакции вызывающего кода, поэтому сводки всегда согласованы с f_cat_plants.
+ */
+public final class AggregateRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregateRepository.class);
+
+    /**
+     * Общая часть запросов: раскладывает изменения сводки каталога (CTE changes, знак +1 для новых строк
+     * и -1 для прежних) по измерениям и прибавляет их к a_cat_dimension_summary.
+     * Минимум и максимум при вычитании не пересчитываются — это делает {@link #recomputeBounds}.
+     * Строки измерений общие для всех каталогов, поэтому изменения применяются в порядке ключа:
+     * параллельные транзакции блокируют их в одном порядке и не попадают во взаимную блокировку.
+     */
+    private static final String APPLY_DELTAS = """
+            deltas AS (
+                SELECT d.dimension, d.dim_key,
+                       sum(c.sign * c.plant_count) AS plant_count,
+                       sum(c.sign * c.price_sum) AS price_sum,
+                       min(c.price_min) AS price_min,
+                       max(c.price_max) AS price_max,
+                       sum(c.sign * c.availability_total) AS availability_total,
+                       bool_or(c.sign < 0) AS retracted
+                FROM changes c
+                CROSS JOIN LATERAL (VALUES ('COMPANY', coalesce(c.company::text, '')),
+                                           ('ZONE', c.zone::text),
+                                           ('LIGHT', c.light::text)) AS d(dimension, dim_key)
+                GROUP BY d.dimension, d.dim_key
+            ),
+            applied AS (
+                INSERT INTO a_cat_dimension_summary AS s
+                       (dimension, dim_key, plant_count, price_sum, price_min, price_max, availability_total)
+                SELECT dimension, dim_key, plant_count, price_sum, price_min, price_max, availability_total
+                FROM deltas
+                ORDER BY dimension, dim_key
+                ON CONFLICT (dimension, dim_key) DO UPDATE SET
+                    plant_count = s.plant_count + EXCLUDED.plant_count,
+                    price_sum = s.price_sum + EXCLUDED.price_sum,
+                    price_min = LEAST(s.price_min, EXCLUDED.price_min),
+                    price_max = GREATEST(s.price_max, EXCLUDED.price_max),
+                    availability_total = s.availability_total + EXCLUDED.availability_total
+            )
+            SELECT dimension, dim_key FROM deltas WHERE retracted
+            """;
+
+    private AggregateRepository() {
+        // Закрытый конструктор для утилитного класса
+    }
+
+    /**
+     * Заменяет сводку каталога переданными агрегатами и переносит разницу в сводки по измерениям.
+     *
+     * @param conn       соединение, в транзакции которого записаны растения каталога
+     * @param catalogId  идентификатор каталога
+     * @param company    компания каталога
+     * @param aggregates агрегаты валидных растений каталога по паре (зона, освещение)
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void replaceCatalog(final Connection conn, final int catalogId, final String company,
+                                      final List<PlantAggregate> aggregates) {
+        final String sql = """
+                WITH target AS (
+                    SELECT ?::int AS catalog_id, ?::varchar AS company
+                ),
+                new_rows AS (
+                    SELECT *
+                    FROM unnest(?::int[], ?::varchar[], ?::bigint[], ?::numeric[], ?::numeric[], ?::numeric[], ?::bigint[])
+                         AS t(zone, light, plant_count, price_sum, price_min, price_max, availability_total)
+                ),
+                old_rows AS (
+                    SELECT s.company, s.zone, s.light, s.plant_count, s.price_sum, s.availability_total
+                    FROM a_cat_catalog_summary s
+                    WHERE s.catalog_id = (SELECT catalog_id FROM target)
+                ),
+                removed AS (
+                    DELETE FROM a_cat_catalog_summary s
+                    WHERE s.catalog_id = (SELECT catalog_id FROM target)
+                      AND NOT EXISTS (SELECT 1 FROM new_rows n WHERE n.zone = s.zone AND n.light = s.light)
+                ),
+                stored AS (
+                    INSERT INTO a_cat_catalog_summary AS s
+                           (catalog_id, zone, light, company, plant_count, price_sum, price_min, price_max,
+                            availability_total)
+                    SELECT t.catalog_id, n.zone, n.light, t.company, n.plant_count, n.price_sum,
+                           n.price_min, n.price_max, n.availability_total
+                    FROM new_rows n
+                    CROSS JOIN target t
+                    ON CONFLICT (catalog_id, zone, light) DO UPDATE SET
+                        company = EXCLUDED.company,
+                        plant_count = EXCLUDED.plant_count,
+                        price_sum = EXCLUDED.price_sum,
+                        price_min = EXCLUDED.price_min,
+                        price_max = EXCLUDED.price_max,
+                        availability_total = EXCLUDED.availability_total
+                ),
+                changes AS (
+                    SELECT 1 AS sign, t.company, n.zone, n.light, n.plant_count, n.price_sum,
+                           n.price_min, n.price_max, n.availability_total
+                    FROM new_rows n
+                    CROSS JOIN target t
+                    UNION ALL
+                    SELECT -1, o.company, o.zone, o.light, o.plant_count, o.price_sum,
+                           NULL::numeric, NULL::numeric, o.availability_total
+                    FROM old_rows o
+                ),
+                """ + APPLY_DELTAS;
+
+        apply(conn, sql, "AggregateRepository.replaceCatalog", catalogId, company, aggregates);
+    }
+
+    /**
+     * Прибавляет агрегаты очередной порции растений к сводке каталога и сводкам по измерениям.
+     * Используется при загрузке каталога несколькими транзакциями, когда растения только добавляются.
+     *
+     * @param conn       соединение, в транзакции которого записана порция растений
+     * @param catalogId  идентификатор каталога
+     * @param company    компания каталога
+     * @param aggregates агрегаты порции по паре (зона, освещение)
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void appendCatalog(final Connection conn, final int catalogId, final String company,
+                                     final List<PlantAggregate> aggregates) {
+        final String sql = """
+                WITH target AS (
+                    SELECT ?::int AS catalog_id, ?::varchar AS company
+                ),
+                new_rows AS (
+                    SELECT *
+                    FROM unnest(?::int[], ?::varchar[], ?::bigint[], ?::numeric[], ?::numeric[], ?::numeric[], ?::bigint[])
+                         AS t(zone, light, plant_count, price_sum, price_min, price_max, availability_total)
+                ),
+                stored AS (
+                    INSERT INTO a_cat_catalog_summary AS s
+                           (catalog_id, zone, light, company, plant_count, price_sum, price_min, price_max,
+                            availability_total)
+                    SELECT t.catalog_id, n.zone, n.light, t.company, n.plant_count, n.price_sum,
+                           n.price_min, n.price_max, n.availability_total
+                    FROM new_rows n
+                    CROSS JOIN target t
+                    ON CONFLICT (catalog_id, zone, light) DO UPDATE SET
+                        plant_count = s.plant_count + EXCLUDED.plant_count,
+                        price_sum = s.price_sum + EXCLUDED.price_sum,
+                        price_min = LEAST(s.price_min, EXCLUDED.price_min),
+                        price_max = GREATEST(s.price_max, EXCLUDED.price_max),
+                        availability_total = s.availability_total + EXCLUDED.availability_total
+                ),
+                changes AS (
+                    SELECT 1 AS sign, t.company, n.zone, n.light, n.plant_count, n.price_sum,
+                           n.price_min, n.price_max, n.availability_total
+                    FROM new_rows n
+                    CROSS JOIN target t
+                ),
+                """ + APPLY_DELTAS;
+
+        apply(conn, sql, "AggregateRepository.appendCatalog", catalogId, company, aggregates);
+    }
+
+    /**
+     * Выполняет запрос сводки каталога: параметры — идентификатор, компания и массивы агрегатов.
+     */
+    private static void apply(Connection conn, String sql, String operation, int catalogId, String company,
+                              List<PlantAggregate> aggregates) {
+        final int size = aggregates.size();
+        final Integer[] zones = new Integer[size];
+        final String[] lights = new String[size];
+        final Long[] counts = new Long[size];
+        final BigDecimal[] sums = new BigDecimal[size];
+        final BigDecimal[] mins = new BigDecimal[size];
+        final BigDecimal[] maxs = new BigDecimal[size];
+        final Long[] availabilities = new Long[size];
+        for (int i = 0; i < size; i++) {
+            PlantAggregate aggregate = aggregates.get(i);
+            zones[i] = aggregate.zone();
+            lights[i] = aggregate.light();
+            counts[i] = aggregate.plantCount();
+            sums[i] = aggregate.priceSum();
+            mins[i] = aggregate.priceMin();
+            maxs[i] = aggregate.priceMax();
+            availabilities[i] = aggregate.availabilityTotal();
+        }
+
+        DatabaseWriteEvent event = new DatabaseWriteEvent();
+        event.begin();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, catalogId);
+            stmt.setString(2, company);
+            stmt.setArray(3, conn.createArrayOf("int4", zones));
+            stmt.setArray(4, conn.createArrayOf("varchar", lights));
+            stmt.setArray(5, conn.createArrayOf("int8", counts));
+            stmt.setArray(6, conn.createArrayOf("numeric", sums));
+            stmt.setArray(7, conn.createArrayOf("numeric", mins));
+            stmt.setArray(8, conn.createArrayOf("numeric", maxs));
+            stmt.setArray(9, conn.createArrayOf("int8", availabilities));
+
+            List<String[]> retracted = readKeys(stmt);
+            recomputeBounds(conn, retracted);
+            logger.debug("Сводка каталога ID = {} обновлена: групп {}, пересчитано границ {}",
+                    catalogId, size, retracted.size());
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при обновлении сводки каталога {}: {}", catalogId, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при обновлении сводки каталога", e);
+        } finally {
+            event.finish(operation, String.valueOf(catalogId), size);
+        }
+    }
+
+    /**
+     * Пересчитывает сводку каталога по его растениям в f_cat_plants.
+     * Используется после синхронизации, когда часть растений изменилась или удалена в базе.
+     * Чтение идёт по индексу на catalog_id и пропорционально размеру каталога.
+     *
+     * @param conn      соединение, в транзакции которого записаны растения каталога
+     * @param catalogId идентификатор каталога
+     * @param company   компания каталога
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void rebuildCatalog(final Connection conn, final int catalogId, final String company) {
+        final String sql = """
+                SELECT zone, coalesce(light, '') AS light, count(*) AS plant_count,
+                       coalesce(sum(price), 0) AS price_sum, min(price) AS price_min, max(price) AS price_max,
+                       coalesce(sum(availability), 0) AS availability_total
+                FROM f_cat_plants
+                WHERE catalog_id = ?
+                GROUP BY zone, coalesce(light, '')
+                """;
+
+        List<PlantAggregate> aggregates = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, catalogId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    aggregates.add(new PlantAggregate(rs.getInt("zone"), rs.getString("light"),
+                            rs.getLong("plant_count"), rs.getBigDecimal("price_sum"),
+                            rs.getBigDecimal("price_min"), rs.getBigDecimal("price_max"),
+                            rs.getLong("availability_total")));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении агрегатов каталога {}: {}", catalogId, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при чтении агрегатов каталога", e);
+        }
+
+        replaceCatalog(conn, catalogId, company, aggregates);
+    }
+
+    /**
+     * Добавляет в сводки каталоги, перенесённые из staging-таблиц загрузкой {@code loadId}.
+     * Staging-загрузка только вставляет новые каталоги, поэтому достаточно прибавить их агрегаты.
+     * Вызывается до очистки staging-таблиц.
+     *
+     * @param conn   соединение, в транзакции которого выполнен перенос
+     * @param loadId идентификатор staging-загрузки
+     * @throws SQLException если произошла ошибка при выполнении SQL-запроса
+     */
+    static void appendStagingLoad(final Connection conn, final long loadId) throws SQLException {
+        final String sql = """
+                WITH new_rows AS (
+                    SELECT d.id AS catalog_id, d.company, p.zone_text::int AS zone, coalesce(p.light, '') AS light,
+                           count(*) AS plant_count, coalesce(sum(p.price), 0) AS price_sum,
+                           min(p.price) AS price_min, max(p.price) AS price_max,
+                           coalesce(sum(p.availability), 0) AS availability_total
+                    FROM stg_cat_plants p
+                    JOIN stg_cat_catalog c ON c.load_id = p.load_id AND c.catalog_seq = p.catalog_seq
+                    JOIN d_cat_catalog d ON d.uuid = c.uuid
+                    WHERE p.load_id = ? AND cardinality(p.error_codes) = 0 AND cardinality(c.error_codes) = 0
+                    GROUP BY d.id, d.company, p.zone_text::int, coalesce(p.light, '')
+                ),
+                stored AS (
+                    INSERT INTO a_cat_catalog_summary
+                           (catalog_id, zone, light, company, plant_count, price_sum, price_min, price_max,
+                            availability_total)
+                    SELECT catalog_id, zone, light, company, plant_count, price_sum, price_min, price_max,
+                           availability_total
+                    FROM new_rows
+                ),
+                changes AS (
+                    SELECT 1 AS sign, company, zone, light, plant_count, price_sum, price_min, price_max,
+                           availability_total
+                    FROM new_rows
+                ),
+                """ + APPLY_DELTAS;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, loadId);
+            readKeys(stmt);
+        }
+    }
+
+    /**
+     * Пересчитывает минимум и максимум цены по сводкам каталогов для ключей, из которых были вычтены строки,
+     * и удаляет ключи, в которых не осталось растений. Вычитание не может сузить границы инкрементально,
+     * а a_cat_catalog_summary на порядки меньше f_cat_plants.
+     */
+    private static void recomputeBounds(Connection conn, List<String[]> keys) throws SQLException {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        final String sql = """
+                WITH touched AS (
+                    SELECT * FROM unnest(?::varchar[], ?::varchar[]) AS k(dimension, dim_key)
+                ),
+                recomputed AS (
+                    SELECT k.dimension, k.dim_key, min(c.price_min) AS price_min, max(c.price_max) AS price_max
+                    FROM touched k
+                    JOIN a_cat_catalog_summary c
+                      ON CASE k.dimension WHEN 'COMPANY' THEN coalesce(c.company::text, '')
+                                          WHEN 'ZONE' THEN c.zone::text
+                                          ELSE c.light::text END = k.dim_key
+                    GROUP BY k.dimension, k.dim_key
+                ),
+                emptied AS (
+                    DELETE FROM a_cat_dimension_summary s
+                    USING touched k
+                    WHERE s.dimension = k.dimension AND s.dim_key = k.dim_key AND s.plant_count <= 0
+                )
+                UPDATE a_cat_dimension_summary s
+                SET price_min = r.price_min, price_max = r.price_max
+                FROM recomputed r
+                WHERE s.dimension = r.dimension AND s.dim_key = r.dim_key AND s.plant_count > 0
+                """;
+
+        final String[] dimensions = new String[keys.size()];
+        final String[] dimKeys = new String[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            dimensions[i] = keys.get(i)[0];
+            dimKeys[i] = keys.get(i)[1];
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Array dimensionArray = conn.createArrayOf("varchar", dimensions);
+            Array keyArray = conn.createArrayOf("varchar", dimKeys);
+            stmt.setArray(1, dimensionArray);
+            stmt.setArray(2, keyArray);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static List<String[]> readKeys(PreparedStatement stmt) throws SQLException {
+        List<String[]> keys = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                keys.add(new String[]{rs.getString("dimension"), rs.getString("dim_key")});
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.xmlparser.service;
+
+import com.example.xmlparser.db.DatabaseManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Отложенное обслуживание индексов и внешних ключей f_cat_plants на время массовой загрузки.
+ * <p>
+ * {@link #defer(Connection)} удаляет неуникальные индексы и внешние ключи f_cat_plants, предварительно
+ * записав DDL для их восстановления в таблицу ingest_deferred_ddl в той же транзакции. Поэтому после
+ * аварийного завершения процесса сведения об удалённых объектах не теряются: их восстанавливает
+ * {@link #restore(int)} при следующем запуске. Уникальные индексы и первичные ключи не трогаются —
+ * на них опирается ON CONFLICT при вставке каталогов.
+ * <p>
+ * Восстановление выполняется параллельно, по соединению на объект: индексы строятся заново
+ * (блокировки CREATE INDEX совместимы друг с другом), внешние ключи добавляются с NOT VALID
+ * (новые строки сразу проверяются) и затем проверяются одним запросом VALIDATE CONSTRAINT
+ * по всей таблице, дождавшись построения индексов.
+ */
+public final class BulkLoadRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkLoadRepository.class);
+
+    /**
+     * Код ошибки PostgreSQL foreign_key_violation.
+     */
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
+    private BulkLoadRepository() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Отложенный объект и DDL для его восстановления.
+     *
+     * @param name        имя индекса или ограничения
+     * @param kind        INDEX или FOREIGN_KEY
+     * @param restoreSql  DDL для восстановления
+     * @param validateSql DDL для проверки существующих строк или null
+     */
+    private record DeferredObject(String name, String kind, String restoreSql, String validateSql) {
+    }
+
+    /**
+     * Удаляет неуникальные индексы и внешние ключи f_cat_plants и избыточный индекс d_cat_catalog_id_uindex,
+     * дублирующий первичный ключ. Объекты, оставшиеся удалёнными после прерванной загрузки, учитываются повторно.
+     *
+     * @param conn соединение; выполняется в отдельной транзакции, которую метод фиксирует
+     * @return имена объектов, которые будут восстановлены после загрузки
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static List<String> defer(final Connection conn) {
+        // DDL для удаления и восстановления строится по системному каталогу, поэтому учитываются и индексы,
+        // добавленные в базу вручную
+        final String planSql = """
+                WITH objects AS (
+                    SELECT i.indexrelid::regclass::text AS object_name,
+                           'INDEX' AS object_kind,
+                           pg_get_indexdef(i.indexrelid) AS restore_sql,
+                           NULL::text AS validate_sql,
+                           format('DROP INDEX %s', i.indexrelid::regclass) AS drop_sql
+                    FROM pg_index i
+                    WHERE i.indrelid = 'public.f_cat_plants'::regclass
+                      AND NOT i.indisunique AND NOT i.indisprimary
+                    UNION ALL
+                    SELECT c.conname,
+                           'FOREIGN_KEY',
+                           format('ALTER TABLE public.f_cat_plants ADD CONSTRAINT %I %s NOT VALID',
+                                  c.conname, pg_get_constraintdef(c.oid)),
+                           format('ALTER TABLE public.f_cat_plants VALIDATE CONSTRAINT %I', c.conname),
+                           format('ALTER TABLE public.f_cat_plants DROP CONSTRAINT %I', c.conname)
+                    FROM pg_constraint c
+                    WHERE c.conrelid = 'public.f_cat_plants'::regclass AND c.contype = 'f'
+                ),
+                recorded AS (
+                    INSERT INTO ingest_deferred_ddl (object_name, object_kind, restore_sql, validate_sql)
+                    SELECT object_name, object_kind, restore_sql, validate_sql FROM objects
+                    ON CONFLICT (object_name) DO NOTHING
+                )
+                SELECT object_name, drop_sql FROM objects
+                """;
+
+        try {
+            conn.setAutoCommit(false);
+            List<String> deferred = new ArrayList<>();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP INDEX IF EXISTS public.d_cat_catalog_id_uindex");
+
+                List<String> dropSql = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery(planSql)) {
+                    while (rs.next()) {
+                        dropSql.add(rs.getString("drop_sql"));
+                    }
+                }
+                for (String sql : dropSql) {
+                    stmt.execute(sql);
+                }
+                // Вместе с только что удалёнными — объекты, не восстановленные после прерванной загрузки
+                try (ResultSet rs = stmt.executeQuery("SELECT object_name FROM ingest_deferred_ddl")) {
+                    while (rs.next()) {
+                        deferred.add(rs.getString("object_name"));
+                    }
+                }
+            }
+            conn.commit();
+            logger.info("Массовая загрузка: отложено обслуживание {}", deferred);
+            return deferred;
+
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            logger.error("Ошибка при отключении индексов и внешних ключей: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при отключении индексов и внешних ключей", e);
+        }
+    }
+
+    /**
+     * Восстанавливает все объекты из ingest_deferred_ddl и обновляет статистику планировщика.
+     * Ничего не делает, если отложенных объектов нет.
+     *
+     * @param threads максимальное количество объектов, восстанавливаемых одновременно
+     * @throws IllegalStateException если в f_cat_plants есть строки без каталога: внешний ключ
+     *                               остаётся NOT VALID и продолжает проверять новые строки
+     * @throws RuntimeException      если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void restore(final int threads) {
+        final List<DeferredObject> objects = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                     SELECT object_name, object_kind, restore_sql, validate_sql FROM ingest_deferred_ddl
+                     ORDER BY object_kind DESC, object_name
+                     """)) {
+            while (rs.next()) {
+                objects.add(new DeferredObject(rs.getString("object_name"), rs.getString("object_kind"),
+                        rs.getString("restore_sql"), rs.getString("validate_sql")));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении отложенных объектов: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при чтении отложенных объектов", e);
+        }
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        logger.info("Восстановление индексов и внешних ключей: {}", objects.stream().map(DeferredObject::name).toList());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, objects.size())));
+        List<String> violations = new ArrayList<>();
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (DeferredObject object : objects) {
+                results.add(executor.submit(() -> restoreObject(object)));
+            }
+            RuntimeException failure = null;
+            for (Future<String> result : results) {
+                try {
+                    String violation = result.get();
+                    if (violation != null) {
+                        violations.add(violation);
+                    }
+                } catch (ExecutionException e) {
+                    // Остальные объекты восстанавливаются независимо; первая ошибка пробрасывается после всех
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException re
+                                ? re : new RuntimeException("Ошибка при восстановлении объекта", e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Восстановление индексов прервано", e);
+        } finally {
+            executor.shutdown();
+        }
+
+        analyze();
+        if (!violations.isEmpty()) {
+            throw new IllegalStateException(String.join("; ", violations));
+        }
+    }
+
+    /**
+     * Восстанавливает один объект в собственном соединении и удаляет запись о нём.
+     *
+     * @return описание нарушения ссылочной целостности или null
+     */
+    private static String restoreObject(final DeferredObject object) throws SQLException {
+        long started = System.nanoTime();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement();
+                 PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM ingest_deferred_ddl WHERE object_name = ?")) {
+                stmt.execute(object.restoreSql());
+                delete.setString(1, object.name());
+                delete.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                rollbackQuietly(conn);
+                logger.error("Ошибка при восстановлении {}: {}", object.name(), e.getMessage(), e);
+                throw new RuntimeException("Ошибка при восстановлении " + object.name(), e);
+            }
+
+            if (object.validateSql() != null) {
+                // Проверка существующих строк одним проходом по таблице, без построчных триггеров
+                conn.setAutoCommit(true);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(object.validateSql());
+                } catch (SQLException e) {
+                    if (!FOREIGN_KEY_VIOLATION.equals(e.getSQLState())) {
+                        logger.error("Ошибка при проверке {}: {}", object.name(), e.getMessage(), e);
+                        throw new RuntimeException("Ошибка при проверке " + object.name(), e);
+                    }
+                    String violation = describeOrphans(conn, object.name());
+                    logger.error(violation);
+                    return violation;
+                }
+            }
+        }
+        logger.info("{} восстановлен за {} мс", object.name(), (System.nanoTime() - started) / 1_000_000);
+        return null;
+    }
+
+    /**
+     * Считает строки f_cat_plants, ссылающиеся на отсутствующие каталоги.
+     */
+    private static String describeOrphans(final Connection conn, final String constraint) throws SQLException {
+        final String sql = """
+                SELECT count(*) AS orphans, (array_agg(DISTINCT p.catalog_id))[1:10]::text AS sample
+                FROM f_cat_plants p
+                WHERE p.catalog_id IS NOT NULL
+                  AND NOT EXISTS (SELECT 1 FROM d_cat_catalog c WHERE c.id = p.catalog_id)
+                """;
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return "Ограничение " + constraint + " оставлено NOT VALID: растений без каталога " + rs.getLong("orphans")
+                    + ", каталоги " + rs.getString("sample")
+                    + "; после исправления выполните ALTER TABLE f_cat_plants VALIDATE CONSTRAINT " + constraint;
+        }
+    }
+
+    /**
+     * Обновляет статистику планировщика по таблицам, изменённым загрузкой.
+     */
+    private static void analyze() {
+        long started = System.nanoTime();
+        try (Connection conn = DatabaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE public.d_cat_catalog, public.f_cat_plants");
+        } catch (SQLException e) {
+            logger.error("Ошибка при сборе статистики: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сборе статистики", e);
+        }
+        logger.info("ANALYZE выполнен за {} мс", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static void rollbackQuietly(final Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            logger.warn("Ошибка при откате транзакции: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.xmlparser.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кэш соответствия UUID каталога его идентификатору в d_cat_catalog для {@link CatalogRepository#upsert}.
+ * Избавляет от повторного поиска каталога по UUID. Ключ включает URL базы данных: одним кэшем могут
+ * пользоваться загрузки в разные базы. Потокобезопасен.
+ */
+public final class CatalogIdCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIdCache.class);
+
+    /**
+     * Кэш процесса для загрузок из командной строки; встраиваемые движки создают собственный.
+     */
+    public static final CatalogIdCache SHARED = new CatalogIdCache();
+
+    private final Map<String, Integer> idByUuid = new ConcurrentHashMap<>();
+
+    Integer get(final Connection conn, final String uuid) throws SQLException {
+        return idByUuid.get(key(conn, uuid));
+    }
+
+    void put(final Connection conn, final String uuid, final int id) throws SQLException {
+        idByUuid.put(key(conn, uuid), id);
+    }
+
+    /**
+     * Удаляет UUID из кэша. Вызывается при откате транзакции, в которой каталог мог быть вставлен,
+     * чтобы кэш не ссылался на несуществующую запись.
+     *
+     * @param conn соединение с базой данных, в которой выполнялась транзакция
+     * @param uuid UUID каталога
+     */
+    public void evict(final Connection conn, final String uuid) {
+        try {
+            idByUuid.remove(key(conn, uuid));
+        } catch (SQLException e) {
+            // Соединение уже недоступно: сбрасываем кэш целиком, чтобы не оставить устаревший ID
+            logger.warn("Не удалось определить базу данных соединения: {}", e.getMessage());
+            idByUuid.clear();
+        }
+    }
+
+    private static String key(final Connection conn, final String uuid) throws SQLException {
+        return conn.getMetaData().getURL() + '\n' + uuid;
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.xmlparser.service;
 
+import com.example.xmlparser.jfr.DatabaseWriteEvent;
 import com.example.xmlparser.model.Catalog;
 import com.example.xmlparser.db.DatabaseManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
 
 /**
@@ -24,14 +26,41 @@ public final class CatalogRepository {
      *
      * @param catalog объект Catalog для сохранения
      * @return сгенерированный ID записи в таблице
-     * @throws RuntimeException если сохранение не удалось
+     * @throws DuplicateCatalogException если каталог с таким UUID уже загружен
+     * @throws RuntimeException          если сохранение не удалось
      */
     public static int save(final Catalog catalog) {
-        final String sql = "INSERT INTO d_cat_catalog (uuid, company, delivery_date) VALUES (?, ?, ?) RETURNING id";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return save(conn, catalog);
+        } catch (SQLException e) {
+            logger.error("Ошибка при сохранении каталога: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сохранении каталога", e);
+        }
+    }
+
+    /**
+     * Сохраняет каталог в базу данных в рамках переданного соединения.
+     *
+     * @param conn    соединение, в транзакции которого выполняется запись
+     * @param catalog объект Catalog для сохранения
+     * @return сгенерированный ID записи в таблице
+     * @throws DuplicateCatalogException если каталог с таким UUID уже загружен
+     * @throws RuntimeException          если сохранение не удалось
+     */
+    public static int save(final Connection conn, final Catalog catalog) {
+        // ON CONFLICT DO NOTHING: повторный UUID не прерывает транзакцию, в которой могут быть другие каталоги
+        final String sql = """
+                INSERT INTO d_cat_catalog (uuid, company, delivery_date) VALUES (?, ?, ?)
+                ON CONFLICT (uuid) DO NOTHING
+                RETURNING id
+                """;
 
         logger.debug("Попытка сохранить каталог: {}", catalog.getCompany());
 
-        try (Connection conn = DatabaseManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+        DatabaseWriteEvent event = new DatabaseWriteEvent();
+        event.begin();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, catalog.getUuid());
             stmt.setString(2, catalog.getCompany());
@@ -43,14 +72,199 @@ public final class CatalogRepository {
                     logger.info("Каталог успешно сохранён с ID = {}", id);
                     return id;
                 } else {
-                    logger.error("Сохранение каталога не вернуло ID");
-                    throw new SQLException("Сохранение каталога не вернуло ID");
+                    throw new DuplicateCatalogException(catalog.getUuid());
                 }
             }
 
         } catch (SQLException e) {
             logger.error("Ошибка при сохранении каталога: {}", e.getMessage(), e);
             throw new RuntimeException("Ошибка при сохранении каталога", e);
+        } finally {
+            event.finish("CatalogRepository.save", catalog.getUuid(), 1);
+        }
+    }
+
+    /**
+     * Находит каталог по UUID и обновляет его атрибуты либо вставляет новый, используя кэш процесса.
+     *
+     * @param conn    соединение, в транзакции которого выполняется запись
+     * @param catalog каталог для сохранения
+     * @return идентификатор каталога в таблице d_cat_catalog
+     * @throws RuntimeException если сохранение не удалось
+     * @see #upsert(Connection, Catalog, CatalogIdCache)
+     */
+    public static int upsert(final Connection conn, final Catalog catalog) {
+        return upsert(conn, catalog, CatalogIdCache.SHARED);
+    }
+
+    /**
+     * Находит каталог по UUID и обновляет его атрибуты либо вставляет новый.
+     * Идентификатор сначала ищется в кэше, затем в таблице по уникальному индексу на uuid.
+     * Запись каталога обновляется только если компания или дата доставки действительно изменились.
+     *
+     * @param conn    соединение, в транзакции которого выполняется запись
+     * @param catalog каталог для сохранения
+     * @param cache   кэш идентификаторов каталогов
+     * @return идентификатор каталога в таблице d_cat_catalog
+     * @throws RuntimeException если сохранение не удалось
+     */
+    public static int upsert(final Connection conn, final Catalog catalog, final CatalogIdCache cache) {
+        final String selectSql = "SELECT id FROM d_cat_catalog WHERE uuid = ?";
+        final String updateSql = """
+                UPDATE d_cat_catalog SET company = ?, delivery_date = ?
+                WHERE id = ? AND (company, delivery_date) IS DISTINCT FROM (?::varchar, ?::timestamp)
+                """;
+        final String insertSql = """
+                INSERT INTO d_cat_catalog (uuid, company, delivery_date) VALUES (?, ?, ?)
+                ON CONFLICT (uuid) DO UPDATE SET company = EXCLUDED.company, delivery_date = EXCLUDED.delivery_date
+                RETURNING id
+                """;
+
+        final String uuid = catalog.getUuid();
+        final Date deliveryDate = Date.valueOf(catalog.getDeliveryDate());
+
+        DatabaseWriteEvent event = new DatabaseWriteEvent();
+        event.begin();
+
+        try {
+            Integer id = cache.get(conn, uuid);
+            if (id == null) {
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    stmt.setString(1, uuid);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            id = rs.getInt("id");
+                            cache.put(conn, uuid, id);
+                        }
+                    }
+                }
+            }
+
+            if (id != null) {
+                try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                    stmt.setString(1, catalog.getCompany());
+                    stmt.setDate(2, deliveryDate);
+                    stmt.setInt(3, id);
+                    stmt.setString(4, catalog.getCompany());
+                    stmt.setDate(5, deliveryDate);
+                    int updated = stmt.executeUpdate();
+                    logger.debug("Каталог UUID {} найден с ID = {}, атрибуты обновлены: {}", uuid, id, updated > 0);
+                }
+                return id;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                stmt.setString(1, uuid);
+                stmt.setString(2, catalog.getCompany());
+                stmt.setDate(3, deliveryDate);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Сохранение каталога не вернуло ID");
+                    }
+                    final int newId = rs.getInt("id");
+                    cache.put(conn, uuid, newId);
+                    logger.info("Каталог UUID {} сохранён с ID = {}", uuid, newId);
+                    return newId;
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при сохранении каталога {}: {}", uuid, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сохранении каталога", e);
+        } finally {
+            event.finish("CatalogRepository.upsert", uuid, 1);
+        }
+    }
+
+    /**
+     * Удаляет каталог вместе с его растениями и из кэша процесса.
+     *
+     * @param conn      соединение, в транзакции которого выполняется удаление
+     * @param catalogId идентификатор каталога
+     * @return количество удалённых растений
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     * @see #delete(Connection, int, CatalogIdCache)
+     */
+    public static int delete(final Connection conn, final int catalogId) {
+        return delete(conn, catalogId, CatalogIdCache.SHARED);
+    }
+
+    /**
+     * Удаляет каталог вместе с его растениями и из кэша, которым пользуется {@link #upsert(Connection, Catalog,
+     * CatalogIdCache)}. Сводки каталога вызывающий код снимает отдельно.
+     *
+     * @param conn      соединение, в транзакции которого выполняется удаление
+     * @param catalogId идентификатор каталога
+     * @param cache     кэш идентификаторов каталогов
+     * @return количество удалённых растений
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static int delete(final Connection conn, final int catalogId, final CatalogIdCache cache) {
+        final String plantsSql = "DELETE FROM f_cat_plants WHERE catalog_id = ?";
+        final String catalogSql = "DELETE FROM d_cat_catalog WHERE id = ? RETURNING uuid";
+
+        try (PreparedStatement plants = conn.prepareStatement(plantsSql);
+             PreparedStatement catalog = conn.prepareStatement(catalogSql)) {
+            plants.setInt(1, catalogId);
+            final int deleted = plants.executeUpdate();
+            catalog.setInt(1, catalogId);
+            try (ResultSet rs = catalog.executeQuery()) {
+                if (rs.next()) {
+                    cache.evict(conn, rs.getString("uuid"));
+                }
+            }
+            logger.info("Каталог ID = {} удалён вместе с растениями: {}", catalogId, deleted);
+            return deleted;
+        } catch (SQLException e) {
+            logger.error("Ошибка при удалении каталога {}: {}", catalogId, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при удалении каталога", e);
+        }
+    }
+
+    /**
+     * Потоково читает каталоги из d_cat_catalog через серверный курсор.
+     * Соединение должно быть с отключённым автокоммитом, иначе драйвер загрузит весь результат в память.
+     *
+     * @param conn      соединение с отключённым автокоммитом
+     * @param uuid      UUID каталога для выборки одного каталога или null для всех
+     * @param fetchSize количество строк, получаемых из базы за одно обращение
+     * @param callback  обработчик каждого каталога (без списка растений)
+     * @return количество прочитанных каталогов
+     * @throws IOException      если обработчик не смог обработать каталог
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static int forEach(final Connection conn, final String uuid, final int fetchSize,
+                              final RowCallback<Catalog> callback) throws IOException {
+        final String sql = """
+                SELECT id, uuid, company, delivery_date FROM d_cat_catalog
+                WHERE ?::varchar IS NULL OR uuid = ?
+                ORDER BY id
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(fetchSize);
+            stmt.setString(1, uuid);
+            stmt.setString(2, uuid);
+
+            int count = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Catalog catalog = new Catalog(rs.getString("uuid"));
+                    catalog.setId(rs.getInt("id"));
+                    catalog.setCompany(rs.getString("company"));
+                    Timestamp deliveryDate = rs.getTimestamp("delivery_date");
+                    if (deliveryDate != null) {
+                        catalog.setDeliveryDate(deliveryDate.toLocalDateTime().toLocalDate());
+                    }
+                    callback.accept(catalog);
+                    count++;
+                }
+            }
+            return count;
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении каталогов: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при чтении каталогов", e);
         }
     }
 }
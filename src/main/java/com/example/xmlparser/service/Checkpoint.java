@@ -0,0 +1,24 @@
+package com.example.xmlparser.service;
+
+/**
+ * Прогресс загрузки файла, зафиксированный в одной транзакции с его растениями.
+ *
+ * @param filePath     абсолютный путь к файлу
+ * @param fileSize     размер файла на момент загрузки
+ * @param fileMtime    время изменения файла (мс) на момент загрузки
+ * @param catalogId    идентификатор каталога файла в d_cat_catalog
+ * @param plantOrdinal порядковый номер последнего зафиксированного элемента PLANT (с единицы), включая отклонённые
+ * @param completed    true, если файл загружен полностью
+ */
+public record Checkpoint(String filePath, long fileSize, long fileMtime, int catalogId, int plantOrdinal,
+                         boolean completed) {
+
+    /**
+     * @param size  текущий размер файла
+     * @param mtime текущее время изменения файла (мс)
+     * @return true, если контрольная точка относится к этой версии файла
+     */
+    public boolean matches(long size, long mtime) {
+        return fileSize == size && fileMtime == mtime;
+    }
+}
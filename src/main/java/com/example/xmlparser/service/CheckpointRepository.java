@@ -0,0 +1,105 @@
+package com.example.xmlparser.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Репозиторий контрольных точек загрузки файлов (таблица ingest_checkpoint).
+ * Контрольная точка пишется в транзакции вызывающего кода вместе с растениями, поэтому
+ * после сбоя она указывает ровно на последнее зафиксированное растение.
+ */
+public final class CheckpointRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointRepository.class);
+
+    private CheckpointRepository() {
+        // Закрытый конструктор для утилитного класса
+    }
+
+    /**
+     * Находит контрольную точку файла.
+     *
+     * @param conn     соединение
+     * @param filePath абсолютный путь к файлу
+     * @return контрольная точка или null, если файл ещё не загружался
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static Checkpoint find(final Connection conn, final String filePath) {
+        final String sql = """
+                SELECT file_path, file_size, file_mtime, catalog_id, plant_ordinal, completed
+                FROM ingest_checkpoint WHERE file_path = ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, filePath);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new Checkpoint(rs.getString("file_path"), rs.getLong("file_size"), rs.getLong("file_mtime"),
+                        rs.getInt("catalog_id"), rs.getInt("plant_ordinal"), rs.getBoolean("completed"));
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении контрольной точки {}: {}", filePath, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при чтении контрольной точки", e);
+        }
+    }
+
+    /**
+     * Сохраняет контрольную точку файла, заменяя прежнюю.
+     *
+     * @param conn       соединение, в транзакции которого записаны растения
+     * @param checkpoint контрольная точка
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void save(final Connection conn, final Checkpoint checkpoint) {
+        final String sql = """
+                INSERT INTO ingest_checkpoint (file_path, file_size, file_mtime, catalog_id, plant_ordinal, completed)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (file_path) DO UPDATE SET
+                    file_size = EXCLUDED.file_size,
+                    file_mtime = EXCLUDED.file_mtime,
+                    catalog_id = EXCLUDED.catalog_id,
+                    plant_ordinal = EXCLUDED.plant_ordinal,
+                    completed = EXCLUDED.completed,
+                    updated_at = now()
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, checkpoint.filePath());
+            stmt.setLong(2, checkpoint.fileSize());
+            stmt.setLong(3, checkpoint.fileMtime());
+            stmt.setInt(4, checkpoint.catalogId());
+            stmt.setInt(5, checkpoint.plantOrdinal());
+            stmt.setBoolean(6, checkpoint.completed());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Ошибка при сохранении контрольной точки {}: {}", checkpoint.filePath(), e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сохранении контрольной точки", e);
+        }
+    }
+
+    /**
+     * Удаляет контрольную точку файла.
+     *
+     * @param conn     соединение
+     * @param filePath абсолютный путь к файлу
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void delete(final Connection conn, final String filePath) {
+        final String sql = "DELETE FROM ingest_checkpoint WHERE file_path = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, filePath);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Ошибка при удалении контрольной точки {}: {}", filePath, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при удалении контрольной точки", e);
+        }
+    }
+}
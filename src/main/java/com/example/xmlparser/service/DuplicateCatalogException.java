@@ -0,0 +1,17 @@
+package com.example.xmlparser.service;
+
+/**
+ * Исключение, выбрасываемое при попытке вставить каталог с UUID,
+ * который уже есть в таблице d_cat_catalog.
+ */
+public class DuplicateCatalogException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param uuid UUID уже загруженного каталога
+     */
+    public DuplicateCatalogException(String uuid) {
+        super("Каталог с UUID " + uuid + " уже загружен");
+    }
+}
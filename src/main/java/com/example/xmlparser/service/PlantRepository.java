@@ -1,13 +1,19 @@
 package com.example.xmlparser.service;
 
+import com.example.xmlparser.jfr.DatabaseWriteEvent;
 import com.example.xmlparser.model.Plant;
 import com.example.xmlparser.db.DatabaseManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Репозиторий для работы с таблицей f_cat_plants.
@@ -17,6 +23,11 @@ public final class PlantRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(PlantRepository.class);
 
+    /**
+     * Количество строк в одном пакете JDBC при пакетной вставке по умолчанию.
+     */
+    public static final int BATCH_SIZE = 1000;
+
     private PlantRepository() {
         // Закрытый конструктор для утилитного класса
     }
@@ -35,6 +46,9 @@ public final class PlantRepository {
 
         logger.debug("Попытка сохранить растение: {}", plant.getBotanical());
 
+        DatabaseWriteEvent event = new DatabaseWriteEvent();
+        event.begin();
+
         try (Connection conn = DatabaseManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, plant.getCommon());
@@ -51,6 +65,248 @@ public final class PlantRepository {
         } catch (SQLException e) {
             logger.error("Ошибка при сохранении растения: {}", e.getMessage(), e);
             throw new RuntimeException("Ошибка при сохранении растения", e);
+        } finally {
+            event.finish("PlantRepository.save", String.valueOf(plant.getCatalogId()), 1);
+        }
+    }
+
+    /**
+     * Сохраняет растения в таблицу f_cat_plants пакетами JDBC в рамках переданного соединения.
+     *
+     * @param conn   соединение, в транзакции которого выполняется запись
+     * @param plants растения с проставленным catalogId
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void saveAll(final Connection conn, final List<Plant> plants) {
+        saveAll(conn, plants, BATCH_SIZE);
+    }
+
+    /**
+     * Сохраняет растения в таблицу f_cat_plants пакетами JDBC заданного размера.
+     *
+     * @param conn      соединение, в транзакции которого выполняется запись
+     * @param plants    растения с проставленным catalogId
+     * @param batchSize количество строк в одном пакете JDBC
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void saveAll(final Connection conn, final List<Plant> plants, final int batchSize) {
+        final String sql = """
+                INSERT INTO f_cat_plants (common, botanical, zone, light, price, availability, catalog_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """;
+
+        if (plants.isEmpty()) {
+            return;
+        }
+
+        DatabaseWriteEvent event = new DatabaseWriteEvent();
+        event.begin();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int pending = 0;
+            for (Plant plant : plants) {
+                stmt.setString(1, plant.getCommon());
+                stmt.setString(2, plant.getBotanical());
+                stmt.setInt(3, plant.getZoneAsInt());
+                stmt.setString(4, plant.getLight());
+                stmt.setBigDecimal(5, plant.getPrice());
+                stmt.setInt(6, plant.getAvailability());
+                stmt.setInt(7, plant.getCatalogId());
+                stmt.addBatch();
+
+                if (++pending == batchSize) {
+                    stmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                stmt.executeBatch();
+            }
+            logger.debug("Сохранено растений пакетом: {}", plants.size());
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при пакетном сохранении растений: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сохранении растений", e);
+        } finally {
+            event.finish("PlantRepository.saveAll", String.valueOf(plants.get(0).getCatalogId()), plants.size());
+        }
+    }
+
+    /**
+     * Синхронизирует растения каталога с таблицей f_cat_plants одним set-based запросом.
+     * <p>
+     * Строки сопоставляются по паре (common, botanical) и порядковому номеру внутри неё,
+     * поэтому повторы одного растения учитываются как отдельные строки. В базу пишутся только
+     * новые строки, изменённые (зона, освещение, цена, количество) и исчезнувшие из каталога.
+     *
+     * @param conn      соединение, в транзакции которого выполняется запись
+     * @param catalogId идентификатор каталога
+     * @param plants    валидные растения из актуальной версии каталога
+     * @return количество вставленных, обновлённых и удалённых строк
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static PlantSyncResult sync(final Connection conn, final int catalogId, final List<Plant> plants) {
+        final String sql = """
+                WITH target AS (
+                    SELECT ?::int AS catalog_id
+                ),
+                incoming AS (
+                    SELECT t.common, t.botanical, t.zone, t.light, t.price, t.availability,
+                           row_number() OVER (PARTITION BY t.common, t.botanical
+                                              ORDER BY t.zone, t.light, t.price, t.availability) AS rn
+                    FROM unnest(?::varchar[], ?::varchar[], ?::int[], ?::varchar[], ?::numeric[], ?::int[])
+                         AS t(common, botanical, zone, light, price, availability)
+                ),
+                stored AS (
+                    SELECT p.ctid AS row_id, p.common, p.botanical, p.zone, p.light, p.price, p.availability,
+                           row_number() OVER (PARTITION BY p.common, p.botanical
+                                              ORDER BY p.zone, p.light, p.price, p.availability) AS rn
+                    FROM f_cat_plants p
+                    WHERE p.catalog_id = (SELECT catalog_id FROM target)
+                ),
+                matched AS (
+                    SELECT s.row_id, i.zone, i.light, i.price, i.availability,
+                           (s.zone, s.light, s.price, s.availability)
+                               IS DISTINCT FROM (i.zone, i.light, i.price, i.availability) AS changed
+                    FROM stored s
+                    JOIN incoming i ON i.common IS NOT DISTINCT FROM s.common
+                                   AND i.botanical IS NOT DISTINCT FROM s.botanical
+                                   AND i.rn = s.rn
+                ),
+                updated AS (
+                    UPDATE f_cat_plants p
+                    SET zone = m.zone, light = m.light, price = m.price, availability = m.availability
+                    FROM matched m
+                    WHERE p.catalog_id = (SELECT catalog_id FROM target)
+                      AND p.ctid = m.row_id
+                      AND m.changed
+                    RETURNING 1
+                ),
+                deleted AS (
+                    DELETE FROM f_cat_plants p
+                    USING stored s
+                    WHERE p.catalog_id = (SELECT catalog_id FROM target)
+                      AND p.ctid = s.row_id
+                      AND NOT EXISTS (SELECT 1 FROM matched m WHERE m.row_id = s.row_id)
+                    RETURNING 1
+                ),
+                inserted AS (
+                    INSERT INTO f_cat_plants (common, botanical, zone, light, price, availability, catalog_id)
+                    SELECT i.common, i.botanical, i.zone, i.light, i.price, i.availability, t.catalog_id
+                    FROM incoming i
+                    CROSS JOIN target t
+                    WHERE NOT EXISTS (SELECT 1 FROM stored s
+                                      WHERE s.common IS NOT DISTINCT FROM i.common
+                                        AND s.botanical IS NOT DISTINCT FROM i.botanical
+                                        AND s.rn = i.rn)
+                    RETURNING 1
+                )
+                SELECT (SELECT count(*) FROM inserted) AS inserted,
+                       (SELECT count(*) FROM updated) AS updated,
+                       (SELECT count(*) FROM deleted) AS deleted
+                """;
+
+        final int size = plants.size();
+        final String[] commons = new String[size];
+        final String[] botanicals = new String[size];
+        final Integer[] zones = new Integer[size];
+        final String[] lights = new String[size];
+        final BigDecimal[] prices = new BigDecimal[size];
+        final Integer[] availabilities = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            Plant plant = plants.get(i);
+            commons[i] = plant.getCommon();
+            botanicals[i] = plant.getBotanical();
+            zones[i] = plant.getZoneAsInt();
+            lights[i] = plant.getLight();
+            prices[i] = plant.getPrice();
+            availabilities[i] = plant.getAvailability();
+        }
+
+        logger.debug("Синхронизация {} растений каталога ID = {}", size, catalogId);
+
+        DatabaseWriteEvent event = new DatabaseWriteEvent();
+        event.begin();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Array commonArray = conn.createArrayOf("varchar", commons);
+            Array botanicalArray = conn.createArrayOf("varchar", botanicals);
+            Array zoneArray = conn.createArrayOf("int4", zones);
+            Array lightArray = conn.createArrayOf("varchar", lights);
+            Array priceArray = conn.createArrayOf("numeric", prices);
+            Array availabilityArray = conn.createArrayOf("int4", availabilities);
+
+            stmt.setInt(1, catalogId);
+            stmt.setArray(2, commonArray);
+            stmt.setArray(3, botanicalArray);
+            stmt.setArray(4, zoneArray);
+            stmt.setArray(5, lightArray);
+            stmt.setArray(6, priceArray);
+            stmt.setArray(7, availabilityArray);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Синхронизация растений не вернула результат");
+                }
+                PlantSyncResult result = new PlantSyncResult(
+                        rs.getInt("inserted"), rs.getInt("updated"), rs.getInt("deleted"));
+                logger.info("Каталог ID = {}: добавлено {}, изменено {}, удалено растений {}",
+                        catalogId, result.inserted(), result.updated(), result.deleted());
+                return result;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при синхронизации растений каталога {}: {}", catalogId, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при синхронизации растений", e);
+        } finally {
+            event.finish("PlantRepository.sync", String.valueOf(catalogId), size);
+        }
+    }
+
+    /**
+     * Потоково читает растения каталога из f_cat_plants через серверный курсор,
+     * удерживая в памяти не больше {@code fetchSize} строк.
+     *
+     * @param conn      соединение с отключённым автокоммитом
+     * @param catalogId идентификатор каталога
+     * @param fetchSize количество строк, получаемых из базы за одно обращение
+     * @param callback  обработчик каждого растения
+     * @return количество прочитанных растений
+     * @throws IOException      если обработчик не смог обработать растение
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static int forEachByCatalog(final Connection conn, final int catalogId, final int fetchSize,
+                                       final RowCallback<Plant> callback) throws IOException {
+        final String sql = """
+                SELECT common, botanical, zone, light, price, availability
+                FROM f_cat_plants
+                WHERE catalog_id = ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(fetchSize);
+            stmt.setInt(1, catalogId);
+
+            int count = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Plant plant = new Plant();
+                    plant.setCommon(rs.getString("common"));
+                    plant.setBotanical(rs.getString("botanical"));
+                    plant.setZoneText(rs.getString("zone"));
+                    plant.setLight(rs.getString("light"));
+                    plant.setPrice(rs.getBigDecimal("price"));
+                    plant.setAvailability(rs.getInt("availability"));
+                    plant.setCatalogId(catalogId);
+                    callback.accept(plant);
+                    count++;
+                }
+            }
+            return count;
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении растений каталога {}: {}", catalogId, e.getMessage(), e);
+            throw new RuntimeException("Ошибка при чтении растений", e);
         }
     }
 }
@@ -0,0 +1,18 @@
+package com.example.xmlparser.service;
+
+/**
+ * Результат синхронизации растений каталога с таблицей f_cat_plants.
+ *
+ * @param inserted количество добавленных строк
+ * @param updated  количество изменённых строк
+ * @param deleted  количество удалённых строк
+ */
+public record PlantSyncResult(int inserted, int updated, int deleted) {
+
+    /**
+     * @return true, если синхронизация не изменила ни одной строки
+     */
+    public boolean isUnchanged() {
+        return inserted == 0 && updated == 0 && deleted == 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.xmlparser.service;
+
+import com.example.xmlparser.jfr.DatabaseWriteEvent;
+import com.example.xmlparser.reject.Reject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с таблицей r_cat_reject при загрузке через приёмник.
+ */
+public final class RejectRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejectRepository.class);
+
+    private RejectRepository() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Сохраняет отклонённые записи одним пакетом JDBC.
+     *
+     * @param conn    соединение
+     * @param runId   идентификатор запуска в ingest_run или 0, если история не записывается
+     * @param rejects отклонённые записи
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void saveAll(final Connection conn, final long runId, final List<Reject> rejects) {
+        final String sql = """
+                INSERT INTO r_cat_reject (run_id, file_path, catalog_uuid, plant_ordinal, error_code, error_message,
+                                          common, botanical, zone, light, price, availability)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+
+        if (rejects.isEmpty()) {
+            return;
+        }
+
+        DatabaseWriteEvent event = new DatabaseWriteEvent();
+        event.begin();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Reject reject : rejects) {
+                if (runId > 0) {
+                    stmt.setLong(1, runId);
+                } else {
+                    stmt.setNull(1, Types.BIGINT);
+                }
+                stmt.setString(2, reject.file());
+                stmt.setString(3, reject.catalogUuid());
+                if (reject.plantOrdinal() != null) {
+                    stmt.setInt(4, reject.plantOrdinal());
+                } else {
+                    stmt.setNull(4, Types.INTEGER);
+                }
+                stmt.setString(5, reject.rule().name());
+                stmt.setString(6, reject.message());
+                stmt.setString(7, reject.common());
+                stmt.setString(8, reject.botanical());
+                stmt.setString(9, reject.zone());
+                stmt.setString(10, reject.light());
+                stmt.setString(11, reject.price());
+                stmt.setString(12, reject.availability());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            logger.debug("В r_cat_reject записано ошибок: {}", rejects.size());
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при сохранении отклонённых записей: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сохранении отклонённых записей", e);
+        } finally {
+            event.finish("RejectRepository.saveAll", rejects.get(0).catalogUuid(), rejects.size());
+        }
+    }
+}
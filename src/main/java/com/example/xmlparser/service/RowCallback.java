@@ -0,0 +1,20 @@
+package com.example.xmlparser.service;
+
+import java.io.IOException;
+
+/**
+ * Обработчик строк, читаемых репозиторием потоково (через серверный курсор).
+ *
+ * @param <T> тип строки
+ */
+@FunctionalInterface
+public interface RowCallback<T> {
+
+    /**
+     * Обрабатывает очередную строку результата.
+     *
+     * @param row строка результата
+     * @throws IOException если обработчик не смог записать строку
+     */
+    void accept(T row) throws IOException;
+}
@@ -0,0 +1,397 @@
+package com.example.xmlparser.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Репозиторий истории запусков загрузки: таблицы ingest_run и ingest_file, представление v_ingest_run.
+ */
+public final class RunHistoryRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunHistoryRepository.class);
+
+    /**
+     * Итог обработки файла.
+     */
+    public enum FileStatus {
+        /**
+         * Каталог сохранён.
+         */
+        SAVED,
+        /**
+         * Каталог не прошёл валидацию.
+         */
+        INVALID,
+        /**
+         * Каталог с таким UUID уже загружен.
+         */
+        DUPLICATE,
+        /**
+         * Файл не удалось разобрать.
+         */
+        PARSE_FAILED,
+        /**
+         * Файл уже был загружен полностью (контрольная точка).
+         */
+        SKIPPED,
+        /**
+         * Каталог загружен через staging-таблицы; итог по растениям известен только для запуска.
+         */
+        STAGED,
+        /**
+         * Запись прервана ошибкой.
+         */
+        FAILED
+    }
+
+    /**
+     * Статистика обработки одного файла. Неизвестные значения — null.
+     *
+     * @param filePath       путь к файлу
+     * @param fileBytes      размер файла
+     * @param catalogUuid    UUID каталога
+     * @param status         итог обработки
+     * @param plantsParsed   количество разобранных растений
+     * @param plantsSaved    количество сохранённых растений
+     * @param plantsRejected количество отклонённых растений
+     * @param parseNanos     время разбора
+     * @param validateNanos  время валидации
+     * @param writeNanos     время записи
+     */
+    public record FileRecord(String filePath, Long fileBytes, String catalogUuid, FileStatus status,
+                             Integer plantsParsed, Integer plantsSaved, Integer plantsRejected,
+                             Long parseNanos, Long validateNanos, Long writeNanos) {
+    }
+
+    /**
+     * Итоги запуска.
+     *
+     * @param catalogsSaved    количество сохранённых каталогов
+     * @param catalogsRejected количество отклонённых каталогов
+     * @param plantsSaved      количество сохранённых растений
+     * @param plantsRejected   количество отклонённых растений
+     */
+    public record Totals(int catalogsSaved, int catalogsRejected, long plantsSaved, long plantsRejected) {
+    }
+
+    /**
+     * Строка отчёта о запуске.
+     */
+    public record RunSummary(long id, LocalDateTime startedAt, String status, String writeMode, long files,
+                             long bytes, long plantsSaved, double seconds, double plantsPerSecond,
+                             double mbPerSecond) {
+    }
+
+    /**
+     * Строка отчёта о пропускной способности за день (только успешные запуски).
+     */
+    public record DailyThroughput(LocalDate day, long runs, long plantsSaved, double medianPlantsPerSecond,
+                                  double bestPlantsPerSecond, double parseMsPer1k, double validateMsPer1k,
+                                  double writeMsPer1k) {
+    }
+
+    private RunHistoryRepository() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Создаёт запись о начале запуска.
+     *
+     * @param conn        соединение в режиме автокоммита
+     * @param command     команда (load)
+     * @param writeMode   режим записи
+     * @param inputPath   путь или маска входных файлов
+     * @param options     опции запуска
+     * @param host        имя хоста
+     * @param cpuCount    количество доступных процессоров
+     * @param maxHeapMb   максимальный размер кучи в МБ
+     * @param javaVersion версия Java
+     * @return идентификатор запуска
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static long startRun(final Connection conn, final String command, final String writeMode,
+                                final String inputPath, final String options, final String host,
+                                final int cpuCount, final long maxHeapMb, final String javaVersion) {
+        final String sql = """
+                INSERT INTO ingest_run (command, write_mode, input_path, options, host, cpu_count, max_heap_mb, java_version)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                RETURNING id
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, command);
+            stmt.setString(2, writeMode);
+            stmt.setString(3, truncate(inputPath));
+            stmt.setString(4, truncate(options));
+            stmt.setString(5, host);
+            stmt.setInt(6, cpuCount);
+            stmt.setLong(7, maxHeapMb);
+            stmt.setString(8, javaVersion);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getLong("id");
+            }
+        } catch (SQLException e) {
+            logger.error("Ошибка при сохранении запуска: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сохранении запуска", e);
+        }
+    }
+
+    /**
+     * Сохраняет статистику обработанного файла.
+     *
+     * @param conn   соединение в режиме автокоммита
+     * @param runId  идентификатор запуска
+     * @param record статистика файла
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void saveFile(final Connection conn, final long runId, final FileRecord record) {
+        final String sql = """
+                INSERT INTO ingest_file (run_id, file_path, file_bytes, catalog_uuid, status, plants_parsed,
+                                         plants_saved, plants_rejected, parse_ms, validate_ms, write_ms)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, runId);
+            stmt.setString(2, truncate(record.filePath()));
+            setLong(stmt, 3, record.fileBytes());
+            stmt.setString(4, record.catalogUuid());
+            stmt.setString(5, record.status().name());
+            setInt(stmt, 6, record.plantsParsed());
+            setInt(stmt, 7, record.plantsSaved());
+            setInt(stmt, 8, record.plantsRejected());
+            setMillis(stmt, 9, record.parseNanos());
+            setMillis(stmt, 10, record.validateNanos());
+            setMillis(stmt, 11, record.writeNanos());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Ошибка при сохранении статистики файла: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сохранении статистики файла", e);
+        }
+    }
+
+    /**
+     * Отмечает завершение запуска.
+     *
+     * @param conn   соединение в режиме автокоммита
+     * @param runId  идентификатор запуска
+     * @param status SUCCEEDED или FAILED
+     * @param error  сообщение об ошибке или null
+     * @param totals итоги запуска или null — тогда итоги считаются по сохранённым файлам
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void finishRun(final Connection conn, final long runId, final String status, final String error,
+                                 final Totals totals) {
+        final String sql = """
+                UPDATE ingest_run r
+                SET finished_at = now(),
+                    status = ?,
+                    error = ?,
+                    catalogs_saved = coalesce(?, f.catalogs_saved),
+                    catalogs_rejected = coalesce(?, f.catalogs_rejected),
+                    plants_saved = coalesce(?, f.plants_saved),
+                    plants_rejected = coalesce(?, f.plants_rejected)
+                FROM (
+                    SELECT count(*) FILTER (WHERE status = 'SAVED') AS catalogs_saved,
+                           count(*) FILTER (WHERE status IN ('INVALID', 'DUPLICATE')) AS catalogs_rejected,
+                           coalesce(sum(plants_saved), 0) AS plants_saved,
+                           coalesce(sum(plants_rejected), 0) AS plants_rejected
+                    FROM ingest_file
+                    WHERE run_id = ?
+                ) f
+                WHERE r.id = ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, status);
+            stmt.setString(2, truncate(error));
+            setInt(stmt, 3, totals == null ? null : totals.catalogsSaved());
+            setInt(stmt, 4, totals == null ? null : totals.catalogsRejected());
+            setLong(stmt, 5, totals == null ? null : totals.plantsSaved());
+            setLong(stmt, 6, totals == null ? null : totals.plantsRejected());
+            stmt.setLong(7, runId);
+            stmt.setLong(8, runId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Ошибка при завершении запуска: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при завершении запуска", e);
+        }
+    }
+
+    /**
+     * Отмечает каталог запуска, сохранённый как SAVED, незафиксированным: его запись откатилась в фоне
+     * уже после того, как файл был учтён.
+     *
+     * @param conn        соединение в режиме автокоммита
+     * @param runId       идентификатор запуска
+     * @param catalogUuid UUID каталога
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void markFileFailed(final Connection conn, final long runId, final String catalogUuid) {
+        final String sql = """
+                UPDATE ingest_file SET status = ?, plants_saved = 0
+                WHERE run_id = ? AND catalog_uuid = ? AND status = ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, FileStatus.FAILED.name());
+            stmt.setLong(2, runId);
+            stmt.setString(3, catalogUuid);
+            stmt.setString(4, FileStatus.SAVED.name());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Ошибка при обновлении статуса файла: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при обновлении статуса файла", e);
+        }
+    }
+
+    /**
+     * Сохраняет текущие настройки адаптивной записи запуска.
+     *
+     * @param conn        соединение в режиме автокоммита
+     * @param runId       идентификатор запуска
+     * @param batchSize   размер пакета JDBC
+     * @param writers     число параллельных писателей
+     * @param adjustments количество изменений настроек с начала запуска
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static void saveWriteSettings(final Connection conn, final long runId, final int batchSize,
+                                         final int writers, final int adjustments) {
+        final String sql = """
+                UPDATE ingest_run SET batch_size = ?, writer_count = ?, tuning_adjustments = ?
+                WHERE id = ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, batchSize);
+            stmt.setInt(2, writers);
+            stmt.setInt(3, adjustments);
+            stmt.setLong(4, runId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Ошибка при сохранении настроек записи: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при сохранении настроек записи", e);
+        }
+    }
+
+    /**
+     * Возвращает последние завершённые запуски загрузки.
+     *
+     * @param conn  соединение
+     * @param limit максимальное количество запусков
+     * @return запуски от новых к старым
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static List<RunSummary> recentRuns(final Connection conn, final int limit) {
+        final String sql = """
+                SELECT id, started_at, status, write_mode, coalesce(files, 0) AS files, coalesce(bytes, 0) AS bytes,
+                       coalesce(plants_saved, 0) AS plants_saved, coalesce(seconds, 0) AS seconds,
+                       coalesce(plants_per_second, 0) AS plants_per_second, coalesce(mb_per_second, 0) AS mb_per_second
+                FROM v_ingest_run
+                WHERE finished_at IS NOT NULL
+                ORDER BY id DESC
+                LIMIT ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            List<RunSummary> runs = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    runs.add(new RunSummary(rs.getLong("id"), rs.getTimestamp("started_at").toLocalDateTime(),
+                            rs.getString("status"), rs.getString("write_mode"), rs.getLong("files"),
+                            rs.getLong("bytes"), rs.getLong("plants_saved"), rs.getDouble("seconds"),
+                            rs.getDouble("plants_per_second"), rs.getDouble("mb_per_second")));
+                }
+            }
+            return runs;
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении истории запусков: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при чтении истории запусков", e);
+        }
+    }
+
+    /**
+     * Возвращает пропускную способность успешных запусков по дням.
+     *
+     * @param conn соединение
+     * @param days за сколько последних дней
+     * @return дни по возрастанию
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static List<DailyThroughput> dailyThroughput(final Connection conn, final int days) {
+        final String sql = """
+                SELECT started_at::date AS day,
+                       count(*) AS runs,
+                       sum(plants_saved) AS plants_saved,
+                       percentile_cont(0.5) WITHIN GROUP (ORDER BY plants_per_second) AS median_pps,
+                       max(plants_per_second) AS best_pps,
+                       coalesce(sum(parse_ms) * 1000 / nullif(sum(plants_saved), 0), 0) AS parse_ms_per_1k,
+                       coalesce(sum(validate_ms) * 1000 / nullif(sum(plants_saved), 0), 0) AS validate_ms_per_1k,
+                       coalesce(sum(write_ms) * 1000 / nullif(sum(plants_saved), 0), 0) AS write_ms_per_1k
+                FROM v_ingest_run
+                WHERE status = 'SUCCEEDED'
+                  AND plants_saved > 0
+                  AND started_at >= now() - make_interval(days => ?)
+                GROUP BY started_at::date
+                ORDER BY day
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, days);
+            List<DailyThroughput> result = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new DailyThroughput(rs.getDate("day").toLocalDate(), rs.getLong("runs"),
+                            rs.getLong("plants_saved"), rs.getDouble("median_pps"), rs.getDouble("best_pps"),
+                            rs.getDouble("parse_ms_per_1k"), rs.getDouble("validate_ms_per_1k"),
+                            rs.getDouble("write_ms_per_1k")));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            logger.error("Ошибка при чтении истории запусков: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при чтении истории запусков", e);
+        }
+    }
+
+    private static String truncate(final String value) {
+        return value == null || value.length() <= 4000 ? value : value.substring(0, 4000);
+    }
+
+    private static void setInt(final PreparedStatement stmt, final int index, final Integer value) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, Types.INTEGER);
+        } else {
+            stmt.setInt(index, value);
+        }
+    }
+
+    private static void setLong(final PreparedStatement stmt, final int index, final Long value) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, Types.BIGINT);
+        } else {
+            stmt.setLong(index, value);
+        }
+    }
+
+    private static void setMillis(final PreparedStatement stmt, final int index, final Long nanos) throws SQLException {
+        if (nanos == null) {
+            stmt.setNull(index, Types.NUMERIC);
+        } else {
+            stmt.setBigDecimal(index, BigDecimal.valueOf(nanos, 6));
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.xmlparser.service;
+
+import com.example.xmlparser.jfr.DatabaseWriteEvent;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.validator.CatalogValidator;
+import com.example.xmlparser.validator.PlantValidator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Репозиторий загрузки через промежуточные (staging) таблицы.
+ * <p>
+ * Разобранные каталоги и растения целиком заливаются командой COPY в UNLOGGED-таблицы
+ * stg_cat_catalog и stg_cat_plants, после чего правила {@link CatalogValidator} и {@link PlantValidator}
+ * применяются set-based SQL-запросами. Валидные строки переносятся в d_cat_catalog и f_cat_plants
+ * одним INSERT ... SELECT, отклонённые записываются в r_cat_reject с кодами ошибок.
+ */
+public final class StagingRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagingRepository.class);
+
+    /**
+     * Аналог шаблона названий из валидаторов в синтаксисе регулярных выражений PostgreSQL:
+     * буквы, пробельные символы, тире, запятые и кавычки. Класс [[:alpha:]] учитывает
+     * Unicode-буквы при UTF-8 локали базы данных.
+     */
+    private static final String NAME_PATTERN = "^[[:alpha:][:space:],\"“”«»'-]+$";
+
+    /**
+     * Размер порции данных, после накопления которой она отправляется в поток COPY.
+     */
+    private static final int COPY_CHUNK_CHARS = 1 << 20;
+
+    private StagingRepository() {
+        // Закрытый конструктор — утилитный класс
+    }
+
+    /**
+     * Загружает каталоги через staging-таблицы в одной транзакции.
+     *
+     * @param conn     соединение с отключённым автокоммитом; транзакцию фиксирует вызывающий код
+     * @param catalogs разобранные (непровалидированные) каталоги
+     * @return количество сохранённых и отклонённых каталогов и растений
+     * @throws RuntimeException если произошла ошибка при выполнении SQL-запроса
+     */
+    public static StagingResult load(final Connection conn, final List<Catalog> catalogs) {
+        DatabaseWriteEvent event = new DatabaseWriteEvent();
+        event.begin();
+
+        try {
+            final long loadId = nextLoadId(conn);
+            logger.info("Загрузка {} каталогов в staging-таблицы, load_id = {}", catalogs.size(), loadId);
+
+            copyCatalogs(conn, loadId, catalogs);
+            copyPlants(conn, loadId, catalogs);
+            validateCatalogs(conn, loadId);
+            validatePlants(conn, loadId);
+            insertRejects(conn, loadId);
+            StagingResult result = moveValid(conn, loadId);
+            AggregateRepository.appendStagingLoad(conn, loadId);
+            cleanup(conn, loadId);
+
+            logger.info("Staging load_id = {}: сохранено каталогов {}, растений {}; отклонено каталогов {}, растений {}",
+                    loadId, result.catalogsSaved(), result.plantsSaved(),
+                    result.catalogsRejected(), result.plantsRejected());
+            return result;
+
+        } catch (SQLException e) {
+            logger.error("Ошибка при загрузке через staging-таблицы: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка при загрузке через staging-таблицы", e);
+        } finally {
+            event.finish("StagingRepository.load", null, catalogs.size());
+        }
+    }
+
+    private static long nextLoadId(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT nextval('stg_load_id_seq')");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void copyCatalogs(Connection conn, long loadId, List<Catalog> catalogs) throws SQLException {
+        final String sql = """
+                COPY stg_cat_catalog (load_id, catalog_seq, uuid, company, delivery_date)
+                FROM STDIN WITH (FORMAT csv)
+                """;
+
+        CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try {
+            StringBuilder buffer = new StringBuilder();
+            for (int seq = 0; seq < catalogs.size(); seq++) {
+                Catalog catalog = catalogs.get(seq);
+                buffer.append(loadId).append(',').append(seq).append(',');
+                appendCsv(buffer, catalog.getUuid()).append(',');
+                appendCsv(buffer, catalog.getCompany()).append(',');
+                appendCsv(buffer, catalog.getDeliveryDate() == null ? null : catalog.getDeliveryDate().toString());
+                buffer.append('\n');
+                flushIfFull(copyIn, buffer);
+            }
+            flush(copyIn, buffer);
+            logger.debug("В stg_cat_catalog скопировано строк: {}", copyIn.endCopy());
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void copyPlants(Connection conn, long loadId, List<Catalog> catalogs) throws SQLException {
+        final String sql = """
+                COPY stg_cat_plants (load_id, catalog_seq, plant_seq, common, botanical, zone_text, light, price, availability)
+                FROM STDIN WITH (FORMAT csv)
+                """;
+
+        CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try {
+            StringBuilder buffer = new StringBuilder();
+            for (int seq = 0; seq < catalogs.size(); seq++) {
+                List<Plant> plants = catalogs.get(seq).getPlants();
+                if (plants == null) {
+                    continue;
+                }
+                for (int i = 0; i < plants.size(); i++) {
+                    Plant plant = plants.get(i);
+                    buffer.append(loadId).append(',').append(seq).append(',').append(i + 1).append(',');
+                    appendCsv(buffer, plant.getCommon()).append(',');
+                    appendCsv(buffer, plant.getBotanical()).append(',');
+                    appendCsv(buffer, plant.getZoneText()).append(',');
+                    appendCsv(buffer, plant.getLight()).append(',');
+                    if (plant.getPrice() != null) {
+                        buffer.append(plant.getPrice().toPlainString());
+                    }
+                    buffer.append(',').append(plant.getAvailability()).append('\n');
+                    flushIfFull(copyIn, buffer);
+                }
+            }
+            flush(copyIn, buffer);
+            logger.debug("В stg_cat_plants скопировано строк: {}", copyIn.endCopy());
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Проставляет коды ошибок каталогам по правилам {@link CatalogValidator},
+     * а также отклоняет каталоги, чей UUID уже загружен или повторяется в этой загрузке.
+     */
+    private static void validateCatalogs(Connection conn, long loadId) throws SQLException {
+        final String sql = """
+                WITH rules AS (
+                    SELECT ?::text AS pattern, ?::int AS min_len, ?::int AS max_len
+                )
+                UPDATE stg_cat_catalog c
+                SET error_codes = array_remove(ARRAY[
+                        CASE WHEN c.uuid IS NULL OR c.uuid ~ '^\\s*$' THEN 'CATALOG_UUID_EMPTY' END,
+                        CASE WHEN c.delivery_date IS NULL THEN 'CATALOG_DATE_EMPTY' END,
+                        CASE WHEN c.company IS NULL OR c.company ~ '^\\s*$' THEN 'CATALOG_COMPANY_EMPTY' END,
+                        CASE WHEN c.company !~ '^\\s*$'
+                                  AND char_length(c.company) NOT BETWEEN r.min_len AND r.max_len
+                             THEN 'CATALOG_COMPANY_LENGTH' END,
+                        CASE WHEN c.company !~ '^\\s*$' AND c.company !~ r.pattern THEN 'CATALOG_COMPANY_CHARS' END,
+                        CASE WHEN NOT EXISTS (SELECT 1 FROM stg_cat_plants p
+                                              WHERE p.load_id = c.load_id AND p.catalog_seq = c.catalog_seq)
+                             THEN 'CATALOG_NO_PLANTS' END,
+                        CASE WHEN EXISTS (SELECT 1 FROM d_cat_catalog d WHERE d.uuid = c.uuid)
+                                  OR EXISTS (SELECT 1 FROM stg_cat_catalog o
+                                             WHERE o.load_id = c.load_id AND o.uuid = c.uuid
+                                               AND o.catalog_seq < c.catalog_seq)
+                             THEN 'CATALOG_DUPLICATE' END
+                    ]::varchar[], NULL)
+                FROM rules r
+                WHERE c.load_id = ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, NAME_PATTERN);
+            stmt.setInt(2, CatalogValidator.MIN_COMPANY_LENGTH);
+            stmt.setInt(3, CatalogValidator.MAX_COMPANY_LENGTH);
+            stmt.setLong(4, loadId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Проставляет коды ошибок растениям валидных каталогов по правилам {@link PlantValidator}.
+     * Проверка catalogId не нужна: идентификатор назначается при переносе в f_cat_plants.
+     */
+    private static void validatePlants(Connection conn, long loadId) throws SQLException {
+        final String sql = """
+                WITH rules AS (
+                    SELECT ?::text AS pattern, ?::int AS min_len, ?::int AS max_len
+                )
+                UPDATE stg_cat_plants p
+                SET error_codes = array_remove(ARRAY[
+                        CASE WHEN p.common ~ '^\\s*$' THEN 'PLANT_COMMON_BLANK' END,
+                        CASE WHEN p.common !~ '^\\s*$'
+                                  AND char_length(p.common) NOT BETWEEN r.min_len AND r.max_len
+                             THEN 'PLANT_COMMON_LENGTH' END,
+                        CASE WHEN p.common !~ '^\\s*$' AND p.common !~ r.pattern THEN 'PLANT_COMMON_CHARS' END,
+                        CASE WHEN p.botanical IS NULL OR p.botanical ~ '^\\s*$' THEN 'PLANT_BOTANICAL_EMPTY' END,
+                        CASE WHEN p.botanical !~ '^\\s*$'
+                                  AND char_length(p.botanical) NOT BETWEEN r.min_len AND r.max_len
+                             THEN 'PLANT_BOTANICAL_LENGTH' END,
+                        CASE WHEN p.botanical !~ '^\\s*$' AND p.botanical !~ r.pattern
+                             THEN 'PLANT_BOTANICAL_CHARS' END,
+                        CASE WHEN CASE WHEN p.zone_text ~ '^[+-]?[0-9]{1,10}$' THEN p.zone_text::bigint ELSE -1 END
+                                  NOT BETWEEN 1 AND 2147483647
+                             THEN 'PLANT_ZONE_INVALID' END,
+                        CASE WHEN p.light IS NULL OR p.light ~ '^\\s*$' THEN 'PLANT_LIGHT_EMPTY' END,
+                        CASE WHEN p.price IS NULL OR p.price <= 0 THEN 'PLANT_PRICE_INVALID' END,
+                        CASE WHEN p.availability <= 0 THEN 'PLANT_AVAILABILITY_INVALID' END
+                    ]::varchar[], NULL)
+                FROM rules r, stg_cat_catalog c
+                WHERE p.load_id = ?
+                  AND c.load_id = p.load_id
+                  AND c.catalog_seq = p.catalog_seq
+                  AND cardinality(c.error_codes) = 0
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, NAME_PATTERN);
+            stmt.setInt(2, PlantValidator.MIN_NAME_LENGTH);
+            stmt.setInt(3, PlantValidator.MAX_NAME_LENGTH);
+            stmt.setLong(4, loadId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Записывает по одной строке в r_cat_reject на каждую ошибку каталога или растения.
+     */
+    private static void insertRejects(Connection conn, long loadId) throws SQLException {
+        final String sql = """
+                INSERT INTO r_cat_reject (load_id, catalog_uuid, plant_ordinal, error_code,
+                                          common, botanical, zone, light, price, availability)
+                SELECT c.load_id, c.uuid, NULL, e.code, NULL, NULL, NULL, NULL, NULL, NULL
+                FROM stg_cat_catalog c
+                CROSS JOIN LATERAL unnest(c.error_codes) AS e(code)
+                WHERE c.load_id = ?
+                UNION ALL
+                SELECT p.load_id, c.uuid, p.plant_seq, e.code,
+                       p.common, p.botanical, p.zone_text, p.light, p.price::text, p.availability::text
+                FROM stg_cat_plants p
+                JOIN stg_cat_catalog c ON c.load_id = p.load_id AND c.catalog_seq = p.catalog_seq
+                CROSS JOIN LATERAL unnest(p.error_codes) AS e(code)
+                WHERE p.load_id = ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, loadId);
+            stmt.setLong(2, loadId);
+            logger.debug("В r_cat_reject записано ошибок: {}", stmt.executeUpdate());
+        }
+    }
+
+    /**
+     * Переносит валидные каталоги и их валидные растения в основные таблицы одним запросом.
+     */
+    private static StagingResult moveValid(Connection conn, long loadId) throws SQLException {
+        final String sql = """
+                WITH new_catalogs AS (
+                    INSERT INTO d_cat_catalog (uuid, company, delivery_date)
+                    SELECT c.uuid, c.company, c.delivery_date
+                    FROM stg_cat_catalog c
+                    WHERE c.load_id = ? AND cardinality(c.error_codes) = 0
+                    ORDER BY c.catalog_seq
+                    RETURNING id, uuid
+                ),
+                new_plants AS (
+                    INSERT INTO f_cat_plants (common, botanical, zone, light, price, availability, catalog_id)
+                    SELECT p.common, p.botanical, p.zone_text::int, p.light, p.price, p.availability, nc.id
+                    FROM stg_cat_plants p
+                    JOIN stg_cat_catalog c ON c.load_id = p.load_id AND c.catalog_seq = p.catalog_seq
+                    JOIN new_catalogs nc ON nc.uuid = c.uuid
+                    WHERE p.load_id = ? AND cardinality(p.error_codes) = 0
+                    ORDER BY p.catalog_seq, p.plant_seq
+                    RETURNING 1
+                )
+                SELECT (SELECT count(*) FROM new_catalogs) AS catalogs_saved,
+                       (SELECT count(*) FROM new_plants) AS plants_saved,
+                       (SELECT count(*) FROM stg_cat_catalog
+                        WHERE load_id = ? AND cardinality(error_codes) > 0) AS catalogs_rejected,
+                       (SELECT count(*) FROM stg_cat_plants
+                        WHERE load_id = ? AND cardinality(error_codes) > 0) AS plants_rejected
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, loadId);
+            stmt.setLong(2, loadId);
+            stmt.setLong(3, loadId);
+            stmt.setLong(4, loadId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return new StagingResult(rs.getInt("catalogs_saved"), rs.getInt("plants_saved"),
+                        rs.getInt("catalogs_rejected"), rs.getInt("plants_rejected"));
+            }
+        }
+    }
+
+    private static void cleanup(Connection conn, long loadId) throws SQLException {
+        try (PreparedStatement plants = conn.prepareStatement("DELETE FROM stg_cat_plants WHERE load_id = ?");
+             PreparedStatement catalogs = conn.prepareStatement("DELETE FROM stg_cat_catalog WHERE load_id = ?")) {
+            plants.setLong(1, loadId);
+            plants.executeUpdate();
+            catalogs.setLong(1, loadId);
+            catalogs.executeUpdate();
+        }
+    }
+
+    /**
+     * Добавляет значение в формате CSV: null записывается пустым полем без кавычек (NULL в COPY),
+     * строка — в кавычках с удвоением внутренних кавычек.
+     */
+    private static StringBuilder appendCsv(StringBuilder buffer, String value) {
+        if (value == null) {
+            return buffer;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                buffer.append('"');
+            }
+            buffer.append(ch);
+        }
+        return buffer.append('"');
+    }
+
+    private static void flushIfFull(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() >= COPY_CHUNK_CHARS) {
+            flush(copyIn, buffer);
+        }
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
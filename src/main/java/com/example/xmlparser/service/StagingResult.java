@@ -0,0 +1,12 @@
+package com.example.xmlparser.service;
+
+/**
+ * Итог загрузки через staging-таблицы.
+ *
+ * @param catalogsSaved    количество сохранённых каталогов
+ * @param plantsSaved      количество сохранённых растений
+ * @param catalogsRejected количество отклонённых каталогов
+ * @param plantsRejected   количество отклонённых растений валидных каталогов
+ */
+public record StagingResult(int catalogsSaved, int plantsSaved, int catalogsRejected, int plantsRejected) {
+}
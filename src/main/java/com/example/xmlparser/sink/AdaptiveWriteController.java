@@ -0,0 +1,227 @@
+package com.example.xmlparser.sink;
+
+import com.example.xmlparser.jfr.WriteTuningEvent;
+import com.example.xmlparser.service.PlantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Регулятор размера пакета JDBC и числа параллельных писателей по схеме AIMD
+ * (аддитивное увеличение, мультипликативное уменьшение).
+ * <p>
+ * Писатели сообщают о каждой фиксации каталога: сколько строк записано, сколько было обращений к базе
+ * (пакетов JDBC и фиксаций) и сколько времени они заняли. Решение принимается по окну из нескольких фиксаций:
+ * <ul>
+ *     <li>если среднее время обращения превысило целевое или была ошибка записи — размер пакета и число
+ *     писателей уменьшаются вдвое;</li>
+ *     <li>если после предыдущего увеличения пропускная способность (растений в секунду по всем писателям)
+ *     упала больше чем на {@value #THROUGHPUT_TOLERANCE_PERCENT}% — вдвое уменьшается только число писателей:
+ *     база насыщена, и новые соединения лишь конкурируют между собой;</li>
+ *     <li>иначе размер пакета увеличивается на 1/16 допустимого диапазона, а число писателей — на одного.</li>
+ * </ul>
+ * Значения всегда остаются в заданных границах. Текущие настройки читаются без блокировки.
+ */
+public final class AdaptiveWriteController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveWriteController.class);
+
+    /**
+     * Целевое время одного обращения к базе по умолчанию, мс.
+     */
+    public static final int DEFAULT_TARGET_LATENCY_MS = 200;
+
+    /**
+     * Допустимое падение пропускной способности после увеличения, в процентах.
+     */
+    public static final int THROUGHPUT_TOLERANCE_PERCENT = 10;
+
+    /**
+     * Минимальное количество фиксаций в окне.
+     */
+    private static final int MIN_WINDOW_COMMITS = 2;
+
+    /**
+     * Текущие настройки записи.
+     *
+     * @param batchSize   количество строк в одном пакете JDBC
+     * @param writers     количество писателей, которым разрешено работать одновременно
+     * @param adjustments количество изменений настроек с начала работы
+     */
+    public record Settings(int batchSize, int writers, int adjustments) {
+    }
+
+    private final int minBatch;
+    private final int maxBatch;
+    private final int minWriters;
+    private final int maxWriters;
+    private final long targetNanos;
+    private final int batchStep;
+    private final LongSupplier clock;
+    private volatile Consumer<Settings> listener = settings -> { };
+
+    private volatile Settings settings;
+
+    private long windowStarted;
+    private int windowCommits;
+    private long windowRows;
+    private long windowCalls;
+    private long windowNanos;
+    private boolean windowFailed;
+    private double lastThroughput;
+    private boolean lastIncreased;
+
+    /**
+     * Начинает с размера пакета {@link PlantRepository#BATCH_SIZE} (в пределах границ) и минимального числа писателей.
+     *
+     * @param minBatch        минимальный размер пакета JDBC
+     * @param maxBatch        максимальный размер пакета JDBC
+     * @param minWriters      минимальное число писателей
+     * @param maxWriters      максимальное число писателей
+     * @param targetLatencyMs целевое время одного обращения к базе, мс
+     */
+    public AdaptiveWriteController(int minBatch, int maxBatch, int minWriters, int maxWriters, long targetLatencyMs) {
+        this(minBatch, maxBatch, minWriters, maxWriters, targetLatencyMs, System::nanoTime);
+    }
+
+    AdaptiveWriteController(int minBatch, int maxBatch, int minWriters, int maxWriters, long targetLatencyMs,
+                            LongSupplier clock) {
+        if (minBatch < 1 || maxBatch < minBatch || minWriters < 1 || maxWriters < minWriters || targetLatencyMs < 1) {
+            throw new IllegalArgumentException("Некорректные границы адаптивной записи: пакет " + minBatch + ".." + maxBatch
+                    + ", писатели " + minWriters + ".." + maxWriters + ", целевое время " + targetLatencyMs + " мс");
+        }
+        this.minBatch = minBatch;
+        this.maxBatch = maxBatch;
+        this.minWriters = minWriters;
+        this.maxWriters = maxWriters;
+        this.targetNanos = targetLatencyMs * 1_000_000L;
+        this.batchStep = Math.max(1, (maxBatch - minBatch) / 16);
+        this.clock = clock;
+        this.settings = new Settings(Math.max(minBatch, Math.min(maxBatch, PlantRepository.BATCH_SIZE)), minWriters, 0);
+        this.windowStarted = clock.getAsLong();
+    }
+
+    /**
+     * Задаёт обработчик изменения настроек, например для записи в историю запуска.
+     * Вызывается в потоке писателя, сообщившего о фиксации, вне блокировки регулятора, поэтому настройки
+     * от разных писателей могут прийти не по порядку: более поздние имеют большее {@link Settings#adjustments()}.
+     *
+     * @param listener обработчик новых настроек
+     */
+    public void setListener(Consumer<Settings> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return текущие настройки
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * @return максимальное число писателей
+     */
+    public int getMaxWriters() {
+        return maxWriters;
+    }
+
+    /**
+     * Учитывает успешную фиксацию каталога.
+     *
+     * @param rows  количество записанных строк растений
+     * @param calls количество обращений к базе: пакетов JDBC, запросов сводок и фиксаций
+     * @param nanos время записи и фиксации
+     */
+    public void onCommit(int rows, int calls, long nanos) {
+        Settings changed = null;
+        synchronized (this) {
+            windowCommits++;
+            windowRows += rows;
+            windowCalls += Math.max(1, calls);
+            windowNanos += nanos;
+            if (windowCommits >= Math.max(MIN_WINDOW_COMMITS, settings.writers())) {
+                changed = evaluate();
+            }
+        }
+        notifyListener(changed);
+    }
+
+    /**
+     * Учитывает ошибку записи: окно завершается уменьшением настроек.
+     */
+    public void onFailure() {
+        Settings changed;
+        synchronized (this) {
+            windowFailed = true;
+            changed = evaluate();
+        }
+        notifyListener(changed);
+    }
+
+    private void notifyListener(Settings changed) {
+        if (changed != null) {
+            listener.accept(changed);
+        }
+    }
+
+    /**
+     * Принимает решение по завершённому окну и начинает новое.
+     *
+     * @return новые настройки или null, если они не изменились
+     */
+    private Settings evaluate() {
+        long now = clock.getAsLong();
+        double latency = windowCalls == 0 ? 0 : (double) windowNanos / windowCalls;
+        double throughput = now > windowStarted ? windowRows * 1e9 / (now - windowStarted) : 0;
+
+        Settings current = settings;
+        int batchSize = current.batchSize();
+        int writers = current.writers();
+        String reason;
+        if (windowFailed || latency > targetNanos) {
+            reason = windowFailed ? "FAILURE" : "LATENCY";
+            batchSize = Math.max(minBatch, batchSize / 2);
+            writers = Math.max(minWriters, writers / 2);
+            lastIncreased = false;
+        } else if (lastIncreased && throughput < lastThroughput * (100 - THROUGHPUT_TOLERANCE_PERCENT) / 100) {
+            reason = "THROUGHPUT";
+            writers = Math.max(minWriters, writers / 2);
+            lastIncreased = false;
+        } else {
+            reason = "INCREASE";
+            batchSize = Math.min(maxBatch, batchSize + batchStep);
+            writers = Math.min(maxWriters, writers + 1);
+            lastIncreased = true;
+        }
+
+        lastThroughput = throughput;
+        windowStarted = now;
+        windowCommits = 0;
+        windowRows = 0;
+        windowCalls = 0;
+        windowNanos = 0;
+        windowFailed = false;
+
+        if (batchSize == current.batchSize() && writers == current.writers()) {
+            return null;
+        }
+        settings = new Settings(batchSize, writers, current.adjustments() + 1);
+        logger.info("Адаптивная запись ({}): пакет {} -> {}, писателей {} -> {}, обращение {} мс, растений в секунду {}",
+                reason, current.batchSize(), batchSize, current.writers(), writers,
+                String.format("%.1f", latency / 1e6), String.format("%.0f", throughput));
+
+        WriteTuningEvent event = new WriteTuningEvent();
+        if (event.shouldCommit()) {
+            event.reason = reason;
+            event.batchSize = batchSize;
+            event.writers = writers;
+            event.latencyMs = latency / 1e6;
+            event.plantsPerSecond = throughput;
+            event.commit();
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.xmlparser.sink;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Приёмник провалидированных каталогов и растений.
+ * <p>
+ * Каталог записывается в три шага: {@link #beginCatalog(Catalog)} назначает каталогу идентификатор,
+ * {@link #writePlants(List)} передаёт валидные растения (может вызываться несколько раз),
+ * {@link #endCatalog()} фиксирует каталог. При ошибке вызывается {@link #abortCatalog()}.
+ * Реализации не обязаны быть потокобезопасными.
+ */
+public interface CatalogSink extends Closeable {
+
+    /**
+     * Каталог, запись которого откатилась уже после того, как {@link #endCatalog()} вернул управление.
+     *
+     * @param uuid   UUID каталога
+     * @param plants количество растений, которое вернул {@link #endCatalog()}
+     * @param error  описание ошибки
+     */
+    record LostCatalog(String uuid, int plants, String error) {
+    }
+
+    /**
+     * Начинает запись каталога.
+     *
+     * @param catalog провалидированный каталог
+     * @return идентификатор каталога, который проставляется растениям
+     * @throws IOException при ошибке записи
+     */
+    int beginCatalog(Catalog catalog) throws IOException;
+
+    /**
+     * Записывает очередную порцию валидных растений текущего каталога.
+     *
+     * @param plants растения с проставленным catalogId
+     * @throws IOException при ошибке записи
+     */
+    void writePlants(List<Plant> plants) throws IOException;
+
+    /**
+     * Фиксирует текущий каталог.
+     *
+     * @return количество записанных (вставленных или изменённых) строк растений
+     * @throws IOException при ошибке записи
+     */
+    int endCatalog() throws IOException;
+
+    /**
+     * Отменяет запись текущего каталога после ошибки. Не должен выбрасывать исключений.
+     */
+    void abortCatalog();
+
+    /**
+     * Дожидается фиксации каталогов, переданных через {@link #endCatalog()}, и возвращает те из них, что
+     * зафиксировать не удалось (каждый — один раз). Приёмники, фиксирующие каталог до возврата из
+     * {@link #endCatalog()}, таких каталогов не имеют.
+     *
+     * @return каталоги, запись которых откатилась после {@link #endCatalog()}
+     * @throws IOException если ожидание прервано
+     */
+    default List<LostCatalog> awaitCommits() throws IOException {
+        return List.of();
+    }
+}
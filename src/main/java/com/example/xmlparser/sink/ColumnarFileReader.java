@@ -0,0 +1,193 @@
+package com.example.xmlparser.sink;
+
+import com.example.xmlparser.model.Catalog;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Чтение колоночного файла, записанного {@link ColumnarFileSink}.
+ * Блоки читаются по одному, поэтому память ограничена размером блока. Отменённые каталоги и их растения
+ * пропускаются: перед чтением файл просматривается по заголовкам блоков, и распаковываются только блоки отмены.
+ */
+public final class ColumnarFileReader implements Closeable {
+
+    /**
+     * Обработчик прочитанных блоков.
+     */
+    public interface Visitor {
+
+        /**
+         * Вызывается для каждого каталога (без списка растений; идентификатор задан в {@link Catalog#getId()}).
+         *
+         * @param catalog каталог
+         * @throws IOException если обработчик не смог обработать каталог
+         */
+        void onCatalog(Catalog catalog) throws IOException;
+
+        /**
+         * Вызывается для каждого блока растений.
+         *
+         * @param columns колонки блока
+         * @throws IOException если обработчик не смог обработать блок
+         */
+        void onPlants(PlantColumns columns) throws IOException;
+    }
+
+    private final Path file;
+    private final DataInputStream in;
+
+    /**
+     * Открывает колоночный файл и проверяет его заголовок.
+     *
+     * @param file путь к файлу
+     * @throws IOException если файл не найден или имеет неверный формат
+     */
+    public ColumnarFileReader(Path file) throws IOException {
+        this.file = file;
+        this.in = open(file);
+    }
+
+    /**
+     * Читает все блоки файла до завершающего и передаёт их обработчику.
+     *
+     * @param visitor обработчик блоков
+     * @throws IOException при ошибке чтения или повреждённом файле
+     */
+    public void read(Visitor visitor) throws IOException {
+        Set<Integer> aborted = readAborted();
+        while (true) {
+            byte type = in.readByte();
+            int length = in.readInt();
+            int compressedLength = in.readInt();
+            byte[] payload = ColumnarFormat.readPayload(in, length, compressedLength);
+            DataInputStream block = new DataInputStream(new ByteArrayInputStream(payload));
+
+            switch (type) {
+                case ColumnarFormat.BLOCK_END -> {
+                    return;
+                }
+                case ColumnarFormat.BLOCK_CATALOG -> {
+                    Catalog catalog = readCatalog(block);
+                    if (!aborted.contains(catalog.getId())) {
+                        visitor.onCatalog(catalog);
+                    }
+                }
+                case ColumnarFormat.BLOCK_PLANTS -> {
+                    PlantColumns columns = readPlants(block);
+                    if (!aborted.isEmpty()) {
+                        columns = columns.retain(id -> !aborted.contains(id));
+                    }
+                    if (columns.size() > 0) {
+                        visitor.onPlants(columns);
+                    }
+                }
+                case ColumnarFormat.BLOCK_ABORT -> {
+                }
+                default -> throw new IOException("Неизвестный тип блока: " + type);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try {
+            if (in.readInt() != ColumnarFormat.MAGIC) {
+                throw new IOException("Файл не является колоночным файлом растений: " + file);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > ColumnarFormat.VERSION) {
+                throw new IOException("Неподдерживаемая версия колоночного файла: " + version);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    /**
+     * Просматривает файл по заголовкам блоков и собирает идентификаторы отменённых каталогов.
+     */
+    private Set<Integer> readAborted() throws IOException {
+        Set<Integer> aborted = new HashSet<>();
+        try (DataInputStream scan = open(file)) {
+            while (true) {
+                byte type = scan.readByte();
+                int length = scan.readInt();
+                int compressedLength = scan.readInt();
+                if (type == ColumnarFormat.BLOCK_END) {
+                    return aborted;
+                }
+                if (type == ColumnarFormat.BLOCK_ABORT) {
+                    byte[] payload = ColumnarFormat.readPayload(scan, length, compressedLength);
+                    aborted.add(new DataInputStream(new ByteArrayInputStream(payload)).readInt());
+                } else {
+                    scan.skipNBytes(compressedLength);
+                }
+            }
+        }
+    }
+
+    private static Catalog readCatalog(DataInputStream block) throws IOException {
+        int id = block.readInt();
+        Catalog catalog = new Catalog(ColumnarFormat.readString(block));
+        catalog.setId(id);
+        catalog.setCompany(ColumnarFormat.readString(block));
+        long epochDay = block.readLong();
+        if (epochDay != ColumnarFormat.NULL_DATE) {
+            catalog.setDeliveryDate(LocalDate.ofEpochDay(epochDay));
+        }
+        return catalog;
+    }
+
+    private static PlantColumns readPlants(DataInputStream block) throws IOException {
+        int rows = block.readInt();
+        int[] catalogIds = readInts(block, rows);
+        int[] zones = readInts(block, rows);
+        int[] availabilities = readInts(block, rows);
+        byte[] priceScales = block.readNBytes(rows);
+        long[] priceUnscaled = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            priceUnscaled[i] = block.readLong();
+        }
+        String[] commonDictionary = readDictionary(block);
+        int[] commonCodes = readInts(block, rows);
+        String[] botanicalDictionary = readDictionary(block);
+        int[] botanicalCodes = readInts(block, rows);
+        String[] lightDictionary = readDictionary(block);
+        int[] lightCodes = readInts(block, rows);
+
+        return new PlantColumns(rows, catalogIds, zones, availabilities, priceScales, priceUnscaled,
+                commonDictionary, commonCodes, botanicalDictionary, botanicalCodes, lightDictionary, lightCodes);
+    }
+
+    private static int[] readInts(DataInputStream block, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = block.readInt();
+        }
+        return values;
+    }
+
+    private static String[] readDictionary(DataInputStream block) throws IOException {
+        String[] dictionary = new String[block.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = ColumnarFormat.readString(block);
+        }
+        return dictionary;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.xmlparser.sink;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Приёмник, записывающий каталоги и растения в локальный колоночный файл без базы данных.
+ * <p>
+ * Растения накапливаются по колонкам и сбрасываются сжатыми блоками по {@code blockRows} строк;
+ * строковые колонки кодируются словарём блока. Каталогам назначаются последовательные идентификаторы
+ * начиная с 1. Формат описан в {@link ColumnarFormat}, чтение — {@link ColumnarFileReader}.
+ * <p>
+ * Как и в {@link PostgresSink}, отменённый каталог не читается из файла: блок каталога откладывается
+ * до {@link #endCatalog()} или до сброса первого блока с его растениями. Если к отмене часть растений уже
+ * записана, в файл добавляется блок отмены, по которому читатель пропускает каталог и его растения.
+ * Каталог, не завершённый до {@link #close()}, отменяется.
+ */
+public final class ColumnarFileSink implements CatalogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarFileSink.class);
+
+    /**
+     * Размер блока по умолчанию (строк растений).
+     */
+    public static final int DEFAULT_BLOCK_ROWS = 65_536;
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final int blockRows;
+
+    private final int[] catalogIds;
+    private final int[] zones;
+    private final int[] availabilities;
+    private final byte[] priceScales;
+    private final long[] priceUnscaled;
+    private final StringColumn commons;
+    private final StringColumn botanicals;
+    private final StringColumn lights;
+    private int rows;
+
+    private int nextCatalogId;
+    private int currentId;
+    private byte[] pendingCatalog;
+    private boolean catalogWritten;
+    private int written;
+    private int catalogs;
+    private long totalPlants;
+    private int blocks;
+
+    /**
+     * Создаёт (перезаписывает) колоночный файл.
+     *
+     * @param file      путь к файлу
+     * @param blockRows количество строк растений в одном блоке
+     * @throws IOException если файл не удалось создать
+     */
+    public ColumnarFileSink(Path file, int blockRows) throws IOException {
+        if (blockRows < 1) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным: " + blockRows);
+        }
+        this.file = file;
+        this.blockRows = blockRows;
+        this.catalogIds = new int[blockRows];
+        this.zones = new int[blockRows];
+        this.availabilities = new int[blockRows];
+        this.priceScales = new byte[blockRows];
+        this.priceUnscaled = new long[blockRows];
+        this.commons = new StringColumn(blockRows);
+        this.botanicals = new StringColumn(blockRows);
+        this.lights = new StringColumn(blockRows);
+
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(ColumnarFormat.MAGIC);
+        out.writeInt(ColumnarFormat.VERSION);
+        logger.info("Запись растений в колоночный файл: {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public int beginCatalog(Catalog catalog) throws IOException {
+        currentId = ++nextCatalogId;
+        written = 0;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeInt(currentId);
+        ColumnarFormat.writeString(payload, catalog.getUuid());
+        ColumnarFormat.writeString(payload, catalog.getCompany());
+        payload.writeLong(catalog.getDeliveryDate() == null
+                ? ColumnarFormat.NULL_DATE : catalog.getDeliveryDate().toEpochDay());
+        payload.flush();
+        pendingCatalog = bytes.toByteArray();
+        catalogWritten = false;
+        return currentId;
+    }
+
+    @Override
+    public void writePlants(List<Plant> plants) throws IOException {
+        for (Plant plant : plants) {
+            catalogIds[rows] = plant.getCatalogId();
+            zones[rows] = plant.getZoneAsInt();
+            availabilities[rows] = plant.getAvailability();
+
+            BigDecimal price = plant.getPrice();
+            if (price == null) {
+                priceScales[rows] = ColumnarFormat.NULL_SCALE;
+                priceUnscaled[rows] = 0;
+            } else {
+                if (price.scale() < 0 || price.scale() > Byte.MAX_VALUE || price.unscaledValue().bitLength() > 63) {
+                    throw new IOException("Цена не помещается в колоночный формат: " + price);
+                }
+                priceScales[rows] = (byte) price.scale();
+                priceUnscaled[rows] = price.unscaledValue().longValue();
+            }
+
+            commons.set(rows, plant.getCommon());
+            botanicals.set(rows, plant.getBotanical());
+            lights.set(rows, plant.getLight());
+
+            if (++rows == blockRows) {
+                flushPlants();
+            }
+        }
+        written += plants.size();
+    }
+
+    @Override
+    public int endCatalog() throws IOException {
+        writePendingCatalog();
+        currentId = 0;
+        catalogs++;
+        totalPlants += written;
+        return written;
+    }
+
+    /**
+     * Отбрасывает ещё не сброшенные на диск растения текущего каталога. Если заголовок каталога уже записан,
+     * добавляет блок отмены; ошибка его записи обнаружится при {@link #close()}.
+     */
+    @Override
+    public void abortCatalog() {
+        if (currentId == 0) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < rows; i++) {
+            if (catalogIds[i] != currentId) {
+                catalogIds[kept] = catalogIds[i];
+                zones[kept] = zones[i];
+                availabilities[kept] = availabilities[i];
+                priceScales[kept] = priceScales[i];
+                priceUnscaled[kept] = priceUnscaled[i];
+                commons.move(i, kept);
+                botanicals.move(i, kept);
+                lights.move(i, kept);
+                kept++;
+            }
+        }
+        rows = kept;
+        pendingCatalog = null;
+        if (catalogWritten) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(4);
+                new DataOutputStream(bytes).writeInt(currentId);
+                ColumnarFormat.writeBlock(out, ColumnarFormat.BLOCK_ABORT, bytes.toByteArray());
+            } catch (IOException e) {
+                logger.warn("Не удалось записать отмену каталога ID = {}: {}", currentId, e.getMessage(), e);
+            }
+        }
+        currentId = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            abortCatalog();
+            flushPlants();
+            ColumnarFormat.writeBlock(out, ColumnarFormat.BLOCK_END, new byte[0]);
+        } finally {
+            out.close();
+        }
+        logger.info("Колоночный файл {} записан: каталогов {}, растений {}, блоков растений {}",
+                file.getFileName(), catalogs, totalPlants, blocks);
+    }
+
+    /**
+     * Записывает отложенный блок текущего каталога, если он ещё не записан.
+     */
+    private void writePendingCatalog() throws IOException {
+        if (pendingCatalog != null) {
+            ColumnarFormat.writeBlock(out, ColumnarFormat.BLOCK_CATALOG, pendingCatalog);
+            pendingCatalog = null;
+            catalogWritten = true;
+        }
+    }
+
+    private void flushPlants() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        // Каталог должен предшествовать в файле блоку со своими растениями
+        writePendingCatalog();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows * 32);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeInt(rows);
+        for (int i = 0; i < rows; i++) {
+            payload.writeInt(catalogIds[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            payload.writeInt(zones[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            payload.writeInt(availabilities[i]);
+        }
+        payload.write(priceScales, 0, rows);
+        for (int i = 0; i < rows; i++) {
+            payload.writeLong(priceUnscaled[i]);
+        }
+        commons.writeTo(payload, rows);
+        botanicals.writeTo(payload, rows);
+        lights.writeTo(payload, rows);
+        payload.flush();
+
+        ColumnarFormat.writeBlock(out, ColumnarFormat.BLOCK_PLANTS, bytes.toByteArray());
+        blocks++;
+        rows = 0;
+    }
+
+    /**
+     * Строковая колонка блока: значения хранятся кодами словаря, который сбрасывается после записи блока.
+     */
+    private static final class StringColumn {
+
+        private final int[] codes;
+        private final Map<String, Integer> codeByValue = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+
+        StringColumn(int capacity) {
+            this.codes = new int[capacity];
+        }
+
+        void set(int row, String value) {
+            if (value == null) {
+                codes[row] = ColumnarFormat.NULL_CODE;
+                return;
+            }
+            Integer code = codeByValue.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                codeByValue.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        void move(int from, int to) {
+            codes[to] = codes[from];
+        }
+
+        void writeTo(DataOutputStream payload, int rows) throws IOException {
+            payload.writeInt(dictionary.size());
+            for (String value : dictionary) {
+                ColumnarFormat.writeString(payload, value);
+            }
+            for (int i = 0; i < rows; i++) {
+                payload.writeInt(codes[i]);
+            }
+            codeByValue.clear();
+            dictionary.clear();
+            Arrays.fill(codes, 0, rows, ColumnarFormat.NULL_CODE);
+        }
+    }
+}
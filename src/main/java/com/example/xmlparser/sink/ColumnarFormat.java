@@ -0,0 +1,109 @@
+package com.example.xmlparser.sink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Общие константы и примитивы локального колоночного формата растений.
+ * <p>
+ * Файл: заголовок (magic, версия) и последовательность блоков. Блок: тип (1 байт),
+ * длина данных до сжатия, длина после сжатия (int) и данные, сжатые Deflate.
+ * Блок каталога содержит один каталог. Блок растений хранит колонки подряд:
+ * catalogId, zone, availability, цена (scale и unscaled value), затем common, botanical и light
+ * в виде словаря блока и массива кодов. Блок отмены ({@link #BLOCK_ABORT}, с версии 2) содержит идентификатор
+ * каталога, который был отменён после того, как его заголовок и часть растений уже попали в файл: при чтении
+ * такой каталог и его растения пропускаются. Последний блок имеет тип {@link #BLOCK_END} и пустые данные.
+ */
+final class ColumnarFormat {
+
+    static final int MAGIC = 0x58504346; // "XPCF"
+    static final int VERSION = 2;
+
+    static final byte BLOCK_END = 0;
+    static final byte BLOCK_CATALOG = 1;
+    static final byte BLOCK_PLANTS = 2;
+    static final byte BLOCK_ABORT = 3;
+
+    /**
+     * Код отсутствующего значения в строковой колонке.
+     */
+    static final int NULL_CODE = -1;
+
+    /**
+     * Значение scale, обозначающее отсутствующую цену.
+     */
+    static final byte NULL_SCALE = -1;
+
+    /**
+     * Значение epochDay, обозначающее отсутствующую дату доставки.
+     */
+    static final long NULL_DATE = Long.MIN_VALUE;
+
+    private ColumnarFormat() {
+    }
+
+    static void writeBlock(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, payload.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                compressed.write(buffer, 0, n);
+            }
+            out.writeByte(type);
+            out.writeInt(payload.length);
+            out.writeInt(compressed.size());
+            compressed.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] readPayload(DataInputStream in, int length, int compressedLength) throws IOException {
+        byte[] compressed = in.readNBytes(compressedLength);
+        if (compressed.length != compressedLength) {
+            throw new IOException("Файл обрывается внутри блока");
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] payload = new byte[length];
+            int read = inflater.inflate(payload);
+            if (read != length) {
+                throw new IOException("Размер блока после распаковки не совпадает: " + read + " вместо " + length);
+            }
+            return payload;
+        } catch (DataFormatException e) {
+            throw new IOException("Повреждённый блок колоночного файла", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.xmlparser.sink;
+
+import com.example.xmlparser.aggregate.PlantAggregate;
+import com.example.xmlparser.aggregate.PlantAggregator;
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.service.AggregateRepository;
+import com.example.xmlparser.service.CatalogRepository;
+import com.example.xmlparser.service.PlantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.InterruptedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приёмник режима insert, записывающий каталоги в PostgreSQL несколькими параллельными писателями
+ * с размером пакета и числом писателей от {@link AdaptiveWriteController}.
+ * <p>
+ * У каждого писателя своё соединение и свой поток. Каталог целиком записывается одним писателем в одной
+ * транзакции: строка каталога вставляется в вызывающем потоке (чтобы сразу вернуть идентификатор или
+ * {@link com.example.xmlparser.service.DuplicateCatalogException}), растения и сводки — в потоке писателя,
+ * после чего вызывающий поток переходит к следующему каталогу, не дожидаясь фиксации. Одновременно заняты
+ * не больше писателей, чем разрешает регулятор; соединения открываются по мере надобности.
+ * <p>
+ * Растения передаются писателю без копирования, поэтому список нельзя изменять после {@link #writePlants(List)}.
+ * {@link #endCatalog()} возвращает количество переданных растений до фиксации. Ошибка записи растений или
+ * фиксации откатывает только этот каталог: регулятор уменьшает настройки, загрузка продолжается, а каталог
+ * возвращается из {@link #awaitCommits()}, чтобы вызывающий код исправил итоги.
+ */
+public final class ParallelPostgresSink implements CatalogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelPostgresSink.class);
+
+    private final DataSource dataSource;
+    private final AdaptiveWriteController controller;
+    private final List<Writer> writers;
+    private final Deque<Writer> idle = new ArrayDeque<>();
+    private final List<LostCatalog> lost = Collections.synchronizedList(new ArrayList<>());
+    private int busy;
+    private Writer current;
+
+    /**
+     * @param dataSource источник соединений писателей
+     * @param controller регулятор размера пакета и числа писателей
+     */
+    public ParallelPostgresSink(DataSource dataSource, AdaptiveWriteController controller) {
+        this.dataSource = dataSource;
+        this.controller = controller;
+        this.writers = new ArrayList<>(controller.getMaxWriters());
+        for (int i = 0; i < controller.getMaxWriters(); i++) {
+            Writer writer = new Writer(i + 1);
+            writers.add(writer);
+            idle.addLast(writer);
+        }
+    }
+
+    @Override
+    public int beginCatalog(Catalog catalog) throws InterruptedIOException {
+        Writer writer = acquire();
+        long started = System.nanoTime();
+        try {
+            if (writer.conn == null) {
+                Connection conn = dataSource.getConnection();
+                try {
+                    conn.setAutoCommit(false);
+                } catch (SQLException e) {
+                    DatabaseManager.close(conn);
+                    throw e;
+                }
+                writer.conn = conn;
+            }
+            writer.catalog = catalog;
+            writer.aggregator.clear();
+            writer.written = 0;
+            writer.calls = 1;
+            writer.error = null;
+            writer.catalogId = CatalogRepository.save(writer.conn, catalog);
+            writer.nanos = System.nanoTime() - started;
+            current = writer;
+            return writer.catalogId;
+        } catch (SQLException e) {
+            release(writer);
+            throw new RuntimeException("Не удалось открыть соединение с базой данных", e);
+        } catch (RuntimeException e) {
+            rollback(writer);
+            release(writer);
+            throw e;
+        }
+    }
+
+    @Override
+    public void writePlants(List<Plant> plants) throws InterruptedIOException {
+        Writer writer = current;
+        writer.awaitWrite();
+        writer.aggregator.addAll(plants);
+        writer.written += plants.size();
+        int batchSize = controller.getSettings().batchSize();
+        writer.lastWrite = writer.executor.submit(() -> {
+            if (writer.error != null || plants.isEmpty()) {
+                return;
+            }
+            long started = System.nanoTime();
+            try {
+                PlantRepository.saveAll(writer.conn, plants, batchSize);
+            } catch (RuntimeException e) {
+                writer.error = e;
+                throw e;
+            } finally {
+                writer.nanos += System.nanoTime() - started;
+                writer.calls += (plants.size() + batchSize - 1) / batchSize;
+            }
+        });
+    }
+
+    @Override
+    public int endCatalog() {
+        Writer writer = current;
+        current = null;
+        int written = writer.written;
+        List<PlantAggregate> aggregates = writer.aggregator.result();
+        writer.lastWrite = null;
+        writer.executor.execute(() -> commit(writer, aggregates));
+        return written;
+    }
+
+    @Override
+    public void abortCatalog() {
+        Writer writer = current;
+        current = null;
+        if (writer == null) {
+            return;
+        }
+        writer.lastWrite = null;
+        writer.executor.execute(() -> {
+            rollback(writer);
+            release(writer);
+        });
+    }
+
+    @Override
+    public List<LostCatalog> awaitCommits() throws InterruptedIOException {
+        try {
+            List<Future<?>> drained = new ArrayList<>(writers.size());
+            for (Writer writer : writers) {
+                drained.add(writer.executor.submit(() -> { }));
+            }
+            for (Future<?> future : drained) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание фиксации каталогов прервано");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка в потоке писателя", e.getCause());
+        }
+        synchronized (lost) {
+            List<LostCatalog> result = List.copyOf(lost);
+            lost.clear();
+            return result;
+        }
+    }
+
+    /**
+     * Дожидается фиксации всех каталогов и закрывает соединения.
+     */
+    @Override
+    public void close() throws InterruptedIOException {
+        try {
+            for (Writer writer : writers) {
+                writer.executor.shutdown();
+            }
+            for (Writer writer : writers) {
+                if (!writer.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Писатель " + writer.index + " не завершился");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание фиксации каталогов прервано");
+        } finally {
+            for (Writer writer : writers) {
+                writer.executor.shutdownNow();
+                DatabaseManager.close(writer.conn);
+                writer.conn = null;
+            }
+        }
+
+        AdaptiveWriteController.Settings settings = controller.getSettings();
+        logger.info("Адаптивная запись завершена: пакет {}, писателей {}, изменений настроек {}",
+                settings.batchSize(), settings.writers(), settings.adjustments());
+        if (!lost.isEmpty()) {
+            logger.error("Не зафиксировано каталогов, не переданных в итоги загрузки: {}", lost.size());
+        }
+    }
+
+    /**
+     * Занимает свободного писателя, ожидая, пока число занятых станет меньше разрешённого регулятором.
+     */
+    private Writer acquire() throws InterruptedIOException {
+        synchronized (idle) {
+            try {
+                while (idle.isEmpty() || busy >= controller.getSettings().writers()) {
+                    idle.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Ожидание свободного писателя прервано");
+            }
+            busy++;
+            // Последним освободившийся писатель — первым: лишние соединения не открываются
+            return idle.pollFirst();
+        }
+    }
+
+    private void release(Writer writer) {
+        synchronized (idle) {
+            busy--;
+            idle.addFirst(writer);
+            idle.notifyAll();
+        }
+    }
+
+    /**
+     * Записывает сводки и фиксирует каталог в потоке писателя.
+     */
+    private void commit(Writer writer, List<PlantAggregate> aggregates) {
+        String uuid = writer.catalog.getUuid();
+        long started = System.nanoTime();
+        try {
+            if (writer.error != null) {
+                throw writer.error;
+            }
+            AggregateRepository.replaceCatalog(writer.conn, writer.catalogId, writer.catalog.getCompany(), aggregates);
+            writer.conn.commit();
+            writer.calls += 2;
+            writer.nanos += System.nanoTime() - started;
+            controller.onCommit(writer.written, writer.calls, writer.nanos);
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Каталог {} не зафиксирован писателем {}, растений потеряно {}: {}",
+                    uuid, writer.index, writer.written, e.getMessage(), e);
+            rollback(writer);
+            // Соединение после ошибки может быть непригодно: следующий каталог писателя откроет новое
+            DatabaseManager.close(writer.conn);
+            writer.conn = null;
+            lost.add(new LostCatalog(uuid, writer.written, e.getMessage()));
+            controller.onFailure();
+        } finally {
+            release(writer);
+        }
+    }
+
+    private void rollback(Writer writer) {
+        if (writer.conn == null) {
+            return;
+        }
+        try {
+            writer.conn.rollback();
+        } catch (SQLException e) {
+            logger.warn("Ошибка при откате транзакции: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Писатель: соединение, поток и состояние записываемого каталога.
+     * Поля каталога меняет вызывающий поток до передачи задач и поток писателя после, поэтому
+     * они не пересекаются во времени.
+     */
+    private static final class Writer {
+
+        private final int index;
+        private final ExecutorService executor;
+        private final PlantAggregator aggregator = new PlantAggregator();
+
+        private Connection conn;
+        private Future<?> lastWrite;
+        private Catalog catalog;
+        private int catalogId;
+        private int written;
+        private int calls;
+        private long nanos;
+        private RuntimeException error;
+
+        Writer(int index) {
+            this.index = index;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "plant-writer-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * Дожидается записи предыдущей порции растений, чтобы в очереди писателя была не больше одной порции.
+         * Ошибка записи сохранена в {@link #error}: остальные порции пропускаются, каталог откатывается при фиксации.
+         */
+        void awaitWrite() throws InterruptedIOException {
+            if (lastWrite == null) {
+                return;
+            }
+            try {
+                lastWrite.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Ожидание записи растений прервано");
+            } catch (ExecutionException e) {
+                logger.debug("Запись растений каталога {} не удалась: {}", catalog.getUuid(), e.getCause().getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.xmlparser.sink;
+
+import com.example.xmlparser.model.Plant;
+
+import java.math.BigDecimal;
+import java.util.function.IntPredicate;
+
+/**
+ * Один прочитанный блок растений колоночного файла.
+ * Значения доступны по колонкам без создания объектов {@link Plant}.
+ */
+public final class PlantColumns {
+
+    private final int size;
+    private final int[] catalogIds;
+    private final int[] zones;
+    private final int[] availabilities;
+    private final byte[] priceScales;
+    private final long[] priceUnscaled;
+    private final String[] commonDictionary;
+    private final int[] commonCodes;
+    private final String[] botanicalDictionary;
+    private final int[] botanicalCodes;
+    private final String[] lightDictionary;
+    private final int[] lightCodes;
+
+    PlantColumns(int size, int[] catalogIds, int[] zones, int[] availabilities,
+                 byte[] priceScales, long[] priceUnscaled,
+                 String[] commonDictionary, int[] commonCodes,
+                 String[] botanicalDictionary, int[] botanicalCodes,
+                 String[] lightDictionary, int[] lightCodes) {
+        this.size = size;
+        this.catalogIds = catalogIds;
+        this.zones = zones;
+        this.availabilities = availabilities;
+        this.priceScales = priceScales;
+        this.priceUnscaled = priceUnscaled;
+        this.commonDictionary = commonDictionary;
+        this.commonCodes = commonCodes;
+        this.botanicalDictionary = botanicalDictionary;
+        this.botanicalCodes = botanicalCodes;
+        this.lightDictionary = lightDictionary;
+        this.lightCodes = lightCodes;
+    }
+
+    /**
+     * @return количество строк в блоке
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row номер строки в блоке
+     * @return идентификатор каталога
+     */
+    public int catalogId(int row) {
+        return catalogIds[row];
+    }
+
+    /**
+     * @param row номер строки в блоке
+     * @return зона выращивания
+     */
+    public int zone(int row) {
+        return zones[row];
+    }
+
+    /**
+     * @param row номер строки в блоке
+     * @return количество в наличии
+     */
+    public int availability(int row) {
+        return availabilities[row];
+    }
+
+    /**
+     * @param row номер строки в блоке
+     * @return цена или null
+     */
+    public BigDecimal price(int row) {
+        byte scale = priceScales[row];
+        return scale == ColumnarFormat.NULL_SCALE ? null : BigDecimal.valueOf(priceUnscaled[row], scale);
+    }
+
+    /**
+     * @param row номер строки в блоке
+     * @return народное название или null
+     */
+    public String common(int row) {
+        return decode(commonDictionary, commonCodes[row]);
+    }
+
+    /**
+     * @param row номер строки в блоке
+     * @return научное название или null
+     */
+    public String botanical(int row) {
+        return decode(botanicalDictionary, botanicalCodes[row]);
+    }
+
+    /**
+     * @param row номер строки в блоке
+     * @return условия освещения или null
+     */
+    public String light(int row) {
+        return decode(lightDictionary, lightCodes[row]);
+    }
+
+    /**
+     * Собирает объект растения из строки блока.
+     *
+     * @param row номер строки в блоке
+     * @return растение
+     */
+    public Plant toPlant(int row) {
+        Plant plant = new Plant();
+        plant.setCatalogId(catalogId(row));
+        plant.setZoneText(String.valueOf(zone(row)));
+        plant.setAvailability(availability(row));
+        plant.setPrice(price(row));
+        plant.setCommon(common(row));
+        plant.setBotanical(botanical(row));
+        plant.setLight(light(row));
+        return plant;
+    }
+
+    /**
+     * Оставляет строки блока, каталог которых удовлетворяет условию; словари колонок общие с исходным блоком.
+     *
+     * @param catalog условие на идентификатор каталога
+     * @return этот же блок, если подходят все строки, иначе новый блок
+     */
+    PlantColumns retain(IntPredicate catalog) {
+        int[] rows = new int[size];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (catalog.test(catalogIds[i])) {
+                rows[kept++] = i;
+            }
+        }
+        if (kept == size) {
+            return this;
+        }
+        byte[] scales = new byte[kept];
+        for (int i = 0; i < kept; i++) {
+            scales[i] = priceScales[rows[i]];
+        }
+        long[] unscaled = new long[kept];
+        for (int i = 0; i < kept; i++) {
+            unscaled[i] = priceUnscaled[rows[i]];
+        }
+        return new PlantColumns(kept, select(catalogIds, rows, kept), select(zones, rows, kept),
+                select(availabilities, rows, kept), scales, unscaled,
+                commonDictionary, select(commonCodes, rows, kept),
+                botanicalDictionary, select(botanicalCodes, rows, kept),
+                lightDictionary, select(lightCodes, rows, kept));
+    }
+
+    private static int[] select(int[] values, int[] rows, int count) {
+        int[] selected = new int[count];
+        for (int i = 0; i < count; i++) {
+            selected[i] = values[rows[i]];
+        }
+        return selected;
+    }
+
+    private static String decode(String[] dictionary, int code) {
+        return code == ColumnarFormat.NULL_CODE ? null : dictionary[code];
+    }
+}
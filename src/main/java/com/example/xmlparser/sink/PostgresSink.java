@@ -0,0 +1,244 @@
+package com.example.xmlparser.sink;
+
+import com.example.xmlparser.aggregate.PlantAggregate;
+import com.example.xmlparser.aggregate.PlantAggregator;
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.db.DatabaseManager;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.service.AggregateRepository;
+import com.example.xmlparser.service.CatalogIdCache;
+import com.example.xmlparser.service.CatalogRepository;
+import com.example.xmlparser.service.PlantRepository;
+import com.example.xmlparser.service.PlantSyncResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Приёмник, сохраняющий каталоги в PostgreSQL через {@link CatalogRepository} и {@link PlantRepository}.
+ * <p>
+ * Каждый каталог записывается в отдельной транзакции на одном переиспользуемом соединении,
+ * которое открывается при первом каталоге. В режиме {@link CommandLineOptions.WriteMode#INSERT}
+ * растения вставляются пакетами JDBC, в режиме {@link CommandLineOptions.WriteMode#UPSERT}
+ * накапливаются и синхронизируются с сохранёнными одним запросом при фиксации каталога.
+ * <p>
+ * Перед фиксацией в той же транзакции обновляются сводки через {@link AggregateRepository}:
+ * при вставке агрегаты считаются по мере записи растений, при синхронизации — пересчитываются
+ * по сохранённым растениям каталога, если он изменился.
+ * <p>
+ * При заданном {@code coalesceRows} в режиме INSERT мелкие каталоги объединяются: растения нескольких
+ * каталогов отправляются общими пакетами и фиксируются одной транзакцией, как только их накопится
+ * не меньше {@code coalesceRows} (остаток — при закрытии приёмника). Ошибка записи откатывает
+ * всю незафиксированную группу.
+ */
+public final class PostgresSink implements CatalogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresSink.class);
+
+    private final DataSource dataSource;
+    private final CommandLineOptions.WriteMode writeMode;
+    private final int coalesceRows;
+    private final CatalogIdCache idCache;
+    private final List<Plant> pendingPlants = new ArrayList<>();
+    private final PlantAggregator aggregator = new PlantAggregator();
+    private final List<PendingSummary> pendingSummaries = new ArrayList<>();
+
+    private Connection conn;
+    private Catalog current;
+    private int currentId;
+    private int currentStart;
+    private int written;
+
+    /**
+     * @param writeMode режим записи: INSERT или UPSERT
+     */
+    public PostgresSink(CommandLineOptions.WriteMode writeMode) {
+        this(writeMode, 0);
+    }
+
+    /**
+     * @param writeMode    режим записи: INSERT или UPSERT
+     * @param coalesceRows минимальное число растений в общей транзакции нескольких каталогов;
+     *                     0 — каждый каталог фиксируется отдельно
+     */
+    public PostgresSink(CommandLineOptions.WriteMode writeMode, int coalesceRows) {
+        this(DatabaseManager.getDataSource(), writeMode, coalesceRows);
+    }
+
+    /**
+     * @param dataSource   источник соединения, которое открывается при первом каталоге
+     * @param writeMode    режим записи: INSERT или UPSERT
+     * @param coalesceRows минимальное число растений в общей транзакции нескольких каталогов;
+     *                     0 — каждый каталог фиксируется отдельно
+     */
+    public PostgresSink(DataSource dataSource, CommandLineOptions.WriteMode writeMode, int coalesceRows) {
+        this(dataSource, writeMode, coalesceRows, CatalogIdCache.SHARED);
+    }
+
+    /**
+     * @param dataSource   источник соединения, которое открывается при первом каталоге
+     * @param writeMode    режим записи: INSERT или UPSERT
+     * @param coalesceRows минимальное число растений в общей транзакции нескольких каталогов;
+     *                     0 — каждый каталог фиксируется отдельно
+     * @param idCache      кэш идентификаторов каталогов для режима UPSERT
+     */
+    public PostgresSink(DataSource dataSource, CommandLineOptions.WriteMode writeMode, int coalesceRows,
+                        CatalogIdCache idCache) {
+        if (writeMode == CommandLineOptions.WriteMode.STAGING) {
+            throw new IllegalArgumentException("Режим STAGING выполняется через StagingRepository, а не через приёмник");
+        }
+        if (coalesceRows < 0) {
+            throw new IllegalArgumentException("Размер группы каталогов не может быть отрицательным: " + coalesceRows);
+        }
+        if (coalesceRows > 0 && writeMode != CommandLineOptions.WriteMode.INSERT) {
+            throw new IllegalArgumentException("Объединение каталогов поддерживается только в режиме insert");
+        }
+        this.dataSource = dataSource;
+        this.writeMode = writeMode;
+        this.coalesceRows = coalesceRows;
+        this.idCache = idCache;
+    }
+
+    @Override
+    public int beginCatalog(Catalog catalog) {
+        try {
+            if (conn == null) {
+                conn = dataSource.getConnection();
+                conn.setAutoCommit(false);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Не удалось открыть соединение с базой данных", e);
+        }
+
+        current = catalog;
+        currentId = 0;
+        written = 0;
+        if (coalesceRows == 0) {
+            pendingPlants.clear();
+        }
+        currentStart = pendingPlants.size();
+        aggregator.clear();
+        currentId = writeMode == CommandLineOptions.WriteMode.UPSERT
+                ? CatalogRepository.upsert(conn, catalog, idCache)
+                : CatalogRepository.save(conn, catalog);
+        return currentId;
+    }
+
+    @Override
+    public void writePlants(List<Plant> plants) {
+        if (writeMode == CommandLineOptions.WriteMode.UPSERT) {
+            // Для вычисления разницы нужен полный набор растений каталога
+            pendingPlants.addAll(plants);
+        } else if (coalesceRows > 0) {
+            pendingPlants.addAll(plants);
+            aggregator.addAll(plants);
+            written += plants.size();
+        } else {
+            PlantRepository.saveAll(conn, plants);
+            aggregator.addAll(plants);
+            written += plants.size();
+        }
+    }
+
+    @Override
+    public int endCatalog() {
+        if (coalesceRows > 0) {
+            pendingSummaries.add(new PendingSummary(currentId, current.getCompany(), aggregator.result()));
+            aggregator.clear();
+            if (pendingPlants.size() >= coalesceRows) {
+                flushGroup();
+            }
+            return written;
+        }
+
+        try {
+            if (writeMode == CommandLineOptions.WriteMode.UPSERT) {
+                PlantSyncResult result = PlantRepository.sync(conn, currentId, pendingPlants);
+                written = result.inserted() + result.updated();
+                if (result.isUnchanged()) {
+                    logger.info("Каталог UUID: {} не изменился", current.getUuid());
+                } else {
+                    AggregateRepository.rebuildCatalog(conn, currentId, current.getCompany());
+                }
+            } else {
+                AggregateRepository.replaceCatalog(conn, currentId, current.getCompany(), aggregator.result());
+            }
+            conn.commit();
+            return written;
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка при фиксации каталога " + current.getUuid(), e);
+        } finally {
+            pendingPlants.clear();
+            aggregator.clear();
+        }
+    }
+
+    @Override
+    public void abortCatalog() {
+        aggregator.clear();
+        if (coalesceRows > 0 && currentId == 0) {
+            // Каталог не был вставлен (например, повторный UUID): группа в базе не затронута
+            pendingPlants.subList(currentStart, pendingPlants.size()).clear();
+            return;
+        }
+        if (coalesceRows > 0 && !pendingSummaries.isEmpty()) {
+            logger.error("Откат группы из {} незафиксированных каталогов", pendingSummaries.size());
+        }
+        pendingPlants.clear();
+        pendingSummaries.clear();
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            logger.warn("Ошибка при откате транзакции: {}", e.getMessage(), e);
+        }
+        if (current != null) {
+            idCache.evict(conn, current.getUuid());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (!pendingSummaries.isEmpty()) {
+                flushGroup();
+            }
+        } finally {
+            DatabaseManager.close(conn);
+            conn = null;
+        }
+    }
+
+    /**
+     * Записывает накопленные растения группы каталогов, их сводки и фиксирует транзакцию.
+     */
+    private void flushGroup() {
+        try {
+            PlantRepository.saveAll(conn, pendingPlants);
+            for (PendingSummary summary : pendingSummaries) {
+                AggregateRepository.replaceCatalog(conn, summary.catalogId(), summary.company(), summary.aggregates());
+            }
+            conn.commit();
+            logger.debug("Зафиксирована группа: каталогов {}, растений {}", pendingSummaries.size(), pendingPlants.size());
+        } catch (SQLException e) {
+            throw new RuntimeException("Ошибка при фиксации группы каталогов", e);
+        } finally {
+            pendingPlants.clear();
+            pendingSummaries.clear();
+        }
+    }
+
+    /**
+     * Сводка каталога, ожидающая фиксации группы.
+     */
+    private record PendingSummary(int catalogId, String company, List<PlantAggregate> aggregates) {
+    }
+}
@@ -1,11 +1,10 @@
 package com.example.xmlparser.validator;
 
+import com.example.xmlparser.jfr.ValidationEvent;
 import com.example.xmlparser.model.Catalog;
 
 import java.util.ArrayList;
 import java.util.List;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Валидатор для объекта {@link Catalog}.
@@ -13,17 +12,15 @@ import org.slf4j.LoggerFactory;
  */
 public final class CatalogValidator {
 
-    private static final Logger logger = LoggerFactory.getLogger(CatalogValidator.class);
-
     /**
      * Минимальная допустимая длина названия компании
      */
-    private static final int MIN_COMPANY_LENGTH = 2;
+    public static final int MIN_COMPANY_LENGTH = 2;
 
     /**
      * Максимальная допустимая длина названия компании
      */
-    private static final int MAX_COMPANY_LENGTH = 100;
+    public static final int MAX_COMPANY_LENGTH = 100;
 
     /**
      * Разрешённые символы в названии компании: буквы, пробелы, тире, кавычки, запятые
@@ -36,52 +33,75 @@ public final class CatalogValidator {
 
     /**
      * Выполняет валидацию полей каталога.
+     * Ошибки записываются в лог выборочно, через {@link ValidationLog#DEFAULT}.
      *
      * @param catalog объект {@link Catalog} для проверки
      * @return список строк с описаниями ошибок. Если ошибок нет — список пуст.
      */
     public static List<String> validate(Catalog catalog) {
-        logger.info("Валидация каталога: " + catalog.getCompany());
-        List<String> errors = new ArrayList<>();
+        List<ValidationError> violations = check(catalog);
+
+        List<String> errors = new ArrayList<>(violations.size());
+        for (ValidationError violation : violations) {
+            errors.add(violation.message());
+            ValidationLog.DEFAULT.record(violation.rule(), catalog.getUuid(), violation.message());
+        }
+        return errors;
+    }
+
+    /**
+     * Проверяет поля каталога без записи в лог, возвращая нарушенные правила.
+     * Используется там, где ошибки агрегируются, например при пробном запуске.
+     *
+     * @param catalog объект {@link Catalog} для проверки
+     * @return нарушения в порядке проверки; пустой список, если каталог корректен
+     */
+    public static List<ValidationError> check(Catalog catalog) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+
+        List<ValidationError> errors = new ArrayList<>();
 
         // UUID
         if (catalog.getUuid() == null || catalog.getUuid().isBlank()) {
-            errors.add("UUID каталога не может быть пустым");
-            logger.warn("Ошибка валидации: UUID пустой");
+            errors.add(new ValidationError(ValidationRule.CATALOG_UUID_EMPTY,
+                    "UUID каталога не может быть пустым"));
         }
 
         // Delivery Date
         if (catalog.getDeliveryDate() == null) {
-            errors.add("Дата доставки не может быть пустой");
-            logger.warn("Ошибка валидации: дата доставки не указана");
+            errors.add(new ValidationError(ValidationRule.CATALOG_DATE_EMPTY,
+                    "Дата доставки не может быть пустой"));
         }
 
         // Company
         String company = catalog.getCompany();
         if (company == null || company.isBlank()) {
-            errors.add("Название компании не может быть пустым");
-            logger.warn("Ошибка валидации: название компании пустое");
+            errors.add(new ValidationError(ValidationRule.CATALOG_COMPANY_EMPTY,
+                    "Название компании не может быть пустым"));
         } else {
             if (company.length() < MIN_COMPANY_LENGTH || company.length() > MAX_COMPANY_LENGTH) {
-                errors.add("Название компании должно быть длиной от 2 до 100 символов");
-                logger.warn("Ошибка валидации: название компании должно быть длиной от 2 до 100 символов");
+                errors.add(new ValidationError(ValidationRule.CATALOG_COMPANY_LENGTH,
+                        "Название компании должно быть длиной от 2 до 100 символов"));
             }
             if (!company.matches(COMPANY_NAME_PATTERN)) {
-                errors.add("Название компании должно содержать только буквы, тире, запятые, кавычки или пробел");
-                logger.warn("Ошибка валидации: название компании содержит недопустимые символы");
+                errors.add(new ValidationError(ValidationRule.CATALOG_COMPANY_CHARS,
+                        "Название компании должно содержать только буквы, тире, запятые, кавычки или пробел"));
             }
         }
 
         // Plants presence
         if (catalog.getPlants() == null || catalog.getPlants().isEmpty()) {
-            errors.add("Каталог должен содержать хотя бы одно растение");
-            logger.warn("Ошибка валидации: каталог не содержит растений");
+            errors.add(new ValidationError(ValidationRule.CATALOG_NO_PLANTS,
+                    "Каталог должен содержать хотя бы одно растение"));
         }
 
-        if (errors.isEmpty()) {
-            logger.info("Каталог прошел валидацию успешно: " + catalog.getCompany());
-        } else {
-            logger.info("Каталог не прошел валидацию. Кол-во ошибок: " + errors.size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.target = "CATALOG";
+            event.subject = catalog.getUuid();
+            event.errorCount = errors.size();
+            event.commit();
         }
 
         return errors;
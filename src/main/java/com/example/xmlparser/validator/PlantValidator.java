@@ -1,12 +1,11 @@
 package com.example.xmlparser.validator;
 
+import com.example.xmlparser.jfr.ValidationEvent;
 import com.example.xmlparser.model.Plant;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Валидатор для объектов {@link Plant}.
@@ -14,17 +13,15 @@ import org.slf4j.LoggerFactory;
  */
 public final class PlantValidator {
 
-    private static final Logger logger = LoggerFactory.getLogger(PlantValidator.class);
-
     /**
      * Минимальная допустимая длина названия растения
      */
-    private static final int MIN_NAME_LENGTH = 2;
+    public static final int MIN_NAME_LENGTH = 2;
 
     /**
      * Максимальная допустимая длина названия растения
      */
-    private static final int MAX_NAME_LENGTH = 100;
+    public static final int MAX_NAME_LENGTH = 100;
 
     /**
      * Разрешённые символы в названии растения: буквы, пробелы, тире, кавычки, запятые
@@ -37,28 +34,49 @@ public final class PlantValidator {
 
     /**
      * Валидирует переданный объект {@link Plant}.
+     * Ошибки записываются в лог выборочно, через {@link ValidationLog#DEFAULT}.
      *
      * @param plant объект растения
      * @return список ошибок (если пустой — валидация успешна)
      */
     public static List<String> validate(Plant plant) {
-        List<String> errors = new ArrayList<>();
-        logger.info("Начало валидации растения:" + plant.getBotanical());
+        List<ValidationError> violations = check(plant);
+
+        List<String> errors = new ArrayList<>(violations.size());
+        for (ValidationError violation : violations) {
+            errors.add(violation.message());
+            ValidationLog.DEFAULT.record(violation.rule(), plant.getBotanical(), violation.message());
+        }
+        return errors;
+    }
+
+    /**
+     * Проверяет поля растения без записи в лог, возвращая нарушенные правила.
+     * Используется там, где ошибки агрегируются, например при пробном запуске.
+     *
+     * @param plant объект растения
+     * @return нарушения в порядке проверки; пустой список, если растение корректно
+     */
+    public static List<ValidationError> check(Plant plant) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+
+        List<ValidationError> errors = new ArrayList<>();
 
         // COMMON (опциональное поле)
         String common = plant.getCommon();
         if (common != null) {
             if (common.isBlank()) {
-                errors.add("Народное название заполнено, но состоит только из пробелов");
-                logger.warn("Народное название состоит из пробелов");
+                errors.add(new ValidationError(ValidationRule.PLANT_COMMON_BLANK,
+                        "Народное название заполнено, но состоит только из пробелов"));
             } else {
                 if (common.length() < MIN_NAME_LENGTH || common.length() > MAX_NAME_LENGTH) {
-                    errors.add("Народное название должно быть длиной от 2 до 100 символов");
-                    logger.warn("Народное название должно быть длиной от 2 до 100 символов: " + common.length());
+                    errors.add(new ValidationError(ValidationRule.PLANT_COMMON_LENGTH,
+                            "Народное название должно быть длиной от 2 до 100 символов"));
                 }
                 if (!common.matches(NAME_PATTERN)) {
-                    errors.add("Народное название должно содержать только буквы, тире, запятую, кавычки или пробел");
-                    logger.warn("Народное название содержит недопустимые символы: " + common);
+                    errors.add(new ValidationError(ValidationRule.PLANT_COMMON_CHARS,
+                            "Народное название должно содержать только буквы, тире, запятую, кавычки или пробел"));
                 }
             }
         }
@@ -66,58 +84,60 @@ public final class PlantValidator {
         // BOTANICAL (обязательное поле)
         String botanical = plant.getBotanical();
         if (botanical == null || botanical.isBlank()) {
-            errors.add("Научное название не может быть пустым");
-            logger.warn("Научное название отсутствует");
+            errors.add(new ValidationError(ValidationRule.PLANT_BOTANICAL_EMPTY,
+                    "Научное название не может быть пустым"));
         } else {
             if (botanical.length() < MIN_NAME_LENGTH || botanical.length() > MAX_NAME_LENGTH) {
-                errors.add("Научное название должно быть длиной от 2 до 100 символов");
-                logger.warn("Научное название должно быть длиной от 2 до 100 символов: " + botanical.length());
+                errors.add(new ValidationError(ValidationRule.PLANT_BOTANICAL_LENGTH,
+                        "Научное название должно быть длиной от 2 до 100 символов"));
             }
             if (!botanical.matches(NAME_PATTERN)) {
-                errors.add("Научное название должно содержать только буквы, тире, запятую, кавычки или пробел");
-                logger.warn("Научное название содержит недопустимые символы: " + botanical);
+                errors.add(new ValidationError(ValidationRule.PLANT_BOTANICAL_CHARS,
+                        "Научное название должно содержать только буквы, тире, запятую, кавычки или пробел"));
             }
         }
 
         // ZONE
         int zone = plant.getZoneAsInt();
         if (zone <= 0) {
-            errors.add("Зона должна быть положительным числом, но значение: " + plant.getZoneText());
-            logger.warn("Некорректная зона: " + plant.getZoneText());
+            errors.add(new ValidationError(ValidationRule.PLANT_ZONE_INVALID,
+                    "Зона должна быть положительным числом, но значение: " + plant.getZoneText()));
         }
 
         // LIGHT
         String light = plant.getLight();
         if (light == null || light.isBlank()) {
-            errors.add("Описание освещения не может быть пустым");
-            logger.warn("Поле light пустое");
+            errors.add(new ValidationError(ValidationRule.PLANT_LIGHT_EMPTY,
+                    "Описание освещения не может быть пустым"));
         }
 
         // PRICE
         BigDecimal price = plant.getPrice();
         if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
-            errors.add("Цена должна быть положительной");
-            logger.warn("Цена должна быть положительной: " + price);
+            errors.add(new ValidationError(ValidationRule.PLANT_PRICE_INVALID,
+                    "Цена должна быть положительной"));
         }
 
         // AVAILABILITY
         int availability = plant.getAvailability();
         if (availability <= 0) {
-            errors.add("Количество должно быть положительным числом");
-            logger.warn("Количество должно быть положительным числом: " + availability);
+            errors.add(new ValidationError(ValidationRule.PLANT_AVAILABILITY_INVALID,
+                    "Количество должно быть положительным числом"));
         }
 
         // CATALOG ID
         int catalogId = plant.getCatalogId();
         if (catalogId <= 0) {
-            errors.add("catalogId не должен быть пустым или отрицательным");
-            logger.warn("catalogId не должен быть пустым или отрицательным: " + catalogId);
+            errors.add(new ValidationError(ValidationRule.PLANT_CATALOG_ID_INVALID,
+                    "catalogId не должен быть пустым или отрицательным"));
         }
 
-        if (errors.isEmpty()) {
-            logger.info("Валидация растения прошла успешно.");
-        } else {
-            logger.info("Валидация завершена с ошибками: " + errors);
+        event.end();
+        if (event.shouldCommit()) {
+            event.target = "PLANT";
+            event.subject = plant.getBotanical();
+            event.errorCount = errors.size();
+            event.commit();
         }
 
         return errors;
@@ -0,0 +1,10 @@
+package com.example.xmlparser.validator;
+
+/**
+ * Нарушение правила валидации.
+ *
+ * @param rule    нарушенное правило
+ * @param message описание ошибки для пользователя
+ */
+public record ValidationError(ValidationRule rule, String message) {
+}
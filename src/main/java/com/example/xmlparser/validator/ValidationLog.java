@@ -0,0 +1,117 @@
+package com.example.xmlparser.validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Выборочная запись ошибок валидации в лог.
+ * <p>
+ * Первые {@code samplesPerRule} нарушений каждого правила записываются полностью, как примеры; остальные
+ * только считаются и выводятся одной строкой-сводкой по правилам не чаще раза в {@code intervalMs}
+ * и при вызове {@link #flush()}. Так на «грязных» входных данных запись в лог не ограничивает скорость
+ * загрузки, а сами отклонённые записи сохраняются в {@link com.example.xmlparser.reject.RejectStore}.
+ */
+public final class ValidationLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationLog.class);
+
+    /**
+     * Количество примеров на правило по умолчанию.
+     */
+    public static final int DEFAULT_SAMPLES = 3;
+
+    /**
+     * Интервал между сводками по умолчанию, мс.
+     */
+    public static final long DEFAULT_INTERVAL_MS = 10_000;
+
+    /**
+     * Общий журнал валидаторов.
+     */
+    public static final ValidationLog DEFAULT = new ValidationLog(DEFAULT_SAMPLES, DEFAULT_INTERVAL_MS);
+
+    private final int samplesPerRule;
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final Map<ValidationRule, Long> totals = new EnumMap<>(ValidationRule.class);
+    private final Map<ValidationRule, Long> suppressed = new EnumMap<>(ValidationRule.class);
+    private long lastSummary;
+    private long lines;
+
+    /**
+     * @param samplesPerRule количество нарушений каждого правила, записываемых полностью
+     * @param intervalMs     минимальный интервал между сводками, мс
+     */
+    public ValidationLog(int samplesPerRule, long intervalMs) {
+        this(samplesPerRule, intervalMs, System::nanoTime);
+    }
+
+    ValidationLog(int samplesPerRule, long intervalMs, LongSupplier clock) {
+        if (samplesPerRule < 0 || intervalMs < 1) {
+            throw new IllegalArgumentException("Количество примеров должно быть неотрицательным, а интервал — положительным");
+        }
+        this.samplesPerRule = samplesPerRule;
+        this.intervalNanos = intervalMs * 1_000_000L;
+        this.clock = clock;
+        this.lastSummary = clock.getAsLong();
+    }
+
+    /**
+     * Учитывает нарушение правила: записывает его как пример или добавляет в следующую сводку.
+     *
+     * @param rule    нарушенное правило
+     * @param subject запись, нарушившая правило (UUID каталога, название растения)
+     * @param message описание ошибки
+     */
+    public synchronized void record(ValidationRule rule, String subject, String message) {
+        long seen = totals.merge(rule, 1L, Long::sum);
+        if (seen <= samplesPerRule) {
+            lines++;
+            logger.warn("Ошибка валидации {} ({}): {}{}", rule, subject, message,
+                    seen == samplesPerRule ? " — дальнейшие нарушения правила выводятся сводкой" : "");
+            return;
+        }
+        suppressed.merge(rule, 1L, Long::sum);
+        if (clock.getAsLong() - lastSummary >= intervalNanos) {
+            summarize();
+        }
+    }
+
+    /**
+     * Выводит сводку по нарушениям, накопленным после предыдущей сводки.
+     */
+    public synchronized void flush() {
+        if (!suppressed.isEmpty()) {
+            summarize();
+        }
+    }
+
+    /**
+     * @param rule правило
+     * @return количество учтённых нарушений правила
+     */
+    public synchronized long getTotal(ValidationRule rule) {
+        return totals.getOrDefault(rule, 0L);
+    }
+
+    /**
+     * @return количество записанных в лог строк: примеров и сводок
+     */
+    public synchronized long getLines() {
+        return lines;
+    }
+
+    private void summarize() {
+        long now = clock.getAsLong();
+        long count = suppressed.values().stream().mapToLong(Long::longValue).sum();
+        lines++;
+        logger.warn("Отклонено по правилам валидации за {} с: {} {}",
+                String.format("%.1f", (now - lastSummary) / 1e9), count, suppressed);
+        suppressed.clear();
+        lastSummary = now;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.xmlparser.validator;
+
+/**
+ * Правила валидации каталогов и растений.
+ * <p>
+ * Коды правил совпадают с кодами ошибок, которые записывает SQL-валидация режима staging
+ * (см. {@code StagingRepository}), поэтому отчёты обоих режимов можно сравнивать напрямую.
+ */
+public enum ValidationRule {
+
+    CATALOG_UUID_EMPTY,
+    CATALOG_DATE_EMPTY,
+    CATALOG_COMPANY_EMPTY,
+    CATALOG_COMPANY_LENGTH,
+    CATALOG_COMPANY_CHARS,
+    CATALOG_NO_PLANTS,
+    /**
+     * UUID каталога уже загружен (в базе данных или ранее в том же запуске).
+     */
+    CATALOG_DUPLICATE,
+    PLANT_COMMON_BLANK,
+    PLANT_COMMON_LENGTH,
+    PLANT_COMMON_CHARS,
+    PLANT_BOTANICAL_EMPTY,
+    PLANT_BOTANICAL_LENGTH,
+    PLANT_BOTANICAL_CHARS,
+    PLANT_ZONE_INVALID,
+    PLANT_LIGHT_EMPTY,
+    PLANT_PRICE_INVALID,
+    PLANT_AVAILABILITY_INVALID,
+    /**
+     * Растение не привязано к сохранённому каталогу; в режиме staging не проверяется.
+     */
+    PLANT_CATALOG_ID_INVALID
+}
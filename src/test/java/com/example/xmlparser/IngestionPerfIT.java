@@ -0,0 +1,371 @@
+package com.example.xmlparser;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.db.DatabaseManager;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.github.cdimascio.dotenv.DotenvEntry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Нагрузочный набор: полный цикл разбор → валидация → запись в PostgreSQL через {@link Main}
+ * на сгенерированных наборах растений.
+ * <p>
+ * Запускается профилем perf ({@code mvn verify -Pperf}) и пропускается, если сервер PostgreSQL из .env недоступен.
+ * Загрузка идёт в отдельную базу {@code perf.db}: профиль передаёт её имя приложению переменной окружения DB_NAME,
+ * а набор создаёт базу по init.sql, если её нет, и очищает её таблицы перед каждым размером.
+ * Для каждого размера из {@code perf.sizes} измеряются растений в секунду, пиковая куча, пиковый RSS процесса
+ * и количество обращений к базе (записей в сокет по событиям JFR). Результаты пишутся в target/perf/results.properties
+ * и сравниваются с src/test/resources/perf/baseline.properties; размер без базового значения считается ошибкой.
+ */
+public class IngestionPerfIT {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionPerfIT.class);
+
+    private static final Path WORK_DIR = Path.of("target", "perf");
+    private static final Path BASELINE = Path.of("src", "test", "resources", "perf", "baseline.properties");
+    private static final Path INIT_SQL = Path.of("docker", "docker-entrypoint-initdb.d", "init.sql");
+    private static final Path MIGRATE_SQL = Path.of("docker", "migrate.sql");
+    private static final int PLANTS_PER_FILE = 10_000;
+
+    private static final String[] COMMONS = {"Флокс", "Аквилегия", "Триллиум", "Кровавый корень", "Ветреница"};
+    private static final String[] BOTANICALS = {"Phlox divaricata", "Aquilegia canadensis", "Trillium grandiflorum",
+            "Sanguinaria canadensis", "Anemone blanda"};
+    private static final String[] LIGHTS = {"Тень", "Солнце", "По большей части тень", "Полутень"};
+
+    @BeforeAll
+    public static void requireDatabase() throws Exception {
+        String perfDb = System.getProperty("perf.db", "xmlparser_perf");
+        Map<String, String> declared = new HashMap<>();
+        PGSimpleDataSource server;
+        try {
+            Dotenv dotenv = Dotenv.load();
+            for (DotenvEntry entry : dotenv.entries(Dotenv.Filter.DECLARED_IN_ENV_FILE)) {
+                declared.put(entry.getKey(), entry.getValue());
+            }
+            server = new PGSimpleDataSource();
+            server.setURL(String.format("jdbc:postgresql://%s:%s/%s",
+                    dotenv.get("DB_HOST"), dotenv.get("DB_PORT"), declared.get("DB_NAME")));
+            server.setUser(dotenv.get("DB_USERNAME"));
+            server.setPassword(dotenv.get("DB_PASSWORD"));
+            server.getConnection().close();
+        } catch (SQLException | RuntimeException e) {
+            server = null;
+        }
+        assumeTrue(server != null, "PostgreSQL из .env недоступен — нагрузочный набор пропущен");
+
+        // Приложение берёт имя базы из переменной окружения DB_NAME, которая важнее .env
+        if (!perfDb.equals(System.getenv("DB_NAME")) || perfDb.equals(declared.get("DB_NAME"))) {
+            throw new IllegalStateException("Нагрузочный набор должен писать в отдельную базу: задайте DB_NAME=" + perfDb
+                    + " (профиль perf делает это сам) и имя, отличное от базы из .env");
+        }
+        boolean exists;
+        try (Connection conn = server.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM pg_database WHERE datname = ?")) {
+            stmt.setString(1, perfDb);
+            try (ResultSet rs = stmt.executeQuery()) {
+                exists = rs.next();
+            }
+            if (!exists) {
+                try (Statement create = conn.createStatement()) {
+                    create.execute("CREATE DATABASE \"" + perfDb.replace("\"", "\"\"") + "\"");
+                }
+                logger.info("Создана база нагрузочного набора {}", perfDb);
+            }
+        }
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            if (!exists) {
+                stmt.execute(schemaOnly(Files.readString(INIT_SQL)));
+            }
+            // Доводит до текущей схемы базу, созданную предыдущей версией набора
+            stmt.execute(Files.readString(MIGRATE_SQL));
+        }
+    }
+
+    /**
+     * Прогоняет все размеры набора и проверяет пропускную способность относительно базовой.
+     */
+    @Test
+    public void testThroughputAgainstBaseline() throws Exception {
+        List<Long> sizes = new ArrayList<>();
+        for (String size : System.getProperty("perf.sizes", "10000").split(",")) {
+            sizes.add(Long.parseLong(size.trim()));
+        }
+        double threshold = Double.parseDouble(System.getProperty("perf.threshold", "0.2"));
+        List<String> extraArgs = List.of(System.getProperty("perf.args", "").trim().split("\\s+"));
+
+        boolean updateBaseline = Boolean.getBoolean("perf.updateBaseline");
+
+        Properties baseline = new Properties();
+        if (Files.exists(BASELINE)) {
+            try (InputStream in = Files.newInputStream(BASELINE)) {
+                baseline.load(in);
+            }
+        }
+
+        Properties results = new Properties();
+        List<String> regressions = new ArrayList<>();
+        for (long size : sizes) {
+            Measurement m = measure(size, extraArgs);
+            String prefix = "plants." + size + ".";
+            results.setProperty(prefix + "rowsPerSecond", String.valueOf(Math.round(m.rowsPerSecond())));
+            results.setProperty(prefix + "seconds", String.format(Locale.ROOT, "%.3f", m.elapsed().toMillis() / 1000.0));
+            results.setProperty(prefix + "peakHeapMb", String.valueOf(m.peakHeapBytes() / (1024 * 1024)));
+            results.setProperty(prefix + "peakRssMb", String.valueOf(m.peakRssBytes() / (1024 * 1024)));
+            results.setProperty(prefix + "dbRoundTrips", String.valueOf(m.roundTrips()));
+            logger.info("perf {} растений: {} строк/с, {} с, куча {} МБ, RSS {} МБ, обращений к БД {}",
+                    size, Math.round(m.rowsPerSecond()), results.getProperty(prefix + "seconds"),
+                    m.peakHeapBytes() >> 20, m.peakRssBytes() >> 20, m.roundTrips());
+
+            String expected = baseline.getProperty(prefix + "rowsPerSecond");
+            if (expected == null) {
+                if (!updateBaseline) {
+                    regressions.add(size + " растений: нет базового значения " + prefix + "rowsPerSecond");
+                }
+            } else if (m.rowsPerSecond() < Double.parseDouble(expected) * (1 - threshold)) {
+                regressions.add(String.format(Locale.ROOT, "%d растений: %.0f строк/с при базовых %s",
+                        size, m.rowsPerSecond(), expected));
+            }
+        }
+
+        Files.createDirectories(WORK_DIR);
+        try (OutputStream out = Files.newOutputStream(WORK_DIR.resolve("results.properties"))) {
+            results.store(out, "Результаты IngestionPerfIT");
+        }
+        if (updateBaseline) {
+            for (String name : results.stringPropertyNames()) {
+                if (name.endsWith(".rowsPerSecond")) {
+                    baseline.setProperty(name, results.getProperty(name));
+                }
+            }
+            try (OutputStream out = Files.newOutputStream(BASELINE)) {
+                baseline.store(out, "Базовая пропускная способность IngestionPerfIT, растений в секунду");
+            }
+        }
+
+        assertTrue(regressions.isEmpty(), "Пропускная способность ниже базовой более чем на "
+                + Math.round(threshold * 100) + "% или базы для сравнения нет: " + regressions);
+    }
+
+    private record Measurement(Duration elapsed, double rowsPerSecond, long peakHeapBytes, long peakRssBytes,
+                               long roundTrips) {
+    }
+
+    private static Measurement measure(long plants, List<String> extraArgs) throws Exception {
+        String run = letters(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+        Path dataDir = WORK_DIR.resolve("data-" + plants);
+        generate(dataDir, run, plants);
+        truncate();
+
+        List<String> args = new ArrayList<>();
+        args.add(dataDir.toString());
+        for (String arg : extraArgs) {
+            if (!arg.isEmpty()) {
+                args.add(arg);
+            }
+        }
+        CommandLineOptions options = CommandLineOptions.parse(args.toArray(new String[0]));
+
+        System.gc();
+        resetPeaks();
+        Path jfrFile = WORK_DIR.resolve("run-" + plants + ".jfr");
+        long started;
+        long finished;
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.SocketWrite").withThreshold(Duration.ZERO);
+            recording.setDestination(jfrFile);
+            recording.start();
+            started = System.nanoTime();
+            Main.run(options);
+            finished = System.nanoTime();
+            recording.stop();
+        }
+        long peakHeap = peakHeap();
+        long peakRss = peakRss();
+
+        long roundTrips = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(jfrFile)) {
+            if ("jdk.SocketWrite".equals(event.getEventType().getName())) {
+                roundTrips++;
+            }
+        }
+
+        assertEquals(plants, countPlants(), "Загружены не все растения набора");
+        deleteRecursively(dataDir);
+
+        Duration elapsed = Duration.ofNanos(finished - started);
+        return new Measurement(elapsed, plants * 1e9 / (finished - started), peakHeap, peakRss, roundTrips);
+    }
+
+    /**
+     * Генерирует валидные каталоги по {@link #PLANTS_PER_FILE} растений в файле.
+     */
+    private static void generate(Path dir, String run, long plants) throws IOException {
+        deleteRecursively(dir);
+        Files.createDirectories(dir);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long remaining = plants;
+        for (int file = 0; remaining > 0; file++) {
+            int count = (int) Math.min(PLANTS_PER_FILE, remaining);
+            remaining -= count;
+            try (BufferedWriter out = Files.newBufferedWriter(dir.resolve(String.format("plants_%06d.xml", file)),
+                    StandardCharsets.UTF_8)) {
+                out.write("<CATALOG uuid=\"perf-" + run + "-" + file + "\" date=\"01.05.2024\" company=\"Нагрузка "
+                        + run + "\">\n");
+                for (int i = 0; i < count; i++) {
+                    int kind = random.nextInt(COMMONS.length);
+                    out.write("\t<PLANT>\n");
+                    out.write("\t\t<COMMON>" + COMMONS[kind] + " " + letters(i) + "</COMMON>\n");
+                    out.write("\t\t<BOTANICAL>" + BOTANICALS[kind] + "</BOTANICAL>\n");
+                    out.write("\t\t<ZONE>" + (1 + random.nextInt(9)) + "</ZONE>\n");
+                    out.write("\t\t<LIGHT>" + LIGHTS[random.nextInt(LIGHTS.length)] + "</LIGHT>\n");
+                    out.write(String.format(Locale.ROOT, "\t\t<PRICE>$%d.%02d</PRICE>\n",
+                            1 + random.nextInt(50), random.nextInt(100)));
+                    out.write("\t\t<AVAILABILITY>" + random.nextInt(100_000) + "</AVAILABILITY>\n");
+                    out.write("\t</PLANT>\n");
+                }
+                out.write("</CATALOG>\n");
+            }
+        }
+    }
+
+    /**
+     * Оставляет из дампа init.sql только схему: блоки COPY с данными выполняются лишь через psql.
+     */
+    private static String schemaOnly(String dump) {
+        StringBuilder schema = new StringBuilder();
+        boolean copy = false;
+        for (String line : dump.split("\n")) {
+            if (copy) {
+                copy = !line.strip().equals("\\.");
+            } else if (line.startsWith("COPY ")) {
+                copy = true;
+            } else {
+                schema.append(line).append('\n');
+            }
+        }
+        return schema.toString();
+    }
+
+    /**
+     * Очищает таблицы каталогов, сводок и отклонённых записей базы набора; история запусков сохраняется.
+     */
+    private static void truncate() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    TRUNCATE f_cat_plants, d_cat_catalog, a_cat_catalog_summary, a_cat_dimension_summary,
+                             r_cat_reject, ingest_checkpoint
+                    """);
+        }
+    }
+
+    private static long countPlants() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM f_cat_plants")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Сбрасывает пики использования кучи и, на Linux, пиковый RSS процесса.
+     */
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        try {
+            Files.writeString(Path.of("/proc/self/clear_refs"), "5");
+        } catch (IOException | UnsupportedOperationException e) {
+            // Нет procfs или прав: пиковый RSS считается с запуска JVM
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * @return пиковый RSS процесса (VmHWM) в байтах или -1, если он недоступен
+     */
+    private static long peakRss() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException e) {
+            // Не Linux
+        }
+        return -1;
+    }
+
+    /**
+     * Кодирует число буквами, чтобы имена проходили валидацию (цифры в именах запрещены).
+     */
+    private static String letters(long value) {
+        StringBuilder result = new StringBuilder();
+        long rest = value;
+        do {
+            result.append((char) ('a' + rest % 26));
+            rest /= 26;
+        } while (rest > 0);
+        return result.toString();
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
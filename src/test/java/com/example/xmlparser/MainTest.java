@@ -0,0 +1,94 @@
+package com.example.xmlparser;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.sink.ColumnarFileReader;
+import com.example.xmlparser.sink.PlantColumns;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты загрузки через {@link Main} в колоночный приёмник (без базы данных).
+ */
+public class MainTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что при повторной поставке растений той же компанией в новом каталоге следующего запуска
+     * они отсеиваются по сохранённому фильтру, а такие же растения другой компании — сохраняются.
+     */
+    @Test
+    public void testDedupAcrossRuns() throws Exception {
+        Path filter = tempDir.resolve("dedup.bloom");
+
+        Path first = Files.createDirectories(tempDir.resolve("first"));
+        writeCatalog(first.resolve("a.xml"), "uuid-1", "Flowers", "Phlox divaricata", "Phlox divaricata",
+                "Trillium grandiflorum");
+        Path firstOutput = tempDir.resolve("first.xpc");
+        Main.run(CommandLineOptions.parse(new String[]{first.toString(), "--sink=columnar",
+                "--output=" + firstOutput, "--dedup", "--dedup-filter=" + filter}));
+
+        assertEquals(Map.of("uuid-1", 2), plantsByCatalog(firstOutput));
+        assertTrue(Files.exists(filter));
+
+        Path second = Files.createDirectories(tempDir.resolve("second"));
+        writeCatalog(second.resolve("b.xml"), "uuid-2", "Flowers", "Phlox divaricata", "Trillium grandiflorum",
+                "Claytonia Virginica");
+        writeCatalog(second.resolve("c.xml"), "uuid-3", "Garden", "Phlox divaricata", "Trillium grandiflorum");
+        Path secondOutput = tempDir.resolve("second.xpc");
+        Main.run(CommandLineOptions.parse(new String[]{second.toString(), "--sink=columnar",
+                "--output=" + secondOutput, "--dedup", "--dedup-filter=" + filter}));
+
+        assertEquals(Map.of("uuid-2", 1, "uuid-3", 2), plantsByCatalog(secondOutput));
+    }
+
+    private static Map<String, Integer> plantsByCatalog(Path file) throws IOException {
+        Map<Integer, String> uuids = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+            reader.read(new ColumnarFileReader.Visitor() {
+                @Override
+                public void onCatalog(Catalog catalog) {
+                    uuids.put(catalog.getId(), catalog.getUuid());
+                    counts.put(catalog.getUuid(), 0);
+                }
+
+                @Override
+                public void onPlants(PlantColumns columns) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        counts.merge(uuids.get(columns.toPlant(i).getCatalogId()), 1, Integer::sum);
+                    }
+                }
+            });
+        }
+        return counts;
+    }
+
+    private static void writeCatalog(Path file, String uuid, String company, String... botanicals) throws IOException {
+        StringBuilder xml = new StringBuilder("<CATALOG uuid=\"" + uuid + "\" date=\"12.10.2019\" company=\""
+                + company + "\">\n");
+        for (String botanical : botanicals) {
+            xml.append("    <PLANT>\n")
+                    .append("        <COMMON>Растение</COMMON>\n")
+                    .append("        <BOTANICAL>").append(botanical).append("</BOTANICAL>\n")
+                    .append("        <ZONE>4</ZONE>\n")
+                    .append("        <LIGHT>Тень</LIGHT>\n")
+                    .append("        <PRICE>$5.59</PRICE>\n")
+                    .append("        <AVAILABILITY>021699</AVAILABILITY>\n")
+                    .append("    </PLANT>\n");
+        }
+        xml.append("</CATALOG>\n");
+        Files.writeString(file, xml, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.xmlparser.aggregate;
+
+import com.example.xmlparser.model.Plant;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для инкрементального подсчёта агрегатов растений.
+ */
+public class PlantAggregatorTest {
+
+    /**
+     * Проверяет группировку по паре (зона, освещение) и подсчёт количества, суммы, границ цены и наличия.
+     */
+    @Test
+    public void testAggregatesByZoneAndLight() {
+        PlantAggregator aggregator = new PlantAggregator();
+        aggregator.addAll(List.of(
+                plant("4", "Тень", "5.59", 7),
+                plant("4", "Тень", "10.00", 3),
+                plant("3", "Солнце", "2.50", 1)));
+        aggregator.add(plant("4", "Тень", "1.25", 0));
+
+        List<PlantAggregate> result = aggregator.result();
+        assertEquals(2, result.size());
+
+        PlantAggregate shade = result.get(0);
+        assertEquals(4, shade.zone());
+        assertEquals("Тень", shade.light());
+        assertEquals(3, shade.plantCount());
+        assertEquals(0, new BigDecimal("16.84").compareTo(shade.priceSum()));
+        assertEquals(0, new BigDecimal("1.25").compareTo(shade.priceMin()));
+        assertEquals(0, new BigDecimal("10").compareTo(shade.priceMax()));
+        assertEquals(10, shade.availabilityTotal());
+
+        PlantAggregate sun = result.get(1);
+        assertEquals(3, sun.zone());
+        assertEquals(1, sun.plantCount());
+        assertEquals(1, sun.availabilityTotal());
+    }
+
+    /**
+     * Проверяет, что после сброса агрегаты следующего каталога считаются с нуля.
+     */
+    @Test
+    public void testClear() {
+        PlantAggregator aggregator = new PlantAggregator();
+        aggregator.add(plant("4", "Тень", "5.59", 7));
+        aggregator.clear();
+
+        assertTrue(aggregator.isEmpty());
+        assertTrue(aggregator.result().isEmpty());
+    }
+
+    private static Plant plant(String zone, String light, String price, int availability) {
+        Plant plant = new Plant();
+        plant.setCommon("Флокс");
+        plant.setBotanical("Phlox divaricata");
+        plant.setZoneText(zone);
+        plant.setLight(light);
+        plant.setPrice(new BigDecimal(price));
+        plant.setAvailability(availability);
+        return plant;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.xmlparser.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для разбора аргументов командной строки.
+ */
+public class CommandLineOptionsTest {
+
+    /**
+     * Проверяет, что позиционные аргументы и опции разбираются независимо от порядка.
+     */
+    @Test
+    public void testPositionalAndOptions() {
+        CommandLineOptions options = CommandLineOptions.parse(new String[]{"--mode=upsert", "./data", "--verbose",
+                "--exclude=archive/**, ,*.bak"});
+
+        assertEquals(List.of("./data"), options.getPositional());
+        assertEquals(List.of("archive/**", "*.bak"), options.getList("exclude"));
+        assertEquals(List.of(), options.getList("include"));
+        assertEquals(CommandLineOptions.WriteMode.UPSERT, options.getWriteMode());
+        assertTrue(options.has("verbose"));
+        assertFalse(options.has("mode-missing"));
+        assertEquals(3, options.getOptions().size());
+        assertEquals("true", options.getOptions().get("verbose"));
+    }
+
+    /**
+     * Проверяет значения по умолчанию при отсутствии опций.
+     */
+    @Test
+    public void testDefaults() {
+        CommandLineOptions options = CommandLineOptions.parse(new String[0]);
+
+        assertTrue(options.getPositional().isEmpty());
+        assertEquals(CommandLineOptions.WriteMode.INSERT, options.getWriteMode());
+        assertEquals(42, options.getInt("batch-size", 42));
+        assertEquals("x", options.getString("name", "x"));
+    }
+
+    /**
+     * Проверяет, что некорректные значения опций приводят к ошибке.
+     */
+    @Test
+    public void testInvalidValues() {
+        CommandLineOptions options = CommandLineOptions.parse(new String[]{"--mode=merge", "--batch-size=abc"});
+
+        assertThrows(IllegalArgumentException.class, options::getWriteMode);
+        assertThrows(IllegalArgumentException.class, () -> options.getInt("batch-size", 1));
+        assertThrows(IllegalArgumentException.class, () -> options.getDouble("batch-size", 0.5));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[]{"--"}));
+    }
+}
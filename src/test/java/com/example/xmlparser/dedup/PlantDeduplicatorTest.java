@@ -0,0 +1,99 @@
+package com.example.xmlparser.dedup;
+
+import com.example.xmlparser.model.Plant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для отсева повторяющихся растений и фильтра Блума.
+ */
+public class PlantDeduplicatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет точный отсев повторов внутри каталога, в том числе цен, отличающихся только хвостовыми нулями.
+     */
+    @Test
+    public void testWithinCatalog() {
+        PlantDeduplicator dedup = new PlantDeduplicator(null);
+
+        List<Plant> unique = dedup.filter("uuid-1", List.of(
+                plant("Trillium grandiflorum", "5.59", 7),
+                plant("Trillium grandiflorum", "5.590", 7),
+                plant("Trillium grandiflorum", "5.59", 8)));
+        dedup.commit();
+
+        assertEquals(2, unique.size());
+        assertEquals(1, dedup.getWithinCatalog());
+        assertEquals(0, dedup.getAcrossCatalogs());
+    }
+
+    /**
+     * Проверяет, что растения уже зафиксированного каталога отсеиваются, когда та же компания присылает
+     * их повторно, а растения отменённого каталога и других компаний — нет.
+     */
+    @Test
+    public void testAcrossCatalogs() {
+        PlantDeduplicator dedup = new PlantDeduplicator(BloomFilter.create(1_000, 0.001));
+        List<Plant> plants = List.of(plant("Phlox divaricata", "5.59", 7), plant("Trillium grandiflorum", "3.90", 1));
+
+        assertEquals(2, dedup.filter("Flowers", plants).size());
+        dedup.rollback();
+        assertEquals(2, dedup.filter("Flowers", plants).size());
+        dedup.commit();
+
+        // Повторная поставка приходит новым каталогом с другим UUID, но от той же компании
+        assertEquals(0, dedup.filter("Flowers", plants).size());
+        dedup.commit();
+        assertEquals(2, dedup.getAcrossCatalogs());
+
+        // Тот же набор растений у другой компании повтором не считается
+        assertEquals(2, dedup.filter("Garden", plants).size());
+    }
+
+    /**
+     * Проверяет сохранение фильтра в файл и отсутствие ложноотрицательных ответов после загрузки.
+     */
+    @Test
+    public void testFilterPersistence() throws IOException {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (long i = 0; i < 10_000; i++) {
+            filter.put(BloomFilter.mix(i));
+        }
+
+        Path file = tempDir.resolve("dedup.bloom");
+        filter.save(file);
+        BloomFilter loaded = BloomFilter.load(file);
+
+        assertEquals(10_000, loaded.size());
+        assertEquals(0.01, loaded.fpp());
+        int falsePositives = 0;
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(loaded.mightContain(BloomFilter.mix(i)));
+            if (loaded.mightContain(BloomFilter.mix(i + 1_000_000))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "Ложных срабатываний: " + falsePositives);
+    }
+
+    private static Plant plant(String botanical, String price, int availability) {
+        Plant plant = new Plant();
+        plant.setCommon("Триллиум");
+        plant.setBotanical(botanical);
+        plant.setZoneText("5");
+        plant.setLight("Тень");
+        plant.setPrice(new BigDecimal(price));
+        plant.setAvailability(availability);
+        return plant;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.xmlparser.export;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.parser.XmlPlantParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для писателей выгрузки каталогов.
+ */
+public class CatalogWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что выгруженный XML снова читается парсером без потери данных.
+     */
+    @Test
+    public void testXmlRoundTrip() throws Exception {
+        Catalog catalog = new Catalog("abc-123");
+        catalog.setCompany("Цветы & \"Сад\"");
+        catalog.setDeliveryDate(LocalDate.of(2019, 10, 12));
+
+        try (CatalogWriter writer = ExportFormat.XML.open(tempDir.resolve("catalog-1.xml"))) {
+            writer.writeHeader(catalog);
+            writer.writePlant(plant("Флокс, Голубой", "Phlox divaricata", new BigDecimal("5.59"), 21699));
+            writer.writePlant(plant("Триллиум", "Trillium grandiflorum", new BigDecimal("3.90"), 42999));
+        }
+
+        List<Catalog> parsed = XmlPlantParser.parseAll(tempDir.toString());
+        assertEquals(1, parsed.size());
+
+        Catalog result = parsed.get(0);
+        assertEquals("abc-123", result.getUuid());
+        assertEquals("Цветы & \"Сад\"", result.getCompany());
+        assertEquals(LocalDate.of(2019, 10, 12), result.getDeliveryDate());
+        assertEquals(2, result.getPlants().size());
+
+        Plant first = result.getPlants().get(0);
+        assertEquals("Флокс, Голубой", first.getCommon());
+        assertEquals("Phlox divaricata", first.getBotanical());
+        assertEquals(3, first.getZoneAsInt());
+        assertEquals(new BigDecimal("5.59"), first.getPrice());
+        assertEquals(21699, first.getAvailability());
+    }
+
+    /**
+     * Проверяет, что CSV содержит заголовок и экранирует запятые и кавычки.
+     */
+    @Test
+    public void testCsvQuoting() throws Exception {
+        Catalog catalog = new Catalog("abc-123");
+        catalog.setCompany("Flowers, \"Inc\"");
+        catalog.setDeliveryDate(LocalDate.of(2019, 10, 12));
+
+        Path file = tempDir.resolve("catalog-1.csv");
+        try (CatalogWriter writer = ExportFormat.CSV.open(file)) {
+            writer.writeHeader(catalog);
+            writer.writePlant(plant("Флокс, Голубой", "Phlox divaricata", new BigDecimal("5.59"), 21699));
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("uuid,company,delivery_date"));
+        assertEquals("abc-123,\"Flowers, \"\"Inc\"\"\",2019-10-12,\"Флокс, Голубой\",Phlox divaricata,3,Свет,5.59,21699",
+                lines.get(1));
+    }
+
+    private static Plant plant(String common, String botanical, BigDecimal price, int availability) {
+        Plant plant = new Plant();
+        plant.setCommon(common);
+        plant.setBotanical(botanical);
+        plant.setZoneText("3");
+        plant.setLight("Свет");
+        plant.setPrice(price);
+        plant.setAvailability(availability);
+        return plant;
+    }
+}
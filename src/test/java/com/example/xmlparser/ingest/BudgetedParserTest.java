@@ -0,0 +1,97 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.parser.XmlFileFinder;
+import com.example.xmlparser.parser.XmlPlantParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для разбора файлов в пределах бюджета памяти.
+ */
+public class BudgetedParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что резервирование ждёт освобождения памяти, а первый резерв выдаётся даже больше бюджета.
+     */
+    @Test
+    public void testAcquireWaitsForRelease() throws Exception {
+        HeapBudget budget = new HeapBudget(100);
+        budget.acquire(60);
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiting = new Thread(() -> {
+            try {
+                budget.acquire(60);
+                acquired.countDown();
+            } catch (Exception e) {
+                fail(e);
+            }
+        });
+        waiting.start();
+
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        budget.release(60);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(60, budget.getUsedBytes());
+        assertEquals(1, budget.getPauses());
+
+        budget.release(60);
+        budget.acquire(500);
+        assertEquals(500, budget.getUsedBytes());
+        assertTrue(budget.isOversized(100));
+        assertFalse(budget.isOversized(1));
+    }
+
+    /**
+     * Проверяет, что все файлы разбираются, пиковый резерв не превышает бюджет
+     * и после перебора вся память освобождена.
+     */
+    @Test
+    public void testParsesAllWithinBudget() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            write("catalog-" + i + ".xml", "uuid-" + i, 20);
+        }
+        List<XmlFileFinder.XmlFile> files = XmlFileFinder.find(tempDir.toString());
+        long largest = files.get(0).size();
+        HeapBudget budget = new HeapBudget(HeapBudget.estimateParse(largest) * 2);
+
+        Set<String> uuids = new HashSet<>();
+        try (BudgetedParser parser = new BudgetedParser(files, 4, null, budget)) {
+            for (XmlPlantParser.ParsedFile parsed : parser) {
+                assertNotNull(parsed.catalog());
+                assertEquals(20, parsed.catalog().getPlants().size());
+                assertTrue(budget.getUsedBytes() <= budget.getBudgetBytes());
+                uuids.add(parsed.catalog().getUuid());
+            }
+            assertThrows(IllegalStateException.class, parser::iterator);
+        }
+
+        assertEquals(6, uuids.size());
+        assertEquals(0, budget.getUsedBytes());
+        assertTrue(budget.getPeakBytes() <= budget.getBudgetBytes());
+    }
+
+    private void write(String name, String uuid, int plants) throws Exception {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<CATALOG uuid=\"").append(uuid).append("\" date=\"01.05.2024\" company=\"Клумба\">\n");
+        for (int i = 0; i < plants; i++) {
+            xml.append("<PLANT><COMMON>Роза</COMMON><BOTANICAL>Rosa</BOTANICAL><ZONE>4</ZONE>")
+                    .append("<LIGHT>Sun</LIGHT><PRICE>$2.50</PRICE><AVAILABILITY>10</AVAILABILITY></PLANT>\n");
+        }
+        xml.append("</CATALOG>\n");
+        Files.writeString(tempDir.resolve(name), xml.toString());
+    }
+}
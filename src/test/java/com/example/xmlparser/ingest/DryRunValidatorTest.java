@@ -0,0 +1,86 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.parser.XmlFileFinder;
+import com.example.xmlparser.validator.ValidationRule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для пробного запуска (разбор и валидация без базы данных).
+ */
+public class DryRunValidatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет подсчёт отклонений по файлам и правилам, ограничение числа примеров,
+     * повтор UUID в разных файлах и ошибку разбора.
+     */
+    @Test
+    public void testReport() throws Exception {
+        write("a.xml", "uuid-a", "Клумба",
+                plant("Rosa", "4", "$2.50", "10")
+                        + plant("Rosa", "0", "$2.50", "10")
+                        + plant("Rosa", "0", "$0", "10")
+                        + plant("Rosa", "0", "$1", "0"));
+        write("b.xml", "uuid-a", "Клумба", plant("Tulipa", "3", "$1", "5"));
+        write("c.xml", "uuid-c", "Q", plant("Tulipa", "3", "$1", "5"));
+        Files.writeString(tempDir.resolve("d.xml"), "<CATALOG uuid=\"uuid-d\" date=\"01.05.2024\" company=\"Сад\"><PLANT>");
+
+        DryRunValidator.Report report = new DryRunValidator(3, 2).run(XmlFileFinder.find(tempDir.toString()));
+
+        assertEquals(4, report.files().size());
+        assertEquals(3, report.rejectsByRule().get(ValidationRule.PLANT_ZONE_INVALID));
+        assertEquals(2, report.samples().get(ValidationRule.PLANT_ZONE_INVALID).size());
+        assertEquals(1, report.rejectsByRule().get(ValidationRule.PLANT_PRICE_INVALID));
+        assertEquals(1, report.rejectsByRule().get(ValidationRule.PLANT_AVAILABILITY_INVALID));
+        assertEquals(1, report.rejectsByRule().get(ValidationRule.CATALOG_COMPANY_LENGTH));
+        assertEquals(1, report.rejectsByRule().get(ValidationRule.CATALOG_DUPLICATE));
+        assertNull(report.rejectsByRule().get(ValidationRule.PLANT_CATALOG_ID_INVALID));
+
+        DryRunValidator.FileReport a = byName(report, "a.xml");
+        assertFalse(a.rejected());
+        assertEquals(4, a.plants());
+        assertEquals(3, a.plantsRejected());
+        DryRunValidator.Sample sample = a.samples().get(ValidationRule.PLANT_ZONE_INVALID).get(0);
+        assertEquals(2, sample.ordinal());
+        assertTrue(sample.record().contains("ZONE=0"));
+
+        assertTrue(byName(report, "b.xml").catalogRejected());
+        assertTrue(byName(report, "c.xml").catalogRejected());
+        assertNotNull(byName(report, "d.xml").parseError());
+
+        assertEquals(6, report.plants());
+        assertEquals(3, report.plantsRejected());
+        assertEquals(1, report.plantsAccepted());
+        assertEquals(3, report.filesRejected());
+    }
+
+    private static DryRunValidator.FileReport byName(DryRunValidator.Report report, String name) {
+        List<DryRunValidator.FileReport> matches = report.files().stream()
+                .filter(file -> file.file().getFileName().toString().equals(name))
+                .toList();
+        assertEquals(1, matches.size());
+        return matches.get(0);
+    }
+
+    private void write(String name, String uuid, String company, String plants) throws Exception {
+        // Файл b.xml больше a.xml не будет, поэтому UUID uuid-a первым встречается в a.xml
+        Files.writeString(tempDir.resolve(name), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<CATALOG uuid=\"" + uuid + "\" date=\"01.05.2024\" company=\"" + company + "\">\n"
+                + plants + "</CATALOG>\n");
+    }
+
+    private static String plant(String botanical, String zone, String price, String availability) {
+        return "<PLANT><COMMON>Роза</COMMON><BOTANICAL>" + botanical + "</BOTANICAL><ZONE>" + zone
+                + "</ZONE><LIGHT>Sun</LIGHT><PRICE>" + price + "</PRICE><AVAILABILITY>" + availability
+                + "</AVAILABILITY></PLANT>\n";
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.xmlparser.ingest;
+
+import com.example.xmlparser.config.CommandLineOptions;
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.reject.Reject;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.sink.CatalogSink;
+import com.example.xmlparser.validator.ValidationLog;
+import com.example.xmlparser.validator.ValidationRule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для встраиваемого движка загрузки (с приёмником в памяти).
+ */
+public class IngestionEngineTest {
+
+    /**
+     * Проверяет одновременную загрузку разных каталогов через один экземпляр движка
+     * и независимость двух движков с разным размером порции.
+     */
+    @Test
+    public void testConcurrentEngines() throws Exception {
+        Map<String, Integer> plantsByUuid = new ConcurrentHashMap<>();
+        AtomicInteger smallChunks = new AtomicInteger();
+        AtomicInteger largeChunks = new AtomicInteger();
+        IngestionEngine small = new IngestionEngine(
+                new IngestionConfig(CommandLineOptions.WriteMode.INSERT, 2), () -> new MemorySink(plantsByUuid, smallChunks));
+        IngestionEngine large = new IngestionEngine(
+                new IngestionConfig(CommandLineOptions.WriteMode.INSERT, 100), () -> new MemorySink(plantsByUuid, largeChunks));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CatalogStreamLoader.Result>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                IngestionEngine engine = i % 2 == 0 ? small : large;
+                String uuid = "uuid-e" + i;
+                results.add(executor.submit(() -> engine.ingest(catalog(uuid, 5))));
+            }
+            for (Future<CatalogStreamLoader.Result> result : results) {
+                assertEquals(CatalogStreamLoader.Status.SAVED, result.get().status());
+                assertEquals(5, result.get().plantsSaved());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(40, plantsByUuid.size());
+        assertTrue(plantsByUuid.values().stream().allMatch(count -> count == 5));
+        assertEquals(20 * 3, smallChunks.get());
+        assertEquals(20, largeChunks.get());
+    }
+
+    /**
+     * Проверяет, что отклонённые растения попадают в хранилище и выборочный лог своего движка, а не в общие.
+     */
+    @Test
+    public void testRejectsPerEngine() throws Exception {
+        List<Reject> firstRejects = new ArrayList<>();
+        ValidationLog firstLog = new ValidationLog(0, 1000);
+        ValidationLog secondLog = new ValidationLog(0, 1000);
+        IngestionConfig config = new IngestionConfig(CommandLineOptions.WriteMode.INSERT, 10);
+        try (RejectStore first = collecting(firstRejects, firstLog);
+             RejectStore second = collecting(new ArrayList<>(), secondLog)) {
+            Map<String, Integer> plantsByUuid = new ConcurrentHashMap<>();
+            IngestionEngine firstEngine = new IngestionEngine(config,
+                    () -> new MemorySink(plantsByUuid, new AtomicInteger()), first);
+            IngestionEngine secondEngine = new IngestionEngine(config,
+                    () -> new MemorySink(plantsByUuid, new AtomicInteger()), second);
+
+            String xml = "<CATALOG uuid=\"uuid-r\" date=\"01.05.2024\" company=\"Клумба\">"
+                    + "<PLANT><COMMON>Plant</COMMON><BOTANICAL>Planta</BOTANICAL><ZONE>4</ZONE><LIGHT>Shade</LIGHT>"
+                    + "<PRICE>$0.00</PRICE><AVAILABILITY>10</AVAILABILITY></PLANT></CATALOG>";
+            CatalogStreamLoader.Result result = firstEngine.ingest(
+                    new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+            assertEquals(1, result.plantsRejected());
+            assertEquals(CatalogStreamLoader.Status.SAVED, secondEngine.ingest(catalog("uuid-s", 2)).status());
+        }
+
+        assertEquals(1, firstRejects.size());
+        assertEquals(ValidationRule.PLANT_PRICE_INVALID, firstRejects.get(0).rule());
+        assertEquals(1, firstLog.getTotal(ValidationRule.PLANT_PRICE_INVALID));
+        assertEquals(0, secondLog.getTotal(ValidationRule.PLANT_PRICE_INVALID));
+    }
+
+    /**
+     * Проверяет, что режим staging и неположительный размер порции отклоняются.
+     */
+    @Test
+    public void testConfigValidation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new IngestionConfig(CommandLineOptions.WriteMode.STAGING, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new IngestionConfig(CommandLineOptions.WriteMode.UPSERT, 0));
+        assertEquals(CommandLineOptions.WriteMode.INSERT, IngestionConfig.defaults().writeMode());
+    }
+
+    private static RejectStore collecting(List<Reject> rejects, ValidationLog log) {
+        return new RejectStore(1, log) {
+            @Override
+            protected void write(List<Reject> batch) {
+                rejects.addAll(batch);
+            }
+        };
+    }
+
+    private static InputStream catalog(String uuid, int plants) {
+        StringBuilder xml = new StringBuilder("<CATALOG uuid=\"" + uuid + "\" date=\"01.05.2024\" company=\"Клумба\">");
+        for (int i = 0; i < plants; i++) {
+            char suffix = (char) ('a' + i);
+            xml.append("<PLANT><COMMON>Plant ").append(suffix).append("</COMMON><BOTANICAL>Planta ").append(suffix)
+                    .append("</BOTANICAL><ZONE>4</ZONE><LIGHT>Shade</LIGHT><PRICE>$2.50</PRICE>")
+                    .append("<AVAILABILITY>10</AVAILABILITY></PLANT>");
+        }
+        xml.append("</CATALOG>");
+        return new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Приёмник одного каталога в памяти; намеренно не потокобезопасен, как и реальные приёмники.
+     */
+    private static final class MemorySink implements CatalogSink {
+
+        private final Map<String, Integer> plantsByUuid;
+        private final AtomicInteger chunks;
+        private String uuid;
+        private int written;
+
+        MemorySink(Map<String, Integer> plantsByUuid, AtomicInteger chunks) {
+            this.plantsByUuid = plantsByUuid;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int beginCatalog(Catalog catalog) {
+            uuid = catalog.getUuid();
+            return Math.abs(uuid.hashCode());
+        }
+
+        @Override
+        public void writePlants(List<Plant> plants) {
+            written += plants.size();
+            chunks.incrementAndGet();
+        }
+
+        @Override
+        public int endCatalog() {
+            assertNull(plantsByUuid.put(uuid, written));
+            return written;
+        }
+
+        @Override
+        public void abortCatalog() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.xmlparser.parser;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для кэша разобранных каталогов.
+ */
+public class ParseCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что повторное обращение к неизменённому файлу не вызывает разбор
+     * и возвращает каталог без потерь, а изменение содержимого приводит к повторному разбору.
+     */
+    @Test
+    public void testHitAndInvalidation() throws Exception {
+        Path file = tempDir.resolve("plants.xml");
+        Files.writeString(file, "<CATALOG/>");
+        AtomicInteger parsed = new AtomicInteger();
+        ParseCache.Parser parser = f -> {
+            parsed.incrementAndGet();
+            return catalog();
+        };
+
+        try (ParseCache cache = new ParseCache(tempDir.resolve("cache"), 1 << 20)) {
+            cache.getOrParse(file, parser);
+            Catalog cached = cache.getOrParse(file, parser);
+
+            assertEquals(1, parsed.get());
+            assertEquals(1, cache.getHits());
+            assertEquals("uuid-1", cached.getUuid());
+            assertEquals("Клумба", cached.getCompany());
+            assertEquals(LocalDate.of(2024, 5, 1), cached.getDeliveryDate());
+            assertEquals(2, cached.getPlants().size());
+            Plant first = cached.getPlants().get(0);
+            assertEquals("Phlox divaricata", first.getBotanical());
+            assertEquals(new BigDecimal("5.59"), first.getPrice());
+            assertEquals(7, first.getAvailability());
+            assertNull(cached.getPlants().get(1).getPrice());
+            assertNull(cached.getPlants().get(1).getCommon());
+
+            Files.writeString(file, "<CATALOG />");
+            cache.getOrParse(file, parser);
+            assertEquals(2, parsed.get());
+        }
+    }
+
+    /**
+     * Проверяет вытеснение давно использованных записей при превышении лимита.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        Path cacheDir = tempDir.resolve("cache");
+        try (ParseCache cache = new ParseCache(cacheDir, 1)) {
+            for (int i = 0; i < 3; i++) {
+                Path file = tempDir.resolve("plants_" + i + ".xml");
+                Files.writeString(file, "<CATALOG/>");
+                cache.getOrParse(file, f -> catalog());
+            }
+        }
+        try (var entries = Files.list(cacheDir)) {
+            assertEquals(0, entries.count());
+        }
+    }
+
+    private static Catalog catalog() {
+        Catalog catalog = new Catalog("uuid-1");
+        catalog.setCompany("Клумба");
+        catalog.setDeliveryDate(LocalDate.of(2024, 5, 1));
+
+        Plant phlox = new Plant();
+        phlox.setCommon("Флокс");
+        phlox.setBotanical("Phlox divaricata");
+        phlox.setZoneText("3");
+        phlox.setLight("Тень");
+        phlox.setPrice(new BigDecimal("5.59"));
+        phlox.setAvailability(7);
+
+        Plant broken = new Plant();
+        broken.setBotanical("Trillium grandiflorum");
+        broken.setZoneText("abc");
+
+        catalog.setPlants(List.of(phlox, broken));
+        return catalog;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.xmlparser.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для поиска входных XML-файлов.
+ */
+public class XmlFileFinderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет рекурсивный обход папки и порядок файлов по убыванию размера.
+     */
+    @Test
+    public void testRecursiveLargestFirst() throws IOException {
+        write("small.xml", 10);
+        write("nested/deep/large.xml", 1000);
+        write("nested/medium.XML", 100);
+        write("notes.txt", 5000);
+
+        List<XmlFileFinder.XmlFile> files = XmlFileFinder.find(tempDir.toString());
+
+        assertEquals(List.of("large.xml", "medium.XML", "small.xml"), names(files));
+        assertEquals(1000, files.get(0).size());
+    }
+
+    /**
+     * Проверяет маски включения и исключения, в том числе исключение целой подпапки.
+     */
+    @Test
+    public void testIncludeExclude() throws IOException {
+        write("plants_001.xml", 10);
+        write("catalog.xml", 10);
+        write("archive/plants_000.xml", 10);
+        write("2024/plants_002.xml", 10);
+
+        List<XmlFileFinder.XmlFile> files = XmlFileFinder.find(tempDir.toString(),
+                List.of("**/plants_*.xml"), List.of("archive"));
+
+        assertEquals(List.of("plants_001.xml", "plants_002.xml"), names(files).stream().sorted().toList());
+    }
+
+    /**
+     * Проверяет маску во входном пути, в том числе вместе с масками включения, и передачу отдельного файла.
+     */
+    @Test
+    public void testMaskAndSingleFile() throws IOException {
+        write("a/plants_1.xml", 10);
+        write("a/other.xml", 10);
+        write("b/plants_2.xml", 10);
+
+        assertEquals(List.of("plants_1.xml", "plants_2.xml"),
+                names(XmlFileFinder.find(tempDir.resolve("*/plants_*.xml").toString())).stream().sorted().toList());
+        // Маска из пути и маски включения должны выполняться одновременно
+        assertEquals(List.of("plants_1.xml"), names(XmlFileFinder.find(tempDir.resolve("*/plants_*.xml").toString(),
+                List.of("a/**"), List.of())));
+        assertEquals(List.of("other.xml"), names(XmlFileFinder.find(tempDir.resolve("a/other.xml").toString())));
+        assertThrows(IllegalArgumentException.class, () -> XmlFileFinder.find(tempDir.resolve("missing").toString()));
+    }
+
+    /**
+     * Проверяет отделение маски от пути в виде строки, в том числе с разделителями Windows.
+     */
+    @Test
+    public void testSplitMask() {
+        assertEquals(new XmlFileFinder.MaskedPath("data\\", "*.xml"), XmlFileFinder.splitMask("data\\*.xml", '\\'));
+        assertEquals(new XmlFileFinder.MaskedPath("C:\\in\\", "*/plants_*.xml"),
+                XmlFileFinder.splitMask("C:\\in\\*\\plants_*.xml", '\\'));
+        assertEquals(new XmlFileFinder.MaskedPath("/", "*.xml"), XmlFileFinder.splitMask("/*.xml", '/'));
+        assertEquals(new XmlFileFinder.MaskedPath("", "**/*.xml"), XmlFileFinder.splitMask("**/*.xml", '/'));
+        assertNull(XmlFileFinder.splitMask("data/plants.xml", '/'));
+    }
+
+    private void write(String name, int size) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+
+    private static List<String> names(List<XmlFileFinder.XmlFile> files) {
+        return files.stream().map(file -> file.path().getFileName().toString()).toList();
+    }
+}
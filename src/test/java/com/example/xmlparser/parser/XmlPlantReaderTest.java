@@ -0,0 +1,98 @@
+package com.example.xmlparser.parser;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для потокового чтения растений из XML-файла.
+ */
+public class XmlPlantReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что потоковое чтение даёт тот же каталог и те же растения, что и разбор файла целиком.
+     */
+    @Test
+    public void testMatchesFullParse() throws Exception {
+        Path file = write(3);
+        Catalog parsed = XmlPlantParser.parseAll(file.toString()).get(0);
+
+        List<Plant> streamed = new ArrayList<>();
+        try (XmlPlantReader reader = new XmlPlantReader(file)) {
+            Catalog header = reader.readHeader();
+            assertEquals("uuid-r", header.getUuid());
+            assertEquals("Клумба", header.getCompany());
+            assertEquals(LocalDate.of(2024, 5, 1), header.getDeliveryDate());
+
+            Plant plant;
+            while ((plant = reader.next()) != null) {
+                streamed.add(plant);
+            }
+            assertEquals(3, reader.getOrdinal());
+        }
+
+        assertEquals(parsed.getPlants().size(), streamed.size());
+        for (int i = 0; i < streamed.size(); i++) {
+            Plant expected = parsed.getPlants().get(i);
+            Plant actual = streamed.get(i);
+            assertEquals(expected.getCommon(), actual.getCommon());
+            assertEquals(expected.getBotanical(), actual.getBotanical());
+            assertEquals(expected.getZoneText(), actual.getZoneText());
+            assertEquals(expected.getLight(), actual.getLight());
+            assertEquals(expected.getPrice(), actual.getPrice());
+            assertEquals(expected.getAvailability(), actual.getAvailability());
+        }
+        assertEquals(new BigDecimal("1.50"), streamed.get(1).getPrice());
+    }
+
+    /**
+     * Проверяет продолжение чтения после пропуска уже зафиксированных растений.
+     */
+    @Test
+    public void testSkip() throws Exception {
+        Path file = write(5);
+
+        try (XmlPlantReader reader = new XmlPlantReader(file)) {
+            reader.readHeader();
+            assertEquals(3, reader.skip(3));
+            assertEquals(3, reader.getOrdinal());
+            assertEquals("Plant 3", reader.next().getCommon());
+            assertEquals(1, reader.skip(10));
+            assertNull(reader.next());
+            assertEquals(5, reader.getOrdinal());
+        }
+    }
+
+    private Path write(int plants) throws IOException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<CATALOG uuid=\"uuid-r\" date=\"01.05.2024\" company=\"Клумба\">\n");
+        for (int i = 0; i < plants; i++) {
+            xml.append("\t<PLANT>\n")
+                    .append("\t\t<COMMON>Plant ").append(i).append("</COMMON>\n")
+                    .append("\t\t<BOTANICAL>Planta ").append(i).append("</BOTANICAL>\n")
+                    .append("\t\t<ZONE>").append(i + 1).append("</ZONE>\n")
+                    .append("\t\t<LIGHT>Shade</LIGHT>\n")
+                    .append("\t\t<PRICE>$").append(i).append(".50</PRICE>\n")
+                    .append("\t\t<AVAILABILITY>").append(i * 10).append("</AVAILABILITY>\n")
+                    .append("\t</PLANT>\n");
+        }
+        xml.append("</CATALOG>\n");
+        Path file = tempDir.resolve("plants.xml");
+        Files.writeString(file, xml.toString());
+        return file;
+    }
+}
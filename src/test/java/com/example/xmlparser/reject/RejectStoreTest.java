@@ -0,0 +1,109 @@
+package com.example.xmlparser.reject;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.validator.PlantValidator;
+import com.example.xmlparser.validator.ValidationError;
+import com.example.xmlparser.validator.ValidationRule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для пакетного сохранения отклонённых записей.
+ */
+public class RejectStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что записи передаются пакетами заданного размера, а остаток — при закрытии.
+     */
+    @Test
+    public void testWritesInBatches() {
+        List<Integer> batches = new ArrayList<>();
+        RejectStore store = new RejectStore(3) {
+            @Override
+            protected void write(List<Reject> rejects) {
+                batches.add(rejects.size());
+            }
+        };
+
+        for (int i = 0; i < 7; i++) {
+            store.add(reject(i + 1));
+        }
+        assertEquals(List.of(3, 3), batches);
+
+        store.close();
+        assertEquals(List.of(3, 3, 1), batches);
+        assertEquals(7, store.getWritten());
+    }
+
+    /**
+     * Проверяет, что после ошибки записи хранилище отключается, не прерывая загрузку.
+     */
+    @Test
+    public void testDisabledAfterFailure() {
+        List<Integer> batches = new ArrayList<>();
+        RejectStore store = new RejectStore(2) {
+            @Override
+            protected void write(List<Reject> rejects) {
+                batches.add(rejects.size());
+                throw new IllegalStateException("relation \"r_cat_reject\" does not exist");
+            }
+        };
+
+        for (int i = 0; i < 5; i++) {
+            store.add(reject(i + 1));
+        }
+        store.close();
+
+        assertEquals(List.of(2), batches);
+        assertEquals(0, store.getWritten());
+    }
+
+    /**
+     * Проверяет запись ошибок каталога и растения в CSV-файл с кодами правил и экранированием полей.
+     */
+    @Test
+    public void testCsvStore() throws Exception {
+        Path file = tempDir.resolve("rejects.csv");
+        Catalog catalog = new Catalog("uuid-1");
+        Plant plant = new Plant();
+        plant.setCommon("Роза, садовая");
+        plant.setBotanical("Rosa");
+        plant.setZoneText("4");
+        plant.setLight("Sun");
+        plant.setPrice(BigDecimal.ZERO);
+        plant.setAvailability(10);
+        plant.setCatalogId(1);
+
+        try (RejectStore store = new CsvRejectStore(file, 100)) {
+            store.rejectCatalog("data/a.xml", catalog, List.of(new ValidationError(ValidationRule.CATALOG_COMPANY_EMPTY,
+                    "Название компании не может быть пустым")));
+            store.rejectPlant("data/a.xml", catalog.getUuid(), 2, plant, PlantValidator.check(plant));
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("file_path,catalog_uuid,plant_ordinal,error_code"));
+        assertEquals("data/a.xml,uuid-1,,CATALOG_COMPANY_EMPTY,Название компании не может быть пустым,,,,,,",
+                lines.get(1));
+        assertEquals("data/a.xml,uuid-1,2,PLANT_PRICE_INVALID,Цена должна быть положительной,"
+                + "\"Роза, садовая\",Rosa,4,Sun,0,10", lines.get(2));
+    }
+
+    private static Reject reject(int ordinal) {
+        return new Reject("data/a.xml", "uuid-1", ordinal, ValidationRule.PLANT_PRICE_INVALID,
+                "Цена должна быть положительной", null, "Rosa", "4", "Sun", "0", "10");
+    }
+}
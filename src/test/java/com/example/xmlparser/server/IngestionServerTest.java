@@ -0,0 +1,193 @@
+package com.example.xmlparser.server;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import com.example.xmlparser.reject.Reject;
+import com.example.xmlparser.reject.RejectStore;
+import com.example.xmlparser.service.DuplicateCatalogException;
+import com.example.xmlparser.sink.CatalogSink;
+import com.example.xmlparser.validator.ValidationRule;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для HTTP-сервера приёма каталогов (без базы данных, с приёмником в памяти).
+ */
+public class IngestionServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Проверяет сохранение каталога, отклонение невалидных растений, повторный UUID и некорректный XML.
+     */
+    @Test
+    public void testPostCatalog() throws Exception {
+        MemorySink sink = new MemorySink(null);
+        try (IngestionServer server = new IngestionServer(new InetSocketAddress("localhost", 0), 2, 2, 2, () -> sink)) {
+            server.start();
+
+            HttpResponse<String> saved = post(server, catalog("uuid-h1", 5));
+            assertEquals(200, saved.statusCode());
+            assertTrue(saved.body().contains("\"status\":\"SAVED\""), saved.body());
+            assertTrue(saved.body().contains("\"plantsSaved\":4"), saved.body());
+            assertTrue(saved.body().contains("\"plantsRejected\":1"), saved.body());
+            assertEquals(4, sink.plants.get());
+
+            assertEquals(409, post(server, catalog("uuid-h1", 1)).statusCode());
+            assertEquals(422, post(server, catalog("", 1)).statusCode());
+            assertEquals(400, post(server, "<CATALOG uuid=\"x\"><PLANT>").statusCode());
+
+            HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri(server)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, get.statusCode());
+        }
+    }
+
+    /**
+     * Проверяет, что отклонённые растения, каталоги и повторные UUID сохраняются в хранилище сервера,
+     * которое закрывается вместе с ним.
+     */
+    @Test
+    public void testRejectsStored() throws Exception {
+        MemorySink sink = new MemorySink(null);
+        List<Reject> stored = new ArrayList<>();
+        RejectStore rejects = new RejectStore(100) {
+            @Override
+            protected void write(List<Reject> batch) {
+                stored.addAll(batch);
+            }
+        };
+        try (IngestionServer server = new IngestionServer(new InetSocketAddress("localhost", 0), 1, 1, 2, () -> sink,
+                rejects)) {
+            server.start();
+            assertEquals(200, post(server, catalog("uuid-h4", 3)).statusCode());
+            assertEquals(422, post(server, catalog("", 1)).statusCode());
+            assertEquals(409, post(server, catalog("uuid-h4", 1)).statusCode());
+        }
+
+        assertEquals(3, stored.size());
+        assertEquals(ValidationRule.PLANT_PRICE_INVALID, stored.get(0).rule());
+        assertEquals(3, stored.get(0).plantOrdinal());
+        assertNotNull(stored.get(0).file());
+        assertEquals(ValidationRule.CATALOG_UUID_EMPTY, stored.get(1).rule());
+        assertEquals(ValidationRule.CATALOG_DUPLICATE, stored.get(2).rule());
+        assertEquals("uuid-h4", stored.get(2).catalogUuid());
+    }
+
+    /**
+     * Проверяет, что при занятых потоках и заполненной очереди запрос сразу получает 429.
+     */
+    @Test
+    public void testOverloaded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MemorySink sink = new MemorySink(release);
+        try (IngestionServer server = new IngestionServer(new InetSocketAddress("localhost", 0), 1, 0, 100, () -> sink)) {
+            server.start();
+
+            CompletableFuture<HttpResponse<String>> blocked = client.sendAsync(
+                    request(server, catalog("uuid-h2", 1)), HttpResponse.BodyHandlers.ofString());
+            assertTrue(sink.begun.await(10, TimeUnit.SECONDS));
+
+            HttpResponse<String> rejected = post(server, catalog("uuid-h3", 1));
+            assertEquals(429, rejected.statusCode());
+            assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(1, server.getOverloaded());
+
+            release.countDown();
+            assertEquals(200, blocked.get(10, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    private HttpResponse<String> post(IngestionServer server, String xml) throws IOException, InterruptedException {
+        return client.send(request(server, xml), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest request(IngestionServer server, String xml) {
+        return HttpRequest.newBuilder(uri(server)).POST(HttpRequest.BodyPublishers.ofString(xml)).build();
+    }
+
+    private static URI uri(IngestionServer server) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + IngestionServer.PATH);
+    }
+
+    /**
+     * Каталог из {@code plants} растений; последнее растение невалидно, если растений больше одного.
+     */
+    private static String catalog(String uuid, int plants) {
+        StringBuilder xml = new StringBuilder("<CATALOG uuid=\"" + uuid + "\" date=\"01.05.2024\" company=\"Клумба\">");
+        for (int i = 0; i < plants; i++) {
+            String price = plants > 1 && i == plants - 1 ? "-1" : "$2.50";
+            char suffix = (char) ('a' + i);
+            xml.append("<PLANT><COMMON>Plant ").append(suffix).append("</COMMON><BOTANICAL>Planta ").append(suffix)
+                    .append("</BOTANICAL><ZONE>4</ZONE><LIGHT>Shade</LIGHT><PRICE>").append(price)
+                    .append("</PRICE><AVAILABILITY>10</AVAILABILITY></PLANT>");
+        }
+        return xml.append("</CATALOG>").toString();
+    }
+
+    /**
+     * Приёмник в памяти; при заданном {@code release} задерживает запись до его срабатывания.
+     */
+    private static final class MemorySink implements CatalogSink {
+
+        private final CountDownLatch release;
+        private final CountDownLatch begun = new CountDownLatch(1);
+        private final Set<String> uuids = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger ids = new AtomicInteger();
+        private final AtomicInteger plants = new AtomicInteger();
+
+        MemorySink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public int beginCatalog(Catalog catalog) throws IOException {
+            if (!uuids.add(catalog.getUuid())) {
+                throw new DuplicateCatalogException(catalog.getUuid());
+            }
+            begun.countDown();
+            if (release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            return ids.incrementAndGet();
+        }
+
+        @Override
+        public void writePlants(List<Plant> batch) {
+            plants.addAndGet(batch.size());
+        }
+
+        @Override
+        public int endCatalog() {
+            return plants.get();
+        }
+
+        @Override
+        public void abortCatalog() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
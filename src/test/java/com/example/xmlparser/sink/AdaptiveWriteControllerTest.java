@@ -0,0 +1,93 @@
+package com.example.xmlparser.sink;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для регулятора адаптивной записи (с управляемыми часами).
+ */
+public class AdaptiveWriteControllerTest {
+
+    private static final long MS = 1_000_000L;
+
+    /**
+     * Проверяет аддитивное увеличение при быстрых обращениях, мультипликативное уменьшение при превышении
+     * целевого времени и при ошибке, а также соблюдение границ.
+     */
+    @Test
+    public void testIncreaseAndDecrease() {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveWriteController controller = new AdaptiveWriteController(100, 1700, 1, 4, 50, clock::get);
+        List<AdaptiveWriteController.Settings> notified = new ArrayList<>();
+        controller.setListener(notified::add);
+
+        assertEquals(new AdaptiveWriteController.Settings(1000, 1, 0), controller.getSettings());
+
+        // Окно из двух фиксаций по 10 мс на обращение: увеличение на шаг (1600 / 16) и одного писателя
+        commitWindow(controller, clock, 2, 1000, 10 * MS);
+        assertEquals(new AdaptiveWriteController.Settings(1100, 2, 1), controller.getSettings());
+
+        commitWindow(controller, clock, 2, 1200, 10 * MS);
+        commitWindow(controller, clock, 3, 1400, 10 * MS);
+        commitWindow(controller, clock, 4, 1600, 10 * MS);
+        assertEquals(4, controller.getSettings().writers());
+        assertEquals(1400, controller.getSettings().batchSize());
+
+        // Медленные обращения: размер пакета и число писателей уменьшаются вдвое
+        commitWindow(controller, clock, 4, 1600, 80 * MS);
+        assertEquals(new AdaptiveWriteController.Settings(700, 2, 5), controller.getSettings());
+
+        controller.onFailure();
+        controller.onFailure();
+        controller.onFailure();
+        assertEquals(100, controller.getSettings().batchSize());
+        assertEquals(1, controller.getSettings().writers());
+
+        assertEquals(controller.getSettings(), notified.get(notified.size() - 1));
+    }
+
+    /**
+     * Проверяет, что падение пропускной способности после увеличения уменьшает только число писателей.
+     */
+    @Test
+    public void testThroughputDrop() {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveWriteController controller = new AdaptiveWriteController(100, 1700, 1, 8, 50, clock::get);
+
+        commitWindow(controller, clock, 2, 1000, 10 * MS);
+        commitWindow(controller, clock, 2, 1000, 10 * MS);
+        AdaptiveWriteController.Settings before = controller.getSettings();
+        assertEquals(3, before.writers());
+
+        // Та же работа за вдвое большее время
+        commitWindow(controller, clock, 3, 500, 10 * MS);
+        assertEquals(before.batchSize(), controller.getSettings().batchSize());
+        assertEquals(1, controller.getSettings().writers());
+    }
+
+    /**
+     * Проверяет отклонение некорректных границ.
+     */
+    @Test
+    public void testInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveWriteController(100, 50, 1, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveWriteController(1, 50, 0, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveWriteController(1, 50, 1, 2, 0));
+    }
+
+    /**
+     * Сообщает о {@code commits} фиксациях, растянутых на секунду, с заданным временем одного обращения.
+     */
+    private static void commitWindow(AdaptiveWriteController controller, AtomicLong clock, int commits,
+                                     int rowsPerCommit, long nanosPerCall) {
+        for (int i = 0; i < commits; i++) {
+            clock.addAndGet(1000 * MS / commits);
+            controller.onCommit(rowsPerCommit, 10, 10 * nanosPerCall);
+        }
+    }
+}
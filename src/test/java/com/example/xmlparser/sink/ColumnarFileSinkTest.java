@@ -0,0 +1,172 @@
+package com.example.xmlparser.sink;
+
+import com.example.xmlparser.model.Catalog;
+import com.example.xmlparser.model.Plant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для колоночного приёмника и его чтения.
+ */
+public class ColumnarFileSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Проверяет, что каталоги и растения читаются обратно без потерь,
+     * в том числе при разбиении растений на несколько блоков.
+     */
+    @Test
+    public void testRoundTripAcrossBlocks() throws IOException {
+        Path file = tempDir.resolve("plants.xpc");
+
+        try (ColumnarFileSink sink = new ColumnarFileSink(file, 2)) {
+            int first = sink.beginCatalog(catalog("uuid-1"));
+            sink.writePlants(List.of(
+                    plant(first, "Флокс", "Phlox divaricata", new BigDecimal("5.59")),
+                    plant(first, null, "Phlox divaricata", null),
+                    plant(first, "Флокс", "Claytonia Virginica", new BigDecimal("10"))));
+            assertEquals(3, sink.endCatalog());
+
+            int second = sink.beginCatalog(catalog("uuid-2"));
+            sink.writePlants(List.of(plant(second, "Триллиум", "Trillium grandiflorum", new BigDecimal("3.90"))));
+            assertEquals(1, sink.endCatalog());
+        }
+
+        List<Catalog> catalogs = new ArrayList<>();
+        List<Plant> plants = new ArrayList<>();
+        try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+            reader.read(new ColumnarFileReader.Visitor() {
+                @Override
+                public void onCatalog(Catalog catalog) {
+                    catalogs.add(catalog);
+                }
+
+                @Override
+                public void onPlants(PlantColumns columns) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        plants.add(columns.toPlant(i));
+                    }
+                }
+            });
+        }
+
+        assertEquals(2, catalogs.size());
+        assertEquals("uuid-1", catalogs.get(0).getUuid());
+        assertEquals(1, catalogs.get(0).getId());
+        assertEquals(LocalDate.of(2019, 10, 12), catalogs.get(0).getDeliveryDate());
+
+        assertEquals(4, plants.size());
+        assertEquals("Флокс", plants.get(0).getCommon());
+        assertEquals(new BigDecimal("5.59"), plants.get(0).getPrice());
+        assertNull(plants.get(1).getCommon());
+        assertNull(plants.get(1).getPrice());
+        assertEquals("Claytonia Virginica", plants.get(2).getBotanical());
+        assertEquals(2, plants.get(3).getCatalogId());
+        assertEquals(4, plants.get(3).getZoneAsInt());
+    }
+
+    /**
+     * Проверяет, что отменённый каталог не попадает в файл, если его растения ещё не сброшены.
+     */
+    @Test
+    public void testAbortDiscardsBufferedPlants() throws IOException {
+        Path file = tempDir.resolve("plants.xpc");
+
+        try (ColumnarFileSink sink = new ColumnarFileSink(file, 100)) {
+            int id = sink.beginCatalog(catalog("uuid-1"));
+            sink.writePlants(List.of(plant(id, "Флокс", "Phlox divaricata", BigDecimal.ONE)));
+            sink.abortCatalog();
+        }
+
+        List<Catalog> catalogs = new ArrayList<>();
+        List<Plant> plants = new ArrayList<>();
+        readAll(file, catalogs, plants);
+        assertTrue(catalogs.isEmpty());
+        assertTrue(plants.isEmpty());
+    }
+
+    /**
+     * Проверяет, что каталог, отменённый после сброса части растений, пропускается при чтении вместе с ними,
+     * а растения соседних каталогов из тех же блоков сохраняются.
+     */
+    @Test
+    public void testAbortSkipsFlushedBlocks() throws IOException {
+        Path file = tempDir.resolve("plants.xpc");
+
+        try (ColumnarFileSink sink = new ColumnarFileSink(file, 2)) {
+            int first = sink.beginCatalog(catalog("uuid-1"));
+            sink.writePlants(List.of(plant(first, "Флокс", "Phlox divaricata", BigDecimal.ONE)));
+            sink.endCatalog();
+
+            int aborted = sink.beginCatalog(catalog("uuid-2"));
+            sink.writePlants(List.of(
+                    plant(aborted, "Триллиум", "Trillium grandiflorum", BigDecimal.TEN),
+                    plant(aborted, "Триллиум", "Trillium grandiflorum", BigDecimal.TEN),
+                    plant(aborted, "Триллиум", "Trillium grandiflorum", BigDecimal.TEN)));
+            sink.abortCatalog();
+
+            int third = sink.beginCatalog(catalog("uuid-3"));
+            sink.writePlants(List.of(plant(third, "Флокс", "Claytonia Virginica", BigDecimal.ONE)));
+            sink.endCatalog();
+
+            // Незавершённый к закрытию каталог отменяется
+            int unfinished = sink.beginCatalog(catalog("uuid-4"));
+            sink.writePlants(List.of(plant(unfinished, "Флокс", "Phlox divaricata", BigDecimal.ONE)));
+        }
+
+        List<Catalog> catalogs = new ArrayList<>();
+        List<Plant> plants = new ArrayList<>();
+        readAll(file, catalogs, plants);
+        assertEquals(List.of("uuid-1", "uuid-3"), catalogs.stream().map(Catalog::getUuid).toList());
+        assertEquals(List.of("Phlox divaricata", "Claytonia Virginica"),
+                plants.stream().map(Plant::getBotanical).toList());
+    }
+
+    private static void readAll(Path file, List<Catalog> catalogs, List<Plant> plants) throws IOException {
+        try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+            reader.read(new ColumnarFileReader.Visitor() {
+                @Override
+                public void onCatalog(Catalog catalog) {
+                    catalogs.add(catalog);
+                }
+
+                @Override
+                public void onPlants(PlantColumns columns) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        plants.add(columns.toPlant(i));
+                    }
+                }
+            });
+        }
+    }
+
+    private static Catalog catalog(String uuid) {
+        Catalog catalog = new Catalog(uuid);
+        catalog.setCompany("Flowers");
+        catalog.setDeliveryDate(LocalDate.of(2019, 10, 12));
+        return catalog;
+    }
+
+    private static Plant plant(int catalogId, String common, String botanical, BigDecimal price) {
+        Plant plant = new Plant();
+        plant.setCatalogId(catalogId);
+        plant.setCommon(common);
+        plant.setBotanical(botanical);
+        plant.setZoneText("4");
+        plant.setLight("Тень");
+        plant.setPrice(price);
+        plant.setAvailability(7);
+        return plant;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.xmlparser.validator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-тесты для выборочной записи ошибок валидации в лог (с управляемыми часами).
+ */
+public class ValidationLogTest {
+
+    private static final long MS = 1_000_000L;
+
+    /**
+     * Проверяет, что полностью записываются только первые нарушения каждого правила,
+     * а остальные выводятся сводкой не чаще раза в интервал.
+     */
+    @Test
+    public void testSamplesAndRateLimitedSummary() {
+        AtomicLong clock = new AtomicLong();
+        ValidationLog log = new ValidationLog(2, 1000, clock::get);
+
+        for (int i = 0; i < 10_000; i++) {
+            log.record(ValidationRule.PLANT_PRICE_INVALID, "Rosa", "Цена должна быть положительной");
+        }
+        log.record(ValidationRule.PLANT_ZONE_INVALID, "Rosa", "Зона должна быть положительным числом");
+        // Два примера цены и один пример зоны, сводки ещё не было
+        assertEquals(3, log.getLines());
+        assertEquals(10_000, log.getTotal(ValidationRule.PLANT_PRICE_INVALID));
+
+        clock.addAndGet(999 * MS);
+        log.record(ValidationRule.PLANT_PRICE_INVALID, "Rosa", "Цена должна быть положительной");
+        assertEquals(3, log.getLines());
+
+        clock.addAndGet(MS);
+        log.record(ValidationRule.PLANT_PRICE_INVALID, "Rosa", "Цена должна быть положительной");
+        log.record(ValidationRule.PLANT_PRICE_INVALID, "Rosa", "Цена должна быть положительной");
+        assertEquals(4, log.getLines());
+
+        log.flush();
+        log.flush();
+        assertEquals(5, log.getLines());
+    }
+
+    /**
+     * Проверяет отклонение некорректных параметров.
+     */
+    @Test
+    public void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new ValidationLog(-1, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ValidationLog(3, 0));
+    }
+}